@@ -1,6 +1,11 @@
 CREATE DATABASE IF NOT EXISTS reservas_salas;
 USE reservas_salas;
+-- Los índices los crea la aplicación al arrancar (src/main/resources/db/migraciones).
+-- Se borra el registro de migraciones para que se vuelvan a aplicar sobre las tablas nuevas.
+DROP TABLE IF EXISTS version_esquema;
 DROP TABLE IF EXISTS reservas;
+DROP TABLE IF EXISTS series_reservas;
+DROP TABLE IF EXISTS reservas_archivo;
 DROP TABLE IF EXISTS salas;
 DROP TABLE IF EXISTS empleados;
 CREATE TABLE empleados (
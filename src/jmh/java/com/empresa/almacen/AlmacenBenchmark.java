@@ -0,0 +1,107 @@
+package com.empresa.almacen;
+
+import com.empresa.benchmark.DatosBenchmark;
+import com.empresa.reservas.IndiceDisponibilidad;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.CacheSalas;
+import com.empresa.salas.Sala;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latencia de las operaciones de una sesión con el almacén JDBC (H2 en memoria, con la caché de
+ * salas y el índice de disponibilidad cargados) y con el motor embebido sobre los mismos datos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlmacenBenchmark {
+
+    private static final int DURACION_MINUTOS = 30;
+
+    @Param("50")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("30")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+    @Param({"jdbc", "embebido"})
+    private String almacen;
+
+    private Connection conn;
+    private AlmacenEmbebido embebido;
+    private Path directorio;
+    private Sesion sesion;
+    private PrintStream consola;
+    private int minutosAbierto;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        if (almacen.equals("jdbc")) {
+            CacheSalas.getInstancia().cargar(conn);
+            IndiceDisponibilidad.getInstancia().cargar(conn);
+            sesion = AlmacenJdbc.sesion(conn);
+        } else {
+            directorio = Files.createTempDirectory("almacen-benchmark");
+            embebido = AlmacenEmbebido.abrir(directorio);
+            sesion = embebido.abrirSesion();
+            DatosBenchmark.copiar(conn, sesion);
+        }
+        minutosAbierto = (DatosBenchmark.CIERRE.toSecondOfDay() - DatosBenchmark.APERTURA.toSecondOfDay()) / 60;
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException, IOException {
+        CacheSalas.getInstancia().invalidar();
+        IndiceDisponibilidad.getInstancia().invalidar();
+        conn.close();
+        if (embebido != null) {
+            embebido.close();
+            try (Stream<Path> ficheros = Files.walk(directorio)) {
+                for (Path fichero : ficheros.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(fichero);
+                }
+            }
+        }
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public Sala buscarSalaPorNombre() throws SQLException {
+        return sesion.salas().buscarPorNombre(DatosBenchmark.nombreSala(1 + ThreadLocalRandom.current().nextInt(salas)));
+    }
+
+    @Benchmark
+    public ServicioReservas.Resultado crearYEliminarReserva() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sala = 1 + random.nextInt(salas);
+        // Días posteriores a los generados: la reserva no tiene conflictos y se escribe siempre
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(dias + random.nextInt(dias));
+        LocalTime inicio = DatosBenchmark.APERTURA.plusMinutes(random.nextInt(minutosAbierto - DURACION_MINUTOS));
+        ServicioReservas.Resultado resultado = sesion.reservas().crear(sala, 1 + random.nextInt(empleados), fecha,
+                inicio, inicio.plusMinutes(DURACION_MINUTOS));
+        if (resultado.estado() == ServicioReservas.Estado.CREADA) {
+            sesion.reservas().eliminar(resultado.id());
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,190 @@
+package com.empresa.api;
+
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.benchmark.DatosBenchmark;
+import com.empresa.conexion.PoolConexiones;
+import com.empresa.reservas.IndiceDisponibilidad;
+import com.empresa.salas.CacheSalas;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prueba de carga de {@link ServidorApi}: miles de clientes simultáneos, cada uno en un hilo virtual,
+ * envían peticiones sin pausa durante un tiempo fijo y se mide el rendimiento sostenido (peticiones
+ * por segundo) y la distribución de latencias (p50, p99, máximo) tras un calentamiento.
+ * <p>
+ * El servidor trabaja sobre {@link AlmacenJdbc} con H2 en memoria (modo MySQL) y las cachés cargadas,
+ * como la aplicación; la mezcla de peticiones es un 60 % de páginas de reservas filtradas por sala,
+ * un 25 % de páginas de salas y un 15 % de altas de reservas, que con el tiempo chocan cada vez más.
+ * H2 no tiene latencia de red, así que con MySQL las cifras absolutas serán menores, pero la forma de
+ * la curva (cola del pool, p99) es la misma. Se ejecuta con:
+ * <pre>
+ * java -Dclientes=2000 -Dsegundos=20 -cp target/benchmarks.jar com.empresa.api.PruebaCargaApi
+ * </pre>
+ * Parámetros (propiedades del sistema): {@code clientes} (2000), {@code segundos} (20),
+ * {@code calentamiento} en segundos (5), {@code pool} conexiones (10), {@code salas} (200).
+ */
+public final class PruebaCargaApi {
+
+    private static final int CLIENTES = Integer.getInteger("clientes", 2000);
+    private static final int SEGUNDOS = Integer.getInteger("segundos", 20);
+    private static final int CALENTAMIENTO = Integer.getInteger("calentamiento", 5);
+    private static final int POOL = Integer.getInteger("pool", 10);
+    private static final int SALAS = Integer.getInteger("salas", 200);
+    private static final int EMPLEADOS = 1000;
+    private static final int DIAS_CON_RESERVAS = 20;
+    private static final int RESERVAS_POR_DIA = 8;
+
+    private PruebaCargaApi() {
+    }
+
+    /**
+     * Latencias y códigos de respuesta de un cliente; solo lo escribe su propio hilo.
+     */
+    private static final class Muestras {
+
+        private long[] nanos = new long[1024];
+        private int tamano;
+        private final Map<Integer, Integer> codigos = new TreeMap<>();
+
+        void anadir(long latencia, int codigo) {
+            if (tamano == nanos.length) {
+                nanos = Arrays.copyOf(nanos, tamano * 2);
+            }
+            nanos[tamano++] = latencia;
+            codigos.merge(codigo, 1, Integer::sum);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream consola = DatosBenchmark.silenciarConsola();
+        Connection conn = DatosBenchmark.crear(SALAS, EMPLEADOS, DIAS_CON_RESERVAS, RESERVAS_POR_DIA);
+        String url = conn.getMetaData().getURL();
+        CacheSalas.getInstancia().cargar(conn);
+        IndiceDisponibilidad.getInstancia().cargar(conn);
+        System.setOut(consola);
+
+        try (AlmacenJdbc almacen = new AlmacenJdbc(new PoolConexiones(() -> DriverManager.getConnection(url, "sa", ""),
+                POOL, Duration.ofSeconds(30), Duration.ofMinutes(5)));
+             ServidorApi servidor = ServidorApi.iniciar(almacen, new InetSocketAddress("localhost", 0))) {
+            HttpClient cliente = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            String base = "http://localhost:" + servidor.getPuerto() + ServidorApi.RUTA;
+
+            System.out.printf("Prueba de carga: %d clientes, %d s (+%d s de calentamiento), pool de %d conexiones%n",
+                    CLIENTES, SEGUNDOS, CALENTAMIENTO, POOL);
+            long inicioMedida = System.nanoTime() + CALENTAMIENTO * 1_000_000_000L;
+            long fin = inicioMedida + SEGUNDOS * 1_000_000_000L;
+
+            List<Future<Muestras>> resultados = new ArrayList<>(CLIENTES);
+            try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < CLIENTES; i++) {
+                    SplittableRandom random = new SplittableRandom(DatosBenchmark.SEMILLA + i);
+                    resultados.add(clientes.submit(() -> simularCliente(cliente, base, random, inicioMedida, fin)));
+                }
+            }
+            informar(resultados, servidor.getEstadisticas());
+        } finally {
+            CacheSalas.getInstancia().invalidar();
+            IndiceDisponibilidad.getInstancia().invalidar();
+            conn.close();
+        }
+    }
+
+    private static Muestras simularCliente(HttpClient cliente, String base, SplittableRandom random,
+                                           long inicioMedida, long fin) throws InterruptedException {
+        Muestras muestras = new Muestras();
+        long ahora;
+        while ((ahora = System.nanoTime()) < fin) {
+            HttpRequest peticion = siguientePeticion(base, random);
+            int codigo;
+            try {
+                codigo = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                codigo = 0;
+            }
+            if (ahora >= inicioMedida) {
+                muestras.anadir(System.nanoTime() - ahora, codigo);
+            }
+        }
+        return muestras;
+    }
+
+    private static HttpRequest siguientePeticion(String base, SplittableRandom random) {
+        int tipo = random.nextInt(100);
+        int sala = 1 + random.nextInt(SALAS);
+        if (tipo < 60) {
+            LocalDate desde = DatosBenchmark.PRIMER_DIA.plusDays(random.nextInt(DIAS_CON_RESERVAS));
+            return HttpRequest.newBuilder(URI.create(base + "reservas?limite=20&sala=Sala%20" + sala
+                    + "&desde=" + desde)).build();
+        }
+        if (tipo < 85) {
+            return HttpRequest.newBuilder(URI.create(base + "salas?limite=50&despues=" + random.nextInt(SALAS)))
+                    .build();
+        }
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(DIAS_CON_RESERVAS + random.nextInt(30));
+        int hora = 8 + random.nextInt(12);
+        String cuerpo = String.format("{\"sala\": %d, \"empleadoId\": %d, \"fecha\": \"%s\", "
+                        + "\"horaInicio\": \"%02d:00\", \"horaFin\": \"%02d:00\"}",
+                sala, 1 + random.nextInt(EMPLEADOS), fecha, hora, hora + 1);
+        return HttpRequest.newBuilder(URI.create(base + "reservas"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    private static void informar(List<Future<Muestras>> resultados, ServidorApi.Estadisticas servidor)
+            throws Exception {
+        int total = 0;
+        for (Future<Muestras> resultado : resultados) {
+            total += resultado.get().tamano;
+        }
+        long[] latencias = new long[total];
+        Map<Integer, Integer> codigos = new TreeMap<>();
+        int posicion = 0;
+        for (Future<Muestras> resultado : resultados) {
+            Muestras muestras = resultado.get();
+            System.arraycopy(muestras.nanos, 0, latencias, posicion, muestras.tamano);
+            posicion += muestras.tamano;
+            muestras.codigos.forEach((codigo, n) -> codigos.merge(codigo, n, Integer::sum));
+        }
+        Arrays.sort(latencias);
+
+        System.out.printf("Peticiones medidas: %d (%.0f peticiones/s sostenidas)%n", total, (double) total / SEGUNDOS);
+        if (total > 0) {
+            System.out.printf("Latencia: p50 %.1f ms | p90 %.1f ms | p99 %.1f ms | máx %.1f ms%n",
+                    percentil(latencias, 0.50), percentil(latencias, 0.90), percentil(latencias, 0.99),
+                    latencias[total - 1] / 1e6);
+        }
+        System.out.println("Códigos de respuesta (0 = error de conexión): " + codigos);
+        System.out.printf("Servidor (con calentamiento): %d peticiones, %d errores 4xx, %d errores 5xx%n",
+                servidor.peticiones(), servidor.erroresCliente(), servidor.erroresServidor());
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
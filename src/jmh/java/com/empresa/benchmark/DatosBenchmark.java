@@ -0,0 +1,190 @@
+package com.empresa.benchmark;
+
+import com.empresa.almacen.Sesion;
+import com.empresa.esquema.MigradorEsquema;
+import com.empresa.salas.CatalogoRecursos;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera el conjunto de datos de los benchmarks en una base de datos H2 en memoria (modo MySQL).
+ * <p>
+ * El esquema se crea con las mismas migraciones que usa la aplicación y los datos dependen solo
+ * de los tamaños y de la semilla, de modo que dos ejecuciones con los mismos parámetros miden
+ * exactamente lo mismo.
+ */
+public final class DatosBenchmark {
+
+    /** Primer día con reservas. */
+    public static final LocalDate PRIMER_DIA = LocalDate.of(2025, 1, 6);
+    /** Horario en el que se reparten las reservas de cada día. */
+    public static final LocalTime APERTURA = LocalTime.of(8, 0);
+    public static final LocalTime CIERRE = LocalTime.of(20, 0);
+    /** Semilla fija para que los datos sean reproducibles. */
+    public static final long SEMILLA = 20250106L;
+
+    private static final int TAMANO_LOTE = 1000;
+    private static final AtomicInteger BASES_CREADAS = new AtomicInteger();
+    private static final String[] DEPARTAMENTOS = {"TI", "Finanzas", "Marketing", "Legal", "Recursos Humanos"};
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * Crea una base de datos nueva con los tamaños indicados y devuelve una conexión a ella.
+     *
+     * @param salas          Número de salas ("Sala 1" ... "Sala n").
+     * @param empleados      Número de empleados.
+     * @param dias           Número de días con reservas a partir de {@link #PRIMER_DIA}.
+     * @param reservasPorDia Reservas de cada sala en cada día, sin solapamientos entre ellas.
+     * @return Conexión en modo autocommit a la base de datos creada.
+     * @throws SQLException si falla la creación.
+     */
+    public static Connection crear(int salas, int empleados, int dias, int reservasPorDia) throws SQLException {
+        String url = "jdbc:h2:mem:benchmark" + BASES_CREADAS.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        Connection conn = DriverManager.getConnection(url, "sa", "");
+        MigradorEsquema.migrar(conn);
+
+        SplittableRandom random = new SplittableRandom(SEMILLA);
+        conn.setAutoCommit(false);
+        insertarSalas(conn, salas, random);
+        insertarEmpleados(conn, empleados, random);
+        insertarReservas(conn, salas, empleados, dias, reservasPorDia, random);
+        conn.commit();
+        conn.setAutoCommit(true);
+        return conn;
+    }
+
+    /**
+     * Copia a otro almacén (normalmente el embebido) las filas de una base de datos generada,
+     * en orden de ID para conservarlos.
+     *
+     * @param origen  Conexión a la base de datos generada.
+     * @param destino Sesión del almacén vacío de destino.
+     * @throws SQLException si falla la lectura o la escritura.
+     */
+    public static void copiar(Connection origen, Sesion destino) throws SQLException {
+        try (Statement stmt = origen.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT nombre, capacidad, recursos FROM salas ORDER BY id")) {
+                while (rs.next()) {
+                    destino.salas().insertar(rs.getString(1), rs.getInt(2), rs.getString(3));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT nombre, email, departamento FROM empleados ORDER BY id")) {
+                while (rs.next()) {
+                    destino.empleados().insertar(rs.getString(1), rs.getString(2), rs.getString(3));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT sala_id, empleado_id, fecha, hora_inicio, hora_fin FROM reservas ORDER BY id")) {
+                while (rs.next()) {
+                    destino.reservas().crear(rs.getInt(1), rs.getInt(2), rs.getDate(3).toLocalDate(),
+                            rs.getTime(4).toLocalTime(), rs.getTime(5).toLocalTime());
+                }
+            }
+        }
+    }
+
+    /**
+     * Nombre de la sala con el ID indicado.
+     *
+     * @param id ID de la sala (empieza en 1).
+     * @return Nombre de la sala.
+     */
+    public static String nombreSala(int id) {
+        return "Sala " + id;
+    }
+
+    /**
+     * Duración de cada hueco del día cuando hay el número de reservas indicado.
+     *
+     * @param reservasPorDia Reservas por sala y día.
+     * @return Minutos de cada hueco.
+     */
+    public static int minutosPorHueco(int reservasPorDia) {
+        int minutos = (CIERRE.toSecondOfDay() - APERTURA.toSecondOfDay()) / 60;
+        return Math.max(1, minutos / Math.max(1, reservasPorDia));
+    }
+
+    /**
+     * Sustituye la salida estándar por una que descarta todo, para que los listados por consola
+     * no midan la velocidad del terminal.
+     *
+     * @return Salida estándar original, para restaurarla al terminar.
+     */
+    public static PrintStream silenciarConsola() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+
+    private static void insertarSalas(Connection conn, int salas, SplittableRandom random) throws SQLException {
+        String sql = "INSERT INTO salas (id, nombre, capacidad, recursos) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int id = 1; id <= salas; id++) {
+                pstmt.setInt(1, id);
+                pstmt.setString(2, nombreSala(id));
+                pstmt.setInt(3, 4 + random.nextInt(30));
+                // Combinación no vacía de recursos del catálogo
+                pstmt.setString(4, CatalogoRecursos.texto(1 + random.nextInt((1 << CatalogoRecursos.tamano()) - 1)));
+                pstmt.addBatch();
+                if (id % TAMANO_LOTE == 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void insertarEmpleados(Connection conn, int empleados, SplittableRandom random) throws SQLException {
+        String sql = "INSERT INTO empleados (id, nombre, email, departamento) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int id = 1; id <= empleados; id++) {
+                pstmt.setInt(1, id);
+                pstmt.setString(2, "Empleado " + id);
+                pstmt.setString(3, "empleado" + id + "@empresa.com");
+                pstmt.setString(4, DEPARTAMENTOS[random.nextInt(DEPARTAMENTOS.length)]);
+                pstmt.addBatch();
+                if (id % TAMANO_LOTE == 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void insertarReservas(Connection conn, int salas, int empleados, int dias, int reservasPorDia,
+                                         SplittableRandom random) throws SQLException {
+        String sql = "INSERT INTO reservas (sala_id, empleado_id, fecha, hora_inicio, hora_fin) VALUES (?, ?, ?, ?, ?)";
+        int hueco = minutosPorHueco(reservasPorDia);
+        long pendientes = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int d = 0; d < dias; d++) {
+                Date fecha = Date.valueOf(PRIMER_DIA.plusDays(d));
+                for (int sala = 1; sala <= salas; sala++) {
+                    for (int r = 0; r < reservasPorDia; r++) {
+                        // Cada reserva ocupa entre la mitad y todo su hueco, sin pisar el siguiente
+                        LocalTime inicio = APERTURA.plusMinutes((long) r * hueco);
+                        int duracion = Math.max(1, hueco / 2 + random.nextInt(hueco / 2 + 1));
+                        pstmt.setInt(1, sala);
+                        pstmt.setInt(2, 1 + random.nextInt(empleados));
+                        pstmt.setDate(3, fecha);
+                        pstmt.setTime(4, Time.valueOf(inicio));
+                        pstmt.setTime(5, Time.valueOf(inicio.plusMinutes(duracion)));
+                        pstmt.addBatch();
+                        if (++pendientes % TAMANO_LOTE == 0) {
+                            pstmt.executeBatch();
+                        }
+                    }
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
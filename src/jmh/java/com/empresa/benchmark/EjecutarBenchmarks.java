@@ -0,0 +1,42 @@
+package com.empresa.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Punto de entrada de {@code target/benchmarks.jar}.
+ * <p>
+ * Acepta las mismas opciones que la línea de comandos de JMH (por ejemplo
+ * {@code -p salas=200 -p reservasPorDia=24} o un filtro de benchmarks) y, si no se indica
+ * ningún perfilador, añade el de GC para informar de la tasa de asignación de memoria
+ * ({@code gc.alloc.rate.norm}: bytes por operación) junto al rendimiento.
+ */
+public final class EjecutarBenchmarks {
+
+    private EjecutarBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions lineaComandos = new CommandLineOptions(args);
+        if (lineaComandos.shouldHelp()) {
+            lineaComandos.showHelp();
+            return;
+        }
+        if (lineaComandos.shouldList()) {
+            new Runner(lineaComandos).list();
+            return;
+        }
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(lineaComandos);
+        if (lineaComandos.getProfilers().isEmpty()) {
+            opciones.addProfiler(GCProfiler.class);
+        }
+        new Runner(opciones.build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.empresa.comandos;
+
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.benchmark.DatosBenchmark;
+import com.empresa.conexion.PoolConexiones;
+import com.empresa.reservas.IndiceDisponibilidad;
+import com.empresa.salas.CacheSalas;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duración de un lote de {@code comandos} altas de reservas con {@link EjecutorComandos} sobre H2 en
+ * memoria, con cachés cargadas como en la aplicación, según los hilos y el tamaño de transacción.
+ * Cada invocación reserva un día nuevo, así que ninguna alta tiene conflicto.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EjecutorComandosBenchmark {
+
+    @Param("50")
+    private int salas;
+    @Param("5000")
+    private int comandos;
+    @Param({"1", "4"})
+    private int hilos;
+    @Param({"0", "500"})
+    private int comandosPorTransaccion;
+
+    private Connection conn;
+    private AlmacenJdbc almacen;
+    private PrintStream consola;
+    private int dia;
+    private String lote;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, 200, 0, 0);
+        String url = conn.getMetaData().getURL();
+        almacen = new AlmacenJdbc(new PoolConexiones(() -> DriverManager.getConnection(url, "sa", ""), hilos + 1,
+                Duration.ofSeconds(5), Duration.ofMinutes(5)));
+        CacheSalas.getInstancia().cargar(conn);
+        IndiceDisponibilidad.getInstancia().cargar(conn);
+    }
+
+    @Setup(Level.Invocation)
+    public void generarLote() {
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(dia++);
+        int porSala = Math.ceilDiv(comandos, salas);
+        int minutos = DatosBenchmark.minutosPorHueco(porSala);
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < comandos; i++) {
+            int hueco = i / salas;
+            texto.append("reserva,crear,").append(1 + i % salas).append(",1,").append(fecha).append(',')
+                    .append(DatosBenchmark.APERTURA.plusMinutes((long) hueco * minutos)).append(',')
+                    .append(DatosBenchmark.APERTURA.plusMinutes((long) (hueco + 1) * minutos)).append('\n');
+        }
+        lote = texto.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        CacheSalas.getInstancia().invalidar();
+        IndiceDisponibilidad.getInstancia().invalidar();
+        almacen.close();
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public EjecutorComandos.Resumen ejecutar() throws IOException, SQLException {
+        return EjecutorComandos.ejecutar(almacen, new BufferedReader(new StringReader(lote)), Writer.nullWriter(),
+                new EjecutorComandos.Configuracion(hilos, comandosPorTransaccion));
+    }
+}
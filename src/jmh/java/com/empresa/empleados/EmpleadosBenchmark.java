@@ -0,0 +1,85 @@
+package com.empresa.empleados;
+
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.almacen.CacheListado;
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de las operaciones de {@link Empleados}, con y sin la caché del listado.
+ * Las operaciones interactivas se alimentan con la misma entrada que escribiría un usuario.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmpleadosBenchmark {
+
+    @Param("200")
+    private int empleados;
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private Connection conn;
+    private PrintStream consola;
+    private int nuevos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(1, empleados, 0, 0);
+        if (cache) {
+            CacheListado.EMPLEADOS.activar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        CacheListado.EMPLEADOS.invalidar();
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public void listarEmpleados() {
+        Empleados.listarEmpleados(AlmacenJdbc.sesion(conn));
+    }
+
+    @Benchmark
+    public void actualizarEmpleado() {
+        // Se conserva el email para no chocar con la restricción única
+        int id = 1 + ThreadLocalRandom.current().nextInt(empleados);
+        Empleados.actualizarEmpleado(AlmacenJdbc.sesion(conn), new Scanner(id + "\nEmpleado " + id + "\nempleado" + id + "@empresa.com\nTI\n"));
+    }
+
+    /**
+     * Crea un empleado y lo elimina a continuación, para que la tabla no crezca durante la medición.
+     */
+    @Benchmark
+    public void crearYEliminarEmpleado() throws SQLException {
+        String email = "nuevo" + (++nuevos) + "@empresa.com";
+        Empleados.crearEmpleado(AlmacenJdbc.sesion(conn), new Scanner("Nuevo empleado\n" + email + "\nTI\n"));
+        Empleados.eliminarEmpleado(AlmacenJdbc.sesion(conn), new Scanner(buscarIdPorEmail(email) + "\nS\n"));
+    }
+
+    private int buscarIdPorEmail(String email) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM empleados WHERE email = ?")) {
+            pstmt.setString(1, email);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
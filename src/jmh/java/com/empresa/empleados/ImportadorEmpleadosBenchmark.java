@@ -0,0 +1,66 @@
+package com.empresa.empleados;
+
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duración de una importación de {@code filas} empleados con {@link ImportadorEmpleados}: en la primera
+ * invocación la mitad ya existen y la otra mitad son nuevos; después, cada invocación cambia el
+ * departamento de todas las filas, así que ninguna queda sin cambios.
+ * <p>
+ * H2 en memoria no tiene viajes de red, que es lo que ahorran los lotes frente a MySQL: aquí se mide
+ * sobre todo el coste de lectura, validación y escritura en el motor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportadorEmpleadosBenchmark {
+
+    @Param("20000")
+    private int filas;
+    @Param("1000")
+    private int tamanoLote;
+
+    private Connection conn;
+    private PrintStream consola;
+    private int generacion;
+    private String contenido;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(1, filas / 2, 0, 0);
+    }
+
+    @Setup(Level.Invocation)
+    public void generarFichero() {
+        generacion++;
+        StringBuilder texto = new StringBuilder("nombre,email,departamento\n");
+        for (int i = 1; i <= filas; i++) {
+            texto.append("Empleado ").append(i).append(",empleado").append(i).append("@empresa.com,Departamento ")
+                    .append(generacion).append('\n');
+        }
+        contenido = texto.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public ImportadorEmpleados.ResultadoImportacion importar() throws IOException, SQLException {
+        return ImportadorEmpleados.importar(conn, new StringReader(contenido), tamanoLote);
+    }
+}
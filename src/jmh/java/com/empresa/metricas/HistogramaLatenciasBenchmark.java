@@ -0,0 +1,31 @@
+package com.empresa.metricas;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de medir una operación con {@link HistogramaLatencias}: dos lecturas de {@link System#nanoTime()}
+ * y el registro. Con el perfilador de GC, {@code gc.alloc.rate.norm} debe ser 0 bytes por operación.
+ * Con {@code -t 4} se mide la contención entre hilos que registran a la vez.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistogramaLatenciasBenchmark {
+
+    private final HistogramaLatencias histograma = new HistogramaLatencias("benchmark");
+
+    @Benchmark
+    public void registrar() {
+        histograma.registrar(System.nanoTime());
+    }
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+}
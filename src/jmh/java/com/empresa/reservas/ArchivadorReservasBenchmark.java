@@ -0,0 +1,81 @@
+package com.empresa.reservas;
+
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de las operaciones sobre fechas futuras con todo el historial en {@code reservas} y después
+ * de trasladar al archivo los primeros {@code diasArchivados} días: la comprobación de conflictos
+ * por SQL y la primera página del listado desde la fecha de corte.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchivadorReservasBenchmark {
+
+    private static final int DURACION_MINUTOS = 30;
+    private static final int TAMANO_PAGINA = 20;
+
+    @Param("50")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("180")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+    @Param("150")
+    private int diasArchivados;
+    @Param({"false", "true"})
+    private boolean archivado;
+
+    private Connection conn;
+    private PrintStream consola;
+    private LocalDate corte;
+    private int minutosAbierto;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        corte = DatosBenchmark.PRIMER_DIA.plusDays(diasArchivados);
+        if (archivado) {
+            ArchivadorReservas.archivar(conn, corte, ArchivadorReservas.TAMANO_BLOQUE, Duration.ZERO);
+        }
+        Reservas.setModoConflictos(Reservas.ModoConflictos.SQL);
+        minutosAbierto = (DatosBenchmark.CIERRE.toSecondOfDay() - DatosBenchmark.APERTURA.toSecondOfDay()) / 60;
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public boolean existeConflictoReserva() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sala = 1 + random.nextInt(salas);
+        LocalDate fecha = corte.plusDays(random.nextInt(dias - diasArchivados));
+        LocalTime inicio = DatosBenchmark.APERTURA.plusMinutes(random.nextInt(minutosAbierto - DURACION_MINUTOS));
+        return Reservas.existeConflictoReserva(conn, sala, fecha, inicio, inicio.plusMinutes(DURACION_MINUTOS), null);
+    }
+
+    @Benchmark
+    public ConsultaReservas.Pagina primeraPaginaDesdeCorte() throws SQLException {
+        ConsultaReservas.Filtro filtro = new ConsultaReservas.Filtro(corte, null, null, null);
+        return ConsultaReservas.listarPagina(conn, filtro, null, TAMANO_PAGINA);
+    }
+}
@@ -0,0 +1,128 @@
+package com.empresa.reservas;
+
+import com.empresa.almacen.AlmacenEmbebido;
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.almacen.Sesion;
+import com.empresa.benchmark.DatosBenchmark;
+import com.empresa.salas.CacheSalas;
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.RepositorioSalas;
+import com.empresa.salas.Sala;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latencia de la búsqueda de huecos libres en todas las salas de un día al azar.
+ * <ul>
+ *     <li>JDBC y EMBEBIDO: {@link BuscadorHuecos} con los mapas de ocupación, a través de cada almacén.</li>
+ *     <li>SQL_POR_CANDIDATO: lo que haría un usuario probando horarios: una consulta de conflictos por
+ *     sala y hora candidata (cada {@value BuscadorHuecos#MINUTOS_POR_TRAMO} minutos) hasta dar con uno libre.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuscadorHuecosBenchmark {
+
+    private static final int DURACION_MINUTOS = 30;
+    private static final int CAPACIDAD_MINIMA = 10;
+    private static final long RECURSOS = CatalogoRecursos.Recurso.PROYECTOR.bit();
+    private static final int MAXIMO = 10;
+
+    public enum Modo { JDBC, EMBEBIDO, SQL_POR_CANDIDATO }
+
+    @Param("2000")
+    private int salas;
+    @Param("100")
+    private int empleados;
+    @Param("3")
+    private int dias;
+    @Param("8")
+    private int reservasPorDia;
+    @Param({"JDBC", "EMBEBIDO", "SQL_POR_CANDIDATO"})
+    private Modo modo;
+
+    private Connection conn;
+    private AlmacenEmbebido embebido;
+    private Path directorio;
+    private Sesion sesion;
+    private PrintStream consola;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        if (modo == Modo.EMBEBIDO) {
+            directorio = Files.createTempDirectory("huecos-benchmark");
+            embebido = AlmacenEmbebido.abrir(directorio);
+            sesion = embebido.abrirSesion();
+            DatosBenchmark.copiar(conn, sesion);
+        } else {
+            CacheSalas.getInstancia().cargar(conn);
+            sesion = AlmacenJdbc.sesion(conn);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException, IOException {
+        CacheSalas.getInstancia().invalidar();
+        conn.close();
+        if (embebido != null) {
+            embebido.close();
+            try (Stream<Path> ficheros = Files.walk(directorio)) {
+                for (Path fichero : ficheros.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(fichero);
+                }
+            }
+        }
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public List<BuscadorHuecos.Hueco> buscarHuecos() throws SQLException {
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(ThreadLocalRandom.current().nextInt(dias));
+        BuscadorHuecos.Criterios criterios = new BuscadorHuecos.Criterios(fecha, DURACION_MINUTOS, CAPACIDAD_MINIMA,
+                RECURSOS, DatosBenchmark.APERTURA, DatosBenchmark.CIERRE, MAXIMO);
+        if (modo == Modo.SQL_POR_CANDIDATO) {
+            return probarCandidatos(criterios);
+        }
+        return sesion.reservas().buscarHuecos(criterios);
+    }
+
+    private List<BuscadorHuecos.Hueco> probarCandidatos(BuscadorHuecos.Criterios criterios) throws SQLException {
+        List<BuscadorHuecos.Hueco> huecos = new ArrayList<>();
+        for (Sala sala : RepositorioSalas.listar(conn)) {
+            if (sala.capacidad() < criterios.capacidadMinima() || !sala.tieneRecursos(criterios.recursos())) {
+                continue;
+            }
+            for (LocalTime inicio = criterios.desde();
+                 !inicio.plusMinutes(criterios.duracionMinutos()).isAfter(criterios.hasta());
+                 inicio = inicio.plusMinutes(BuscadorHuecos.MINUTOS_POR_TRAMO)) {
+                LocalTime fin = inicio.plusMinutes(criterios.duracionMinutos());
+                if (!RepositorioReservas.existeConflicto(conn, sala.id(), criterios.fecha(), inicio, fin, null)) {
+                    huecos.add(new BuscadorHuecos.Hueco(sala, criterios.fecha(), inicio, fin));
+                    break;
+                }
+            }
+        }
+        huecos.sort(Comparator.comparing(BuscadorHuecos.Hueco::inicio));
+        return huecos.subList(0, Math.min(MAXIMO, huecos.size()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.empresa.reservas;
+
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprobación de conflictos en memoria: solo con el {@link IndiceDisponibilidad} o preguntando antes al
+ * {@link CalendarioSalas} y recurriendo al índice cuando el calendario no asegura que el horario está libre,
+ * como hace {@link Reservas} en modo INDICE. Cada operación comprueba una reserva de 30 minutos en una sala,
+ * día y hora al azar; todos los días están ya en el calendario.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalendarioSalasBenchmark {
+
+    private static final int DURACION_MINUTOS = 30;
+
+    @Param("200")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("90")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+    @Param({"false", "true"})
+    private boolean calendario;
+
+    private Connection conn;
+    private PrintStream consola;
+    private Path fichero;
+    private CalendarioSalas calendarioSalas;
+    private IndiceDisponibilidad indice;
+    private int minutosAbierto;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        indice = IndiceDisponibilidad.getInstancia();
+        indice.cargar(conn);
+        fichero = Files.createTempFile("calendario", ".dat");
+        calendarioSalas = new CalendarioSalas(Clock.fixed(
+                DatosBenchmark.PRIMER_DIA.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+        calendarioSalas.abrir(fichero, CalendarioSalas.MINUTOS_POR_TRAMO, dias, salas);
+        for (int d = 0; d < dias; d++) {
+            calendarioSalas.estaLibre(conn, 1, DatosBenchmark.PRIMER_DIA.plusDays(d), LocalTime.NOON,
+                    LocalTime.NOON.plusMinutes(DURACION_MINUTOS));
+        }
+        minutosAbierto = (DatosBenchmark.CIERRE.toSecondOfDay() - DatosBenchmark.APERTURA.toSecondOfDay()) / 60;
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException, IOException {
+        calendarioSalas.cerrar();
+        Files.deleteIfExists(fichero);
+        indice.invalidar();
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public boolean hayConflicto() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sala = 1 + random.nextInt(salas);
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(random.nextInt(dias));
+        LocalTime inicio = DatosBenchmark.APERTURA.plusMinutes(random.nextInt(minutosAbierto - DURACION_MINUTOS));
+        LocalTime fin = inicio.plusMinutes(DURACION_MINUTOS);
+        if (calendario && calendarioSalas.estaLibre(conn, sala, fecha, inicio, fin)) {
+            return false;
+        }
+        return indice.haySolapamiento(sala, fecha, inicio, fin, null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.empresa.reservas;
+
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de {@link Reservas#existeConflictoReserva} con el índice en memoria y con la consulta SQL.
+ * Cada operación comprueba una reserva de 30 minutos en una sala, día y hora al azar.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConflictosBenchmark {
+
+    private static final int DURACION_MINUTOS = 30;
+
+    @Param("50")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("30")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+    @Param({"INDICE", "SQL"})
+    private Reservas.ModoConflictos modo;
+
+    private Connection conn;
+    private PrintStream consola;
+    private int minutosAbierto;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        if (modo == Reservas.ModoConflictos.INDICE) {
+            IndiceDisponibilidad.getInstancia().cargar(conn);
+        }
+        Reservas.setModoConflictos(modo);
+        minutosAbierto = (DatosBenchmark.CIERRE.toSecondOfDay() - DatosBenchmark.APERTURA.toSecondOfDay()) / 60;
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        IndiceDisponibilidad.getInstancia().invalidar();
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public boolean existeConflictoReserva() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sala = 1 + random.nextInt(salas);
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(random.nextInt(dias));
+        LocalTime inicio = DatosBenchmark.APERTURA.plusMinutes(random.nextInt(minutosAbierto - DURACION_MINUTOS));
+        return Reservas.existeConflictoReserva(conn, sala, fecha, inicio, inicio.plusMinutes(DURACION_MINUTOS), null);
+    }
+}
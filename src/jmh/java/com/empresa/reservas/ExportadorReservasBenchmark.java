@@ -0,0 +1,72 @@
+package com.empresa.reservas;
+
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.almacen.Sesion;
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de exportar todas las reservas con {@link ExportadorReservas} en cada formato, con y sin
+ * gzip, leyendo en streaming por el mismo camino que la consola. El fichero se escribe en un
+ * directorio temporal que se borra al terminar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportadorReservasBenchmark {
+
+    @Param("100")
+    private int salas;
+    @Param("500")
+    private int empleados;
+    @Param("60")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+    @Param({"CSV", "ICS"})
+    private ExportadorReservas.Formato formato;
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private Connection conn;
+    private PrintStream consola;
+    private Sesion sesion;
+    private Path directorio;
+    private Path fichero;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        sesion = AlmacenJdbc.sesion(conn);
+        directorio = Files.createTempDirectory("exportacion");
+        fichero = directorio.resolve("reservas" + (formato == ExportadorReservas.Formato.CSV ? ".csv" : ".ics")
+                + (gzip ? ".gz" : ""));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException, IOException {
+        conn.close();
+        Files.deleteIfExists(fichero);
+        Files.deleteIfExists(directorio);
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public ExportadorReservas.ResultadoExportacion exportar() throws SQLException, IOException {
+        return ExportadorReservas.exportar(
+                consumidor -> sesion.reservas().recorrer(ConsultaReservas.Filtro.NINGUNO, consumidor),
+                formato, fichero, gzip);
+    }
+}
@@ -0,0 +1,63 @@
+package com.empresa.reservas;
+
+import com.empresa.benchmark.DatosBenchmark;
+import com.empresa.salas.RepositorioSalas;
+import com.empresa.salas.Sala;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del informe de ocupación de {@link InformeOcupacion} sobre todo el rango de datos: la pasada
+ * por el cursor con la agregación en el propio hilo frente a la agregación repartida entre hilos.
+ * La diferencia entre ambos solo aparece con varios procesadores; con uno, el reparto añade el coste
+ * de los bloques y las colas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InformeOcupacionBenchmark {
+
+    @Param("200")
+    private int salas;
+    @Param("1000")
+    private int empleados;
+    @Param("120")
+    private int dias;
+    @Param("8")
+    private int reservasPorDia;
+    @Param({"1", "4"})
+    private int hilos;
+
+    private Connection conn;
+    private PrintStream consola;
+    private List<Sala> listaSalas;
+    private InformeOcupacion.Periodo periodo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        listaSalas = RepositorioSalas.listar(conn);
+        periodo = new InformeOcupacion.Periodo(DatosBenchmark.PRIMER_DIA, DatosBenchmark.PRIMER_DIA.plusDays(dias - 1),
+                DatosBenchmark.APERTURA.getHour(), DatosBenchmark.CIERRE.getHour());
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public InformeOcupacion.Informe informe() throws SQLException {
+        return InformeOcupacion.generar(conn, listaSalas, periodo, hilos);
+    }
+}
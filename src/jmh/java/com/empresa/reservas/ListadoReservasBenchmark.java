@@ -0,0 +1,66 @@
+package com.empresa.reservas;
+
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de listar reservas: el listado completo por consola de {@link Reservas#listarReservas},
+ * el recorrido completo en streaming y la primera página del listado paginado por clave.
+ * La salida por consola se descarta para no medir el terminal.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListadoReservasBenchmark {
+
+    private static final int TAMANO_PAGINA = 20;
+
+    @Param("50")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("30")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+
+    private Connection conn;
+    private PrintStream consola;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public void listarReservas() {
+        Reservas.listarReservas(AlmacenJdbc.sesion(conn));
+    }
+
+    @Benchmark
+    public long recorrerReservas(Blackhole bh) throws SQLException {
+        return ConsultaReservas.recorrer(conn, ConsultaReservas.Filtro.NINGUNO, bh::consume);
+    }
+
+    @Benchmark
+    public ConsultaReservas.Pagina primeraPagina() throws SQLException {
+        return ConsultaReservas.listarPagina(conn, ConsultaReservas.Filtro.NINGUNO, null, TAMANO_PAGINA);
+    }
+}
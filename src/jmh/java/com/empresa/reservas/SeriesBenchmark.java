@@ -0,0 +1,83 @@
+package com.empresa.reservas;
+
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprobación de conflictos de una serie semanal de un año en una sala al azar: una consulta por
+ * rango con {@link RepositorioSeries#fechasEnConflicto} frente a una consulta
+ * {@link Reservas#existeConflictoReserva} por ocurrencia, que es lo que costaba dar de alta la serie
+ * reserva a reserva.
+ * <p>
+ * H2 en memoria no tiene viajes de red, así que aquí las 52 búsquedas puntuales cuestan menos que
+ * recorrer el rango de un año de la sala; con MySQL cada una de ellas es además un viaje al servidor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeriesBenchmark {
+
+    private static final int SEMANAS = 52;
+
+    @Param("50")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("365")
+    private int dias;
+    @Param("16")
+    private int reservasPorDia;
+
+    private Connection conn;
+    private PrintStream consola;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, empleados, dias, reservasPorDia);
+        Reservas.setModoConflictos(Reservas.ModoConflictos.SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public List<LocalDate> unaConsulta() throws SQLException {
+        return RepositorioSeries.fechasEnConflicto(conn, serieAlAzar(), null);
+    }
+
+    @Benchmark
+    public List<LocalDate> consultaPorOcurrencia() {
+        SerieReservas serie = serieAlAzar();
+        List<LocalDate> conflictos = new ArrayList<>();
+        serie.fechas().forEach(fecha -> {
+            if (Reservas.existeConflictoReserva(conn, serie.salaId(), fecha, serie.horaInicio(), serie.horaFin(), null)) {
+                conflictos.add(fecha);
+            }
+        });
+        return conflictos;
+    }
+
+    private SerieReservas serieAlAzar() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalTime inicio = DatosBenchmark.APERTURA.plusMinutes(30L * random.nextInt(20));
+        return new SerieReservas(0, 1 + random.nextInt(salas), 1, SerieReservas.Frecuencia.SEMANAL,
+                DatosBenchmark.PRIMER_DIA.plusDays(random.nextInt(7)), null, SEMANAS, inicio, inicio.plusMinutes(30));
+    }
+}
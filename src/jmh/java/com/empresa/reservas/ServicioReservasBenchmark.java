@@ -0,0 +1,158 @@
+package com.empresa.reservas;
+
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Altas por segundo con {@link ServicioReservas} desde 1 y desde 8 hilos, cada uno reservando su propia
+ * sala, con y sin escritura agrupada ({@code maxLote}). Las bases de datos son H2 en memoria con una latencia
+ * simulada en cada sentencia, para que el tiempo se vaya, como con MySQL, esperando al servidor y no en la
+ * CPU. Con {@code latenciaCommitMicros} cada commit (explícito o el implícito de una escritura en modo
+ * autocommit) espera además a la escritura del registro de transacciones, de uno en uno como en un servidor
+ * con un único registro. Cada hilo usa su propia base de datos: H2 repite a veces el ID generado cuando
+ * varias conexiones insertan a la vez en la misma tabla.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServicioReservasBenchmark {
+
+    private static final int DURACION_MINUTOS = 10;
+    private static final int HUECOS_POR_DIA = 12 * 60 / DURACION_MINUTOS;
+
+    @Param("50")
+    private int salas;
+    @Param("200")
+    private int empleados;
+    @Param("200")
+    private int latenciaMicros;
+    @Param({"0", "1000"})
+    private int latenciaCommitMicros;
+    @Param({"1", "32"})
+    private int maxLote;
+
+    private PrintStream consola;
+    private ServicioReservas servicio;
+    private final Object registro = new Object();
+    private final AtomicInteger hilos = new AtomicInteger();
+
+    /**
+     * Conexión y sala de cada hilo; las reservas van a días sin reservas, una detrás de otra.
+     */
+    @State(Scope.Thread)
+    public static class Hilo {
+
+        Connection conn;
+        int sala;
+        int reservas;
+
+        @Setup(Level.Trial)
+        public void preparar(ServicioReservasBenchmark benchmark) throws SQLException {
+            conn = conLatencia(DatosBenchmark.crear(benchmark.salas, benchmark.empleados, 1, 0),
+                    TimeUnit.MICROSECONDS.toNanos(benchmark.latenciaMicros),
+                    TimeUnit.MICROSECONDS.toNanos(benchmark.latenciaCommitMicros), benchmark.registro);
+            sala = 1 + benchmark.hilos.getAndIncrement() % benchmark.salas;
+        }
+
+        @TearDown(Level.Trial)
+        public void cerrar() throws SQLException {
+            conn.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        consola = DatosBenchmark.silenciarConsola();
+        servicio = new ServicioReservas(1024, maxLote, Duration.ZERO);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ServicioReservas.Resultado crearUnHilo(Hilo hilo) throws SQLException {
+        return crear(hilo);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ServicioReservas.Resultado crearOchoHilos(Hilo hilo) throws SQLException {
+        return crear(hilo);
+    }
+
+    private ServicioReservas.Resultado crear(Hilo hilo) throws SQLException {
+        int reserva = hilo.reservas++;
+        LocalDate fecha = DatosBenchmark.PRIMER_DIA.plusDays(1 + reserva / HUECOS_POR_DIA);
+        LocalTime inicio = DatosBenchmark.APERTURA.plusMinutes((long) (reserva % HUECOS_POR_DIA) * DURACION_MINUTOS);
+        return servicio.crear(hilo.conn, hilo.sala, 1, fecha, inicio, inicio.plusMinutes(DURACION_MINUTOS));
+    }
+
+    /**
+     * Envuelve una conexión para que cada sentencia espere la latencia indicada y cada commit, además,
+     * la del registro de transacciones, compartido con las demás conexiones.
+     */
+    static Connection conLatencia(Connection conn, long nanos, long nanosCommit, Object registro) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    Object resultado = invocar(conn, metodo, args);
+                    if (metodo.getName().equals("commit")) {
+                        esperarRegistro(nanosCommit, registro);
+                    } else if (resultado instanceof PreparedStatement pstmt) {
+                        return conLatencia(conn, pstmt, nanos, nanosCommit, registro);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static PreparedStatement conLatencia(Connection conn, PreparedStatement pstmt, long nanos,
+                                                 long nanosCommit, Object registro) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, metodo, args) -> {
+                    if (!metodo.getName().startsWith("execute")) {
+                        return invocar(pstmt, metodo, args);
+                    }
+                    LockSupport.parkNanos(nanos);
+                    Object resultado = invocar(pstmt, metodo, args);
+                    if (!metodo.getName().equals("executeQuery") && conn.getAutoCommit()) {
+                        esperarRegistro(nanosCommit, registro);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static void esperarRegistro(long nanos, Object registro) {
+        if (nanos > 0) {
+            synchronized (registro) {
+                LockSupport.parkNanos(nanos);
+            }
+        }
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.empresa.salas;
+
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.almacen.CacheListado;
+import com.empresa.benchmark.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de las operaciones de {@link Salas}, con y sin {@link CacheSalas} y la caché del listado.
+ * Las operaciones interactivas se alimentan con la misma entrada que escribiría un usuario.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SalasBenchmark {
+
+    @Param("50")
+    private int salas;
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private Connection conn;
+    private PrintStream consola;
+    private int nuevas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        consola = DatosBenchmark.silenciarConsola();
+        conn = DatosBenchmark.crear(salas, 1, 0, 0);
+        if (cache) {
+            CacheSalas.getInstancia().cargar(conn);
+            CacheListado.SALAS.activar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        CacheSalas.getInstancia().invalidar();
+        CacheListado.SALAS.invalidar();
+        conn.close();
+        System.setOut(consola);
+    }
+
+    @Benchmark
+    public void listarSalas() {
+        Salas.listarSalas(AlmacenJdbc.sesion(conn));
+    }
+
+    @Benchmark
+    public Sala buscarPorNombre() throws SQLException {
+        int id = 1 + ThreadLocalRandom.current().nextInt(salas);
+        return CacheSalas.getInstancia().buscarPorNombre(conn, DatosBenchmark.nombreSala(id));
+    }
+
+    /**
+     * Salas con proyector y videoconferencia para al menos 12 personas: AND de mapas de bits con la
+     * caché cargada; lectura de la tabla y comprobación de cada sala sin ella.
+     */
+    @Benchmark
+    public List<Sala> buscarPorRecursos() throws SQLException {
+        long recursos = CatalogoRecursos.Recurso.PROYECTOR.bit() | CatalogoRecursos.Recurso.VIDEOCONFERENCIA.bit();
+        return AlmacenJdbc.sesion(conn).salas().buscarPorRecursos(recursos, 12);
+    }
+
+    @Benchmark
+    public void actualizarSala() {
+        // Se conserva el nombre para no chocar con el índice único
+        int id = 1 + ThreadLocalRandom.current().nextInt(salas);
+        int capacidad = 4 + ThreadLocalRandom.current().nextInt(30);
+        Salas.actualizarSala(AlmacenJdbc.sesion(conn), new Scanner(id + "\n" + DatosBenchmark.nombreSala(id) + "\n" + capacidad + "\nProyector\n"));
+    }
+
+    /**
+     * Crea una sala y la elimina a continuación, para que la tabla no crezca durante la medición.
+     */
+    @Benchmark
+    public void crearYEliminarSala() throws SQLException {
+        String nombre = "Nueva " + (++nuevas);
+        Salas.crearSala(AlmacenJdbc.sesion(conn), new Scanner(nombre + "\n10\nPizarra\n"));
+        Sala sala = CacheSalas.getInstancia().buscarPorNombre(conn, nombre);
+        Salas.eliminarSala(AlmacenJdbc.sesion(conn), new Scanner(sala.id() + "\nS\n"));
+    }
+}
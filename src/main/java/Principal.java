@@ -1,27 +1,105 @@
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.AlmacenEmbebido;
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.almacen.CacheListado;
+import com.empresa.almacen.Sesion;
+import com.empresa.api.ServidorApi;
+import com.empresa.carga.GeneradorCarga;
+import com.empresa.comandos.EjecutorComandos;
+import com.empresa.conexion.PoolConexiones;
 import com.empresa.empleados.Empleados;
+import com.empresa.esquema.MigradorEsquema;
+import com.empresa.esquema.VerificadorIndices;
+import com.empresa.metricas.HistogramaLatencias;
+import com.empresa.metricas.OperacionMedida;
+import com.empresa.reservas.ArchivadorReservas;
+import com.empresa.reservas.CalendarioSalas;
+import com.empresa.reservas.ConsultaReservas;
+import com.empresa.reservas.ExportadorReservas;
+import com.empresa.reservas.IndiceDisponibilidad;
 import com.empresa.reservas.Reservas;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.CacheSalas;
 import com.empresa.salas.Salas;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Scanner;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class Principal {
 
-    static final String DB_URL = "jdbc:mysql://localhost:3306/reservas_salas";
+    static final String DB_URL = "jdbc:mysql://localhost:3306/reservas_salas?rewriteBatchedStatements=true&useCursorFetch=true";
     static final String USER = "root";
     static final String PASS = "root";
+    static final int TAMANO_POOL = Integer.getInteger("db.pool.tamano", 10);
+    static final boolean VERIFICAR_INDICES = Boolean.getBoolean("db.verificarIndices");
+    /** "mysql" (por defecto) o "embebido" para trabajar sin servidor con los datos en {@link #DIRECTORIO_ALMACEN}. */
+    static final String ALMACEN = System.getProperty("almacen", "mysql");
+    static final String DIRECTORIO_ALMACEN = System.getProperty("almacen.directorio", "datos");
+    /** Hilos del modo por lotes ({@code --lote}); cada uno usa una conexión del pool. */
+    static final int HILOS_LOTE = Integer.getInteger("lote.hilos", 1);
+    /** Escrituras por transacción en el modo por lotes (0: cada comando se confirma al ejecutarse). */
+    static final int COMANDOS_POR_TRANSACCION = Integer.getInteger("lote.transaccion", 0);
+    /** Puerto de la API HTTP ({@code --api}) si no se indica en la línea de comandos. */
+    static final int PUERTO_API = Integer.getInteger("api.puerto", 8080);
+    /** Antigüedad en días a partir de la que se archivan las reservas (0: sin archivado programado). */
+    static final int ARCHIVO_DIAS = Integer.getInteger("archivo.dias", 0);
+    static final int ARCHIVO_INTERVALO_HORAS = Integer.getInteger("archivo.intervaloHoras", 24);
+    // Fichero del calendario de ocupación de las salas; vacío para no usarlo
+    static final String FICHERO_CALENDARIO = System.getProperty("calendario.fichero", "calendario-salas.dat");
+    /** Parámetros de la prueba de carga ({@code --carga}); ver {@link GeneradorCarga.Configuracion}. */
+    static final int EMPLEADOS_CARGA = Integer.getInteger("carga.empleados", 50);
+    static final int SEGUNDOS_CARGA = Integer.getInteger("carga.segundos", 30);
+    static final int CALENTAMIENTO_CARGA = Integer.getInteger("carga.calentamiento", 5);
+    static final int PAUSA_CARGA_MS = Integer.getInteger("carga.pausaMs", 0);
+    static final int DIAS_CARGA = Integer.getInteger("carga.dias", 10);
+    static final double ZIPF_CARGA = Double.parseDouble(System.getProperty("carga.zipf", "1.0"));
     private static final Logger logger = LoggerFactory.getLogger(Principal.class);
 
     public static void main(String[] args) {
+        // java Principal --lote comandos.txt (o "-" para la entrada estándar): sin menús, salida JSON
+        if (args.length == 2 && args[0].equals("--lote")) {
+            System.exit(ejecutarLote(args[1]));
+        }
+        // java Principal --exportar reservas.ics.gz [--desde=... --hasta=... --sala=... --empleado=...]
+        if (args.length >= 2 && args[0].equals("--exportar")) {
+            System.exit(exportar(args));
+        }
+        // java Principal --carga [empleados]: simula empleados reservando a la vez y mide el almacén
+        if (args.length >= 1 && args[0].equals("--carga")) {
+            System.exit(ejecutarCarga(args.length > 1 ? Integer.parseInt(args[1]) : EMPLEADOS_CARGA));
+        }
+        // java Principal --api [puerto]: API HTTP con JSON hasta que se detenga el proceso
+        if (args.length >= 1 && args[0].equals("--api")) {
+            servirApi(args.length > 1 ? Integer.parseInt(args[1]) : PUERTO_API);
+            return;
+        }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL, USER, PASS);
+        try (Almacen almacen = abrirAlmacen();
              Scanner scanner = new Scanner(System.in)) {
 
-            System.out.println("✅ Conectado a la base de datos");
+            // Comprobar la conexión antes de mostrar el menú
+            if (!preparar(almacen)) {
+                return;
+            }
+            ScheduledExecutorService archivado = programarArchivado(almacen);
             boolean salir = false;
 
             while (!salir) {
@@ -29,6 +107,8 @@ public class Principal {
                 System.out.println("1. Gestionar reservas");
                 System.out.println("2. Gestionar empleados");
                 System.out.println("3. Gestionar salas");
+                System.out.println("4. Estadísticas del almacén y cachés");
+                System.out.println("5. Latencias de las operaciones");
                 System.out.println("0. Salir");
                 System.out.print("Selecciona una opción: ");
 
@@ -43,9 +123,11 @@ public class Principal {
                 }
 
                 switch (opcion) {
-                    case 1 -> Reservas.mostrarMenu(conn, scanner);
-                    case 2 -> Empleados.mostrarMenu(conn, scanner);
-                    case 3 -> Salas.mostrarMenu(conn, scanner);
+                    case 1 -> Reservas.mostrarMenu(almacen, scanner);
+                    case 2 -> Empleados.mostrarMenu(almacen, scanner);
+                    case 3 -> Salas.mostrarMenu(almacen, scanner);
+                    case 4 -> mostrarEstadisticas(almacen);
+                    case 5 -> mostrarLatencias(scanner);
 
 
                     case 0 -> { salir = true;
@@ -54,9 +136,401 @@ public class Principal {
                     default -> System.err.println("Opción no válida.");
                 }
             }
+            if (archivado != null) {
+                archivado.shutdownNow();
+            }
 
         } catch (SQLException e) {
             logger.error("❌ Error al conectar con la base de datos: {}", e);
+        } catch (IOException e) {
+            logger.error("❌ Error al abrir el almacén embebido: {}", e);
+        }
+    }
+
+    /**
+     * Ejecuta un fichero de comandos sin menús (ver {@link com.empresa.comandos.Comando}) con
+     * -Dlote.hilos hilos y transacciones de -Dlote.transaccion escrituras. La salida estándar queda
+     * solo para las líneas JSON; los mensajes y el registro van a la salida de errores.
+     *
+     * @param fichero Ruta del fichero de comandos, o "-" para la entrada estándar.
+     * @return Código de salida del proceso: 0 si todos los comandos se ejecutaron sin errores.
+     */
+    private static int ejecutarLote(String fichero) {
+        PrintStream salida = System.out;
+        System.setOut(System.err);
+
+        try (Almacen almacen = abrirAlmacen();
+             BufferedReader entrada = fichero.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                     : Files.newBufferedReader(Path.of(fichero), StandardCharsets.UTF_8)) {
+            if (!preparar(almacen)) {
+                return 1;
+            }
+            int hilos = HILOS_LOTE;
+            if (almacen instanceof AlmacenJdbc && hilos >= TAMANO_POOL) {
+                // Cada hilo retiene una conexión y el reparto necesita otra
+                hilos = Math.max(1, TAMANO_POOL - 1);
+                System.out.println("ℹ️ Se usan " + hilos + " hilos: el pool tiene " + TAMANO_POOL + " conexiones");
+            }
+            Writer json = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            EjecutorComandos.Resumen r = EjecutorComandos.ejecutar(almacen, entrada, json,
+                    new EjecutorComandos.Configuracion(hilos, COMANDOS_POR_TRANSACCION));
+            System.out.printf("📊 Lote: %d comandos, %d correctos, %d conflictos, %d inexistentes, %d errores, "
+                            + "%d deshechos en %d ms (%.0f comandos/s)%n", r.comandos(), r.correctos(), r.conflictos(),
+                    r.noExisten(), r.errores(), r.deshechos(), r.millis(), r.comandosPorSegundo());
+            return r.errores() > 0 || r.deshechos() > 0 ? 1 : 0;
+        } catch (IOException | SQLException | IllegalArgumentException e) {
+            System.out.println("❌ Error al ejecutar el lote de comandos: " + e.getMessage());
+            logger.error("Error en el modo por lotes", e);
+            return 1;
+        }
+    }
+
+    /**
+     * Exporta reservas sin menús, para tareas programadas: el formato sale de la extensión del
+     * fichero (.ics o .csv, con .gz para comprimir) y los filtros de las opciones
+     * {@code --desde=AAAA-MM-DD}, {@code --hasta=AAAA-MM-DD}, {@code --sala=NOMBRE} y {@code --empleado=ID}.
+     *
+     * @param args Argumentos de la línea de comandos: {@code --exportar FICHERO [opciones]}.
+     * @return Código de salida del proceso: 0 si la exportación terminó.
+     */
+    private static int exportar(String[] args) {
+        Path fichero = Path.of(args[1]);
+        ExportadorReservas.Formato formato = ExportadorReservas.Formato.de(fichero);
+        if (formato == null) {
+            System.out.println("❌ Extensión no reconocida: use .ics, .csv, .ics.gz o .csv.gz");
+            return 1;
+        }
+        try (Almacen almacen = abrirAlmacen()) {
+            ConsultaReservas.Filtro filtro = filtroExportacion(args);
+            if (!preparar(almacen)) {
+                return 1;
+            }
+            ExportadorReservas.ResultadoExportacion r;
+            try (Sesion sesion = almacen.abrirSesion()) {
+                r = ExportadorReservas.exportar(consumidor -> sesion.reservas().recorrer(filtro, consumidor),
+                        formato, fichero, ExportadorReservas.comprimido(fichero));
+            }
+            System.out.printf("✅ %d reservas exportadas a %s (%d KB) en %d ms (%.0f reservas/s)%n", r.reservas(),
+                    fichero, r.bytes() / 1024, r.millis(), r.reservasPorSegundo());
+            return 0;
+        } catch (IOException | SQLException | IllegalArgumentException | DateTimeException e) {
+            System.out.println("❌ Error al exportar las reservas: " + e.getMessage());
+            logger.error("Error en la exportación de reservas", e);
+            return 1;
+        }
+    }
+
+    private static ConsultaReservas.Filtro filtroExportacion(String[] args) {
+        LocalDate desde = null;
+        LocalDate hasta = null;
+        String sala = null;
+        Integer empleado = null;
+        for (int i = 2; i < args.length; i++) {
+            String[] opcion = args[i].split("=", 2);
+            if (opcion.length != 2) {
+                throw new IllegalArgumentException("Opción sin valor: " + args[i]);
+            }
+            switch (opcion[0]) {
+                case "--desde" -> desde = LocalDate.parse(opcion[1]);
+                case "--hasta" -> hasta = LocalDate.parse(opcion[1]);
+                case "--sala" -> sala = opcion[1];
+                case "--empleado" -> empleado = Integer.parseInt(opcion[1]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + opcion[0]);
+            }
+        }
+        return new ConsultaReservas.Filtro(desde, hasta, sala, empleado);
+    }
+
+    /**
+     * Prueba de carga: lanza {@code empleados} empleados virtuales contra el almacén configurado
+     * (MySQL local o el motor embebido) durante -Dcarga.segundos y muestra el rendimiento, las
+     * latencias de cada acción y la tasa de conflictos. Se reserva a partir de mañana y al terminar
+     * se borran las reservas creadas.
+     *
+     * @param empleados Empleados virtuales simultáneos.
+     * @return Código de salida del proceso: 0 si ninguna acción falló.
+     */
+    private static int ejecutarCarga(int empleados) {
+        try (Almacen almacen = abrirAlmacen()) {
+            GeneradorCarga.Configuracion config = new GeneradorCarga.Configuracion(empleados,
+                    Duration.ofSeconds(SEGUNDOS_CARGA), Duration.ofSeconds(CALENTAMIENTO_CARGA),
+                    Duration.ofMillis(PAUSA_CARGA_MS), DIAS_CARGA, ZIPF_CARGA, System.nanoTime(),
+                    LocalDate.now().plusDays(1));
+            if (!preparar(almacen)) {
+                return 1;
+            }
+            System.out.printf("ℹ️ %d empleados virtuales durante %d s (+%d s de calentamiento)...%n", empleados,
+                    SEGUNDOS_CARGA, CALENTAMIENTO_CARGA);
+            GeneradorCarga.ResultadoCarga r = GeneradorCarga.ejecutar(almacen, config);
+
+            System.out.printf("%n📊 %d acciones (%.0f/s) | conflictos: %.1f %% de %d reservas y cambios"
+                            + " | desactualizadas: %d | errores: %d%n", r.operaciones(), r.operacionesPorSegundo(),
+                    r.tasaConflictos() * 100, r.intentos(), r.desactualizadas(), r.errores());
+            System.out.printf("%-12s %10s %8s %8s %8s %8s %9s%n", "Acción (µs)", "Llamadas", "Errores", "Media", "p50",
+                    "p99", "Máximo");
+            r.latencias().forEach((accion, l) -> System.out.printf("%-12s %10d %7.1f%% %8d %8d %8d %9d%n",
+                    accion.name().toLowerCase(), l.llamadas(), l.tasaErrores() * 100, l.mediaMicros(),
+                    l.p50Micros(), l.p99Micros(), l.maxMicros()));
+            // Desglose por operación del almacén, con el calentamiento incluido
+            imprimirLatencias();
+            return r.errores() == 0 ? 0 : 1;
+        } catch (IOException | SQLException | IllegalArgumentException e) {
+            System.out.println("❌ Error en la prueba de carga: " + e.getMessage());
+            logger.error("Error en la prueba de carga", e);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * Arranca la API HTTP ({@link ServidorApi}) y la deja atendiendo peticiones. El servidor y el
+     * almacén se cierran al detener el proceso (Ctrl+C), para que el motor embebido guarde su instantánea.
+     *
+     * @param puerto Puerto de escucha.
+     */
+    private static void servirApi(int puerto) {
+        Almacen almacen = null;
+        try {
+            almacen = abrirAlmacen();
+            if (!preparar(almacen)) {
+                almacen.close();
+                return;
+            }
+            ServidorApi servidor = ServidorApi.iniciar(almacen, new InetSocketAddress(puerto));
+            ScheduledExecutorService archivado = programarArchivado(almacen);
+            Almacen abierto = almacen;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                servidor.close();
+                if (archivado != null) {
+                    archivado.shutdownNow();
+                }
+                abierto.close();
+                ServidorApi.Estadisticas e = servidor.getEstadisticas();
+                logger.info("API detenida: {} peticiones, {} errores de cliente, {} errores de servidor",
+                        e.peticiones(), e.erroresCliente(), e.erroresServidor());
+            }, "api-cierre"));
+            System.out.println("✅ API HTTP en http://localhost:" + servidor.getPuerto() + ServidorApi.RUTA
+                    + " (Ctrl+C para detenerla)");
+        } catch (IOException | SQLException | IllegalArgumentException e) {
+            System.out.println("❌ No se pudo arrancar la API HTTP: " + e.getMessage());
+            logger.error("Error al arrancar la API HTTP", e);
+            if (almacen != null) {
+                almacen.close();
+            }
+        }
+    }
+
+    /**
+     * Comprueba el acceso al almacén y, con MySQL, actualiza el esquema y carga las cachés.
+     *
+     * @param almacen Almacén abierto.
+     * @return false si el esquema no se pudo actualizar y la aplicación no debe continuar.
+     * @throws SQLException si no se puede obtener una conexión.
+     */
+    private static boolean preparar(Almacen almacen) throws SQLException {
+        OperacionMedida.registrarEnJmx();
+        if (almacen instanceof AlmacenJdbc jdbc) {
+            try (Connection conn = jdbc.getPool().obtenerConexion()) {
+                System.out.println("✅ Conectado a la base de datos");
+                if (!actualizarEsquema(conn)) {
+                    return false;
+                }
+                cargarCaches(conn);
+            }
+        } else {
+            System.out.println("✅ Almacén " + almacen.descripcion());
+        }
+        return true;
+    }
+
+    /**
+     * Programa con -Darchivo.dias el traslado periódico (cada -Darchivo.intervaloHoras) de las
+     * reservas antiguas al archivo. Solo con MySQL: el motor embebido no tiene archivo.
+     *
+     * @param almacen Almacén abierto.
+     * @return Planificador a cerrar al salir, o null si no se archiva.
+     */
+    private static ScheduledExecutorService programarArchivado(Almacen almacen) {
+        if (ARCHIVO_DIAS <= 0 || !(almacen instanceof AlmacenJdbc)) {
+            return null;
+        }
+        return ArchivadorReservas.programar(almacen, ARCHIVO_DIAS, Duration.ofHours(ARCHIVO_INTERVALO_HORAS));
+    }
+
+    /**
+     * Abre el almacén indicado con -Dalmacen: MySQL a través del pool de conexiones o el motor
+     * embebido en el directorio de -Dalmacen.directorio.
+     *
+     * @return Almacén abierto.
+     * @throws IOException si no se pueden leer los ficheros del almacén embebido.
+     */
+    private static Almacen abrirAlmacen() throws IOException {
+        return switch (ALMACEN.toLowerCase()) {
+            case "embebido" -> AlmacenEmbebido.abrir(Path.of(DIRECTORIO_ALMACEN));
+            case "mysql" -> new AlmacenJdbc(new PoolConexiones(DB_URL, USER, PASS, TAMANO_POOL));
+            default -> throw new IllegalArgumentException("Almacén desconocido: " + ALMACEN + " (mysql o embebido)");
+        };
+    }
+
+    /**
+     * Muestra las métricas del almacén: el pool de conexiones y las cachés en memoria con MySQL,
+     * o el tamaño de las tablas y del diario con el motor embebido.
+     *
+     * @param almacen Almacén de la aplicación.
+     */
+    private static void mostrarEstadisticas(Almacen almacen) {
+        if (almacen instanceof AlmacenEmbebido embebido) {
+            AlmacenEmbebido.Estadisticas e = embebido.getEstadisticas();
+            System.out.println("\n📊 Almacén embebido:");
+            System.out.printf("- Salas: %d | Empleados: %d | Reservas: %d%n", e.salas(), e.empleados(), e.reservas());
+            System.out.printf("- Operaciones en el diario: %d (%d bytes) | Instantáneas escritas: %d%n",
+                    e.operacionesEnDiario(), e.bytesDiario(), e.instantaneas());
+            return;
+        }
+        PoolConexiones pool = ((AlmacenJdbc) almacen).getPool();
+        PoolConexiones.Estadisticas e = pool.getEstadisticas();
+        System.out.println("\n📊 Pool de conexiones:");
+        System.out.printf("- Activas: %d | Inactivas: %d | Máximo: %d%n", e.activas(), e.inactivas(), TAMANO_POOL);
+        System.out.printf("- Préstamos: %d | Espera media: %d µs | Espera máxima: %d µs | Timeouts: %d%n",
+                e.prestamos(), e.esperaMediaMicros(), e.esperaMaximaMicros(), e.timeouts());
+        System.out.printf("- Conexiones creadas: %d | Descartadas: %d%n", e.creadas(), e.descartadas());
+        System.out.printf("- Sentencias preparadas: %d | Reutilizadas: %d%n",
+                e.sentenciasPreparadas(), e.sentenciasReutilizadas());
+
+        CacheSalas.Estadisticas salas = CacheSalas.getInstancia().getEstadisticas();
+        System.out.println("\n📊 Caché de salas:");
+        System.out.printf("- Salas: %d | Aciertos: %d | Fallos: %d | Tasa de aciertos: %.1f %%%n",
+                salas.tamano(), salas.aciertos(), salas.fallos(), salas.tasaAciertos() * 100);
+
+        System.out.println("\n📊 Caché de listados:");
+        imprimirCacheListado("Salas", CacheListado.SALAS.getEstadisticas());
+        imprimirCacheListado("Empleados", CacheListado.EMPLEADOS.getEstadisticas());
+
+        CalendarioSalas.Estadisticas calendario = CalendarioSalas.getInstancia().getEstadisticas();
+        if (calendario.bytes() > 0) {
+            System.out.println("\n📊 Calendario de salas:");
+            System.out.printf("- Días construidos: %d | Salas: %d | Fichero: %d KB%n", calendario.diasConstruidos(),
+                    calendario.salas(), calendario.bytes() / 1024);
+            System.out.printf("- Comprobaciones: %d | Resueltas como libres: %d (%.1f %%)%n",
+                    calendario.consultas(), calendario.libres(), calendario.tasaLibres() * 100);
+            System.out.printf("- Días leídos de la BD: %d | Verificados del fichero: %d%n",
+                    calendario.construcciones(), calendario.verificaciones());
+        }
+
+        ServicioReservas servicio = ServicioReservas.getInstancia();
+        long lotes = servicio.getLotesAgrupados();
+        System.out.println("\n📊 Altas de reservas agrupadas:");
+        System.out.printf("- Reservas: %d | Commits: %d | Reservas por commit: %.1f%n", servicio.getReservasAgrupadas(),
+                lotes, lotes == 0 ? 0.0 : (double) servicio.getReservasAgrupadas() / lotes);
+    }
+
+    /**
+     * Imprime una línea con el uso de la caché del listado de una tabla.
+     *
+     * @param tabla Nombre de la tabla para mostrar.
+     * @param e     Estadísticas de su caché.
+     */
+    private static void imprimirCacheListado(String tabla, CacheListado.Estadisticas e) {
+        System.out.printf("- %s: %d filas | Aciertos: %d | Fallos: %d | Tasa de aciertos: %.1f %% | "
+                        + "Recargas: %d (p50 %d µs, p99 %d µs)%n", tabla, e.tamano(), e.aciertos(), e.fallos(),
+                e.tasaAciertos() * 100, e.recargas(), e.recarga().p50Micros(), e.recarga().p99Micros());
+    }
+
+    /**
+     * Imprime la tabla de latencias de las operaciones del almacén que se han usado.
+     *
+     * @return false si todavía no se ha usado ninguna.
+     */
+    private static boolean imprimirLatencias() {
+        System.out.println("\n📊 Latencias de las operaciones (µs):");
+        System.out.printf("%-26s %10s %8s %8s %8s %8s %9s%n", "Operación", "Llamadas", "Errores", "Media", "p50",
+                "p99", "Máximo");
+        boolean hayDatos = false;
+        for (OperacionMedida operacion : OperacionMedida.values()) {
+            HistogramaLatencias.Resumen r = operacion.histograma().resumen();
+            if (r.llamadas() == 0) {
+                continue;
+            }
+            hayDatos = true;
+            System.out.printf("%-26s %10d %7.1f%% %8d %8d %8d %9d%n", operacion.nombre(), r.llamadas(),
+                    r.tasaErrores() * 100, r.mediaMicros(), r.p50Micros(), r.p99Micros(), r.maxMicros());
+        }
+        return hayDatos;
+    }
+
+    /**
+     * Muestra la latencia de cada operación del almacén usada desde el arranque (o desde el último
+     * reinicio) y permite poner los contadores a cero. Los mismos datos se publican por JMX.
+     *
+     * @param scanner Scanner para entrada por consola.
+     */
+    private static void mostrarLatencias(Scanner scanner) {
+        if (!imprimirLatencias()) {
+            System.out.println("ℹ️ Todavía no se ha ejecutado ninguna operación.");
+            return;
+        }
+        System.out.println("ℹ️ También en JMX (JConsole): " + OperacionMedida.DOMINIO_JMX + ":type=Latencias");
+        System.out.print("¿Poner los contadores a cero? (S/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("S")) {
+            OperacionMedida.reiniciarTodas();
+            System.out.println("✅ Contadores reiniciados.");
+        }
+    }
+
+    /**
+     * Aplica las migraciones pendientes del esquema y, si se pide con -Ddb.verificarIndices=true,
+     * comprueba con EXPLAIN que las consultas frecuentes usan sus índices.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return false si alguna migración falla y la aplicación no debe continuar.
+     */
+    private static boolean actualizarEsquema(Connection conn) {
+        try {
+            int aplicadas = MigradorEsquema.migrar(conn);
+            if (aplicadas > 0) {
+                System.out.println("ℹ️ Esquema actualizado (" + aplicadas + " migraciones aplicadas)");
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ No se pudo actualizar el esquema de la base de datos.");
+            logger.error("Error al aplicar las migraciones", e);
+            return false;
+        }
+        if (VERIFICAR_INDICES) {
+            VerificadorIndices.mostrarVerificacion(conn);
+        }
+        return true;
+    }
+
+    /**
+     * Carga en memoria las salas y las reservas existentes para resolver búsquedas y conflictos
+     * sin consultar la base de datos. Si una carga falla, esa parte sigue usando SQL. Los listados
+     * de salas y empleados se cargan en la primera consulta, y los días del calendario de salas
+     * (-Dcalendario.fichero) en la primera comprobación de cada uno.
+     *
+     * @param conn Conexión a la base de datos.
+     */
+    private static void cargarCaches(Connection conn) {
+        try {
+            CacheSalas.getInstancia().cargar(conn);
+        } catch (SQLException e) {
+            logger.warn("No se pudo cargar la caché de salas; se consultará la base de datos", e);
+        }
+        try {
+            IndiceDisponibilidad.getInstancia().cargar(conn);
+        } catch (SQLException e) {
+            logger.warn("No se pudo cargar el índice de disponibilidad; se usará la comprobación SQL", e);
+        }
+        CacheListado.SALAS.activar();
+        CacheListado.EMPLEADOS.activar();
+        if (!FICHERO_CALENDARIO.isEmpty()) {
+            try {
+                CalendarioSalas.getInstancia().abrir(Path.of(FICHERO_CALENDARIO));
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("No se pudo abrir el calendario de salas; los conflictos se comprobarán sin él", e);
+            }
         }
     }
 }
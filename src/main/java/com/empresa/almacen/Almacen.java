@@ -0,0 +1,54 @@
+package com.empresa.almacen;
+
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Almacenamiento de salas, empleados y reservas.
+ * <p>
+ * Las operaciones de consola trabajan sobre una {@link Sesion} sin saber si los datos están en
+ * MySQL ({@link AlmacenJdbc}) o en el motor embebido en ficheros ({@link AlmacenEmbebido}).
+ * Ambas implementaciones notifican los errores con {@link SQLException}, incluidas las claves
+ * duplicadas y las referencias a filas inexistentes
+ * ({@link java.sql.SQLIntegrityConstraintViolationException}), de modo que la consola los trata igual.
+ */
+public interface Almacen extends AutoCloseable {
+
+    /**
+     * Abre una sesión para una operación de consola. Hay que cerrarla al terminar.
+     *
+     * @return Sesión abierta.
+     * @throws SQLException si no se puede acceder al almacén.
+     */
+    Sesion abrirSesion() throws SQLException;
+
+    /**
+     * Ejecuta una operación con una sesión y la cierra al terminar.
+     * Pensado para las operaciones de consola, que gestionan sus propios errores.
+     *
+     * @param operacion Operación a ejecutar.
+     * @return true si se abrió la sesión y se ejecutó la operación.
+     */
+    default boolean ejecutar(Consumer<Sesion> operacion) {
+        try (Sesion sesion = abrirSesion()) {
+            operacion.accept(sesion);
+            return true;
+        } catch (SQLException e) {
+            LoggerFactory.getLogger(Almacen.class).error("No se pudo abrir una sesión del almacén", e);
+            System.out.println("❌ No se pudo acceder al almacén de datos.");
+            return false;
+        }
+    }
+
+    /**
+     * Describe el almacén para mostrarlo al arrancar.
+     *
+     * @return Descripción breve.
+     */
+    String descripcion();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,943 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.empleados.ImportadorEmpleados;
+import com.empresa.reservas.*;
+import com.empresa.salas.IndiceRecursos;
+import com.empresa.salas.Sala;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Motor de almacenamiento embebido: tablas en memoria persistidas en un directorio local.
+ * <p>
+ * Cada escritura se anota primero en un {@link DiarioOperaciones} de solo anexado y después se
+ * aplica en memoria. Cada {@value #INSTANTANEA_CADA_POR_DEFECTO} operaciones (configurable con
+ * {@code -Dalmacen.instantaneaCada}) y al cerrar se escribe una {@link Instantanea} con el estado
+ * completo y se vacía el diario. Al abrir se carga la instantánea y se repiten las operaciones
+ * posteriores del diario. Con {@code -Dalmacen.sincronizar=true} cada escritura se fuerza a disco.
+ * <p>
+ * Reproduce las reglas del esquema MySQL: nombres de sala y emails únicos, reservas que solo
+ * pueden apuntar a salas y empleados existentes, borrado en cascada de las reservas y la misma
+ * definición de conflicto de horario, comprobada con un {@link ArbolIntervalos} por sala y fecha.
+ * Las series de reservas periódicas se guardan con sus ocurrencias en una sola operación del diario.
+ * Las lecturas se hacen en paralelo; las escrituras se serializan con un cerrojo de escritura.
+ */
+public class AlmacenEmbebido implements Almacen {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlmacenEmbebido.class);
+
+    static final String FICHERO_DIARIO = "diario.log";
+    static final String FICHERO_INSTANTANEA = "instantanea.dat";
+    static final int INSTANTANEA_CADA_POR_DEFECTO = 10_000;
+    /** Reservas que se copian cada vez que se toma el cerrojo en un recorrido con filtro. */
+    private static final int FILAS_POR_PAGINA_RECORRIDO = 1000;
+
+    /** Orden del listado paginado, igual que en {@link ConsultaReservas}. */
+    private static final Comparator<Reserva> ORDEN_LISTADO = Comparator.comparing(Reserva::fecha)
+            .thenComparing(Reserva::horaInicio)
+            .thenComparingInt(Reserva::id);
+
+    /**
+     * Métricas del almacén.
+     *
+     * @param salas               Número de salas.
+     * @param empleados           Número de empleados.
+     * @param reservas            Número de reservas.
+     * @param operacionesEnDiario Operaciones anotadas desde la última instantánea.
+     * @param bytesDiario         Tamaño del diario.
+     * @param instantaneas        Instantáneas escritas desde que se abrió el almacén.
+     */
+    public record Estadisticas(int salas, int empleados, int reservas, long operacionesEnDiario,
+                               long bytesDiario, long instantaneas) {
+    }
+
+    private record ClaveSalaFecha(int salaId, LocalDate fecha) {
+    }
+
+    private final Path directorio;
+    private final int instantaneaCada;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<Integer, Sala> salas = new TreeMap<>();
+    private final Map<String, Integer> salasPorNombre = new HashMap<>();
+    private final IndiceRecursos salasPorRecursos = new IndiceRecursos();
+    private final TreeMap<Integer, Empleado> empleados = new TreeMap<>();
+    private final Map<String, Integer> empleadosPorEmail = new HashMap<>();
+    private final TreeMap<Integer, Reserva> reservas = new TreeMap<>();
+    private final TreeSet<Reserva> reservasOrdenadas = new TreeSet<>(ORDEN_LISTADO);
+    private final Map<ClaveSalaFecha, ArbolIntervalos> ocupacion = new HashMap<>();
+    private final TreeMap<Integer, SerieReservas> series = new TreeMap<>();
+    private final Map<Integer, Set<Integer>> ocurrenciasPorSerie = new HashMap<>();
+    private final Map<Integer, Integer> seriePorReserva = new HashMap<>();
+
+    private int ultimaSala;
+    private int ultimoEmpleado;
+    private int ultimaReserva;
+    private int ultimaSerie;
+    private long ultimoLsn;
+    private long operacionesDesdeInstantanea;
+    private long instantaneas;
+    private DiarioOperaciones diario;
+    private boolean cerrado;
+
+    private final Sesion sesion = SesionMedida.medir(new SesionEmbebida());
+
+    private AlmacenEmbebido(Path directorio, int instantaneaCada) {
+        this.directorio = directorio;
+        this.instantaneaCada = instantaneaCada;
+    }
+
+    /**
+     * Abre (o crea) el almacén en un directorio con la configuración de las propiedades del sistema.
+     *
+     * @param directorio Directorio de los ficheros del almacén.
+     * @return Almacén con el estado recuperado.
+     * @throws IOException si no se pueden leer o crear los ficheros.
+     */
+    public static AlmacenEmbebido abrir(Path directorio) throws IOException {
+        return abrir(directorio, Integer.getInteger("almacen.instantaneaCada", INSTANTANEA_CADA_POR_DEFECTO),
+                Boolean.getBoolean("almacen.sincronizar"));
+    }
+
+    /**
+     * Abre (o crea) el almacén en un directorio.
+     *
+     * @param directorio      Directorio de los ficheros del almacén.
+     * @param instantaneaCada Operaciones entre instantáneas.
+     * @param sincronizar     true para forzar cada escritura a disco.
+     * @return Almacén con el estado recuperado.
+     * @throws IOException si no se pueden leer o crear los ficheros.
+     */
+    public static AlmacenEmbebido abrir(Path directorio, int instantaneaCada, boolean sincronizar) throws IOException {
+        if (instantaneaCada <= 0) {
+            throw new IllegalArgumentException("El intervalo de instantáneas debe ser mayor que 0");
+        }
+        Files.createDirectories(directorio);
+        AlmacenEmbebido almacen = new AlmacenEmbebido(directorio, instantaneaCada);
+        almacen.recuperar();
+        almacen.diario = new DiarioOperaciones(directorio.resolve(FICHERO_DIARIO), sincronizar);
+        return almacen;
+    }
+
+    private void recuperar() throws IOException {
+        long inicio = System.nanoTime();
+        Instantanea.Cabecera cabecera = Instantanea.leer(directorio.resolve(FICHERO_INSTANTANEA), this::aplicar);
+        ultimaSala = Math.max(ultimaSala, cabecera.ultimaSala());
+        ultimoEmpleado = Math.max(ultimoEmpleado, cabecera.ultimoEmpleado());
+        ultimaReserva = Math.max(ultimaReserva, cabecera.ultimaReserva());
+        ultimaSerie = Math.max(ultimaSerie, cabecera.ultimaSerie());
+        ultimoLsn = cabecera.lsn();
+
+        long[] repetidas = {0};
+        DiarioOperaciones.recuperar(directorio.resolve(FICHERO_DIARIO), (lsn, operacion) -> {
+            // Las operaciones anteriores ya están en la instantánea (caída antes de vaciar el diario)
+            if (lsn > ultimoLsn) {
+                aplicar(operacion);
+                ultimoLsn = lsn;
+                repetidas[0]++;
+            }
+        });
+        operacionesDesdeInstantanea = repetidas[0];
+        logger.info("Almacén embebido recuperado en {} ms: {} salas, {} empleados, {} reservas ({} operaciones del diario)",
+                (System.nanoTime() - inicio) / 1_000_000, salas.size(), empleados.size(), reservas.size(), repetidas[0]);
+    }
+
+    @Override
+    public Sesion abrirSesion() throws SQLException {
+        lock.readLock().lock();
+        try {
+            comprobarAbierto();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return sesion;
+    }
+
+    @Override
+    public String descripcion() {
+        return "embebido en " + directorio.toAbsolutePath();
+    }
+
+    /**
+     * Escribe una instantánea con el estado actual y vacía el diario.
+     *
+     * @throws SQLException si el almacén está cerrado o falla la escritura.
+     */
+    public void escribirInstantanea() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            comprobarAbierto();
+            instantanea();
+        } catch (IOException e) {
+            throw new SQLException("No se pudo escribir la instantánea del almacén", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve las métricas actuales del almacén.
+     *
+     * @return Instantánea de las estadísticas.
+     */
+    public Estadisticas getEstadisticas() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            if (!cerrado) {
+                try {
+                    bytes = diario.tamano();
+                } catch (IOException e) {
+                    logger.debug("No se pudo consultar el tamaño del diario", e);
+                }
+            }
+            return new Estadisticas(salas.size(), empleados.size(), reservas.size(),
+                    operacionesDesdeInstantanea, bytes, instantaneas);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Escribe una instantánea final y cierra el diario.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            if (operacionesDesdeInstantanea > 0) {
+                instantanea();
+            }
+            diario.close();
+        } catch (IOException e) {
+            // El diario conserva las operaciones; se repetirán al abrir
+            logger.error("Error al cerrar el almacén embebido", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void comprobarAbierto() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El almacén embebido está cerrado");
+        }
+    }
+
+    /**
+     * Anota una operación en el diario y la aplica en memoria. Requiere el cerrojo de escritura.
+     */
+    private void escribir(Operacion operacion) throws SQLException {
+        comprobarAbierto();
+        try {
+            diario.anotar(ultimoLsn + 1, operacion);
+        } catch (IOException e) {
+            throw new SQLException("No se pudo escribir en el diario del almacén", e);
+        }
+        ultimoLsn++;
+        aplicar(operacion);
+        if (++operacionesDesdeInstantanea >= instantaneaCada) {
+            try {
+                instantanea();
+            } catch (IOException e) {
+                // La operación ya está en el diario; se reintentará en la siguiente
+                logger.warn("No se pudo escribir la instantánea del almacén", e);
+            }
+        }
+    }
+
+    private void instantanea() throws IOException {
+        List<Operacion> filas = new ArrayList<>(salas.size() + empleados.size() + reservas.size());
+        salas.values().forEach(s -> filas.add(new Operacion.GuardarSala(s)));
+        empleados.values().forEach(e -> filas.add(new Operacion.GuardarEmpleado(e)));
+        reservas.values().stream()
+                .filter(r -> !seriePorReserva.containsKey(r.id()))
+                .forEach(r -> filas.add(new Operacion.GuardarReserva(r)));
+        series.values().forEach(serie -> filas.add(new Operacion.GuardarSerie(serie,
+                ocurrenciasPorSerie.getOrDefault(serie.id(), Set.of()).stream().map(reservas::get).toList())));
+        Instantanea.escribir(directorio.resolve(FICHERO_INSTANTANEA),
+                new Instantanea.Cabecera(ultimoLsn, ultimaSala, ultimoEmpleado, ultimaReserva, ultimaSerie), filas);
+        diario.vaciar();
+        operacionesDesdeInstantanea = 0;
+        instantaneas++;
+    }
+
+    /**
+     * Aplica una operación a las tablas en memoria, sin validarla.
+     */
+    private void aplicar(Operacion operacion) {
+        switch (operacion) {
+            case Operacion.GuardarSala(Sala sala) -> {
+                Sala anterior = salas.put(sala.id(), sala);
+                if (anterior != null) {
+                    salasPorNombre.remove(anterior.nombre());
+                }
+                salasPorNombre.put(sala.nombre(), sala.id());
+                salasPorRecursos.registrar(sala);
+                ultimaSala = Math.max(ultimaSala, sala.id());
+            }
+            case Operacion.EliminarSala(int id) -> {
+                Sala anterior = salas.remove(id);
+                if (anterior != null) {
+                    salasPorNombre.remove(anterior.nombre());
+                    salasPorRecursos.eliminar(id);
+                    quitarReservasSi(r -> r.salaId() == id);
+                    quitarSeriesSi(serie -> serie.salaId() == id);
+                }
+            }
+            case Operacion.GuardarEmpleado(Empleado empleado) -> {
+                Empleado anterior = empleados.put(empleado.id(), empleado);
+                if (anterior != null && anterior.email() != null) {
+                    empleadosPorEmail.remove(anterior.email());
+                }
+                if (empleado.email() != null) {
+                    empleadosPorEmail.put(empleado.email(), empleado.id());
+                }
+                ultimoEmpleado = Math.max(ultimoEmpleado, empleado.id());
+            }
+            case Operacion.EliminarEmpleado(int id) -> {
+                Empleado anterior = empleados.remove(id);
+                if (anterior != null) {
+                    if (anterior.email() != null) {
+                        empleadosPorEmail.remove(anterior.email());
+                    }
+                    quitarReservasSi(r -> r.empleadoId() == id);
+                    quitarSeriesSi(serie -> serie.empleadoId() == id);
+                }
+            }
+            case Operacion.GuardarReserva(Reserva reserva) -> {
+                // Una ocurrencia modificada sigue perteneciendo a su serie
+                guardarReserva(reserva, seriePorReserva.get(reserva.id()));
+            }
+            case Operacion.EliminarReserva(int id) -> quitarReserva(id);
+            case Operacion.GuardarSerie(SerieReservas serie, List<Reserva> ocurrencias) -> {
+                quitarOcurrencias(serie.id());
+                series.put(serie.id(), serie);
+                ocurrencias.forEach(r -> guardarReserva(r, serie.id()));
+                ultimaSerie = Math.max(ultimaSerie, serie.id());
+            }
+            case Operacion.EliminarSerie(int id) -> {
+                series.remove(id);
+                quitarOcurrencias(id);
+            }
+        }
+    }
+
+    private void guardarReserva(Reserva reserva, Integer serieId) {
+        quitarReserva(reserva.id());
+        reservas.put(reserva.id(), reserva);
+        reservasOrdenadas.add(reserva);
+        ocupacion.computeIfAbsent(new ClaveSalaFecha(reserva.salaId(), reserva.fecha()), k -> new ArbolIntervalos())
+                .insertar(reserva.id(), reserva.horaInicio().toSecondOfDay(), reserva.horaFin().toSecondOfDay());
+        ultimaReserva = Math.max(ultimaReserva, reserva.id());
+        if (serieId != null) {
+            seriePorReserva.put(reserva.id(), serieId);
+            ocurrenciasPorSerie.computeIfAbsent(serieId, k -> new TreeSet<>()).add(reserva.id());
+        }
+    }
+
+    private void quitarReserva(int id) {
+        Reserva anterior = reservas.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        reservasOrdenadas.remove(anterior);
+        Integer serieId = seriePorReserva.remove(id);
+        Set<Integer> ocurrencias = serieId == null ? null : ocurrenciasPorSerie.get(serieId);
+        if (ocurrencias != null) {
+            ocurrencias.remove(id);
+        }
+        ClaveSalaFecha clave = new ClaveSalaFecha(anterior.salaId(), anterior.fecha());
+        ArbolIntervalos arbol = ocupacion.get(clave);
+        if (arbol != null) {
+            arbol.eliminar(id, anterior.horaInicio().toSecondOfDay());
+            if (arbol.estaVacio()) {
+                ocupacion.remove(clave);
+            }
+        }
+    }
+
+    private void quitarReservasSi(Predicate<Reserva> condicion) {
+        reservas.values().stream().filter(condicion).map(Reserva::id).toList().forEach(this::quitarReserva);
+    }
+
+    private void quitarOcurrencias(int serieId) {
+        Set<Integer> ocurrencias = ocurrenciasPorSerie.remove(serieId);
+        if (ocurrencias != null) {
+            List.copyOf(ocurrencias).forEach(this::quitarReserva);
+        }
+    }
+
+    private void quitarSeriesSi(Predicate<SerieReservas> condicion) {
+        series.values().stream().filter(condicion).map(SerieReservas::id).toList().forEach(id -> {
+            series.remove(id);
+            quitarOcurrencias(id);
+        });
+    }
+
+    /**
+     * Fechas de la serie en las que la sala ya está ocupada, consultando el árbol de cada ocurrencia
+     * y sin contar las reservas de la propia serie. Requiere el cerrojo.
+     */
+    private List<LocalDate> fechasEnConflicto(SerieReservas serie) {
+        int inicio = serie.horaInicio().toSecondOfDay();
+        int fin = serie.horaFin().toSecondOfDay();
+        return serie.fechas().filter(fecha -> {
+            ArbolIntervalos arbol = ocupacion.get(new ClaveSalaFecha(serie.salaId(), fecha));
+            return arbol != null && arbol.haySolapamientoSalvo(inicio, fin,
+                    id -> Objects.equals(seriePorReserva.get(id), serie.id()));
+        }).toList();
+    }
+
+    /**
+     * Genera las ocurrencias de una serie con IDs de reserva consecutivos a partir del último asignado.
+     */
+    private List<Reserva> ocurrencias(SerieReservas serie) {
+        int[] siguiente = {ultimaReserva};
+        return serie.fechas().map(fecha -> new Reserva(++siguiente[0], serie.salaId(), serie.empleadoId(), fecha,
+                serie.horaInicio(), serie.horaFin())).toList();
+    }
+
+    private boolean haySolapamiento(int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, Integer excluirId) {
+        ArbolIntervalos arbol = ocupacion.get(new ClaveSalaFecha(salaId, fecha));
+        return arbol != null && arbol.haySolapamiento(horaInicio.toSecondOfDay(), horaFin.toSecondOfDay(), excluirId);
+    }
+
+    private void comprobarReferencias(int salaId, int empleadoId) throws SQLException {
+        if (!salas.containsKey(salaId) || !empleados.containsKey(empleadoId)) {
+            throw new SQLIntegrityConstraintViolationException(
+                    "Cannot add or update a child row: a foreign key constraint fails", "23000", 1452);
+        }
+    }
+
+    private static SQLIntegrityConstraintViolationException duplicado(String valor, String clave) {
+        return new SQLIntegrityConstraintViolationException(
+                "Duplicate entry '" + valor + "' for key '" + clave + "'", "23000", 1062);
+    }
+
+    private ConsultaReservas.Fila fila(Reserva reserva) {
+        Sala sala = salas.get(reserva.salaId());
+        Empleado empleado = empleados.get(reserva.empleadoId());
+        return new ConsultaReservas.Fila(reserva.id(), reserva.fecha(), reserva.horaInicio(), reserva.horaFin(),
+                sala.nombre(), empleado.nombre());
+    }
+
+    private final class SesionEmbebida implements Sesion {
+
+        private final OperacionesSalas salas = new SalasEmbebidas();
+        private final OperacionesEmpleados empleados = new EmpleadosEmbebidos();
+        private final OperacionesReservas reservas = new ReservasEmbebidas();
+
+        @Override
+        public OperacionesSalas salas() {
+            return salas;
+        }
+
+        @Override
+        public OperacionesEmpleados empleados() {
+            return empleados;
+        }
+
+        @Override
+        public OperacionesReservas reservas() {
+            return reservas;
+        }
+
+        @Override
+        public void close() {
+            // Las tablas están en memoria: no hay recursos por sesión
+        }
+    }
+
+    private final class SalasEmbebidas implements OperacionesSalas {
+
+        @Override
+        public Sala insertar(String nombre, int capacidad, String recursos) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (salasPorNombre.containsKey(nombre)) {
+                    throw duplicado(nombre, "salas.uq_salas_nombre");
+                }
+                Sala sala = new Sala(ultimaSala + 1, nombre, capacidad, recursos);
+                escribir(new Operacion.GuardarSala(sala));
+                return sala;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Actualizacion actualizar(Sala sala, Integer version) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                Sala actual = salas.get(sala.id());
+                if (actual == null) {
+                    return Actualizacion.NO_EXISTE;
+                }
+                if (version != null && version != actual.version()) {
+                    return Actualizacion.DESACTUALIZADA;
+                }
+                Integer otra = salasPorNombre.get(sala.nombre());
+                if (otra != null && otra != sala.id()) {
+                    throw duplicado(sala.nombre(), "salas.uq_salas_nombre");
+                }
+                escribir(new Operacion.GuardarSala(new Sala(sala.id(), sala.nombre(), sala.capacidad(), sala.recursos(),
+                        actual.version() + 1)));
+                return Actualizacion.ACTUALIZADA;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Sala buscar(int id) {
+            lock.readLock().lock();
+            try {
+                return salas.get(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean existe(int id) {
+            lock.readLock().lock();
+            try {
+                return salas.containsKey(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (!salas.containsKey(id)) {
+                    return false;
+                }
+                escribir(new Operacion.EliminarSala(id));
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Sala buscarPorNombre(String nombre) {
+            lock.readLock().lock();
+            try {
+                Integer id = salasPorNombre.get(nombre);
+                return id == null ? null : salas.get(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void recorrer(Consumer<Sala> consumidor) {
+            List<Sala> copia;
+            lock.readLock().lock();
+            try {
+                copia = new ArrayList<>(salas.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+            copia.forEach(consumidor);
+        }
+
+        @Override
+        public List<Sala> listarPagina(int despues, int tamano) {
+            lock.readLock().lock();
+            try {
+                return salas.tailMap(despues, false).values().stream().limit(tamano).toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public List<Sala> buscarPorRecursos(long recursos, int capacidadMinima) {
+            lock.readLock().lock();
+            try {
+                return salasPorRecursos.buscar(recursos, capacidadMinima);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private final class EmpleadosEmbebidos implements OperacionesEmpleados {
+
+        @Override
+        public Empleado insertar(String nombre, String email, String departamento) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (email != null && empleadosPorEmail.containsKey(email)) {
+                    throw duplicado(email, "empleados.email");
+                }
+                Empleado empleado = new Empleado(ultimoEmpleado + 1, nombre, email, departamento);
+                escribir(new Operacion.GuardarEmpleado(empleado));
+                return empleado;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean actualizar(Empleado empleado) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (!empleados.containsKey(empleado.id())) {
+                    return false;
+                }
+                Integer otro = empleado.email() == null ? null : empleadosPorEmail.get(empleado.email());
+                if (otro != null && otro != empleado.id()) {
+                    throw duplicado(empleado.email(), "empleados.email");
+                }
+                escribir(new Operacion.GuardarEmpleado(empleado));
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean existe(int id) {
+            lock.readLock().lock();
+            try {
+                return empleados.containsKey(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (!empleados.containsKey(id)) {
+                    return false;
+                }
+                escribir(new Operacion.EliminarEmpleado(id));
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void recorrer(Consumer<Empleado> consumidor) {
+            List<Empleado> copia;
+            lock.readLock().lock();
+            try {
+                copia = new ArrayList<>(empleados.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+            copia.forEach(consumidor);
+        }
+
+        @Override
+        public List<Empleado> listarPagina(int despues, int tamano) {
+            lock.readLock().lock();
+            try {
+                return empleados.tailMap(despues, false).values().stream().limit(tamano).toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public ImportadorEmpleados.ResultadoImportacion importar(Path fichero) throws SQLException {
+            throw new SQLFeatureNotSupportedException("La importación de empleados solo está disponible con MySQL");
+        }
+    }
+
+    private final class ReservasEmbebidas implements OperacionesReservas {
+
+        @Override
+        public ServicioReservas.Resultado crear(int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio,
+                                                LocalTime horaFin) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                comprobarReferencias(salaId, empleadoId);
+                if (haySolapamiento(salaId, fecha, horaInicio, horaFin, null)) {
+                    return new ServicioReservas.Resultado(ServicioReservas.Estado.CONFLICTO, null);
+                }
+                Reserva reserva = new Reserva(ultimaReserva + 1, salaId, empleadoId, fecha, horaInicio, horaFin);
+                escribir(new Operacion.GuardarReserva(reserva));
+                return new ServicioReservas.Resultado(ServicioReservas.Estado.CREADA, reserva.id());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public ServicioReservas.Resultado actualizar(int id, Integer version, int salaId, int empleadoId,
+                                                     LocalDate fecha, LocalTime horaInicio, LocalTime horaFin)
+                throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (haySolapamiento(salaId, fecha, horaInicio, horaFin, id)) {
+                    return new ServicioReservas.Resultado(ServicioReservas.Estado.CONFLICTO, id);
+                }
+                Reserva actual = reservas.get(id);
+                if (actual == null) {
+                    return new ServicioReservas.Resultado(ServicioReservas.Estado.NO_ENCONTRADA, id);
+                }
+                if (version != null && version != actual.version()) {
+                    return new ServicioReservas.Resultado(ServicioReservas.Estado.DESACTUALIZADA, id);
+                }
+                comprobarReferencias(salaId, empleadoId);
+                int nueva = actual.version() + 1;
+                escribir(new Operacion.GuardarReserva(
+                        new Reserva(id, salaId, empleadoId, fecha, horaInicio, horaFin, nueva)));
+                return new ServicioReservas.Resultado(ServicioReservas.Estado.ACTUALIZADA, id, nueva);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean existe(int id) {
+            lock.readLock().lock();
+            try {
+                return reservas.containsKey(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Reserva buscar(int id) {
+            lock.readLock().lock();
+            try {
+                return reservas.get(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (!reservas.containsKey(id)) {
+                    return false;
+                }
+                escribir(new Operacion.EliminarReserva(id));
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public long recorrer(Consumer<ConsultaReservas.Fila> consumidor) {
+            List<ConsultaReservas.Fila> copia = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                reservas.values().forEach(r -> copia.add(fila(r)));
+            } finally {
+                lock.readLock().unlock();
+            }
+            copia.forEach(consumidor);
+            return copia.size();
+        }
+
+        @Override
+        public long recorrer(ConsultaReservas.Filtro filtro, Consumer<ConsultaReservas.Fila> consumidor) {
+            // Por páginas: el cerrojo no se retiene mientras el consumidor escribe y la copia no
+            // depende del número de reservas
+            long total = 0;
+            ConsultaReservas.Cursor cursor = null;
+            do {
+                ConsultaReservas.Pagina pagina = listarPagina(filtro, cursor, FILAS_POR_PAGINA_RECORRIDO);
+                pagina.filas().forEach(consumidor);
+                total += pagina.filas().size();
+                cursor = pagina.siguiente();
+            } while (cursor != null);
+            return total;
+        }
+
+        @Override
+        public ConsultaReservas.Pagina listarPagina(ConsultaReservas.Filtro filtro, ConsultaReservas.Cursor despues,
+                                                    int tamano) {
+            if (tamano <= 0) {
+                throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0");
+            }
+            List<ConsultaReservas.Fila> filas = new ArrayList<>(Math.min(tamano, 1024));
+            lock.readLock().lock();
+            try {
+                Integer salaId = null;
+                if (filtro.sala() != null) {
+                    salaId = salasPorNombre.get(filtro.sala());
+                    if (salaId == null) {
+                        return new ConsultaReservas.Pagina(List.of(), null);
+                    }
+                }
+                NavigableSet<Reserva> desde = reservasOrdenadas;
+                if (despues != null) {
+                    desde = reservasOrdenadas.tailSet(
+                            new Reserva(despues.id(), 0, 0, despues.fecha(), despues.horaInicio(), null), false);
+                }
+                if (filtro.desde() != null && (despues == null || despues.fecha().isBefore(filtro.desde()))) {
+                    desde = reservasOrdenadas.tailSet(
+                            new Reserva(Integer.MIN_VALUE, 0, 0, filtro.desde(), LocalTime.MIN, null), true);
+                }
+                for (Reserva r : desde) {
+                    if (filtro.hasta() != null && r.fecha().isAfter(filtro.hasta())) {
+                        break;
+                    }
+                    if ((salaId == null || r.salaId() == salaId)
+                            && (filtro.empleadoId() == null || r.empleadoId() == filtro.empleadoId())) {
+                        filas.add(fila(r));
+                        if (filas.size() == tamano) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            ConsultaReservas.Cursor siguiente = filas.size() == tamano ? filas.get(filas.size() - 1).cursor() : null;
+            return new ConsultaReservas.Pagina(filas, siguiente);
+        }
+
+        @Override
+        public List<BuscadorHuecos.Hueco> buscarHuecos(BuscadorHuecos.Criterios criterios) {
+            BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+            lock.readLock().lock();
+            try {
+                for (Reserva r : reservasOrdenadas.subSet(
+                        new Reserva(Integer.MIN_VALUE, 0, 0, criterios.fecha(), LocalTime.MIN, null), true,
+                        new Reserva(Integer.MIN_VALUE, 0, 0, criterios.fecha().plusDays(1), LocalTime.MIN, null), false)) {
+                    ocupacion.marcar(r.salaId(), r.horaInicio(), r.horaFin());
+                }
+                return BuscadorHuecos.buscar(
+                        salasPorRecursos.buscar(criterios.recursos(), criterios.capacidadMinima()), ocupacion, criterios);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public InformeOcupacion.Informe informeOcupacion(InformeOcupacion.Periodo periodo) {
+            lock.readLock().lock();
+            try (InformeOcupacion.Agregador agregador = InformeOcupacion.Agregador.para(salas.values(), periodo)) {
+                for (Reserva r : reservasOrdenadas.subSet(
+                        new Reserva(Integer.MIN_VALUE, 0, 0, periodo.desde(), LocalTime.MIN, null), true,
+                        new Reserva(Integer.MIN_VALUE, 0, 0, periodo.hasta().plusDays(1), LocalTime.MIN, null), false)) {
+                    agregador.anadir(r.salaId(), r.fecha(), r.horaInicio(), r.horaFin(),
+                            empleados.get(r.empleadoId()).departamento());
+                }
+                return agregador.terminar();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public ServicioReservas.ResultadoSerie crearSerie(SerieReservas serie) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                comprobarReferencias(serie.salaId(), serie.empleadoId());
+                SerieReservas nueva = serie.conId(ultimaSerie + 1);
+                List<LocalDate> conflictos = fechasEnConflicto(nueva);
+                if (!conflictos.isEmpty()) {
+                    return new ServicioReservas.ResultadoSerie(ServicioReservas.Estado.CONFLICTO, null, 0, conflictos);
+                }
+                List<Reserva> ocurrencias = ocurrencias(nueva);
+                escribir(new Operacion.GuardarSerie(nueva, ocurrencias));
+                return new ServicioReservas.ResultadoSerie(ServicioReservas.Estado.CREADA, nueva.id(),
+                        ocurrencias.size(), List.of());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public ServicioReservas.ResultadoSerie actualizarSerie(int id, SerieReservas serie) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (!series.containsKey(id)) {
+                    return new ServicioReservas.ResultadoSerie(ServicioReservas.Estado.NO_ENCONTRADA, id, 0, List.of());
+                }
+                comprobarReferencias(serie.salaId(), serie.empleadoId());
+                SerieReservas nueva = serie.conId(id);
+                List<LocalDate> conflictos = fechasEnConflicto(nueva);
+                if (!conflictos.isEmpty()) {
+                    return new ServicioReservas.ResultadoSerie(ServicioReservas.Estado.CONFLICTO, id, 0, conflictos);
+                }
+                List<Reserva> ocurrencias = ocurrencias(nueva);
+                escribir(new Operacion.GuardarSerie(nueva, ocurrencias));
+                return new ServicioReservas.ResultadoSerie(ServicioReservas.Estado.ACTUALIZADA, id,
+                        ocurrencias.size(), List.of());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean cancelarSerie(int id) throws SQLException {
+            lock.writeLock().lock();
+            try {
+                if (!series.containsKey(id)) {
+                    return false;
+                }
+                escribir(new Operacion.EliminarSerie(id));
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public SerieReservas buscarSerie(int id) {
+            lock.readLock().lock();
+            try {
+                return series.get(id);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public List<SerieReservas> listarSeries() {
+            lock.readLock().lock();
+            try {
+                return new ArrayList<>(series.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public ImportadorReservas.ResultadoImportacion importar(Path fichero) throws SQLException {
+            throw new SQLFeatureNotSupportedException("La importación desde CSV solo está disponible con MySQL");
+        }
+
+        @Override
+        public ArchivadorReservas.ResultadoArchivado archivar(LocalDate antesDe) throws SQLException {
+            throw new SQLFeatureNotSupportedException("El archivado de reservas solo está disponible con MySQL");
+        }
+    }
+}
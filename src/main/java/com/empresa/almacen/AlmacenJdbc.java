@@ -0,0 +1,393 @@
+package com.empresa.almacen;
+
+import com.empresa.conexion.PoolConexiones;
+import com.empresa.empleados.Empleado;
+import com.empresa.empleados.ImportadorEmpleados;
+import com.empresa.empleados.RepositorioEmpleados;
+import com.empresa.reservas.*;
+import com.empresa.salas.CacheSalas;
+import com.empresa.salas.RepositorioSalas;
+import com.empresa.salas.Sala;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Almacén sobre MySQL: cada sesión es una conexión del {@link PoolConexiones}.
+ * <p>
+ * Las operaciones delegan en los repositorios y mantienen las estructuras en memoria de la
+ * aplicación ({@link CacheSalas}, {@link IndiceDisponibilidad}, {@link CalendarioSalas}) tras cada
+ * escritura. Las reservas se crean y actualizan a través de {@link ServicioReservas} para serializar
+ * los conflictos.
+ */
+public class AlmacenJdbc implements Almacen {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlmacenJdbc.class);
+
+    private final PoolConexiones pool;
+
+    /**
+     * @param pool Pool de conexiones; se cierra al cerrar el almacén.
+     */
+    public AlmacenJdbc(PoolConexiones pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Crea una sesión sobre una conexión ya abierta, que no se cierra al cerrar la sesión.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return Sesión que usa la conexión.
+     */
+    public static Sesion sesion(Connection conn) {
+        return SesionMedida.medir(new SesionJdbc(conn, false));
+    }
+
+    /**
+     * @return Pool de conexiones del almacén.
+     */
+    public PoolConexiones getPool() {
+        return pool;
+    }
+
+    @Override
+    public Sesion abrirSesion() throws SQLException {
+        return SesionMedida.medir(new SesionJdbc(pool.obtenerConexion(), true));
+    }
+
+    @Override
+    public String descripcion() {
+        return "MySQL";
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+        // El calendario se abre con las demás cachés al preparar el almacén
+        CalendarioSalas.getInstancia().cerrar();
+    }
+
+    private static final class SesionJdbc implements Sesion {
+
+        private final Connection conn;
+        private final boolean cerrarConexion;
+        private final OperacionesSalas salas;
+        private final OperacionesEmpleados empleados;
+        private final OperacionesReservas reservas;
+
+        SesionJdbc(Connection conn, boolean cerrarConexion) {
+            this.conn = conn;
+            this.cerrarConexion = cerrarConexion;
+            this.salas = new SalasJdbc(conn);
+            this.empleados = new EmpleadosJdbc(conn);
+            this.reservas = new ReservasJdbc(conn);
+        }
+
+        @Override
+        public OperacionesSalas salas() {
+            return salas;
+        }
+
+        @Override
+        public OperacionesEmpleados empleados() {
+            return empleados;
+        }
+
+        @Override
+        public OperacionesReservas reservas() {
+            return reservas;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (cerrarConexion) {
+                conn.close();
+            }
+        }
+    }
+
+    private record SalasJdbc(Connection conn) implements OperacionesSalas {
+
+        @Override
+        public Sala insertar(String nombre, int capacidad, String recursos) throws SQLException {
+            // Solo se piden las claves generadas cuando hay que mantener la caché
+            CacheSalas cache = CacheSalas.getInstancia();
+            boolean mantenerCache = cache.estaCargada() || CacheListado.SALAS.estaCargado();
+            Sala sala = RepositorioSalas.insertar(conn, nombre, capacidad, recursos, mantenerCache);
+            if (sala != null && mantenerCache) {
+                if (sala.id() > 0) {
+                    cache.registrar(sala);
+                    CacheListado.SALAS.registrar(sala);
+                } else {
+                    logger.warn("No se obtuvo el ID generado de la sala; se invalida la caché de salas");
+                    cache.invalidar();
+                    CacheListado.SALAS.invalidar();
+                }
+            }
+            return sala;
+        }
+
+        @Override
+        public Actualizacion actualizar(Sala sala, Integer version) throws SQLException {
+            CacheSalas cache = CacheSalas.getInstancia();
+            if (version == null) {
+                if (!RepositorioSalas.actualizar(conn, sala)) {
+                    return Actualizacion.NO_EXISTE;
+                }
+                // Sin versión de partida no se sabe cuál es la nueva: se lee para las cachés
+                if (cache.estaCargada() || CacheListado.SALAS.estaCargado()) {
+                    Sala guardada = RepositorioSalas.buscar(conn, sala.id());
+                    if (guardada != null) {
+                        cache.registrar(guardada);
+                        CacheListado.SALAS.registrar(guardada);
+                    }
+                }
+                return Actualizacion.ACTUALIZADA;
+            }
+            Sala nueva = new Sala(sala.id(), sala.nombre(), sala.capacidad(), sala.recursos(), version);
+            if (!RepositorioSalas.actualizarSiVersion(conn, nueva)) {
+                return RepositorioSalas.existe(conn, sala.id()) ? Actualizacion.DESACTUALIZADA : Actualizacion.NO_EXISTE;
+            }
+            Sala guardada = new Sala(sala.id(), sala.nombre(), sala.capacidad(), sala.recursos(), version + 1);
+            cache.registrar(guardada);
+            CacheListado.SALAS.registrar(guardada);
+            return Actualizacion.ACTUALIZADA;
+        }
+
+        @Override
+        public Sala buscar(int id) throws SQLException {
+            // De la base de datos y no de la caché: la versión debe ser la actual
+            return RepositorioSalas.buscar(conn, id);
+        }
+
+        @Override
+        public boolean existe(int id) throws SQLException {
+            return RepositorioSalas.existe(conn, id);
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            if (!RepositorioSalas.eliminar(conn, id)) {
+                return false;
+            }
+            // Las reservas de la sala se borran en cascada
+            IndiceDisponibilidad.getInstancia().eliminarPorSala(id);
+            CalendarioSalas.getInstancia().eliminarSala(id);
+            CacheSalas.getInstancia().eliminar(id);
+            CacheListado.SALAS.eliminar(id);
+            return true;
+        }
+
+        @Override
+        public Sala buscarPorNombre(String nombre) throws SQLException {
+            return CacheSalas.getInstancia().buscarPorNombre(conn, nombre);
+        }
+
+        @Override
+        public void recorrer(Consumer<Sala> consumidor) throws SQLException {
+            CacheListado.SALAS.recorrer(this::leerPagina, c -> RepositorioSalas.recorrer(conn, c), consumidor);
+        }
+
+        @Override
+        public List<Sala> listarPagina(int despues, int tamano) throws SQLException {
+            return CacheListado.SALAS.listarPagina(this::leerPagina, despues, tamano);
+        }
+
+        private List<Sala> leerPagina(int despues, int tamano) throws SQLException {
+            return RepositorioSalas.listarPagina(conn, despues, tamano);
+        }
+
+        @Override
+        public List<Sala> buscarPorRecursos(long recursos, int capacidadMinima) throws SQLException {
+            CacheSalas cache = CacheSalas.getInstancia();
+            if (cache.estaCargada()) {
+                return cache.buscarPorRecursos(recursos, capacidadMinima);
+            }
+            List<Sala> salas = new ArrayList<>();
+            RepositorioSalas.recorrer(conn, sala -> {
+                if (sala.capacidad() >= capacidadMinima && sala.tieneRecursos(recursos)) {
+                    salas.add(sala);
+                }
+            });
+            return salas;
+        }
+    }
+
+    private record EmpleadosJdbc(Connection conn) implements OperacionesEmpleados {
+
+        @Override
+        public Empleado insertar(String nombre, String email, String departamento) throws SQLException {
+            // Solo se piden las claves generadas cuando hay que mantener la caché
+            boolean mantenerCache = CacheListado.EMPLEADOS.estaCargado();
+            Empleado empleado = RepositorioEmpleados.insertar(conn, nombre, email, departamento, mantenerCache);
+            if (empleado != null && mantenerCache) {
+                if (empleado.id() > 0) {
+                    CacheListado.EMPLEADOS.registrar(empleado);
+                } else {
+                    CacheListado.EMPLEADOS.invalidar();
+                }
+            }
+            return empleado;
+        }
+
+        @Override
+        public boolean actualizar(Empleado empleado) throws SQLException {
+            if (!RepositorioEmpleados.actualizar(conn, empleado)) {
+                return false;
+            }
+            CacheListado.EMPLEADOS.registrar(empleado);
+            return true;
+        }
+
+        @Override
+        public boolean existe(int id) throws SQLException {
+            return RepositorioEmpleados.existe(conn, id);
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            // Las reservas del empleado se borran en cascada: antes se anotan sus días para el calendario
+            CalendarioSalas calendario = CalendarioSalas.getInstancia();
+            List<CalendarioSalas.DiaSala> dias = calendario.diasDeEmpleado(conn, id);
+            if (!RepositorioEmpleados.eliminar(conn, id)) {
+                return false;
+            }
+            IndiceDisponibilidad.getInstancia().eliminarPorEmpleado(id);
+            calendario.recalcular(conn, dias);
+            CacheListado.EMPLEADOS.eliminar(id);
+            return true;
+        }
+
+        @Override
+        public void recorrer(Consumer<Empleado> consumidor) throws SQLException {
+            CacheListado.EMPLEADOS.recorrer(this::leerPagina, c -> RepositorioEmpleados.recorrer(conn, c), consumidor);
+        }
+
+        @Override
+        public List<Empleado> listarPagina(int despues, int tamano) throws SQLException {
+            return CacheListado.EMPLEADOS.listarPagina(this::leerPagina, despues, tamano);
+        }
+
+        private List<Empleado> leerPagina(int despues, int tamano) throws SQLException {
+            return RepositorioEmpleados.listarPagina(conn, despues, tamano);
+        }
+
+        @Override
+        public ImportadorEmpleados.ResultadoImportacion importar(Path fichero) throws IOException, SQLException {
+            try {
+                return ImportadorEmpleados.importar(conn, fichero, ImportadorEmpleados.TAMANO_LOTE);
+            } finally {
+                // Altas por lotes sin IDs: la próxima lectura recarga el listado
+                CacheListado.EMPLEADOS.invalidar();
+            }
+        }
+    }
+
+    private record ReservasJdbc(Connection conn) implements OperacionesReservas {
+
+        @Override
+        public ServicioReservas.Resultado crear(int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio,
+                                                LocalTime horaFin) throws SQLException {
+            return ServicioReservas.getInstancia().crear(conn, salaId, empleadoId, fecha, horaInicio, horaFin);
+        }
+
+        @Override
+        public ServicioReservas.Resultado actualizar(int id, Integer version, int salaId, int empleadoId, LocalDate fecha,
+                                                     LocalTime horaInicio, LocalTime horaFin) throws SQLException {
+            return ServicioReservas.getInstancia().actualizar(conn, id, version, salaId, empleadoId, fecha, horaInicio,
+                    horaFin);
+        }
+
+        @Override
+        public boolean existe(int id) throws SQLException {
+            return RepositorioReservas.existe(conn, id);
+        }
+
+        @Override
+        public Reserva buscar(int id) throws SQLException {
+            return RepositorioReservas.buscar(conn, id);
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            return ServicioReservas.getInstancia().eliminar(conn, id);
+        }
+
+        @Override
+        public long recorrer(Consumer<ConsultaReservas.Fila> consumidor) throws SQLException {
+            return RepositorioReservas.recorrer(conn, consumidor);
+        }
+
+        @Override
+        public long recorrer(ConsultaReservas.Filtro filtro, Consumer<ConsultaReservas.Fila> consumidor)
+                throws SQLException {
+            return ConsultaReservas.recorrer(conn, filtro, consumidor);
+        }
+
+        @Override
+        public ConsultaReservas.Pagina listarPagina(ConsultaReservas.Filtro filtro, ConsultaReservas.Cursor despues,
+                                                    int tamano) throws SQLException {
+            return ConsultaReservas.listarPagina(conn, filtro, despues, tamano);
+        }
+
+        @Override
+        public List<BuscadorHuecos.Hueco> buscarHuecos(BuscadorHuecos.Criterios criterios) throws SQLException {
+            List<Sala> salas = new SalasJdbc(conn).buscarPorRecursos(criterios.recursos(), criterios.capacidadMinima());
+            BuscadorHuecos.Ocupacion ocupacion = CalendarioSalas.getInstancia().ocupacion(conn, criterios.fecha());
+            if (ocupacion == null) {
+                ocupacion = RepositorioReservas.leerOcupacion(conn, criterios.fecha());
+            }
+            return BuscadorHuecos.buscar(salas, ocupacion, criterios);
+        }
+
+        @Override
+        public InformeOcupacion.Informe informeOcupacion(InformeOcupacion.Periodo periodo) throws SQLException {
+            return InformeOcupacion.generar(conn, RepositorioSalas.listar(conn), periodo);
+        }
+
+        @Override
+        public ServicioReservas.ResultadoSerie crearSerie(SerieReservas serie) throws SQLException {
+            return ServicioReservas.getInstancia().crearSerie(conn, serie);
+        }
+
+        @Override
+        public ServicioReservas.ResultadoSerie actualizarSerie(int id, SerieReservas serie) throws SQLException {
+            return ServicioReservas.getInstancia().actualizarSerie(conn, id, serie);
+        }
+
+        @Override
+        public boolean cancelarSerie(int id) throws SQLException {
+            return ServicioReservas.getInstancia().cancelarSerie(conn, id);
+        }
+
+        @Override
+        public SerieReservas buscarSerie(int id) throws SQLException {
+            return RepositorioSeries.buscar(conn, id);
+        }
+
+        @Override
+        public List<SerieReservas> listarSeries() throws SQLException {
+            return RepositorioSeries.listar(conn);
+        }
+
+        @Override
+        public ImportadorReservas.ResultadoImportacion importar(Path fichero) throws IOException, SQLException {
+            return ImportadorReservas.importar(conn, fichero, ImportadorReservas.TAMANO_LOTE);
+        }
+
+        @Override
+        public ArchivadorReservas.ResultadoArchivado archivar(LocalDate antesDe) throws SQLException {
+            return ArchivadorReservas.archivar(conn, antesDe, ArchivadorReservas.TAMANO_BLOQUE,
+                    ArchivadorReservas.PAUSA);
+        }
+    }
+}
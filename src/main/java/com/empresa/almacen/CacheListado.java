@@ -0,0 +1,353 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.metricas.HistogramaLatencias;
+import com.empresa.metricas.OperacionMedida;
+import com.empresa.salas.Sala;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caché de lectura a través para el listado completo de una tabla pequeña que cambia poco, como
+ * las salas o los empleados.
+ * <p>
+ * El listado se guarda como un array inmutable ordenado por ID: leerlo no bloquea y las páginas
+ * se sacan con una búsqueda binaria. Se carga de la base de datos en el primer listado y vuelve a
+ * cargarse cuando tiene más de {@code ttl}, por si otra instancia de la aplicación ha cambiado la
+ * tabla. Las escrituras de esta instancia no esperan al TTL: {@link #registrar} y {@link #eliminar}
+ * sustituyen el listado por una copia con la fila cambiada.
+ * <p>
+ * Las cargas y las escrituras se serializan con el monitor de la caché, de modo que una carga en
+ * curso no puede pisar una escritura posterior. La carga lee como mucho {@code maximo + 1} filas;
+ * si la tabla tiene más de {@code maximo}, no se guarda y los listados van a la base de datos hasta
+ * que pase otro TTL.
+ * <p>
+ * Las cachés empiezan desactivadas y los listados van directamente a la base de datos hasta que se
+ * llama a {@link #activar()}; así solo las usa la aplicación y no los tests ni las herramientas que
+ * abren varias bases de datos en el mismo proceso.
+ *
+ * @param <T> Tipo de las filas.
+ */
+public final class CacheListado<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheListado.class);
+
+    /** Antigüedad máxima del listado en caché. */
+    public static final Duration TTL = Duration.ofSeconds(Long.getLong("cache.listados.ttlSegundos", 60));
+    /** Filas que como mucho se guardan de cada tabla. */
+    public static final int MAXIMO = Integer.getInteger("cache.listados.maximo", 10_000);
+
+    public static final CacheListado<Sala> SALAS = new CacheListado<>("salas", Sala::id, TTL, MAXIMO,
+            OperacionMedida.SALAS_RECARGAR_LISTADO.histograma(), System::nanoTime);
+    public static final CacheListado<Empleado> EMPLEADOS = new CacheListado<>("empleados", Empleado::id, TTL,
+            MAXIMO, OperacionMedida.EMPLEADOS_RECARGAR_LISTADO.histograma(), System::nanoTime);
+
+    /**
+     * Lee una página de filas ordenadas por ID de la base de datos.
+     *
+     * @param <T> Tipo de las filas.
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+        List<T> listarPagina(int despues, int tamano) throws SQLException;
+    }
+
+    /**
+     * Recorre la tabla completa en la base de datos.
+     *
+     * @param <T> Tipo de las filas.
+     */
+    @FunctionalInterface
+    public interface Recorrido<T> {
+        void recorrer(Consumer<T> consumidor) throws SQLException;
+    }
+
+    /**
+     * Contadores de uso de la caché.
+     *
+     * @param aciertos  Listados servidos desde memoria.
+     * @param fallos    Listados que tuvieron que ir a la base de datos (con o sin recarga).
+     * @param recargas  Cargas completas del listado.
+     * @param tamano    Filas en caché (0 si no está cargada).
+     * @param recarga   Latencia de las recargas.
+     */
+    public record Estadisticas(long aciertos, long fallos, long recargas, int tamano,
+                               HistogramaLatencias.Resumen recarga) {
+
+        /**
+         * @return Proporción de listados servidos desde memoria, entre 0 y 1.
+         */
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+
+    /** Listado en un instante; {@code filas == null} si la tabla superaba el máximo. */
+    private record Instantanea(Object[] filas, int[] ids, long cargadaNanos) {
+    }
+
+    private final String nombre;
+    private final ToIntFunction<T> id;
+    private final long ttlNanos;
+    private final int maximo;
+    private final HistogramaLatencias latenciaRecarga;
+    private final LongSupplier reloj;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder recargas = new LongAdder();
+    private volatile boolean activa;
+    private volatile Instantanea instantanea;
+
+    /**
+     * @param nombre          Nombre de la tabla, para el registro.
+     * @param id              Obtiene el ID de una fila.
+     * @param ttl             Antigüedad máxima del listado.
+     * @param maximo          Filas que como mucho se guardan.
+     * @param latenciaRecarga Histograma en el que se mide cada recarga.
+     * @param reloj           Fuente de {@link System#nanoTime()} (sustituible en los tests).
+     */
+    CacheListado(String nombre, ToIntFunction<T> id, Duration ttl, int maximo, HistogramaLatencias latenciaRecarga,
+                 LongSupplier reloj) {
+        if (maximo <= 0) {
+            throw new IllegalArgumentException("El máximo de filas debe ser mayor que 0");
+        }
+        this.nombre = nombre;
+        this.id = id;
+        this.ttlNanos = ttl.toNanos();
+        this.maximo = maximo;
+        this.latenciaRecarga = latenciaRecarga;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Entrega todas las filas ordenadas por ID, desde memoria si el listado está al día.
+     *
+     * @param cargador   Lectura de la base de datos para cargar el listado.
+     * @param directo    Recorrido de la base de datos si la tabla no cabe en la caché.
+     * @param consumidor Recibe cada fila.
+     * @throws SQLException si falla la lectura de la base de datos.
+     */
+    public void recorrer(Cargador<T> cargador, Recorrido<T> directo, Consumer<T> consumidor) throws SQLException {
+        Instantanea actual = activa ? obtener(cargador) : null;
+        if (actual == null) {
+            directo.recorrer(consumidor);
+            return;
+        }
+        for (Object fila : actual.filas()) {
+            consumidor.accept(fila(fila));
+        }
+    }
+
+    /**
+     * Devuelve una página de filas ordenadas por ID, desde memoria si el listado está al día.
+     *
+     * @param cargador Lectura de la base de datos, para cargar el listado y para las páginas si la
+     *                 tabla no cabe en la caché.
+     * @param despues  ID de la última fila de la página anterior (0 para la primera).
+     * @param tamano   Número máximo de filas.
+     * @return Filas con ID mayor que {@code despues}.
+     * @throws SQLException si falla la lectura de la base de datos.
+     */
+    public List<T> listarPagina(Cargador<T> cargador, int despues, int tamano) throws SQLException {
+        Instantanea actual = activa ? obtener(cargador) : null;
+        if (actual == null) {
+            return cargador.listarPagina(despues, tamano);
+        }
+        int[] ids = actual.ids();
+        int desde = Arrays.binarySearch(ids, despues);
+        desde = desde < 0 ? -desde - 1 : desde + 1;
+        int hasta = (int) Math.min(ids.length, (long) desde + tamano);
+        List<T> pagina = new ArrayList<>(Math.max(0, hasta - desde));
+        for (int i = desde; i < hasta; i++) {
+            pagina.add(fila(actual.filas()[i]));
+        }
+        return pagina;
+    }
+
+    /**
+     * Empieza a guardar los listados en memoria; el primero que se pida carga la tabla.
+     */
+    public void activar() {
+        activa = true;
+    }
+
+    /**
+     * Añade o sustituye una fila tras crearla o actualizarla en la base de datos. Se ignora si el
+     * listado no está cargado: la próxima carga ya la leerá.
+     *
+     * @param fila Datos actuales de la fila.
+     */
+    public synchronized void registrar(T fila) {
+        Instantanea actual = instantanea;
+        if (actual == null || actual.filas() == null) {
+            return;
+        }
+        int clave = id.applyAsInt(fila);
+        int posicion = Arrays.binarySearch(actual.ids(), clave);
+        Object[] filas;
+        int[] ids;
+        if (posicion >= 0) {
+            filas = actual.filas().clone();
+            ids = actual.ids();
+            filas[posicion] = fila;
+        } else {
+            if (actual.ids().length >= maximo) {
+                // Deja de caber: se descarta y la próxima lectura comprueba el tamaño real
+                instantanea = null;
+                return;
+            }
+            int insercion = -posicion - 1;
+            filas = insertar(actual.filas(), insercion, fila);
+            ids = insertar(actual.ids(), insercion, clave);
+        }
+        instantanea = new Instantanea(filas, ids, actual.cargadaNanos());
+    }
+
+    /**
+     * Quita una fila tras eliminarla de la base de datos.
+     *
+     * @param clave ID de la fila eliminada.
+     */
+    public synchronized void eliminar(int clave) {
+        Instantanea actual = instantanea;
+        if (actual == null || actual.filas() == null) {
+            return;
+        }
+        int posicion = Arrays.binarySearch(actual.ids(), clave);
+        if (posicion < 0) {
+            return;
+        }
+        instantanea = new Instantanea(quitar(actual.filas(), posicion), quitar(actual.ids(), posicion),
+                actual.cargadaNanos());
+    }
+
+    /**
+     * Descarta el listado, para cuando la tabla cambia de una forma que no se puede seguir fila a
+     * fila (importaciones, IDs desconocidos).
+     */
+    public synchronized void invalidar() {
+        instantanea = null;
+    }
+
+    /**
+     * @return true si hay un listado al día en memoria.
+     */
+    public boolean estaCargado() {
+        Instantanea actual = vigente();
+        return actual != null && actual.filas() != null;
+    }
+
+    /**
+     * @return Instantánea de las estadísticas.
+     */
+    public Estadisticas getEstadisticas() {
+        Instantanea actual = instantanea;
+        return new Estadisticas(aciertos.sum(), fallos.sum(), recargas.sum(),
+                actual == null || actual.filas() == null ? 0 : actual.filas().length, latenciaRecarga.resumen());
+    }
+
+    /**
+     * @return El listado al día, cargándolo si hace falta, o null si la tabla no cabe en la caché.
+     */
+    private Instantanea obtener(Cargador<T> cargador) throws SQLException {
+        Instantanea actual = vigente();
+        if (actual != null && actual.filas() != null) {
+            aciertos.increment();
+            return actual;
+        }
+        fallos.increment();
+        if (actual == null) {
+            synchronized (this) {
+                // Otro hilo puede haberlo cargado mientras se esperaba el monitor
+                actual = vigente();
+                if (actual == null) {
+                    actual = cargar(cargador);
+                }
+            }
+        }
+        return actual.filas() == null ? null : actual;
+    }
+
+    private Instantanea cargar(Cargador<T> cargador) throws SQLException {
+        long inicio = System.nanoTime();
+        List<T> leidas;
+        try {
+            leidas = cargador.listarPagina(0, maximo + 1);
+        } catch (SQLException | RuntimeException e) {
+            latenciaRecarga.registrarError(inicio);
+            throw e;
+        }
+        Instantanea nueva;
+        if (leidas.size() > maximo) {
+            logger.info("La tabla de {} tiene más de {} filas: los listados no se guardan en caché", nombre, maximo);
+            nueva = new Instantanea(null, null, reloj.getAsLong());
+        } else {
+            int[] ids = new int[leidas.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = id.applyAsInt(leidas.get(i));
+            }
+            nueva = new Instantanea(leidas.toArray(), ids, reloj.getAsLong());
+        }
+        instantanea = nueva;
+        recargas.increment();
+        latenciaRecarga.registrar(inicio);
+        return nueva;
+    }
+
+    /**
+     * @return La instantánea si no ha caducado, o null.
+     */
+    private Instantanea vigente() {
+        Instantanea actual = instantanea;
+        if (actual == null || reloj.getAsLong() - actual.cargadaNanos() > ttlNanos) {
+            return null;
+        }
+        return actual;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T fila(Object fila) {
+        return (T) fila;
+    }
+
+    private static Object[] insertar(Object[] origen, int posicion, Object valor) {
+        Object[] destino = new Object[origen.length + 1];
+        System.arraycopy(origen, 0, destino, 0, posicion);
+        destino[posicion] = valor;
+        System.arraycopy(origen, posicion, destino, posicion + 1, origen.length - posicion);
+        return destino;
+    }
+
+    private static int[] insertar(int[] origen, int posicion, int valor) {
+        int[] destino = new int[origen.length + 1];
+        System.arraycopy(origen, 0, destino, 0, posicion);
+        destino[posicion] = valor;
+        System.arraycopy(origen, posicion, destino, posicion + 1, origen.length - posicion);
+        return destino;
+    }
+
+    private static Object[] quitar(Object[] origen, int posicion) {
+        Object[] destino = new Object[origen.length - 1];
+        System.arraycopy(origen, 0, destino, 0, posicion);
+        System.arraycopy(origen, posicion + 1, destino, posicion, origen.length - posicion - 1);
+        return destino;
+    }
+
+    private static int[] quitar(int[] origen, int posicion) {
+        int[] destino = new int[origen.length - 1];
+        System.arraycopy(origen, 0, destino, 0, posicion);
+        System.arraycopy(origen, posicion + 1, destino, posicion, origen.length - posicion - 1);
+        return destino;
+    }
+}
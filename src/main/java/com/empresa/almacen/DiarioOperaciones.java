@@ -0,0 +1,165 @@
+package com.empresa.almacen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de solo anexado con las operaciones de {@link AlmacenEmbebido} posteriores a la última instantánea.
+ * <p>
+ * Cada registro es {@code [longitud][crc32][lsn][operación]}. Al recuperar, un registro incompleto o
+ * con CRC incorrecto al final del fichero (escritura interrumpida) se descarta y el fichero se
+ * trunca en ese punto. Sin sincronización, los registros quedan en la caché del sistema operativo:
+ * sobreviven a la caída del proceso pero no a la de la máquina.
+ */
+final class DiarioOperaciones implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiarioOperaciones.class);
+
+    /** Tamaño máximo de un registro; una longitud mayor indica un final dañado. */
+    private static final int MAXIMO_REGISTRO = 4 << 20;
+
+    /** Recibe las operaciones leídas del diario durante la recuperación. */
+    @FunctionalInterface
+    interface Lector {
+        void leer(long lsn, Operacion operacion);
+    }
+
+    private final FileChannel canal;
+    private final boolean sincronizar;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Abre el diario para anexar registros al final.
+     *
+     * @param fichero     Fichero del diario; se crea si no existe.
+     * @param sincronizar true para forzar cada registro a disco antes de confirmar la operación.
+     * @throws IOException si no se puede abrir.
+     */
+    DiarioOperaciones(Path fichero, boolean sincronizar) throws IOException {
+        this.canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.canal.position(canal.size());
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * Lee los registros válidos del diario y trunca el final dañado si lo hay.
+     *
+     * @param fichero Fichero del diario; si no existe no se lee nada.
+     * @param lector  Recibe cada operación en orden.
+     * @return Número de registros válidos leídos.
+     * @throws IOException si falla la lectura.
+     */
+    static long recuperar(Path fichero, Lector lector) throws IOException {
+        if (!Files.exists(fichero)) {
+            return 0;
+        }
+        long leidos = 0;
+        long posicionValida = 0;
+        long tamano = Files.size(fichero);
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichero)))) {
+            while (posicionValida < tamano) {
+                byte[] datos;
+                try {
+                    int longitud = in.readInt();
+                    int suma = in.readInt();
+                    if (longitud <= 0 || longitud > MAXIMO_REGISTRO) {
+                        break;
+                    }
+                    datos = new byte[longitud];
+                    in.readFully(datos);
+                    crc.reset();
+                    crc.update(datos);
+                    if ((int) crc.getValue() != suma) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                DataInputStream registro = new DataInputStream(new ByteArrayInputStream(datos));
+                lector.leer(registro.readLong(), Operacion.leer(registro));
+                posicionValida += 8 + datos.length;
+                leidos++;
+            }
+        }
+        if (posicionValida < tamano) {
+            logger.warn("Diario {} dañado a partir del byte {}; se descartan {} bytes",
+                    fichero, posicionValida, tamano - posicionValida);
+            try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.WRITE)) {
+                canal.truncate(posicionValida);
+                canal.force(true);
+            }
+        }
+        return leidos;
+    }
+
+    /**
+     * Anexa una operación. Si la escritura falla, el fichero se deja como estaba.
+     *
+     * @param lsn       Número de secuencia de la operación.
+     * @param operacion Operación a anotar.
+     * @throws IOException si falla la escritura.
+     */
+    void anotar(long lsn, Operacion operacion) throws IOException {
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeLong(lsn);
+        Operacion.escribir(operacion, out);
+
+        ByteBuffer registro = ByteBuffer.wrap(buffer.toByteArray());
+        int longitud = registro.limit() - 8;
+        crc.reset();
+        crc.update(registro.array(), 8, longitud);
+        registro.putInt(0, longitud).putInt(4, (int) crc.getValue());
+
+        long posicion = canal.position();
+        try {
+            while (registro.hasRemaining()) {
+                canal.write(registro);
+            }
+            if (sincronizar) {
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            // Un registro a medias haría que la recuperación descartase también los siguientes
+            canal.truncate(posicion);
+            canal.position(posicion);
+            throw e;
+        }
+    }
+
+    /**
+     * Vacía el diario tras escribir una instantánea que contiene todas sus operaciones.
+     *
+     * @throws IOException si falla el truncado.
+     */
+    void vaciar() throws IOException {
+        canal.truncate(0);
+        canal.position(0);
+        canal.force(true);
+    }
+
+    /**
+     * @return Tamaño actual del diario en bytes.
+     * @throws IOException si no se puede consultar.
+     */
+    long tamano() throws IOException {
+        return canal.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
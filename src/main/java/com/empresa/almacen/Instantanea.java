@@ -0,0 +1,113 @@
+package com.empresa.almacen;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Copia completa del estado de {@link AlmacenEmbebido} en un fichero.
+ * <p>
+ * Guarda el LSN de la última operación incluida, los contadores de IDs y una operación
+ * {@code Guardar*} por fila, seguido de un CRC32 de todo el contenido. Se escribe en un fichero
+ * temporal que se sincroniza y se renombra de forma atómica, así que en disco siempre hay una
+ * instantánea completa: la anterior o la nueva.
+ */
+final class Instantanea {
+
+    private static final int MAGICO = 0x52534132; // "RSA2"
+    /** Formato anterior a las series de reservas: sin el último ID de serie en la cabecera. */
+    private static final int MAGICO_V1 = 0x52534131; // "RSA1"
+
+    /**
+     * Datos generales de la instantánea.
+     *
+     * @param lsn             LSN de la última operación incluida.
+     * @param ultimaSala      Último ID de sala asignado.
+     * @param ultimoEmpleado  Último ID de empleado asignado.
+     * @param ultimaReserva   Último ID de reserva asignado.
+     * @param ultimaSerie     Último ID de serie de reservas asignado.
+     */
+    record Cabecera(long lsn, int ultimaSala, int ultimoEmpleado, int ultimaReserva, int ultimaSerie) {
+
+        static final Cabecera VACIA = new Cabecera(0, 0, 0, 0, 0);
+    }
+
+    private Instantanea() {
+    }
+
+    /**
+     * Escribe una instantánea y sustituye la anterior.
+     *
+     * @param fichero    Fichero de la instantánea.
+     * @param cabecera   Datos generales.
+     * @param operaciones Filas a guardar.
+     * @throws IOException si falla la escritura; la instantánea anterior queda intacta.
+     */
+    static void escribir(Path fichero, Cabecera cabecera, List<Operacion> operaciones) throws IOException {
+        Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(canal)), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGICO);
+            out.writeLong(cabecera.lsn());
+            out.writeInt(cabecera.ultimaSala());
+            out.writeInt(cabecera.ultimoEmpleado());
+            out.writeInt(cabecera.ultimaReserva());
+            out.writeInt(cabecera.ultimaSerie());
+            out.writeInt(operaciones.size());
+            for (Operacion operacion : operaciones) {
+                Operacion.escribir(operacion, out);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            canal.force(true);
+        }
+        Files.move(temporal, fichero, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lee una instantánea.
+     *
+     * @param fichero Fichero de la instantánea; si no existe se devuelve {@link Cabecera#VACIA}.
+     * @param lector  Recibe cada fila guardada.
+     * @return Datos generales de la instantánea.
+     * @throws IOException si falla la lectura o el fichero está dañado.
+     */
+    static Cabecera leer(Path fichero, Consumer<Operacion> lector) throws IOException {
+        if (!Files.exists(fichero)) {
+            return Cabecera.VACIA;
+        }
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(fichero)), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            int magico = in.readInt();
+            if (magico != MAGICO && magico != MAGICO_V1) {
+                throw new IOException("El fichero " + fichero + " no es una instantánea del almacén");
+            }
+            Cabecera cabecera = new Cabecera(in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                    magico == MAGICO ? in.readInt() : 0);
+            int filas = in.readInt();
+            for (int i = 0; i < filas; i++) {
+                lector.accept(Operacion.leer(in));
+            }
+            long esperado = checked.getChecksum().getValue();
+            if (in.readLong() != esperado) {
+                throw new IOException("La instantánea " + fichero + " está dañada (CRC incorrecto)");
+            }
+            return cabecera;
+        } catch (EOFException e) {
+            throw new IOException("La instantánea " + fichero + " está incompleta", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.reservas.Reserva;
+import com.empresa.reservas.SerieReservas;
+import com.empresa.salas.Sala;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cambio elemental sobre las tablas de {@link AlmacenEmbebido}, tal como se guarda en el diario
+ * y en las instantáneas. Las inserciones y actualizaciones se guardan como la fila completa
+ * resultante; los borrados en cascada no se anotan porque se deducen al volver a aplicar el borrado.
+ * Una serie de reservas periódicas se guarda junto con todas sus ocurrencias en una sola operación,
+ * de modo que crearla o modificarla es atómico también al recuperar el diario.
+ * <p>
+ * Las salas y las reservas se escriben con su versión (tipos 9, 10 y 11). Los tipos 1, 5 y 7, sin
+ * versión, se siguen leyendo para recuperar diarios e instantáneas anteriores, con versión 0.
+ */
+sealed interface Operacion {
+
+    /** Tamaño máximo de un texto; un valor mayor indica un fichero dañado. */
+    int MAXIMO_TEXTO = 1 << 20;
+
+    record GuardarSala(Sala sala) implements Operacion {
+    }
+
+    record EliminarSala(int id) implements Operacion {
+    }
+
+    record GuardarEmpleado(Empleado empleado) implements Operacion {
+    }
+
+    record EliminarEmpleado(int id) implements Operacion {
+    }
+
+    record GuardarReserva(Reserva reserva) implements Operacion {
+    }
+
+    record EliminarReserva(int id) implements Operacion {
+    }
+
+    /** Regla de una serie y sus ocurrencias; sustituye a las ocurrencias anteriores de la serie. */
+    record GuardarSerie(SerieReservas serie, List<Reserva> ocurrencias) implements Operacion {
+    }
+
+    /** Elimina una serie y, en cascada, sus ocurrencias. */
+    record EliminarSerie(int id) implements Operacion {
+    }
+
+    /**
+     * Escribe la operación en formato binario: un byte de tipo seguido de sus campos.
+     *
+     * @param operacion Operación a escribir.
+     * @param out       Destino.
+     * @throws IOException si falla la escritura.
+     */
+    static void escribir(Operacion operacion, DataOutput out) throws IOException {
+        switch (operacion) {
+            case GuardarSala(Sala s) -> {
+                out.writeByte(9);
+                out.writeInt(s.id());
+                escribirTexto(out, s.nombre());
+                out.writeInt(s.capacidad());
+                escribirTexto(out, s.recursos());
+                out.writeInt(s.version());
+            }
+            case EliminarSala(int id) -> {
+                out.writeByte(2);
+                out.writeInt(id);
+            }
+            case GuardarEmpleado(Empleado e) -> {
+                out.writeByte(3);
+                out.writeInt(e.id());
+                escribirTexto(out, e.nombre());
+                escribirTexto(out, e.email());
+                escribirTexto(out, e.departamento());
+            }
+            case EliminarEmpleado(int id) -> {
+                out.writeByte(4);
+                out.writeInt(id);
+            }
+            case GuardarReserva(Reserva r) -> {
+                out.writeByte(10);
+                escribirReserva(out, r);
+            }
+            case EliminarReserva(int id) -> {
+                out.writeByte(6);
+                out.writeInt(id);
+            }
+            case GuardarSerie(SerieReservas s, List<Reserva> ocurrencias) -> {
+                out.writeByte(11);
+                out.writeInt(s.id());
+                out.writeInt(s.salaId());
+                out.writeInt(s.empleadoId());
+                out.writeByte(s.frecuencia().ordinal());
+                out.writeLong(s.fechaInicio().toEpochDay());
+                // Solo uno de los dos está presente: fecha de fin o repeticiones (0 = sin repeticiones)
+                out.writeBoolean(s.fechaFin() != null);
+                out.writeLong(s.fechaFin() == null ? 0 : s.fechaFin().toEpochDay());
+                out.writeInt(s.repeticiones() == null ? 0 : s.repeticiones());
+                out.writeLong(s.horaInicio().toNanoOfDay());
+                out.writeLong(s.horaFin().toNanoOfDay());
+                out.writeInt(ocurrencias.size());
+                for (Reserva r : ocurrencias) {
+                    escribirReserva(out, r);
+                }
+            }
+            case EliminarSerie(int id) -> {
+                out.writeByte(8);
+                out.writeInt(id);
+            }
+        }
+    }
+
+    /**
+     * Lee una operación escrita con {@link #escribir}.
+     *
+     * @param in Origen.
+     * @return Operación leída.
+     * @throws IOException si falla la lectura o el tipo es desconocido.
+     */
+    static Operacion leer(DataInput in) throws IOException {
+        int tipo = in.readByte();
+        return switch (tipo) {
+            case 1 -> new GuardarSala(new Sala(in.readInt(), leerTexto(in), in.readInt(), leerTexto(in)));
+            case 2 -> new EliminarSala(in.readInt());
+            case 3 -> new GuardarEmpleado(new Empleado(in.readInt(), leerTexto(in), leerTexto(in), leerTexto(in)));
+            case 4 -> new EliminarEmpleado(in.readInt());
+            case 5 -> new GuardarReserva(leerReserva(in, false));
+            case 6 -> new EliminarReserva(in.readInt());
+            case 7 -> leerSerie(in, false);
+            case 8 -> new EliminarSerie(in.readInt());
+            case 9 -> new GuardarSala(new Sala(in.readInt(), leerTexto(in), in.readInt(), leerTexto(in), in.readInt()));
+            case 10 -> new GuardarReserva(leerReserva(in, true));
+            case 11 -> leerSerie(in, true);
+            default -> throw new IOException("Tipo de operación desconocido: " + tipo);
+        };
+    }
+
+    private static void escribirReserva(DataOutput out, Reserva r) throws IOException {
+        out.writeInt(r.id());
+        out.writeInt(r.salaId());
+        out.writeInt(r.empleadoId());
+        out.writeLong(r.fecha().toEpochDay());
+        out.writeLong(r.horaInicio().toNanoOfDay());
+        out.writeLong(r.horaFin().toNanoOfDay());
+        out.writeInt(r.version());
+    }
+
+    private static Reserva leerReserva(DataInput in, boolean conVersion) throws IOException {
+        return new Reserva(in.readInt(), in.readInt(), in.readInt(),
+                LocalDate.ofEpochDay(in.readLong()),
+                LocalTime.ofNanoOfDay(in.readLong()),
+                LocalTime.ofNanoOfDay(in.readLong()),
+                conVersion ? in.readInt() : 0);
+    }
+
+    private static GuardarSerie leerSerie(DataInput in, boolean conVersion) throws IOException {
+        int id = in.readInt();
+        int salaId = in.readInt();
+        int empleadoId = in.readInt();
+        int frecuencia = in.readByte();
+        LocalDate fechaInicio = LocalDate.ofEpochDay(in.readLong());
+        boolean conFechaFin = in.readBoolean();
+        long fechaFin = in.readLong();
+        int repeticiones = in.readInt();
+        LocalTime horaInicio = LocalTime.ofNanoOfDay(in.readLong());
+        LocalTime horaFin = LocalTime.ofNanoOfDay(in.readLong());
+        int numero = in.readInt();
+        if (frecuencia < 0 || frecuencia >= SerieReservas.Frecuencia.values().length
+                || numero < 0 || numero > SerieReservas.MAXIMO_OCURRENCIAS) {
+            throw new IOException("Serie " + id + " con datos inválidos: el fichero está dañado");
+        }
+        SerieReservas serie = new SerieReservas(id, salaId, empleadoId, SerieReservas.Frecuencia.values()[frecuencia],
+                fechaInicio, conFechaFin ? LocalDate.ofEpochDay(fechaFin) : null,
+                conFechaFin ? null : repeticiones, horaInicio, horaFin);
+        List<Reserva> ocurrencias = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            ocurrencias.add(leerReserva(in, conVersion));
+        }
+        return new GuardarSerie(serie, ocurrencias);
+    }
+
+    // writeUTF limita los textos a 64 KB; se usa longitud + UTF-8, con -1 para null
+    private static void escribirTexto(DataOutput out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(DataInput in) throws IOException {
+        int longitud = in.readInt();
+        if (longitud < 0) {
+            return null;
+        }
+        if (longitud > MAXIMO_TEXTO) {
+            throw new IOException("Texto de " + longitud + " bytes: el fichero está dañado");
+        }
+        byte[] bytes = new byte[longitud];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
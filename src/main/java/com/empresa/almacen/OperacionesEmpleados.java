@@ -0,0 +1,82 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.empleados.ImportadorEmpleados;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones sobre empleados de un {@link Almacen}.
+ */
+public interface OperacionesEmpleados {
+
+    /**
+     * Inserta un empleado.
+     *
+     * @param nombre       Nombre.
+     * @param email        Email (único).
+     * @param departamento Departamento.
+     * @return El empleado insertado (con ID 0 si no se conoce), o null si no se insertó.
+     * @throws SQLException si falla la inserción; {@link java.sql.SQLIntegrityConstraintViolationException}
+     *                      si el email ya existe.
+     */
+    Empleado insertar(String nombre, String email, String departamento) throws SQLException;
+
+    /**
+     * Sustituye los datos de un empleado.
+     *
+     * @param empleado Nuevos datos; el ID identifica al empleado.
+     * @return true si el empleado existía y se actualizó.
+     * @throws SQLException si falla la actualización o el email ya existe.
+     */
+    boolean actualizar(Empleado empleado) throws SQLException;
+
+    /**
+     * @param id ID del empleado.
+     * @return true si existe.
+     * @throws SQLException si falla la consulta.
+     */
+    boolean existe(int id) throws SQLException;
+
+    /**
+     * Elimina un empleado y, en cascada, sus reservas.
+     *
+     * @param id ID del empleado.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    boolean eliminar(int id) throws SQLException;
+
+    /**
+     * Recorre todos los empleados ordenados por ID.
+     *
+     * @param consumidor Recibe cada empleado.
+     * @throws SQLException si falla la consulta.
+     */
+    void recorrer(Consumer<Empleado> consumidor) throws SQLException;
+
+    /**
+     * Obtiene una página de empleados ordenados por ID.
+     *
+     * @param despues ID del último empleado de la página anterior (0 para el primero).
+     * @param tamano  Número máximo de empleados.
+     * @return Empleados con ID mayor que {@code despues}.
+     * @throws SQLException si falla la consulta.
+     */
+    List<Empleado> listarPagina(int despues, int tamano) throws SQLException;
+
+    /**
+     * Da de alta o actualiza empleados desde un fichero CSV o JSON Lines, identificándolos por email.
+     *
+     * @param fichero Ruta del fichero.
+     * @return Resumen de la importación.
+     * @throws IOException  si falla la lectura del fichero.
+     * @throws SQLException si falla la escritura, o {@link java.sql.SQLFeatureNotSupportedException}
+     *                      si el almacén no admite importaciones.
+     */
+    ImportadorEmpleados.ResultadoImportacion importar(Path fichero) throws IOException, SQLException;
+}
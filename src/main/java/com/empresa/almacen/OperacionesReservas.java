@@ -0,0 +1,196 @@
+package com.empresa.almacen;
+
+import com.empresa.reservas.ArchivadorReservas;
+import com.empresa.reservas.BuscadorHuecos;
+import com.empresa.reservas.ConsultaReservas;
+import com.empresa.reservas.ImportadorReservas;
+import com.empresa.reservas.InformeOcupacion;
+import com.empresa.reservas.Reserva;
+import com.empresa.reservas.SerieReservas;
+import com.empresa.reservas.ServicioReservas;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones sobre reservas de un {@link Almacen}.
+ * <p>
+ * Crear y actualizar comprueban los conflictos de horario de forma atómica: dos reservas de la
+ * misma sala y fecha se solapan si {@code inicio < finOtra} y {@code fin > inicioOtra}.
+ */
+public interface OperacionesReservas {
+
+    /**
+     * Crea una reserva si no se solapa con otra de la misma sala y fecha.
+     *
+     * @param salaId     ID de la sala.
+     * @param empleadoId ID del empleado.
+     * @param fecha      Fecha.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @return CREADA (con el ID si se conoce), CONFLICTO o ERROR.
+     * @throws SQLException si falla la escritura o la sala o el empleado no existen.
+     */
+    ServicioReservas.Resultado crear(int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio,
+                                     LocalTime horaFin) throws SQLException;
+
+    /**
+     * Modifica una reserva si el nuevo horario no se solapa con otra de la misma sala y fecha, e
+     * incrementa su versión. Con la versión leída por quien edita, solo se escribe si la reserva
+     * sigue en esa versión.
+     *
+     * @param id         ID de la reserva.
+     * @param version    Versión leída por quien edita, o null para sobrescribir sin comprobarla.
+     * @param salaId     Nuevo ID de sala.
+     * @param empleadoId Nuevo ID de empleado.
+     * @param fecha      Nueva fecha.
+     * @param horaInicio Nueva hora de inicio.
+     * @param horaFin    Nueva hora de fin.
+     * @return ACTUALIZADA, CONFLICTO, NO_ENCONTRADA o DESACTUALIZADA.
+     * @throws SQLException si falla la escritura o la sala o el empleado no existen.
+     */
+    ServicioReservas.Resultado actualizar(int id, Integer version, int salaId, int empleadoId, LocalDate fecha,
+                                          LocalTime horaInicio, LocalTime horaFin) throws SQLException;
+
+    /**
+     * @param id ID de la reserva.
+     * @return true si existe.
+     * @throws SQLException si falla la consulta.
+     */
+    boolean existe(int id) throws SQLException;
+
+    /**
+     * Lee una reserva con su versión actual, para editarla después con {@link #actualizar}.
+     *
+     * @param id ID de la reserva.
+     * @return La reserva, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    Reserva buscar(int id) throws SQLException;
+
+    /**
+     * @param id ID de la reserva.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    boolean eliminar(int id) throws SQLException;
+
+    /**
+     * Recorre todas las reservas con el nombre de su sala y empleado.
+     *
+     * @param consumidor Recibe cada reserva.
+     * @return Número de reservas recorridas.
+     * @throws SQLException si falla la consulta.
+     */
+    long recorrer(Consumer<ConsultaReservas.Fila> consumidor) throws SQLException;
+
+    /**
+     * Recorre en orden de fecha, hora de inicio e ID las reservas que cumplen el filtro, sin
+     * acumularlas en memoria.
+     *
+     * @param filtro     Filtros a aplicar.
+     * @param consumidor Recibe cada reserva.
+     * @return Número de reservas recorridas.
+     * @throws SQLException si falla la consulta.
+     */
+    long recorrer(ConsultaReservas.Filtro filtro, Consumer<ConsultaReservas.Fila> consumidor) throws SQLException;
+
+    /**
+     * Obtiene una página de reservas ordenada por fecha, hora de inicio e ID.
+     *
+     * @param filtro  Filtros a aplicar.
+     * @param despues Cursor de la última fila de la página anterior, o null para la primera.
+     * @param tamano  Número máximo de filas de la página.
+     * @return Página con las reservas y el cursor de continuación.
+     * @throws SQLException si falla la consulta.
+     */
+    ConsultaReservas.Pagina listarPagina(ConsultaReservas.Filtro filtro, ConsultaReservas.Cursor despues, int tamano)
+            throws SQLException;
+
+    /**
+     * Busca el primer hueco libre de cada sala que cumple los criterios, leyendo la ocupación del día de una vez.
+     *
+     * @param criterios Fecha, duración, capacidad, recursos y franja horaria.
+     * @return Huecos ordenados del más temprano al más tardío, uno por sala.
+     * @throws SQLException si falla la consulta.
+     */
+    List<BuscadorHuecos.Hueco> buscarHuecos(BuscadorHuecos.Criterios criterios) throws SQLException;
+
+    /**
+     * Calcula la ocupación de todas las salas en un rango de fechas recorriendo sus reservas una sola vez.
+     *
+     * @param periodo Rango de fechas y jornada sobre la que se calculan los porcentajes.
+     * @return Ocupación por sala, día, día de la semana y hora, y departamento.
+     * @throws SQLException si falla la consulta.
+     */
+    InformeOcupacion.Informe informeOcupacion(InformeOcupacion.Periodo periodo) throws SQLException;
+
+    /**
+     * Crea una serie de reservas periódicas si ninguna ocurrencia se solapa con otra reserva de la sala.
+     * Los conflictos de todas las fechas se comprueban de una vez y la serie se guarda de forma atómica.
+     *
+     * @param serie Regla de la serie (se ignora su ID).
+     * @return CREADA con el ID y el número de ocurrencias, o CONFLICTO con las fechas ocupadas.
+     * @throws SQLException si falla la escritura o la sala o el empleado no existen.
+     */
+    ServicioReservas.ResultadoSerie crearSerie(SerieReservas serie) throws SQLException;
+
+    /**
+     * Sustituye la regla de una serie y regenera todas sus ocurrencias en una sola operación.
+     *
+     * @param id    ID de la serie.
+     * @param serie Nueva regla (se ignora su ID).
+     * @return ACTUALIZADA, CONFLICTO con las fechas ocupadas o NO_ENCONTRADA.
+     * @throws SQLException si falla la escritura o la sala o el empleado no existen.
+     */
+    ServicioReservas.ResultadoSerie actualizarSerie(int id, SerieReservas serie) throws SQLException;
+
+    /**
+     * Cancela una serie completa junto con todas sus ocurrencias.
+     *
+     * @param id ID de la serie.
+     * @return true si la serie existía.
+     * @throws SQLException si falla el borrado.
+     */
+    boolean cancelarSerie(int id) throws SQLException;
+
+    /**
+     * @param id ID de la serie.
+     * @return La serie, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    SerieReservas buscarSerie(int id) throws SQLException;
+
+    /**
+     * @return Todas las series ordenadas por ID.
+     * @throws SQLException si falla la consulta.
+     */
+    List<SerieReservas> listarSeries() throws SQLException;
+
+    /**
+     * Traslada al archivo las reservas anteriores a una fecha, en transacciones cortas. Las archivadas
+     * dejan de contar en los conflictos y solo aparecen en los listados y el informe si se pide.
+     *
+     * @param antesDe Fecha de corte: se archivan las reservas de días anteriores.
+     * @return Resumen del archivado.
+     * @throws SQLException si falla un bloque (los anteriores quedan archivados), o
+     *                      {@link java.sql.SQLFeatureNotSupportedException} si el almacén no tiene archivo.
+     */
+    ArchivadorReservas.ResultadoArchivado archivar(LocalDate antesDe) throws SQLException;
+
+    /**
+     * Importa reservas desde un fichero CSV.
+     *
+     * @param fichero Ruta del fichero.
+     * @return Resumen de la importación.
+     * @throws IOException  si falla la lectura del fichero.
+     * @throws SQLException si falla la escritura, o {@link java.sql.SQLFeatureNotSupportedException}
+     *                      si el almacén no admite importaciones.
+     */
+    ImportadorReservas.ResultadoImportacion importar(Path fichero) throws IOException, SQLException;
+}
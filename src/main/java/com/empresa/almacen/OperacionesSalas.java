@@ -0,0 +1,102 @@
+package com.empresa.almacen;
+
+import com.empresa.salas.Sala;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones sobre salas de un {@link Almacen}.
+ */
+public interface OperacionesSalas {
+
+    /**
+     * Resultado de actualizar una sala. DESACTUALIZADA indica que otro la cambió después de que
+     * quien edita leyera su versión, y la edición no se ha guardado.
+     */
+    enum Actualizacion { ACTUALIZADA, NO_EXISTE, DESACTUALIZADA }
+
+    /**
+     * Inserta una sala.
+     *
+     * @param nombre    Nombre (único).
+     * @param capacidad Capacidad.
+     * @param recursos  Recursos disponibles.
+     * @return La sala insertada (con ID 0 si no se conoce), o null si no se insertó.
+     * @throws SQLException si falla la inserción; {@link java.sql.SQLIntegrityConstraintViolationException}
+     *                      si el nombre ya existe.
+     */
+    Sala insertar(String nombre, int capacidad, String recursos) throws SQLException;
+
+    /**
+     * Sustituye los datos de una sala e incrementa su versión. Con la versión leída por quien edita,
+     * solo se escribe si la sala sigue en esa versión.
+     *
+     * @param sala    Nuevos datos; el ID identifica la sala y se ignora su versión.
+     * @param version Versión leída por quien edita, o null para sobrescribir sin comprobarla.
+     * @return ACTUALIZADA, NO_EXISTE o DESACTUALIZADA.
+     * @throws SQLException si falla la actualización o el nombre ya existe.
+     */
+    Actualizacion actualizar(Sala sala, Integer version) throws SQLException;
+
+    /**
+     * Lee una sala con su versión actual, para editarla después con {@link #actualizar}.
+     *
+     * @param id ID de la sala.
+     * @return La sala, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    Sala buscar(int id) throws SQLException;
+
+    /**
+     * @param id ID de la sala.
+     * @return true si existe.
+     * @throws SQLException si falla la consulta.
+     */
+    boolean existe(int id) throws SQLException;
+
+    /**
+     * Elimina una sala y, en cascada, sus reservas.
+     *
+     * @param id ID de la sala.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    boolean eliminar(int id) throws SQLException;
+
+    /**
+     * @param nombre Nombre exacto de la sala.
+     * @return La sala, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    Sala buscarPorNombre(String nombre) throws SQLException;
+
+    /**
+     * Recorre todas las salas ordenadas por ID.
+     *
+     * @param consumidor Recibe cada sala.
+     * @throws SQLException si falla la consulta.
+     */
+    void recorrer(Consumer<Sala> consumidor) throws SQLException;
+
+    /**
+     * Obtiene una página de salas ordenadas por ID.
+     *
+     * @param despues ID de la última sala de la página anterior (0 para la primera).
+     * @param tamano  Número máximo de salas.
+     * @return Salas con ID mayor que {@code despues}.
+     * @throws SQLException si falla la consulta.
+     */
+    List<Sala> listarPagina(int despues, int tamano) throws SQLException;
+
+    /**
+     * Busca las salas que tienen todos los recursos indicados y al menos la capacidad pedida.
+     *
+     * @param recursos        Máscara de recursos del {@link com.empresa.salas.CatalogoRecursos} (0 = cualquiera).
+     * @param capacidadMinima Capacidad mínima.
+     * @return Salas que cumplen ambas condiciones, ordenadas por ID.
+     * @throws SQLException si falla la consulta.
+     */
+    List<Sala> buscarPorRecursos(long recursos, int capacidadMinima) throws SQLException;
+}
@@ -0,0 +1,28 @@
+package com.empresa.almacen;
+
+import java.sql.SQLException;
+
+/**
+ * Acceso a las tablas del almacén durante una operación de consola.
+ * En MySQL corresponde a una conexión prestada por el pool.
+ */
+public interface Sesion extends AutoCloseable {
+
+    /**
+     * @return Operaciones sobre salas.
+     */
+    OperacionesSalas salas();
+
+    /**
+     * @return Operaciones sobre empleados.
+     */
+    OperacionesEmpleados empleados();
+
+    /**
+     * @return Operaciones sobre reservas.
+     */
+    OperacionesReservas reservas();
+
+    @Override
+    void close() throws SQLException;
+}
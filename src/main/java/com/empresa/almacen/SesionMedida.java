@@ -0,0 +1,506 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.empleados.ImportadorEmpleados;
+import com.empresa.metricas.OperacionMedida;
+import com.empresa.reservas.ArchivadorReservas;
+import com.empresa.reservas.BuscadorHuecos;
+import com.empresa.reservas.ConsultaReservas;
+import com.empresa.reservas.ImportadorReservas;
+import com.empresa.reservas.InformeOcupacion;
+import com.empresa.reservas.Reserva;
+import com.empresa.reservas.SerieReservas;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.Sala;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.empresa.metricas.OperacionMedida.*;
+
+/**
+ * Sesión que mide la latencia de cada operación de otra sesión en su {@link OperacionMedida}.
+ * <p>
+ * Medir solo lee {@link System#nanoTime()} antes y después e incrementa contadores, sin crear
+ * objetos: cada operación cuesta lo mismo en memoria con y sin medición. Las excepciones cuentan
+ * como errores, igual que las reservas que terminan en {@link ServicioReservas.Estado#ERROR};
+ * un conflicto de horario es un resultado normal. En los recorridos el tiempo incluye el del
+ * consumidor (por ejemplo, escribir cada fila por consola).
+ *
+ * @param sesion    Sesión medida.
+ * @param salas     Operaciones de salas medidas.
+ * @param empleados Operaciones de empleados medidas.
+ * @param reservas  Operaciones de reservas medidas.
+ */
+record SesionMedida(Sesion sesion, OperacionesSalas salas, OperacionesEmpleados empleados,
+                    OperacionesReservas reservas) implements Sesion {
+
+    /**
+     * @param sesion Sesión a medir.
+     * @return Sesión que delega en {@code sesion} midiendo cada operación.
+     */
+    static Sesion medir(Sesion sesion) {
+        return new SesionMedida(sesion, new Salas(sesion.salas()), new Empleados(sesion.empleados()),
+                new Reservas(sesion.reservas()));
+    }
+
+    @Override
+    public void close() throws SQLException {
+        sesion.close();
+    }
+
+    private static void registrar(OperacionMedida operacion, long inicio, ServicioReservas.Estado estado) {
+        if (estado == ServicioReservas.Estado.ERROR) {
+            operacion.registrarError(inicio);
+        } else {
+            operacion.registrar(inicio);
+        }
+    }
+
+    private record Salas(OperacionesSalas salas) implements OperacionesSalas {
+
+        @Override
+        public Sala insertar(String nombre, int capacidad, String recursos) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                Sala resultado = salas.insertar(nombre, capacidad, recursos);
+                SALAS_INSERTAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_INSERTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public Actualizacion actualizar(Sala sala, Integer version) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                Actualizacion resultado = salas.actualizar(sala, version);
+                SALAS_ACTUALIZAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_ACTUALIZAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean existe(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = salas.existe(id);
+                SALAS_EXISTE.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_EXISTE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public Sala buscar(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                Sala resultado = salas.buscar(id);
+                SALAS_BUSCAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_BUSCAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = salas.eliminar(id);
+                SALAS_ELIMINAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_ELIMINAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public Sala buscarPorNombre(String nombre) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                Sala resultado = salas.buscarPorNombre(nombre);
+                SALAS_BUSCAR_POR_NOMBRE.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_BUSCAR_POR_NOMBRE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public void recorrer(Consumer<Sala> consumidor) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                salas.recorrer(consumidor);
+                SALAS_LISTAR.registrar(inicio);
+            } catch (SQLException | RuntimeException e) {
+                SALAS_LISTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public List<Sala> listarPagina(int despues, int tamano) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                List<Sala> resultado = salas.listarPagina(despues, tamano);
+                SALAS_LISTAR_PAGINA.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_LISTAR_PAGINA.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public List<Sala> buscarPorRecursos(long recursos, int capacidadMinima) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                List<Sala> resultado = salas.buscarPorRecursos(recursos, capacidadMinima);
+                SALAS_BUSCAR_POR_RECURSOS.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                SALAS_BUSCAR_POR_RECURSOS.registrarError(inicio);
+                throw e;
+            }
+        }
+    }
+
+    private record Empleados(OperacionesEmpleados empleados) implements OperacionesEmpleados {
+
+        @Override
+        public Empleado insertar(String nombre, String email, String departamento) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                Empleado resultado = empleados.insertar(nombre, email, departamento);
+                EMPLEADOS_INSERTAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                EMPLEADOS_INSERTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean actualizar(Empleado empleado) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = empleados.actualizar(empleado);
+                EMPLEADOS_ACTUALIZAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                EMPLEADOS_ACTUALIZAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean existe(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = empleados.existe(id);
+                EMPLEADOS_EXISTE.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                EMPLEADOS_EXISTE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = empleados.eliminar(id);
+                EMPLEADOS_ELIMINAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                EMPLEADOS_ELIMINAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public void recorrer(Consumer<Empleado> consumidor) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                empleados.recorrer(consumidor);
+                EMPLEADOS_LISTAR.registrar(inicio);
+            } catch (SQLException | RuntimeException e) {
+                EMPLEADOS_LISTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public List<Empleado> listarPagina(int despues, int tamano) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                List<Empleado> resultado = empleados.listarPagina(despues, tamano);
+                EMPLEADOS_LISTAR_PAGINA.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                EMPLEADOS_LISTAR_PAGINA.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ImportadorEmpleados.ResultadoImportacion importar(Path fichero) throws IOException, SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ImportadorEmpleados.ResultadoImportacion resultado = empleados.importar(fichero);
+                EMPLEADOS_IMPORTAR.registrar(inicio);
+                return resultado;
+            } catch (IOException | SQLException | RuntimeException e) {
+                EMPLEADOS_IMPORTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+    }
+
+    private record Reservas(OperacionesReservas reservas) implements OperacionesReservas {
+
+        @Override
+        public ServicioReservas.Resultado crear(int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio,
+                                                LocalTime horaFin) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ServicioReservas.Resultado resultado = reservas.crear(salaId, empleadoId, fecha, horaInicio, horaFin);
+                registrar(RESERVAS_CREAR, inicio, resultado.estado());
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_CREAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ServicioReservas.Resultado actualizar(int id, Integer version, int salaId, int empleadoId,
+                                                     LocalDate fecha, LocalTime horaInicio, LocalTime horaFin)
+                throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ServicioReservas.Resultado resultado = reservas.actualizar(id, version, salaId, empleadoId, fecha,
+                        horaInicio, horaFin);
+                registrar(RESERVAS_ACTUALIZAR, inicio, resultado.estado());
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_ACTUALIZAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean existe(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = reservas.existe(id);
+                RESERVAS_EXISTE.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_EXISTE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public Reserva buscar(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                Reserva resultado = reservas.buscar(id);
+                RESERVAS_BUSCAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_BUSCAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean eliminar(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = reservas.eliminar(id);
+                RESERVAS_ELIMINAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_ELIMINAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public long recorrer(Consumer<ConsultaReservas.Fila> consumidor) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                long resultado = reservas.recorrer(consumidor);
+                RESERVAS_LISTAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_LISTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public long recorrer(ConsultaReservas.Filtro filtro, Consumer<ConsultaReservas.Fila> consumidor)
+                throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                long resultado = reservas.recorrer(filtro, consumidor);
+                RESERVAS_RECORRER.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_RECORRER.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ConsultaReservas.Pagina listarPagina(ConsultaReservas.Filtro filtro, ConsultaReservas.Cursor despues,
+                                                    int tamano) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ConsultaReservas.Pagina resultado = reservas.listarPagina(filtro, despues, tamano);
+                RESERVAS_LISTAR_PAGINA.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_LISTAR_PAGINA.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public List<BuscadorHuecos.Hueco> buscarHuecos(BuscadorHuecos.Criterios criterios) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                List<BuscadorHuecos.Hueco> resultado = reservas.buscarHuecos(criterios);
+                RESERVAS_BUSCAR_HUECOS.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_BUSCAR_HUECOS.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public InformeOcupacion.Informe informeOcupacion(InformeOcupacion.Periodo periodo) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                InformeOcupacion.Informe resultado = reservas.informeOcupacion(periodo);
+                RESERVAS_INFORME_OCUPACION.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_INFORME_OCUPACION.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ServicioReservas.ResultadoSerie crearSerie(SerieReservas serie) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ServicioReservas.ResultadoSerie resultado = reservas.crearSerie(serie);
+                registrar(RESERVAS_CREAR_SERIE, inicio, resultado.estado());
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_CREAR_SERIE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ServicioReservas.ResultadoSerie actualizarSerie(int id, SerieReservas serie) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ServicioReservas.ResultadoSerie resultado = reservas.actualizarSerie(id, serie);
+                registrar(RESERVAS_ACTUALIZAR_SERIE, inicio, resultado.estado());
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_ACTUALIZAR_SERIE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean cancelarSerie(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                boolean resultado = reservas.cancelarSerie(id);
+                RESERVAS_CANCELAR_SERIE.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_CANCELAR_SERIE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public SerieReservas buscarSerie(int id) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                SerieReservas resultado = reservas.buscarSerie(id);
+                RESERVAS_BUSCAR_SERIE.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_BUSCAR_SERIE.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public List<SerieReservas> listarSeries() throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                List<SerieReservas> resultado = reservas.listarSeries();
+                RESERVAS_LISTAR_SERIES.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_LISTAR_SERIES.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ImportadorReservas.ResultadoImportacion importar(Path fichero) throws IOException, SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ImportadorReservas.ResultadoImportacion resultado = reservas.importar(fichero);
+                RESERVAS_IMPORTAR.registrar(inicio);
+                return resultado;
+            } catch (IOException | SQLException | RuntimeException e) {
+                RESERVAS_IMPORTAR.registrarError(inicio);
+                throw e;
+            }
+        }
+
+        @Override
+        public ArchivadorReservas.ResultadoArchivado archivar(LocalDate antesDe) throws SQLException {
+            long inicio = System.nanoTime();
+            try {
+                ArchivadorReservas.ResultadoArchivado resultado = reservas.archivar(antesDe);
+                RESERVAS_ARCHIVAR.registrar(inicio);
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                RESERVAS_ARCHIVAR.registrarError(inicio);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.empresa.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura de JSON sin dependencias externas, para la API HTTP y la salida del modo por lotes.
+ * <p>
+ * Los objetos se representan como {@code Map<String, Object>} (con el orden de las claves), los
+ * arrays como {@code List<Object>}, los números enteros como {@link Long} y los decimales como
+ * {@link Double}. Al escribir, cualquier otro valor (fechas, horas, enumerados) se escribe como
+ * cadena con su {@code toString()}.
+ */
+public final class Json {
+
+    /** Anidamiento máximo al leer, para que un documento malicioso no agote la pila. */
+    private static final int PROFUNDIDAD_MAXIMA = 32;
+
+    private Json() {
+    }
+
+    /**
+     * Crea un objeto JSON con las claves en el orden indicado.
+     *
+     * @param claveValor Pares clave, valor.
+     * @return Mapa modificable con los pares.
+     */
+    public static Map<String, Object> objeto(Object... claveValor) {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        for (int i = 0; i < claveValor.length; i += 2) {
+            objeto.put((String) claveValor[i], claveValor[i + 1]);
+        }
+        return objeto;
+    }
+
+    /**
+     * @param valor Valor a escribir.
+     * @return Texto JSON del valor.
+     */
+    public static String escribir(Object valor) {
+        StringBuilder texto = new StringBuilder(128);
+        escribir(texto, valor);
+        return texto.toString();
+    }
+
+    /**
+     * Añade el texto JSON de un valor.
+     *
+     * @param texto Destino.
+     * @param valor Valor a escribir.
+     */
+    public static void escribir(StringBuilder texto, Object valor) {
+        if (valor == null) {
+            texto.append("null");
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            texto.append(valor);
+        } else if (valor instanceof Map<?, ?> mapa) {
+            texto.append('{');
+            String separador = "";
+            for (Map.Entry<?, ?> entrada : mapa.entrySet()) {
+                texto.append(separador);
+                cadena(texto, entrada.getKey().toString());
+                texto.append(':');
+                escribir(texto, entrada.getValue());
+                separador = ",";
+            }
+            texto.append('}');
+        } else if (valor instanceof Collection<?> lista) {
+            texto.append('[');
+            String separador = "";
+            for (Object elemento : lista) {
+                texto.append(separador);
+                escribir(texto, elemento);
+                separador = ",";
+            }
+            texto.append(']');
+        } else {
+            cadena(texto, valor.toString());
+        }
+    }
+
+    /**
+     * Interpreta un documento JSON.
+     *
+     * @param texto Documento.
+     * @return Map, List, String, Long, Double, Boolean o null.
+     * @throws IllegalArgumentException si el documento no es JSON válido.
+     */
+    public static Object leer(String texto) {
+        Lector lector = new Lector(texto);
+        Object valor = lector.valor(0);
+        lector.saltarEspacios();
+        if (lector.pos < texto.length()) {
+            throw lector.error("contenido tras el final del documento");
+        }
+        return valor;
+    }
+
+    /**
+     * Interpreta un documento JSON que debe ser un objeto.
+     *
+     * @param texto Documento.
+     * @return Claves y valores del objeto.
+     * @throws IllegalArgumentException si el documento no es JSON válido o no es un objeto.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> leerObjeto(String texto) {
+        if (!(leer(texto) instanceof Map<?, ?> objeto)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON");
+        }
+        return (Map<String, Object>) objeto;
+    }
+
+    private static void cadena(StringBuilder texto, String valor) {
+        texto.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> texto.append("\\\"");
+                case '\\' -> texto.append("\\\\");
+                case '\n' -> texto.append("\\n");
+                case '\r' -> texto.append("\\r");
+                case '\t' -> texto.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        texto.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        texto.append(c);
+                    }
+                }
+            }
+        }
+        texto.append('"');
+    }
+
+    /**
+     * Analizador descendente recursivo sobre el texto completo.
+     */
+    private static final class Lector {
+
+        private final String texto;
+        private int pos;
+
+        Lector(String texto) {
+            this.texto = texto;
+        }
+
+        Object valor(int profundidad) {
+            if (profundidad > PROFUNDIDAD_MAXIMA) {
+                throw error("demasiados niveles de anidamiento");
+            }
+            saltarEspacios();
+            if (pos >= texto.length()) {
+                throw error("fin inesperado del documento");
+            }
+            char c = texto.charAt(pos);
+            return switch (c) {
+                case '{' -> objeto(profundidad);
+                case '[' -> lista(profundidad);
+                case '"' -> cadena();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> {
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        yield numero();
+                    }
+                    throw error("carácter inesperado '" + c + "'");
+                }
+            };
+        }
+
+        private Map<String, Object> objeto(int profundidad) {
+            Map<String, Object> objeto = new LinkedHashMap<>();
+            pos++;
+            saltarEspacios();
+            if (consumir('}')) {
+                return objeto;
+            }
+            do {
+                saltarEspacios();
+                if (pos >= texto.length() || texto.charAt(pos) != '"') {
+                    throw error("se esperaba el nombre de un campo");
+                }
+                String clave = cadena();
+                saltarEspacios();
+                if (!consumir(':')) {
+                    throw error("se esperaba ':'");
+                }
+                objeto.put(clave, valor(profundidad + 1));
+                saltarEspacios();
+            } while (consumir(','));
+            if (!consumir('}')) {
+                throw error("se esperaba ',' o '}'");
+            }
+            return objeto;
+        }
+
+        private List<Object> lista(int profundidad) {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            saltarEspacios();
+            if (consumir(']')) {
+                return lista;
+            }
+            do {
+                lista.add(valor(profundidad + 1));
+                saltarEspacios();
+            } while (consumir(','));
+            if (!consumir(']')) {
+                throw error("se esperaba ',' o ']'");
+            }
+            return lista;
+        }
+
+        private String cadena() {
+            StringBuilder valor = new StringBuilder();
+            pos++;
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"') {
+                    return valor.toString();
+                }
+                if (c == '\\') {
+                    if (pos >= texto.length()) {
+                        break;
+                    }
+                    char escape = texto.charAt(pos++);
+                    switch (escape) {
+                        case '"', '\\', '/' -> valor.append(escape);
+                        case 'b' -> valor.append('\b');
+                        case 'f' -> valor.append('\f');
+                        case 'n' -> valor.append('\n');
+                        case 'r' -> valor.append('\r');
+                        case 't' -> valor.append('\t');
+                        case 'u' -> {
+                            if (pos + 4 > texto.length()) {
+                                throw error("secuencia \\u incompleta");
+                            }
+                            try {
+                                valor.append((char) Integer.parseInt(texto, pos, pos + 4, 16));
+                            } catch (NumberFormatException e) {
+                                throw error("secuencia \\u no válida");
+                            }
+                            pos += 4;
+                        }
+                        default -> throw error("escape no válido '\\" + escape + "'");
+                    }
+                } else if (c < 0x20) {
+                    throw error("carácter de control sin escapar en una cadena");
+                } else {
+                    valor.append(c);
+                }
+            }
+            throw error("cadena sin cerrar");
+        }
+
+        private Object numero() {
+            int inicio = pos;
+            boolean decimal = false;
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                pos++;
+            }
+            String numero = texto.substring(inicio, pos);
+            try {
+                return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+            } catch (NumberFormatException e) {
+                pos = inicio;
+                throw error("número no válido '" + numero + "'");
+            }
+        }
+
+        private Object literal(String literal, Object valor) {
+            if (!texto.startsWith(literal, pos)) {
+                throw error("valor no válido");
+            }
+            pos += literal.length();
+            return valor;
+        }
+
+        private boolean consumir(char c) {
+            if (pos < texto.length() && texto.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void saltarEspacios() {
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String motivo) {
+            return new IllegalArgumentException("JSON no válido en la posición " + pos + ": " + motivo);
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package com.empresa.api;
+
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
+import com.empresa.empleados.Empleado;
+import com.empresa.reservas.BuscadorHuecos;
+import com.empresa.reservas.ConsultaReservas;
+import com.empresa.reservas.Reserva;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.Sala;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * API HTTP con JSON sobre el servidor incluido en el JDK ({@code com.sun.net.httpserver}).
+ * <p>
+ * Cada petición se atiende en su propio hilo virtual y abre una {@link Sesion} del almacén solo
+ * mientras dura: con MySQL, miles de clientes simultáneos esperan aparcados (sin ocupar un hilo del
+ * sistema) a que el {@link com.empresa.conexion.PoolConexiones} les preste una conexión, y si la
+ * espera supera su límite la petición responde 503 para que el cliente reintente.
+ * <pre>
+ * GET    /api/salas?despues=ID&amp;limite=N          página de salas ordenadas por ID
+ * POST   /api/salas                              {"nombre", "capacidad", "recursos"}
+ * GET    /api/salas/{id}
+ * PUT    /api/salas/{id}                         {"nombre", "capacidad", "recursos"[, "version"]}
+ * DELETE /api/salas/{id}
+ * GET    /api/salas/libres?fecha&amp;duracion[&amp;capacidad&amp;recursos&amp;desde&amp;hasta]
+ * GET    /api/empleados?despues=ID&amp;limite=N      página de empleados ordenados por ID
+ * POST   /api/empleados                          {"nombre", "email", "departamento"}
+ * PUT    /api/empleados/{id}                     {"nombre", "email", "departamento"}
+ * DELETE /api/empleados/{id}
+ * GET    /api/reservas?desde&amp;hasta&amp;sala&amp;empleado&amp;despues&amp;limite[&amp;archivo=true]
+ * POST   /api/reservas                           {"sala", "empleadoId", "fecha", "horaInicio", "horaFin"}
+ * GET    /api/reservas/{id}
+ * PUT    /api/reservas/{id}                      {"sala", "empleadoId", "fecha", "horaInicio", "horaFin"[, "version"]}
+ * DELETE /api/reservas/{id}
+ * </pre>
+ * En las reservas {@code sala} es el ID (número) o el nombre (texto) de la sala.
+ * Los listados devuelven {@code {"elementos": [...], "siguiente": ...}}; para la página siguiente se
+ * pasa {@code siguiente} como parámetro {@code despues}, de modo que el coste no crece con la página.
+ * Las salas y reservas llevan su {@code version}: un PUT que la incluye solo se aplica si nadie ha
+ * cambiado el elemento desde que se leyó, y si no responde 409 sin escribir nada. Sin ella, el PUT
+ * sobrescribe lo que haya; la respuesta de una sala incluye igualmente la versión guardada.
+ * Los errores devuelven {@code {"error": "mensaje"}} con 400 (datos no válidos), 404, 405, 409
+ * (conflicto de horario, nombre/email repetido o versión desactualizada), 413, 503 (sin conexiones
+ * libres) o 500.
+ */
+public final class ServidorApi implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServidorApi.class);
+
+    /** Prefijo de todas las rutas. */
+    public static final String RUTA = "/api/";
+    static final int LIMITE_POR_DEFECTO = 50;
+    static final int LIMITE_MAXIMO = 500;
+    /** Tamaño máximo del cuerpo de una petición. */
+    static final int CUERPO_MAXIMO = 64 * 1024;
+    /** Conexiones TCP pendientes de aceptar antes de que el sistema rechace nuevas. */
+    private static final int COLA_CONEXIONES = 4096;
+    /** Segundos que se espera a que terminen las peticiones en curso al cerrar. */
+    private static final int ESPERA_CIERRE = 2;
+    private static final int MAXIMO_HUECOS = 10;
+    private static final LocalTime APERTURA_POR_DEFECTO = LocalTime.of(8, 0);
+    private static final LocalTime CIERRE_POR_DEFECTO = LocalTime.of(20, 0);
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+    private static final Set<String> RECURSOS = Set.of("salas", "empleados", "reservas");
+
+    /**
+     * Métricas acumuladas desde el arranque.
+     *
+     * @param peticiones      Peticiones atendidas.
+     * @param erroresCliente  Respuestas 4xx.
+     * @param erroresServidor Respuestas 5xx.
+     */
+    public record Estadisticas(long peticiones, long erroresCliente, long erroresServidor) {
+    }
+
+    /** Respuesta de una petición: código HTTP y cuerpo (null para 204). */
+    private record Respuesta(int estado, Object cuerpo, String ubicacion) {
+
+        static Respuesta ok(Object cuerpo) {
+            return new Respuesta(200, cuerpo, null);
+        }
+
+        static Respuesta error(int estado, String mensaje) {
+            return new Respuesta(estado, Json.objeto("error", mensaje), null);
+        }
+    }
+
+    private final Almacen almacen;
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+    private final LongAdder peticiones = new LongAdder();
+    private final LongAdder erroresCliente = new LongAdder();
+    private final LongAdder erroresServidor = new LongAdder();
+
+    private ServidorApi(Almacen almacen, HttpServer servidor, ExecutorService hilos) {
+        this.almacen = almacen;
+        this.servidor = servidor;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Arranca el servidor.
+     *
+     * @param almacen   Almacén sobre el que trabajan las peticiones; no se cierra al cerrar el servidor.
+     * @param direccion Dirección y puerto de escucha (puerto 0 para uno libre).
+     * @return Servidor ya aceptando peticiones.
+     * @throws IOException si no se puede abrir el puerto.
+     */
+    public static ServidorApi iniciar(Almacen almacen, InetSocketAddress direccion) throws IOException {
+        HttpServer servidor = HttpServer.create(direccion, COLA_CONEXIONES);
+        ExecutorService hilos = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-", 0).factory());
+        ServidorApi api = new ServidorApi(almacen, servidor, hilos);
+        servidor.createContext(RUTA, api::atender);
+        servidor.setExecutor(hilos);
+        servidor.start();
+        logger.info("API HTTP escuchando en {}", servidor.getAddress());
+        return api;
+    }
+
+    /**
+     * @return Puerto en el que escucha el servidor.
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * @return Métricas acumuladas.
+     */
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(peticiones.sum(), erroresCliente.sum(), erroresServidor.sum());
+    }
+
+    /**
+     * Deja de aceptar peticiones y espera brevemente a que terminen las que están en curso.
+     */
+    @Override
+    public void close() {
+        servidor.stop(ESPERA_CIERRE);
+        hilos.close();
+    }
+
+    private void atender(HttpExchange intercambio) {
+        try (intercambio) {
+            Respuesta respuesta = responder(intercambio);
+            peticiones.increment();
+            if (respuesta.estado() >= 500) {
+                erroresServidor.increment();
+            } else if (respuesta.estado() >= 400) {
+                erroresCliente.increment();
+            }
+            enviar(intercambio, respuesta);
+        } catch (IOException e) {
+            // El cliente cerró la conexión antes de recibir la respuesta
+            logger.debug("No se pudo enviar la respuesta a {}", intercambio.getRemoteAddress(), e);
+        }
+    }
+
+    private Respuesta responder(HttpExchange intercambio) {
+        String metodo = intercambio.getRequestMethod();
+        String[] ruta = intercambio.getRequestURI().getPath().substring(RUTA.length()).split("/");
+        try {
+            Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+            Map<String, Object> cuerpo = metodo.equals("POST") || metodo.equals("PUT")
+                    ? leerCuerpo(intercambio.getRequestBody()) : Map.of();
+            if (ruta.length > 2 || !RECURSOS.contains(ruta[0])) {
+                return Respuesta.error(404, "Ruta desconocida");
+            }
+            String segundo = ruta.length == 2 ? ruta[1] : null;
+            try (Sesion sesion = almacen.abrirSesion()) {
+                return switch (ruta[0]) {
+                    case "salas" -> "libres".equals(segundo)
+                            ? soloGet(metodo, () -> salasLibres(sesion, parametros))
+                            : salas(sesion, metodo, id(segundo), parametros, cuerpo);
+                    case "empleados" -> empleados(sesion, metodo, id(segundo), parametros, cuerpo);
+                    case "reservas" -> reservas(sesion, metodo, id(segundo), parametros, cuerpo);
+                    default -> Respuesta.error(404, "Ruta desconocida");
+                };
+            }
+        } catch (CuerpoDemasiadoGrande e) {
+            return Respuesta.error(413, "El cuerpo de la petición supera " + CUERPO_MAXIMO + " bytes");
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Respuesta.error(400, e.getMessage());
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Nombre de sala o email repetido, o sala/empleado inexistente
+            return Respuesta.error(409, e.getMessage());
+        } catch (SQLTimeoutException e) {
+            logger.warn("Petición {} {} sin conexión libre: {}", metodo, intercambio.getRequestURI(), e.getMessage());
+            return Respuesta.error(503, "Servidor ocupado, inténtalo de nuevo");
+        } catch (SQLException | IOException e) {
+            logger.error("Error en la petición {} {}", metodo, intercambio.getRequestURI(), e);
+            return Respuesta.error(500, "Error interno");
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado en la petición {} {}", metodo, intercambio.getRequestURI(), e);
+            return Respuesta.error(500, "Error interno");
+        }
+    }
+
+    private Respuesta salas(Sesion sesion, String metodo, Integer id, Map<String, String> parametros,
+                            Map<String, Object> cuerpo) throws SQLException {
+        if (id == null) {
+            return switch (metodo) {
+                case "GET" -> {
+                    int limite = limite(parametros);
+                    List<Sala> salas = sesion.salas().listarPagina(entero(parametros, "despues", 0), limite);
+                    yield pagina(salas.stream().map(ServidorApi::sala).toList(),
+                            salas.size() == limite ? salas.get(salas.size() - 1).id() : null);
+                }
+                case "POST" -> {
+                    Sala sala = sesion.salas().insertar(texto(cuerpo, "nombre"), entero(cuerpo, "capacidad"),
+                            CatalogoRecursos.normalizar(textoOpcional(cuerpo, "recursos")));
+                    yield sala == null ? Respuesta.error(500, "No se pudo crear la sala")
+                            : creada("salas", sala.id(), sala(sala));
+                }
+                default -> noPermitido();
+            };
+        }
+        return switch (metodo) {
+            case "GET" -> {
+                Sala sala = sesion.salas().buscar(id);
+                yield sala == null ? noExiste("la sala", id) : Respuesta.ok(sala(sala));
+            }
+            case "PUT" -> {
+                Sala sala = new Sala(id, texto(cuerpo, "nombre"), entero(cuerpo, "capacidad"),
+                        CatalogoRecursos.normalizar(textoOpcional(cuerpo, "recursos")));
+                Integer version = enteroOpcional(cuerpo, "version");
+                if (version == null) {
+                    yield sobrescribirSala(sesion, sala);
+                }
+                yield switch (sesion.salas().actualizar(sala, version)) {
+                    case ACTUALIZADA -> Respuesta.ok(sala(sala, version + 1));
+                    case NO_EXISTE -> noExiste("la sala", id);
+                    case DESACTUALIZADA -> desactualizada("la sala", version);
+                };
+            }
+            case "DELETE" -> sesion.salas().eliminar(id) ? eliminada() : noExiste("la sala", id);
+            default -> noPermitido();
+        };
+    }
+
+    /**
+     * Sobrescribe una sala sin versión del cliente. Se escribe sobre la versión actual, leída justo
+     * antes, para poder devolver la que queda guardada; si otro la cambia entre medias, se vuelve a leer.
+     */
+    private static Respuesta sobrescribirSala(Sesion sesion, Sala sala) throws SQLException {
+        while (true) {
+            Sala actual = sesion.salas().buscar(sala.id());
+            if (actual == null) {
+                return noExiste("la sala", sala.id());
+            }
+            switch (sesion.salas().actualizar(sala, actual.version())) {
+                case ACTUALIZADA -> {
+                    return Respuesta.ok(sala(sala, actual.version() + 1));
+                }
+                case NO_EXISTE -> {
+                    return noExiste("la sala", sala.id());
+                }
+                case DESACTUALIZADA -> {
+                    // Otro la ha cambiado entre la lectura y la escritura
+                }
+            }
+        }
+    }
+
+    private Respuesta salasLibres(Sesion sesion, Map<String, String> parametros) throws SQLException {
+        BuscadorHuecos.Criterios criterios = new BuscadorHuecos.Criterios(
+                LocalDate.parse(obligatorio(parametros, "fecha")), entero(parametros, "duracion", 0),
+                entero(parametros, "capacidad", 0), CatalogoRecursos.validar(parametros.getOrDefault("recursos", "")),
+                hora(parametros, "desde", APERTURA_POR_DEFECTO), hora(parametros, "hasta", CIERRE_POR_DEFECTO),
+                MAXIMO_HUECOS);
+        List<Map<String, Object>> huecos = new ArrayList<>();
+        for (BuscadorHuecos.Hueco hueco : sesion.reservas().buscarHuecos(criterios)) {
+            huecos.add(Json.objeto("sala", sala(hueco.sala()), "fecha", hueco.fecha(),
+                    "horaInicio", hueco.inicio(), "horaFin", hueco.fin()));
+        }
+        return Respuesta.ok(Json.objeto("elementos", huecos));
+    }
+
+    private Respuesta empleados(Sesion sesion, String metodo, Integer id, Map<String, String> parametros,
+                                Map<String, Object> cuerpo) throws SQLException {
+        if (id == null) {
+            return switch (metodo) {
+                case "GET" -> {
+                    int limite = limite(parametros);
+                    List<Empleado> empleados =
+                            sesion.empleados().listarPagina(entero(parametros, "despues", 0), limite);
+                    yield pagina(empleados.stream().map(ServidorApi::empleado).toList(),
+                            empleados.size() == limite ? empleados.get(empleados.size() - 1).id() : null);
+                }
+                case "POST" -> {
+                    Empleado empleado = sesion.empleados().insertar(texto(cuerpo, "nombre"), texto(cuerpo, "email"),
+                            textoOpcional(cuerpo, "departamento"));
+                    yield empleado == null ? Respuesta.error(500, "No se pudo crear el empleado")
+                            : creada("empleados", empleado.id(), empleado(empleado));
+                }
+                default -> noPermitido();
+            };
+        }
+        return switch (metodo) {
+            case "PUT" -> {
+                Empleado empleado = new Empleado(id, texto(cuerpo, "nombre"), texto(cuerpo, "email"),
+                        textoOpcional(cuerpo, "departamento"));
+                yield sesion.empleados().actualizar(empleado) ? Respuesta.ok(empleado(empleado))
+                        : noExiste("el empleado", id);
+            }
+            case "DELETE" -> sesion.empleados().eliminar(id) ? eliminada() : noExiste("el empleado", id);
+            default -> noPermitido();
+        };
+    }
+
+    private Respuesta reservas(Sesion sesion, String metodo, Integer id, Map<String, String> parametros,
+                               Map<String, Object> cuerpo) throws SQLException {
+        if (id == null) {
+            return switch (metodo) {
+                case "GET" -> {
+                    ConsultaReservas.Filtro filtro = new ConsultaReservas.Filtro(fecha(parametros, "desde"),
+                            fecha(parametros, "hasta"), parametros.get("sala"),
+                            parametros.containsKey("empleado") ? entero(parametros, "empleado", 0) : null,
+                            Boolean.parseBoolean(parametros.get("archivo")));
+                    ConsultaReservas.Pagina pagina = sesion.reservas().listarPagina(filtro,
+                            cursor(parametros.get("despues")), limite(parametros));
+                    ConsultaReservas.Cursor siguiente = pagina.siguiente();
+                    yield pagina(pagina.filas().stream().map(ServidorApi::reserva).toList(), siguiente == null ? null
+                            : siguiente.fecha() + "_" + siguiente.horaInicio() + "_" + siguiente.id());
+                }
+                case "POST" -> {
+                    LocalTime inicio = LocalTime.parse(texto(cuerpo, "horaInicio"));
+                    ServicioReservas.Resultado r = sesion.reservas().crear(idSala(sesion, cuerpo),
+                            entero(cuerpo, "empleadoId"), LocalDate.parse(texto(cuerpo, "fecha")), inicio,
+                            horaFin(inicio, cuerpo));
+                    yield switch (r.estado()) {
+                        case CREADA -> creada("reservas", r.id() == null ? 0 : r.id(), Json.objeto("id", r.id()));
+                        case CONFLICTO -> Respuesta.error(409, "La sala ya está reservada en ese horario");
+                        default -> Respuesta.error(500, "No se pudo crear la reserva");
+                    };
+                }
+                default -> noPermitido();
+            };
+        }
+        return switch (metodo) {
+            case "GET" -> {
+                Reserva reserva = sesion.reservas().buscar(id);
+                yield reserva == null ? noExiste("la reserva", id) : Respuesta.ok(reserva(reserva));
+            }
+            case "PUT" -> {
+                LocalTime inicio = LocalTime.parse(texto(cuerpo, "horaInicio"));
+                Integer version = enteroOpcional(cuerpo, "version");
+                ServicioReservas.Resultado r = sesion.reservas().actualizar(id, version, idSala(sesion, cuerpo),
+                        entero(cuerpo, "empleadoId"), LocalDate.parse(texto(cuerpo, "fecha")), inicio,
+                        horaFin(inicio, cuerpo));
+                yield switch (r.estado()) {
+                    case ACTUALIZADA -> Respuesta.ok(Json.objeto("id", id, "version", r.version()));
+                    case CONFLICTO -> Respuesta.error(409, "La sala ya está reservada en ese horario");
+                    case NO_ENCONTRADA -> noExiste("la reserva", id);
+                    case DESACTUALIZADA -> desactualizada("la reserva", version);
+                    default -> Respuesta.error(500, "No se pudo actualizar la reserva");
+                };
+            }
+            case "DELETE" -> sesion.reservas().eliminar(id) ? eliminada() : noExiste("la reserva", id);
+            default -> noPermitido();
+        };
+    }
+
+    // --- Conversión a JSON ---
+
+    private static Map<String, Object> sala(Sala sala) {
+        return sala(sala, sala.version());
+    }
+
+    private static Map<String, Object> sala(Sala sala, Integer version) {
+        return Json.objeto("id", sala.id() > 0 ? sala.id() : null, "nombre", sala.nombre(),
+                "capacidad", sala.capacidad(), "recursos", sala.recursos(), "version", version);
+    }
+
+    private static Map<String, Object> empleado(Empleado empleado) {
+        return Json.objeto("id", empleado.id() > 0 ? empleado.id() : null, "nombre", empleado.nombre(),
+                "email", empleado.email(), "departamento", empleado.departamento());
+    }
+
+    private static Map<String, Object> reserva(ConsultaReservas.Fila fila) {
+        return Json.objeto("id", fila.id(), "fecha", fila.fecha(), "horaInicio", fila.horaInicio(),
+                "horaFin", fila.horaFin(), "sala", fila.sala(), "empleado", fila.empleado());
+    }
+
+    private static Map<String, Object> reserva(Reserva reserva) {
+        return Json.objeto("id", reserva.id(), "sala", reserva.salaId(), "empleadoId", reserva.empleadoId(),
+                "fecha", reserva.fecha(), "horaInicio", reserva.horaInicio(), "horaFin", reserva.horaFin(),
+                "version", reserva.version());
+    }
+
+    private static Respuesta pagina(List<Map<String, Object>> elementos, Object siguiente) {
+        return Respuesta.ok(Json.objeto("elementos", elementos, "siguiente", siguiente));
+    }
+
+    private static Respuesta creada(String recurso, int id, Map<String, Object> cuerpo) {
+        // Sin cachés cargadas MySQL no devuelve el ID generado
+        return new Respuesta(201, cuerpo, id > 0 ? RUTA + recurso + "/" + id : null);
+    }
+
+    private static Respuesta eliminada() {
+        return new Respuesta(204, null, null);
+    }
+
+    private static Respuesta noExiste(String recurso, int id) {
+        return Respuesta.error(404, "No existe " + recurso + " con ID " + id);
+    }
+
+    private static Respuesta desactualizada(String recurso, int version) {
+        return Respuesta.error(409, "Otro usuario ha cambiado " + recurso + " después de leer la versión " + version
+                + "; vuelve a leerla");
+    }
+
+    private static Respuesta noPermitido() {
+        return Respuesta.error(405, "Método no permitido en esta ruta");
+    }
+
+    @FunctionalInterface
+    private interface Consulta {
+        Respuesta ejecutar() throws SQLException;
+    }
+
+    private static Respuesta soloGet(String metodo, Consulta consulta) throws SQLException {
+        return metodo.equals("GET") ? consulta.ejecutar() : noPermitido();
+    }
+
+    // --- Lectura de parámetros y cuerpo ---
+
+    private static Integer id(String segmento) {
+        if (segmento == null || segmento.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(segmento);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID no válido: '" + segmento + "'");
+        }
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = URLDecoder.decode(igual < 0 ? par : par.substring(0, igual), StandardCharsets.UTF_8);
+            String valor = igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            parametros.put(clave, valor);
+        }
+        return parametros;
+    }
+
+    private static Map<String, Object> leerCuerpo(InputStream entrada) throws IOException {
+        byte[] bytes = entrada.readNBytes(CUERPO_MAXIMO + 1);
+        if (bytes.length > CUERPO_MAXIMO) {
+            throw new CuerpoDemasiadoGrande();
+        }
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Falta el cuerpo JSON de la petición");
+        }
+        return Json.leerObjeto(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static int limite(Map<String, String> parametros) {
+        int limite = entero(parametros, "limite", LIMITE_POR_DEFECTO);
+        if (limite <= 0 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+
+    private static String obligatorio(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta el parámetro '" + nombre + "'");
+        }
+        return valor;
+    }
+
+    private static int entero(Map<String, String> parametros, String nombre, int porDefecto) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Se esperaba un número en '" + nombre + "': '" + valor + "'");
+        }
+    }
+
+    private static LocalDate fecha(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        return valor == null || valor.isEmpty() ? null : LocalDate.parse(valor);
+    }
+
+    private static LocalTime hora(Map<String, String> parametros, String nombre, LocalTime porDefecto) {
+        String valor = parametros.get(nombre);
+        return valor == null || valor.isEmpty() ? porDefecto : LocalTime.parse(valor);
+    }
+
+    /**
+     * Interpreta el cursor {@code fecha_hora_id} que devuelve el listado de reservas en {@code siguiente}.
+     */
+    private static ConsultaReservas.Cursor cursor(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return null;
+        }
+        String[] partes = texto.split("_");
+        try {
+            return new ConsultaReservas.Cursor(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]),
+                    Integer.parseInt(partes[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor no válido: '" + texto + "'");
+        }
+    }
+
+    private static String texto(Map<String, Object> cuerpo, String campo) {
+        if (!(cuerpo.get(campo) instanceof String valor) || valor.isBlank()) {
+            throw new IllegalArgumentException("Falta el campo de texto '" + campo + "'");
+        }
+        return valor.trim();
+    }
+
+    private static String textoOpcional(Map<String, Object> cuerpo, String campo) {
+        Object valor = cuerpo.get(campo);
+        if (valor != null && !(valor instanceof String)) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser texto");
+        }
+        return valor == null ? "" : ((String) valor).trim();
+    }
+
+    private static int entero(Map<String, Object> cuerpo, String campo) {
+        if (!(cuerpo.get(campo) instanceof Long valor) || valor != valor.intValue()) {
+            throw new IllegalArgumentException("Falta el campo numérico '" + campo + "'");
+        }
+        return valor.intValue();
+    }
+
+    private static Integer enteroOpcional(Map<String, Object> cuerpo, String campo) {
+        return cuerpo.get(campo) == null ? null : entero(cuerpo, campo);
+    }
+
+    /**
+     * Resuelve la sala de una reserva, indicada por ID (número) o por nombre (texto).
+     */
+    private static int idSala(Sesion sesion, Map<String, Object> cuerpo) throws SQLException {
+        Object sala = cuerpo.get("sala");
+        if (sala instanceof Long) {
+            return entero(cuerpo, "sala");
+        }
+        String nombre = texto(cuerpo, "sala");
+        Sala encontrada = sesion.salas().buscarPorNombre(nombre);
+        if (encontrada == null) {
+            throw new IllegalArgumentException("La sala '" + nombre + "' no existe");
+        }
+        return encontrada.id();
+    }
+
+    private static LocalTime horaFin(LocalTime inicio, Map<String, Object> cuerpo) {
+        LocalTime fin = LocalTime.parse(texto(cuerpo, "horaFin"));
+        if (!inicio.isBefore(fin)) {
+            throw new IllegalArgumentException("La hora de inicio debe ser anterior a la hora de fin");
+        }
+        return fin;
+    }
+
+    private static void enviar(HttpExchange intercambio, Respuesta respuesta) throws IOException {
+        if (respuesta.ubicacion() != null) {
+            intercambio.getResponseHeaders().set("Location", respuesta.ubicacion());
+        }
+        if (respuesta.estado() == 503) {
+            intercambio.getResponseHeaders().set("Retry-After", "1");
+        }
+        if (respuesta.cuerpo() == null) {
+            intercambio.sendResponseHeaders(respuesta.estado(), -1);
+            return;
+        }
+        byte[] bytes = Json.escribir(respuesta.cuerpo()).getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        intercambio.sendResponseHeaders(respuesta.estado(), bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    /** El cuerpo supera {@link #CUERPO_MAXIMO}: se responde 413 sin leer el resto. */
+    private static final class CuerpoDemasiadoGrande extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CuerpoDemasiadoGrande() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.empresa.carga;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distribución sobre los índices {@code 0..n-1} con pesos arbitrarios.
+ * <p>
+ * Se guarda la función de distribución acumulada y cada muestra es una búsqueda binaria sobre ella
+ * con un número uniforme, así que muestrear cuesta O(log n) y no asigna memoria. Es inmutable: la
+ * comparten todos los hilos, cada uno con su propio generador.
+ */
+public final class DistribucionDiscreta {
+
+    private final double[] acumulada;
+
+    private DistribucionDiscreta(double[] pesos) {
+        if (pesos.length == 0) {
+            throw new IllegalArgumentException("La distribución necesita al menos un valor");
+        }
+        acumulada = new double[pesos.length];
+        double total = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            if (pesos[i] < 0 || Double.isNaN(pesos[i])) {
+                throw new IllegalArgumentException("Peso no válido en la posición " + i + ": " + pesos[i]);
+            }
+            total += pesos[i];
+            acumulada[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("La suma de los pesos debe ser mayor que 0");
+        }
+        for (int i = 0; i < acumulada.length; i++) {
+            acumulada[i] /= total;
+        }
+    }
+
+    /**
+     * @param pesos Peso de cada índice; no hace falta que sumen 1.
+     * @return Distribución proporcional a los pesos.
+     */
+    public static DistribucionDiscreta pesos(double... pesos) {
+        return new DistribucionDiscreta(pesos.clone());
+    }
+
+    /**
+     * Distribución de Zipf: el índice {@code k} tiene un peso proporcional a {@code 1 / (k + 1)^s}.
+     * Con {@code s = 1} el primero sale el doble que el segundo y el triple que el tercero.
+     *
+     * @param n         Número de valores.
+     * @param exponente Exponente {@code s}; 0 es uniforme y cuanto mayor, más concentrada.
+     * @return Distribución de Zipf sobre {@code 0..n-1}.
+     */
+    public static DistribucionDiscreta zipf(int n, double exponente) {
+        double[] pesos = new double[n];
+        for (int k = 0; k < n; k++) {
+            pesos[k] = 1 / Math.pow(k + 1, exponente);
+        }
+        return new DistribucionDiscreta(pesos);
+    }
+
+    /**
+     * @param random Generador del hilo que muestrea.
+     * @return Índice elegido.
+     */
+    public int siguiente(SplittableRandom random) {
+        double u = random.nextDouble();
+        // Primer índice con acumulado mayor que u: los de peso 0 nunca salen
+        int bajo = 0;
+        int alto = acumulada.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (acumulada[medio] > u) {
+                alto = medio;
+            } else {
+                bajo = medio + 1;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * @param i Índice.
+     * @return Probabilidad del índice.
+     */
+    public double probabilidad(int i) {
+        return i == 0 ? acumulada[0] : acumulada[i] - acumulada[i - 1];
+    }
+
+    /**
+     * @return Número de valores.
+     */
+    public int tamano() {
+        return acumulada.length;
+    }
+}
@@ -0,0 +1,439 @@
+package com.empresa.carga;
+
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
+import com.empresa.empleados.Empleado;
+import com.empresa.metricas.HistogramaLatencias;
+import com.empresa.reservas.ConsultaReservas;
+import com.empresa.reservas.Reserva;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.Sala;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generador de carga: simula empleados que reservan, cambian y cancelan reservas a la vez y mide el
+ * rendimiento, las latencias de cada acción y la tasa de conflictos.
+ * <p>
+ * Cada empleado virtual es un hilo virtual que repite una acción elegida al azar, sin pausa o con
+ * una pausa de reflexión aleatoria de media {@link Configuracion#pausa()}. Cada acción abre su propia
+ * sesión, como una petición de la API, y hace las mismas llamadas al almacén que los menús de
+ * reservas:
+ * <ul>
+ *   <li>reservar (50 %): busca la sala por nombre y crea la reserva</li>
+ *   <li>consultar (25 %): primera página de las reservas de una sala desde el primer día</li>
+ *   <li>cambiar (15 %): lee una de sus reservas con su versión, busca la sala y la mueve</li>
+ *   <li>cancelar (10 %): comprueba que una de sus reservas existe y la elimina</li>
+ * </ul>
+ * Las elecciones siguen distribuciones sesgadas como las de una oficina: unas pocas salas concentran
+ * la demanda (Zipf), las reuniones se amontonan a media mañana, se reserva sobre todo para los días
+ * laborables más próximos y lo habitual es una hora. Solo se cambian y cancelan reservas creadas por
+ * el propio generador y al terminar se borran las que quedan, de modo que puede lanzarse contra una
+ * base de datos local con datos.
+ */
+public final class GeneradorCarga {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorCarga.class);
+
+    /** Acciones de un empleado virtual con su peso en la mezcla. */
+    public enum Accion {
+        RESERVAR(50), CONSULTAR(25), CAMBIAR(15), CANCELAR(10);
+
+        private final int peso;
+
+        Accion(int peso) {
+            this.peso = peso;
+        }
+    }
+
+    /** Salas y empleados que se crean si el almacén no tiene ninguno. */
+    static final int SALAS_INICIALES = 20;
+    static final int EMPLEADOS_INICIALES = 100;
+    static final LocalTime APERTURA = LocalTime.of(8, 0);
+    static final LocalTime CIERRE = LocalTime.of(20, 0);
+    private static final int MINUTOS_FRANJA = 30;
+    private static final int TAMANO_PAGINA = 20;
+    private static final String[] DEPARTAMENTOS = {"TI", "Finanzas", "Marketing", "Legal", "Recursos Humanos"};
+
+    /** Franjas de media hora de 8:00 a 19:30: pico a media mañana y otro menor después de comer. */
+    private static final DistribucionDiscreta FRANJAS = DistribucionDiscreta.pesos(
+            5, 5, 12, 12, 14, 14, 11, 11, 6, 6, 3, 3, 5, 5, 7, 7, 6, 6, 4, 4, 2, 2, 1, 1);
+    /** Duración en franjas: 30, 60, 90 o 120 minutos. */
+    private static final DistribucionDiscreta DURACIONES = DistribucionDiscreta.pesos(3, 5, 1, 1);
+    private static final DistribucionDiscreta ACCIONES = DistribucionDiscreta.pesos(
+            Arrays.stream(Accion.values()).mapToDouble(a -> a.peso).toArray());
+    /** Cada día laborable se reserva un 25 % menos que el anterior. */
+    private static final double CAIDA_POR_DIA = 0.75;
+
+    private GeneradorCarga() {
+    }
+
+    /**
+     * Parámetros de una ejecución.
+     *
+     * @param empleados     Empleados virtuales simultáneos.
+     * @param duracion      Tiempo medido.
+     * @param calentamiento Tiempo previo sin medir, para cargar cachés y compilar el código caliente.
+     * @param pausa         Pausa media entre acciones de un empleado (cero: sin pausa).
+     * @param dias          Días laborables, a partir de {@code primerDia}, en los que se reserva.
+     * @param exponenteZipf Concentración de la demanda en las salas más populares (0: uniforme).
+     * @param semilla       Semilla de los generadores aleatorios.
+     * @param primerDia     Primer día en el que se reserva.
+     */
+    public record Configuracion(int empleados, Duration duracion, Duration calentamiento, Duration pausa, int dias,
+                                double exponenteZipf, long semilla, LocalDate primerDia) {
+
+        public Configuracion {
+            if (empleados <= 0) {
+                throw new IllegalArgumentException("Debe haber al menos un empleado virtual");
+            }
+            if (duracion.isNegative() || duracion.isZero() || calentamiento.isNegative() || pausa.isNegative()) {
+                throw new IllegalArgumentException(
+                        "La duración debe ser positiva y el calentamiento y la pausa no negativos");
+            }
+            if (dias <= 0) {
+                throw new IllegalArgumentException("Los días de reserva deben ser mayores que 0");
+            }
+            if (exponenteZipf < 0) {
+                throw new IllegalArgumentException("El exponente de Zipf no puede ser negativo");
+            }
+            Objects.requireNonNull(primerDia, "primerDia");
+        }
+    }
+
+    /**
+     * Resultado de una ejecución; solo cuenta las acciones que empezaron tras el calentamiento.
+     *
+     * @param medido          Tiempo medido.
+     * @param latencias       Latencias de cada acción (errores incluidos).
+     * @param intentos        Reservas y cambios intentados.
+     * @param conflictos      Reservas y cambios rechazados porque la sala ya estaba ocupada.
+     * @param desactualizadas Cambios rechazados porque la reserva había cambiado desde que se leyó.
+     * @param errores         Acciones que terminaron con una excepción.
+     */
+    public record ResultadoCarga(Duration medido, Map<Accion, HistogramaLatencias.Resumen> latencias, long intentos,
+                                 long conflictos, long desactualizadas, long errores) {
+
+        /**
+         * @return Acciones medidas.
+         */
+        public long operaciones() {
+            return latencias.values().stream().mapToLong(HistogramaLatencias.Resumen::llamadas).sum();
+        }
+
+        /**
+         * @return Acciones por segundo sostenidas.
+         */
+        public double operacionesPorSegundo() {
+            return operaciones() * 1e9 / medido.toNanos();
+        }
+
+        /**
+         * @return Fracción de reservas y cambios en conflicto (0 si no hubo ninguno).
+         */
+        public double tasaConflictos() {
+            return intentos == 0 ? 0 : (double) conflictos / intentos;
+        }
+    }
+
+    /**
+     * Lanza los empleados virtuales, espera a que terminen y borra las reservas que hayan dejado.
+     * Si el almacén no tiene salas o empleados, antes crea {@value #SALAS_INICIALES} salas y
+     * {@value #EMPLEADOS_INICIALES} empleados.
+     *
+     * @param almacen Almacén sobre el que se trabaja.
+     * @param config  Parámetros de la ejecución.
+     * @return Medidas de la ejecución.
+     * @throws SQLException         si no se pueden leer o crear las salas y los empleados.
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    public static ResultadoCarga ejecutar(Almacen almacen, Configuracion config)
+            throws SQLException, InterruptedException {
+        List<Sala> salas;
+        List<Integer> empleados;
+        try (Sesion sesion = almacen.abrirSesion()) {
+            salas = prepararSalas(sesion);
+            empleados = prepararEmpleados(sesion);
+        }
+        double[] pesosDias = new double[config.dias()];
+        for (int d = 0; d < pesosDias.length; d++) {
+            pesosDias[d] = Math.pow(CAIDA_POR_DIA, d);
+        }
+        Escenario escenario = new Escenario(almacen, config, salas,
+                DistribucionDiscreta.zipf(salas.size(), config.exponenteZipf()), DistribucionDiscreta.pesos(pesosDias));
+        Medidas medidas = new Medidas(System.nanoTime() + config.calentamiento().toNanos(), config.duracion());
+        logger.info("Carga: {} empleados virtuales, {} salas, {} de medida tras {} de calentamiento",
+                config.empleados(), salas.size(), config.duracion(), config.calentamiento());
+
+        List<EmpleadoVirtual> virtuales = new ArrayList<>(config.empleados());
+        List<Future<?>> tareas = new ArrayList<>(config.empleados());
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.empleados(); i++) {
+                EmpleadoVirtual virtual = new EmpleadoVirtual(escenario, medidas, empleados.get(i % empleados.size()),
+                        new SplittableRandom(config.semilla() + i));
+                virtuales.add(virtual);
+                tareas.add(hilos.submit(virtual::trabajar));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Un empleado virtual terminó con un error inesperado", e.getCause());
+        }
+
+        limpiar(almacen, virtuales);
+        return medidas.resultado(config.duracion());
+    }
+
+    private static List<Sala> prepararSalas(Sesion sesion) throws SQLException {
+        List<Sala> salas = new ArrayList<>();
+        sesion.salas().recorrer(salas::add);
+        if (salas.isEmpty()) {
+            for (int i = 1; i <= SALAS_INICIALES; i++) {
+                salas.add(sesion.salas().insertar("Sala carga " + i, 4 + (i % 5) * 4, ""));
+            }
+        }
+        // La sala de menor ID es la más solicitada, la segunda la siguiente, etc.
+        salas.sort(Comparator.comparingInt(Sala::id));
+        return salas;
+    }
+
+    private static List<Integer> prepararEmpleados(Sesion sesion) throws SQLException {
+        List<Integer> empleados = new ArrayList<>();
+        sesion.empleados().recorrer(e -> empleados.add(e.id()));
+        if (empleados.isEmpty()) {
+            for (int i = 1; i <= EMPLEADOS_INICIALES; i++) {
+                Empleado e = sesion.empleados().insertar("Empleado carga " + i, "empleado.carga" + i + "@empresa.com",
+                        DEPARTAMENTOS[i % DEPARTAMENTOS.length]);
+                empleados.add(e.id());
+            }
+        }
+        return empleados;
+    }
+
+    private static void limpiar(Almacen almacen, List<EmpleadoVirtual> virtuales) {
+        int borradas = 0;
+        try (Sesion sesion = almacen.abrirSesion()) {
+            for (EmpleadoVirtual virtual : virtuales) {
+                for (int id : virtual.propias) {
+                    if (sesion.reservas().eliminar(id)) {
+                        borradas++;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("No se pudieron borrar todas las reservas de la prueba de carga", e);
+        }
+        logger.info("Carga terminada: {} reservas de la prueba borradas", borradas);
+    }
+
+    /**
+     * Día laborable número {@code n} a partir de {@code desde} (0 es el propio día o el lunes siguiente).
+     */
+    static LocalDate diaLaborable(LocalDate desde, int n) {
+        LocalDate dia = desde;
+        int restantes = n;
+        while (true) {
+            if (dia.getDayOfWeek() != DayOfWeek.SATURDAY && dia.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                if (restantes == 0) {
+                    return dia;
+                }
+                restantes--;
+            }
+            dia = dia.plusDays(1);
+        }
+    }
+
+    /** Datos comunes a todos los empleados virtuales; inmutables. */
+    private record Escenario(Almacen almacen, Configuracion config, List<Sala> salas, DistribucionDiscreta popularidad,
+                             DistribucionDiscreta dias) {
+    }
+
+    private record Horario(LocalDate fecha, LocalTime inicio, LocalTime fin) {
+    }
+
+    /** Latencias y contadores compartidos por todos los empleados virtuales. */
+    private static final class Medidas {
+
+        private final long inicioMedida;
+        private final long fin;
+        private final Map<Accion, HistogramaLatencias> latencias = new EnumMap<>(Accion.class);
+        private final LongAdder intentos = new LongAdder();
+        private final LongAdder conflictos = new LongAdder();
+        private final LongAdder desactualizadas = new LongAdder();
+
+        Medidas(long inicioMedida, Duration duracion) {
+            this.inicioMedida = inicioMedida;
+            this.fin = inicioMedida + duracion.toNanos();
+            for (Accion accion : Accion.values()) {
+                latencias.put(accion, new HistogramaLatencias("carga." + accion.name().toLowerCase()));
+            }
+        }
+
+        void registrar(Accion accion, long inicio, ServicioReservas.Estado estado) {
+            if (inicio < inicioMedida) {
+                return;
+            }
+            latencias.get(accion).registrar(inicio);
+            if (accion == Accion.RESERVAR || accion == Accion.CAMBIAR) {
+                intentos.increment();
+            }
+            if (estado == ServicioReservas.Estado.CONFLICTO) {
+                conflictos.increment();
+            } else if (estado == ServicioReservas.Estado.DESACTUALIZADA) {
+                desactualizadas.increment();
+            } else if (estado == ServicioReservas.Estado.ERROR) {
+                latencias.get(accion).contarError();
+            }
+        }
+
+        void registrarError(Accion accion, long inicio) {
+            if (inicio >= inicioMedida) {
+                latencias.get(accion).registrarError(inicio);
+            }
+        }
+
+        ResultadoCarga resultado(Duration medido) {
+            Map<Accion, HistogramaLatencias.Resumen> resumenes = new EnumMap<>(Accion.class);
+            long errores = 0;
+            for (Map.Entry<Accion, HistogramaLatencias> e : latencias.entrySet()) {
+                HistogramaLatencias.Resumen resumen = e.getValue().resumen();
+                resumenes.put(e.getKey(), resumen);
+                errores += resumen.errores();
+            }
+            return new ResultadoCarga(medido, resumenes, intentos.sum(), conflictos.sum(), desactualizadas.sum(),
+                    errores);
+        }
+    }
+
+    /** Un empleado que reserva desde su propio hilo; solo ese hilo toca su estado. */
+    private static final class EmpleadoVirtual {
+
+        private final Escenario escenario;
+        private final Medidas medidas;
+        private final int empleadoId;
+        private final SplittableRandom random;
+        /** Reservas creadas por este empleado que siguen vigentes. */
+        private final List<Integer> propias = new ArrayList<>();
+
+        EmpleadoVirtual(Escenario escenario, Medidas medidas, int empleadoId, SplittableRandom random) {
+            this.escenario = escenario;
+            this.medidas = medidas;
+            this.empleadoId = empleadoId;
+            this.random = random;
+        }
+
+        void trabajar() {
+            while (System.nanoTime() < medidas.fin && !Thread.currentThread().isInterrupted()) {
+                Accion accion = Accion.values()[ACCIONES.siguiente(random)];
+                if (propias.isEmpty() && (accion == Accion.CAMBIAR || accion == Accion.CANCELAR)) {
+                    accion = Accion.RESERVAR;
+                }
+                long inicio = System.nanoTime();
+                try {
+                    medidas.registrar(accion, inicio, ejecutar(accion));
+                } catch (SQLException | RuntimeException e) {
+                    logger.debug("Error en la acción {} de la prueba de carga", accion, e);
+                    medidas.registrarError(accion, inicio);
+                }
+                pausar();
+            }
+        }
+
+        private ServicioReservas.Estado ejecutar(Accion accion) throws SQLException {
+            try (Sesion sesion = escenario.almacen().abrirSesion()) {
+                return switch (accion) {
+                    case RESERVAR -> reservar(sesion);
+                    case CONSULTAR -> consultar(sesion);
+                    case CAMBIAR -> cambiar(sesion);
+                    case CANCELAR -> cancelar(sesion);
+                };
+            }
+        }
+
+        private ServicioReservas.Estado reservar(Sesion sesion) throws SQLException {
+            Sala sala = sesion.salas().buscarPorNombre(salaPopular().nombre());
+            Horario h = horario();
+            ServicioReservas.Resultado resultado = sesion.reservas().crear(sala.id(), empleadoId, h.fecha(), h.inicio(),
+                    h.fin());
+            if (resultado.estado() == ServicioReservas.Estado.CREADA && resultado.id() != null) {
+                propias.add(resultado.id());
+            }
+            return resultado.estado();
+        }
+
+        private ServicioReservas.Estado consultar(Sesion sesion) throws SQLException {
+            ConsultaReservas.Filtro filtro = new ConsultaReservas.Filtro(escenario.config().primerDia(), null,
+                    salaPopular().nombre(), null);
+            sesion.reservas().listarPagina(filtro, null, TAMANO_PAGINA);
+            return null;
+        }
+
+        private ServicioReservas.Estado cambiar(Sesion sesion) throws SQLException {
+            int posicion = random.nextInt(propias.size());
+            int id = propias.get(posicion);
+            Reserva actual = sesion.reservas().buscar(id);
+            if (actual == null) {
+                quitarPropia(posicion);
+                return ServicioReservas.Estado.NO_ENCONTRADA;
+            }
+            Sala sala = sesion.salas().buscarPorNombre(salaPopular().nombre());
+            Horario h = horario();
+            return sesion.reservas().actualizar(id, actual.version(), sala.id(), empleadoId, h.fecha(), h.inicio(),
+                    h.fin()).estado();
+        }
+
+        private ServicioReservas.Estado cancelar(Sesion sesion) throws SQLException {
+            int id = quitarPropia(random.nextInt(propias.size()));
+            if (sesion.reservas().existe(id)) {
+                sesion.reservas().eliminar(id);
+            }
+            return null;
+        }
+
+        private int quitarPropia(int posicion) {
+            // El orden no importa: se cambia por la última para no desplazar la lista
+            int id = propias.get(posicion);
+            propias.set(posicion, propias.get(propias.size() - 1));
+            propias.remove(propias.size() - 1);
+            return id;
+        }
+
+        private Sala salaPopular() {
+            return escenario.salas().get(escenario.popularidad().siguiente(random));
+        }
+
+        private Horario horario() {
+            LocalDate fecha = diaLaborable(escenario.config().primerDia(), escenario.dias().siguiente(random));
+            LocalTime inicio = APERTURA.plusMinutes((long) FRANJAS.siguiente(random) * MINUTOS_FRANJA);
+            LocalTime fin = inicio.plusMinutes((long) (DURACIONES.siguiente(random) + 1) * MINUTOS_FRANJA);
+            return new Horario(fecha, inicio, fin.isAfter(CIERRE) ? CIERRE : fin);
+        }
+
+        private void pausar() {
+            long media = escenario.config().pausa().toNanos();
+            if (media == 0) {
+                return;
+            }
+            // Pausa exponencial: las acciones de muchos empleados llegan como un proceso de Poisson
+            long nanos = (long) (-Math.log(1 - random.nextDouble()) * media);
+            try {
+                Thread.sleep(Duration.ofNanos(nanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.empresa.comandos;
+
+import com.empresa.reservas.ImportadorReservas;
+
+import java.util.List;
+
+/**
+ * Línea de un fichero de comandos del modo por lotes: {@code entidad,accion,campos...} con la misma
+ * sintaxis CSV que las importaciones (comas o punto y coma, comillas dobles para campos con separadores).
+ * <pre>
+ * sala,crear,nombre,capacidad,recursos
+ * sala,actualizar,id,nombre,capacidad,recursos
+ * empleado,crear,nombre,email,departamento
+ * empleado,actualizar,id,nombre,email,departamento
+ * reserva,crear,sala,empleadoId,fecha,horaInicio,horaFin
+ * reserva,actualizar,id,sala,empleadoId,fecha,horaInicio,horaFin
+ * (sala|empleado|reserva),eliminar,id
+ * (sala|empleado|reserva),listar
+ * </pre>
+ * En las reservas la sala se indica por ID (número) o por nombre.
+ *
+ * @param linea   Número de línea en el fichero (empieza en 1).
+ * @param entidad Tabla sobre la que actúa.
+ * @param accion  Operación.
+ * @param campos  Campos tras la acción.
+ */
+public record Comando(int linea, Entidad entidad, Accion accion, List<String> campos) {
+
+    /** Tabla sobre la que actúa un comando. */
+    public enum Entidad { SALA, EMPLEADO, RESERVA }
+
+    /** Operación de un comando. */
+    public enum Accion { CREAR, ACTUALIZAR, ELIMINAR, LISTAR }
+
+    public Comando {
+        campos = List.copyOf(campos);
+        int esperados = camposEsperados(entidad, accion);
+        if (campos.size() != esperados) {
+            throw new IllegalArgumentException(entidad.name().toLowerCase() + " " + accion.name().toLowerCase()
+                    + " espera " + esperados + " campos y tiene " + campos.size());
+        }
+    }
+
+    /**
+     * Interpreta una línea del fichero de comandos.
+     *
+     * @param linea  Número de línea.
+     * @param texto  Contenido de la línea.
+     * @return El comando, o null si la línea está vacía o es un comentario ({@code #}).
+     * @throws IllegalArgumentException si la entidad, la acción o el número de campos no son válidos.
+     */
+    public static Comando interpretar(int linea, String texto) {
+        String recortado = texto.strip();
+        if (recortado.isEmpty() || recortado.startsWith("#")) {
+            return null;
+        }
+        List<String> campos = ImportadorReservas.separarCampos(recortado);
+        if (campos.size() < 2) {
+            throw new IllegalArgumentException("Falta la acción: se espera entidad,accion,campos...");
+        }
+        return new Comando(linea, valor(Entidad.class, campos.get(0), "Entidad"),
+                valor(Accion.class, campos.get(1), "Acción"), campos.subList(2, campos.size()));
+    }
+
+    /**
+     * Indica si el comando puede ejecutarse en paralelo con los de otras salas. Solo las altas de
+     * reservas: el resto cambia datos de los que pueden depender comandos posteriores (salas y
+     * empleados que se reservan, huecos que libera una reserva movida o borrada) o lee el estado
+     * completo, así que se ejecutan cuando han terminado todos los anteriores.
+     *
+     * @return true si es un alta de reserva.
+     */
+    public boolean esParalelo() {
+        return entidad == Entidad.RESERVA && accion == Accion.CREAR;
+    }
+
+    /**
+     * @return true si el comando escribe en el almacén.
+     */
+    public boolean escribe() {
+        return accion != Accion.LISTAR;
+    }
+
+    /**
+     * @return Texto corto como "reserva crear", para la salida.
+     */
+    public String nombre() {
+        return entidad.name().toLowerCase() + " " + accion.name().toLowerCase();
+    }
+
+    /**
+     * @param indice Posición del campo tras la acción.
+     * @return El campo como entero.
+     * @throws IllegalArgumentException si no es un número.
+     */
+    public int entero(int indice) {
+        try {
+            return Integer.parseInt(campos.get(indice));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Se esperaba un número en el campo " + (indice + 3)
+                    + ": '" + campos.get(indice) + "'");
+        }
+    }
+
+    private static int camposEsperados(Entidad entidad, Accion accion) {
+        return switch (accion) {
+            case LISTAR -> 0;
+            case ELIMINAR -> 1;
+            case CREAR -> entidad == Entidad.RESERVA ? 5 : 3;
+            case ACTUALIZAR -> entidad == Entidad.RESERVA ? 6 : 4;
+        };
+    }
+
+    private static <E extends Enum<E>> E valor(Class<E> tipo, String texto, String descripcion) {
+        try {
+            return Enum.valueOf(tipo, texto.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(descripcion + " desconocida: '" + texto + "'");
+        }
+    }
+}
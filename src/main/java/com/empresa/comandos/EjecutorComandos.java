@@ -0,0 +1,648 @@
+package com.empresa.comandos;
+
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.almacen.CacheListado;
+import com.empresa.almacen.OperacionesSalas;
+import com.empresa.almacen.Sesion;
+import com.empresa.api.Json;
+import com.empresa.empleados.Empleado;
+import com.empresa.reservas.CalendarioSalas;
+import com.empresa.reservas.IndiceDisponibilidad;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.CacheSalas;
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.Sala;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Modo por lotes: ejecuta los {@link Comando} de un fichero o de la entrada estándar sin menús
+ * y escribe el resultado de cada uno como una línea JSON.
+ * <p>
+ * La lectura y la ejecución van en paralelo: el hilo que llama interpreta las líneas y las reparte
+ * en bloques, por colas acotadas, entre {@link Configuracion#hilos()} hilos, cada uno con su propia
+ * conexión del pool durante todo el lote. Pasar los comandos de uno en uno despertaría al hilo en cada
+ * comando; un bloque se envía al llenarse o cuando la entrada no tiene más líneas disponibles.
+ * <p>
+ * Las altas de reservas se reparten por sala, así que las de una misma sala se ejecutan en el orden
+ * del fichero; el resto de comandos esperan a que terminen (y se confirmen) todos los anteriores y se
+ * ejecutan en el primer hilo. Los recursos de las salas se validan contra el {@link CatalogoRecursos}
+ * y se guardan con sus nombres; uno desconocido da ERROR.
+ * <p>
+ * Con {@link Configuracion#comandosPorTransaccion()} mayor que 1, y solo sobre MySQL, cada hilo agrupa
+ * sus escrituras en transacciones de ese tamaño. Si una transacción no se puede confirmar se deshace
+ * entera y se informa de las líneas afectadas.
+ * <p>
+ * Salida, una línea por comando ejecutado (el orden entre hilos distintos no está garantizado):
+ * <pre>
+ * {"linea":3,"comando":"reserva crear","estado":"OK","id":42}
+ * {"linea":4,"comando":"sala listar","fila":{"id":1,"nombre":"Sala A",...}}
+ * {"linea":4,"comando":"sala listar","estado":"OK","filas":12}
+ * {"transaccion":"DESHECHA","lineas":[5,6,7],"mensaje":"..."}
+ * {"resumen":{"comandos":8,"correctos":6,...}}
+ * </pre>
+ * Estados: OK, CONFLICTO (horario ocupado), NO_EXISTE (el ID no existe) y ERROR.
+ */
+public final class EjecutorComandos {
+
+    private static final Logger logger = LoggerFactory.getLogger(EjecutorComandos.class);
+
+    /** Comandos que se pasan juntos a un hilo. */
+    static final int TAMANO_BLOQUE = 64;
+    /** Bloques en cola por hilo: si la ejecución va por detrás, la lectura espera. */
+    static final int CAPACIDAD_COLA = 16;
+    private static final Pattern NUMERO = Pattern.compile("\\d+");
+    private static final Object FIN = new Object();
+
+    /**
+     * Opciones del lote.
+     *
+     * @param hilos                  Hilos de ejecución, cada uno con una conexión.
+     * @param comandosPorTransaccion Escrituras por transacción en cada hilo (0 o 1: cada comando se
+     *                               confirma al ejecutarse).
+     */
+    public record Configuracion(int hilos, int comandosPorTransaccion) {
+        public Configuracion {
+            if (hilos < 1) {
+                throw new IllegalArgumentException("Se necesita al menos un hilo");
+            }
+            if (comandosPorTransaccion < 0) {
+                throw new IllegalArgumentException("El número de comandos por transacción no puede ser negativo");
+            }
+        }
+    }
+
+    /**
+     * Totales del lote.
+     *
+     * @param comandos      Comandos leídos (sin contar líneas vacías ni comentarios).
+     * @param correctos     Comandos con estado OK que no se deshicieron.
+     * @param conflictos    Reservas rechazadas por solaparse con otra.
+     * @param noExisten     Comandos sobre IDs que no existen.
+     * @param errores       Comandos mal escritos o que fallaron.
+     * @param deshechos     Escrituras correctas perdidas al deshacer su transacción.
+     * @param transacciones Transacciones confirmadas con al menos una escritura (0 sin agrupar).
+     * @param millis        Duración total.
+     */
+    public record Resumen(long comandos, long correctos, long conflictos, long noExisten, long errores,
+                          long deshechos, long transacciones, long millis) {
+
+        /**
+         * @return Comandos ejecutados por segundo.
+         */
+        public double comandosPorSegundo() {
+            return millis == 0 ? comandos : comandos * 1000.0 / millis;
+        }
+    }
+
+    private enum Estado { OK, CONFLICTO, NO_EXISTE, ERROR }
+
+    private record Resultado(Estado estado, Integer id, Long filas) {
+    }
+
+    private EjecutorComandos() {
+    }
+
+    /**
+     * Ejecuta todos los comandos de la entrada.
+     *
+     * @param almacen Almacén sobre el que se ejecutan.
+     * @param entrada Comandos, uno por línea.
+     * @param salida  Destino de las líneas JSON; no se cierra.
+     * @param config  Hilos y tamaño de transacción.
+     * @return Totales del lote.
+     * @throws IOException  si falla la lectura de la entrada o la escritura de la salida.
+     * @throws SQLException si no se pueden obtener las conexiones.
+     */
+    public static Resumen ejecutar(Almacen almacen, BufferedReader entrada, Writer salida, Configuracion config)
+            throws IOException, SQLException {
+        long inicio = System.nanoTime();
+        if (config.comandosPorTransaccion() > 1 && !(almacen instanceof AlmacenJdbc)) {
+            logger.info("El almacén {} confirma cada comando al ejecutarlo; se ignoran las transacciones agrupadas",
+                    almacen.descripcion());
+        }
+        SalidaJson json = new SalidaJson(salida);
+        Contadores contadores = new Contadores();
+
+        List<Trabajador> trabajadores = new ArrayList<>();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(config.hilos(), r -> {
+            Thread hilo = new Thread(r, "lote-comandos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (int i = 0; i < config.hilos(); i++) {
+                Trabajador trabajador = new Trabajador(Canal.abrir(almacen, config, json, contadores), json, contadores);
+                trabajadores.add(trabajador);
+                futuros.add(ejecutor.submit(trabajador));
+            }
+            try (Sesion consulta = config.hilos() > 1 ? almacen.abrirSesion() : null) {
+                repartir(entrada, trabajadores, consulta, json, contadores);
+            } finally {
+                for (Trabajador trabajador : trabajadores) {
+                    trabajador.senal(FIN);
+                }
+                esperar(futuros);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lote de comandos interrumpido");
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        Resumen resumen = contadores.resumen((System.nanoTime() - inicio) / 1_000_000);
+        json.resumen(resumen);
+        json.comprobar();
+        return resumen;
+    }
+
+    /**
+     * Lee la entrada y envía cada comando a su hilo, con una sincronización entre los comandos
+     * paralelos y los que deben ejecutarse solos.
+     */
+    private static void repartir(BufferedReader entrada, List<Trabajador> trabajadores, Sesion consulta,
+                                 SalidaJson json, Contadores contadores)
+            throws IOException, SQLException, InterruptedException {
+        Trabajador primero = trabajadores.getFirst();
+        boolean enSolitario = false;
+        String texto;
+        int linea = 0;
+        while ((texto = entrada.readLine()) != null) {
+            linea++;
+            Comando comando;
+            try {
+                comando = Comando.interpretar(linea, texto);
+            } catch (IllegalArgumentException e) {
+                contadores.comandos.increment();
+                contadores.contar(Estado.ERROR);
+                json.resultado(linea, null, new Resultado(Estado.ERROR, null, null), e.getMessage());
+                continue;
+            }
+            if (comando == null) {
+                continue;
+            }
+            contadores.comandos.increment();
+
+            if (trabajadores.size() == 1) {
+                primero.enviar(comando);
+            } else if (comando.esParalelo()) {
+                if (enSolitario) {
+                    sincronizar(trabajadores);
+                    enSolitario = false;
+                }
+                int sala = idSala(consulta, comando.campos().getFirst(), false);
+                trabajadores.get(Math.floorMod(sala, trabajadores.size())).enviar(comando);
+            } else {
+                // Los comandos seguidos que van solos no necesitan sincronizarse entre sí: van a la misma cola
+                if (!enSolitario) {
+                    sincronizar(trabajadores);
+                    enSolitario = true;
+                }
+                primero.enviar(comando);
+            }
+            if (!entrada.ready()) {
+                // La siguiente lectura puede bloquearse (entrada estándar): no retener comandos ya leídos
+                for (Trabajador trabajador : trabajadores) {
+                    trabajador.vaciar();
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera a que todos los hilos terminen lo que tienen en cola y confirmen su transacción.
+     */
+    private static void sincronizar(List<Trabajador> trabajadores) throws InterruptedException {
+        CountDownLatch terminados = new CountDownLatch(trabajadores.size());
+        for (Trabajador trabajador : trabajadores) {
+            trabajador.senal(terminados);
+        }
+        terminados.await();
+    }
+
+    private static void esperar(List<Future<?>> futuros) throws InterruptedException {
+        for (Future<?> futuro : futuros) {
+            try {
+                futuro.get();
+            } catch (ExecutionException e) {
+                logger.error("Un hilo del lote de comandos terminó con error", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Ejecuta un comando sobre la sesión del canal y escribe su resultado.
+     */
+    private static void ejecutar(Comando comando, Canal canal, SalidaJson json, Contadores contadores) {
+        Sesion sesion = canal.sesion;
+        Resultado resultado;
+        String mensaje = null;
+        try {
+            resultado = switch (comando.entidad()) {
+                case SALA -> ejecutarSala(comando, sesion, json);
+                case EMPLEADO -> ejecutarEmpleado(comando, sesion, json);
+                case RESERVA -> ejecutarReserva(comando, sesion, json);
+            };
+        } catch (SQLTransactionRollbackException e) {
+            // El servidor ya ha deshecho la transacción (interbloqueo, espera agotada)
+            canal.deshacer(e);
+            resultado = new Resultado(Estado.ERROR, null, null);
+            mensaje = e.getMessage();
+        } catch (SQLException e) {
+            logger.warn("Error en la línea {} del lote ({})", comando.linea(), comando.nombre(), e);
+            resultado = new Resultado(Estado.ERROR, null, null);
+            mensaje = e.getMessage();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            resultado = new Resultado(Estado.ERROR, null, null);
+            mensaje = e.getMessage();
+        } catch (RuntimeException e) {
+            // Un fallo inesperado no debe parar el hilo: el resto del lote quedaría esperándolo
+            logger.error("Error inesperado en la línea {} del lote ({})", comando.linea(), comando.nombre(), e);
+            resultado = new Resultado(Estado.ERROR, null, null);
+            mensaje = e.toString();
+        }
+
+        contadores.contar(resultado.estado());
+        json.resultado(comando.linea(), comando.nombre(), resultado, mensaje);
+        if (resultado.estado() == Estado.OK && comando.escribe()) {
+            canal.escrito(comando.linea());
+        }
+    }
+
+    private static Resultado ejecutarSala(Comando c, Sesion sesion, SalidaJson json) throws SQLException {
+        return switch (c.accion()) {
+            case CREAR -> {
+                Sala sala = sesion.salas().insertar(c.campos().get(0), c.entero(1),
+                        CatalogoRecursos.normalizar(c.campos().get(2)));
+                yield sala == null ? new Resultado(Estado.ERROR, null, null) : creado(sala.id());
+            }
+            // Los comandos no llevan versión: sobrescriben la sala sin comprobarla
+            case ACTUALIZAR -> existe(sesion.salas().actualizar(new Sala(c.entero(0), c.campos().get(1), c.entero(2),
+                    CatalogoRecursos.normalizar(c.campos().get(3))), null) == OperacionesSalas.Actualizacion.ACTUALIZADA,
+                    c.entero(0));
+            case ELIMINAR -> existe(sesion.salas().eliminar(c.entero(0)), c.entero(0));
+            case LISTAR -> {
+                long[] filas = new long[1];
+                sesion.salas().recorrer(sala -> {
+                    filas[0]++;
+                    json.fila(c, Json.objeto("id", sala.id(), "nombre", sala.nombre(), "capacidad", sala.capacidad(),
+                            "recursos", sala.recursos()));
+                });
+                yield new Resultado(Estado.OK, null, filas[0]);
+            }
+        };
+    }
+
+    private static Resultado ejecutarEmpleado(Comando c, Sesion sesion, SalidaJson json) throws SQLException {
+        return switch (c.accion()) {
+            case CREAR -> {
+                Empleado empleado = sesion.empleados().insertar(c.campos().get(0), c.campos().get(1), c.campos().get(2));
+                yield empleado == null ? new Resultado(Estado.ERROR, null, null) : creado(empleado.id());
+            }
+            case ACTUALIZAR -> existe(sesion.empleados().actualizar(
+                    new Empleado(c.entero(0), c.campos().get(1), c.campos().get(2), c.campos().get(3))), c.entero(0));
+            case ELIMINAR -> existe(sesion.empleados().eliminar(c.entero(0)), c.entero(0));
+            case LISTAR -> {
+                long[] filas = new long[1];
+                sesion.empleados().recorrer(empleado -> {
+                    filas[0]++;
+                    json.fila(c, Json.objeto("id", empleado.id(), "nombre", empleado.nombre(), "email", empleado.email(),
+                            "departamento", empleado.departamento()));
+                });
+                yield new Resultado(Estado.OK, null, filas[0]);
+            }
+        };
+    }
+
+    private static Resultado ejecutarReserva(Comando c, Sesion sesion, SalidaJson json) throws SQLException {
+        return switch (c.accion()) {
+            case CREAR -> {
+                LocalTime inicio = LocalTime.parse(c.campos().get(3));
+                LocalTime fin = horaFin(inicio, c.campos().get(4));
+                yield reserva(sesion.reservas().crear(idSala(sesion, c.campos().get(0), true), c.entero(1),
+                        LocalDate.parse(c.campos().get(2)), inicio, fin));
+            }
+            case ACTUALIZAR -> {
+                LocalTime inicio = LocalTime.parse(c.campos().get(4));
+                LocalTime fin = horaFin(inicio, c.campos().get(5));
+                yield reserva(sesion.reservas().actualizar(c.entero(0), null, idSala(sesion, c.campos().get(1), true),
+                        c.entero(2), LocalDate.parse(c.campos().get(3)), inicio, fin));
+            }
+            case ELIMINAR -> existe(sesion.reservas().eliminar(c.entero(0)), c.entero(0));
+            case LISTAR -> new Resultado(Estado.OK, null, sesion.reservas().recorrer(fila ->
+                    json.fila(c, Json.objeto("id", fila.id(), "fecha", fila.fecha(), "horaInicio", fila.horaInicio(),
+                            "horaFin", fila.horaFin(), "sala", fila.sala(), "empleado", fila.empleado()))));
+        };
+    }
+
+    /**
+     * Resuelve la sala de una reserva, indicada por ID o por nombre.
+     *
+     * @param obligatoria Si es false, devuelve -1 para un nombre que no existe en lugar de fallar.
+     */
+    private static int idSala(Sesion sesion, String sala, boolean obligatoria) throws SQLException {
+        if (NUMERO.matcher(sala).matches()) {
+            return Integer.parseInt(sala);
+        }
+        Sala encontrada = sesion.salas().buscarPorNombre(sala);
+        if (encontrada == null && obligatoria) {
+            throw new IllegalArgumentException("La sala '" + sala + "' no existe");
+        }
+        return encontrada == null ? -1 : encontrada.id();
+    }
+
+    private static LocalTime horaFin(LocalTime inicio, String texto) {
+        LocalTime fin = LocalTime.parse(texto);
+        if (!inicio.isBefore(fin)) {
+            throw new IllegalArgumentException("La hora de inicio debe ser anterior a la hora de fin");
+        }
+        return fin;
+    }
+
+    private static Resultado creado(int id) {
+        // Sin cachés cargadas MySQL no devuelve el ID generado
+        return new Resultado(Estado.OK, id > 0 ? id : null, null);
+    }
+
+    private static Resultado existe(boolean existe, int id) {
+        return new Resultado(existe ? Estado.OK : Estado.NO_EXISTE, id, null);
+    }
+
+    private static Resultado reserva(ServicioReservas.Resultado r) {
+        Estado estado = switch (r.estado()) {
+            case CREADA, ACTUALIZADA -> Estado.OK;
+            case CONFLICTO -> Estado.CONFLICTO;
+            case NO_ENCONTRADA -> Estado.NO_EXISTE;
+            // Sin versión no puede quedar desactualizada
+            case DESACTUALIZADA, ERROR -> Estado.ERROR;
+        };
+        return new Resultado(estado, r.id(), null);
+    }
+
+    /**
+     * Hilo de ejecución con su cola de bloques de comandos y su canal al almacén.
+     * {@link #enviar}, {@link #vaciar} y {@link #senal} solo se llaman desde el hilo que reparte.
+     */
+    private static final class Trabajador implements Callable<Void> {
+
+        private final BlockingQueue<Object> cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+        private List<Comando> bloque = new ArrayList<>(TAMANO_BLOQUE);
+        private final Canal canal;
+        private final SalidaJson json;
+        private final Contadores contadores;
+
+        Trabajador(Canal canal, SalidaJson json, Contadores contadores) {
+            this.canal = canal;
+            this.json = json;
+            this.contadores = contadores;
+        }
+
+        void enviar(Comando comando) throws InterruptedException {
+            bloque.add(comando);
+            if (bloque.size() >= TAMANO_BLOQUE) {
+                vaciar();
+            }
+        }
+
+        void vaciar() throws InterruptedException {
+            if (!bloque.isEmpty()) {
+                cola.put(bloque);
+                bloque = new ArrayList<>(TAMANO_BLOQUE);
+            }
+        }
+
+        /**
+         * Envía el bloque pendiente seguido de una señal (sincronización o fin).
+         */
+        void senal(Object senal) throws InterruptedException {
+            vaciar();
+            cola.put(senal);
+        }
+
+        @Override
+        public Void call() throws InterruptedException {
+            try (canal) {
+                while (true) {
+                    Object tarea = cola.take();
+                    if (tarea == FIN) {
+                        return null;
+                    }
+                    if (tarea instanceof CountDownLatch sincronizacion) {
+                        canal.confirmar();
+                        sincronizacion.countDown();
+                    } else {
+                        for (Object comando : (List<?>) tarea) {
+                            ejecutar((Comando) comando, canal, json, contadores);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sesión de un hilo durante todo el lote. Sobre MySQL con transacciones agrupadas usa una conexión
+     * del pool sin autocommit y confirma cada {@code comandosPorTransaccion} escrituras.
+     */
+    private static final class Canal implements AutoCloseable {
+
+        private final Sesion sesion;
+        /** Null si cada comando se confirma al ejecutarse. */
+        private final Connection conn;
+        private final int comandosPorTransaccion;
+        private final List<Integer> pendientes = new ArrayList<>();
+        private final SalidaJson json;
+        private final Contadores contadores;
+
+        private Canal(Sesion sesion, Connection conn, int comandosPorTransaccion, SalidaJson json,
+                      Contadores contadores) {
+            this.sesion = sesion;
+            this.conn = conn;
+            this.comandosPorTransaccion = comandosPorTransaccion;
+            this.json = json;
+            this.contadores = contadores;
+        }
+
+        static Canal abrir(Almacen almacen, Configuracion config, SalidaJson json, Contadores contadores)
+                throws SQLException {
+            if (config.comandosPorTransaccion() > 1 && almacen instanceof AlmacenJdbc jdbc) {
+                Connection conn = jdbc.getPool().obtenerConexion();
+                conn.setAutoCommit(false);
+                return new Canal(AlmacenJdbc.sesion(conn), conn, config.comandosPorTransaccion(), json, contadores);
+            }
+            return new Canal(almacen.abrirSesion(), null, 1, json, contadores);
+        }
+
+        /**
+         * Anota una escritura correcta y confirma si la transacción está completa.
+         */
+        void escrito(int linea) {
+            if (conn == null) {
+                return;
+            }
+            pendientes.add(linea);
+            if (pendientes.size() >= comandosPorTransaccion) {
+                confirmar();
+            }
+        }
+
+        /**
+         * Confirma la transacción en curso. Se confirma aunque no haya escrituras para que las lecturas
+         * siguientes vean lo que han confirmado los demás hilos.
+         */
+        void confirmar() {
+            if (conn == null) {
+                return;
+            }
+            try {
+                conn.commit();
+                if (!pendientes.isEmpty()) {
+                    contadores.transacciones.increment();
+                }
+                pendientes.clear();
+            } catch (SQLException e) {
+                logger.error("No se pudo confirmar la transacción de las líneas {}", pendientes, e);
+                deshacer(e);
+            }
+        }
+
+        /**
+         * Deshace la transacción en curso e informa de las escrituras perdidas.
+         */
+        void deshacer(SQLException causa) {
+            if (conn == null) {
+                return;
+            }
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                logger.warn("Error al deshacer la transacción", e);
+            }
+            if (!pendientes.isEmpty()) {
+                json.deshecha(pendientes, causa.getMessage());
+                contadores.correctos.add(-pendientes.size());
+                contadores.deshechos.add(pendientes.size());
+                pendientes.clear();
+            }
+            // Las cachés ya reflejaban las escrituras deshechas: se vuelve a consultar la base de datos
+            IndiceDisponibilidad.getInstancia().invalidar();
+            CalendarioSalas.getInstancia().invalidar();
+            CacheSalas.getInstancia().invalidar();
+            CacheListado.SALAS.invalidar();
+            CacheListado.EMPLEADOS.invalidar();
+        }
+
+        @Override
+        public void close() {
+            confirmar();
+            try {
+                if (conn != null) {
+                    conn.close();
+                } else {
+                    sesion.close();
+                }
+            } catch (SQLException e) {
+                logger.warn("Error al cerrar la sesión del lote", e);
+            }
+        }
+    }
+
+    private static final class Contadores {
+        final LongAdder comandos = new LongAdder();
+        final LongAdder correctos = new LongAdder();
+        final LongAdder conflictos = new LongAdder();
+        final LongAdder noExisten = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        final LongAdder deshechos = new LongAdder();
+        final LongAdder transacciones = new LongAdder();
+
+        void contar(Estado estado) {
+            switch (estado) {
+                case OK -> correctos.increment();
+                case CONFLICTO -> conflictos.increment();
+                case NO_EXISTE -> noExisten.increment();
+                case ERROR -> errores.increment();
+            }
+        }
+
+        Resumen resumen(long millis) {
+            return new Resumen(comandos.sum(), correctos.sum(), conflictos.sum(), noExisten.sum(), errores.sum(),
+                    deshechos.sum(), transacciones.sum(), millis);
+        }
+    }
+
+    /**
+     * Escritura de líneas JSON desde varios hilos. El primer error de escritura se guarda y se
+     * lanza al terminar el lote, en lugar de interrumpir a los hilos a mitad de un comando.
+     */
+    private static final class SalidaJson {
+
+        private final Writer salida;
+        private IOException error;
+
+        SalidaJson(Writer salida) {
+            this.salida = salida;
+        }
+
+        void resultado(int linea, String comando, Resultado resultado, String mensaje) {
+            Map<String, Object> objeto = Json.objeto("linea", linea, "comando", comando,
+                    "estado", resultado.estado().name(), "id", resultado.id(), "filas", resultado.filas(),
+                    "mensaje", mensaje);
+            objeto.values().removeIf(Objects::isNull);
+            escribir(objeto);
+        }
+
+        void fila(Comando comando, Map<String, Object> fila) {
+            escribir(Json.objeto("linea", comando.linea(), "comando", comando.nombre(), "fila", fila));
+        }
+
+        void deshecha(List<Integer> lineas, String mensaje) {
+            escribir(Json.objeto("transaccion", "DESHECHA", "lineas", List.copyOf(lineas), "mensaje", mensaje));
+        }
+
+        void resumen(Resumen r) {
+            escribir(Json.objeto("resumen", Json.objeto("comandos", r.comandos(), "correctos", r.correctos(),
+                    "conflictos", r.conflictos(), "noExisten", r.noExisten(), "errores", r.errores(),
+                    "deshechos", r.deshechos(), "transacciones", r.transacciones(), "millis", r.millis(),
+                    "comandosPorSegundo", Math.round(r.comandosPorSegundo() * 10) / 10.0)));
+        }
+
+        synchronized void comprobar() throws IOException {
+            if (error != null) {
+                throw error;
+            }
+            salida.flush();
+        }
+
+        private synchronized void escribir(Map<String, Object> objeto) {
+            if (error != null) {
+                return;
+            }
+            StringBuilder texto = new StringBuilder(128);
+            Json.escribir(texto, objeto);
+            try {
+                salida.write(texto.append('\n').toString());
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+    }
+}
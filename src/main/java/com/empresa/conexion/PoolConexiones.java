@@ -0,0 +1,385 @@
+package com.empresa.conexion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Pool de conexiones JDBC de tamaño acotado.
+ * Presta conexiones que vuelven al pool al llamar a {@link Connection#close()}, las valida antes de
+ * entregarlas, cierra en segundo plano las que llevan demasiado tiempo inactivas y registra
+ * métricas del tiempo de espera de los préstamos.
+ * <p>
+ * Cada conexión física guarda sus sentencias preparadas ({@link SentenciasPreparadas}), de modo que
+ * un mismo SQL se prepara una sola vez por conexión y los préstamos siguientes lo reutilizan.
+ */
+public class PoolConexiones implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolConexiones.class);
+    private static final int SEGUNDOS_VALIDACION = 2;
+    /** Sentencias preparadas que guarda cada conexión física; 0 desactiva la caché. */
+    static final int SENTENCIAS_POR_CONEXION = Integer.getInteger("db.pool.sentencias", 64);
+
+    /**
+     * Crea conexiones físicas nuevas para el pool.
+     */
+    @FunctionalInterface
+    public interface FabricaConexiones {
+        Connection crear() throws SQLException;
+    }
+
+    /**
+     * Instantánea de las métricas del pool.
+     *
+     * @param activas            Conexiones prestadas en este momento.
+     * @param inactivas          Conexiones disponibles en el pool.
+     * @param prestamos          Préstamos realizados.
+     * @param esperaMediaMicros  Tiempo medio de espera por préstamo en microsegundos.
+     * @param esperaMaximaMicros Mayor tiempo de espera observado en microsegundos.
+     * @param timeouts           Préstamos que agotaron el tiempo de espera.
+     * @param creadas            Conexiones físicas abiertas.
+     * @param descartadas        Conexiones cerradas por inválidas o inactivas.
+     * @param sentenciasPreparadas  Sentencias preparadas contra la base de datos.
+     * @param sentenciasReutilizadas Sentencias servidas desde la caché de una conexión.
+     */
+    public record Estadisticas(int activas, int inactivas, long prestamos, long esperaMediaMicros,
+                               long esperaMaximaMicros, long timeouts, long creadas, long descartadas,
+                               long sentenciasPreparadas, long sentenciasReutilizadas) {
+    }
+
+    /** Conexión física disponible junto al instante en que se devolvió. */
+    private record ConexionInactiva(Connection conexion, long devueltaNanos) {
+    }
+
+    private final FabricaConexiones fabrica;
+    private final int tamanoMaximo;
+    private final long esperaMaximaNanos;
+    private final long inactividadMaximaNanos;
+    private final Semaphore permisos;
+    private final BlockingDeque<ConexionInactiva> inactivas = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService limpiador;
+    private final Map<Connection, SentenciasPreparadas> sentencias = new ConcurrentHashMap<>();
+    private volatile boolean cerrado;
+
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaObservadaNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder creadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder sentenciasPreparadas = new LongAdder();
+    private final LongAdder sentenciasReutilizadas = new LongAdder();
+
+    /**
+     * Crea un pool sobre {@link DriverManager} con tiempos por defecto
+     * (30 s de espera máxima y 5 min de inactividad).
+     *
+     * @param url          URL JDBC de la base de datos.
+     * @param usuario      Usuario de la base de datos.
+     * @param clave        Contraseña del usuario.
+     * @param tamanoMaximo Número máximo de conexiones abiertas a la vez.
+     */
+    public PoolConexiones(String url, String usuario, String clave, int tamanoMaximo) {
+        this(() -> DriverManager.getConnection(url, usuario, clave), tamanoMaximo,
+                Duration.ofSeconds(30), Duration.ofMinutes(5));
+    }
+
+    /**
+     * Crea un pool con una fábrica de conexiones y tiempos configurables.
+     *
+     * @param fabrica          Fábrica de conexiones físicas.
+     * @param tamanoMaximo     Número máximo de conexiones abiertas a la vez.
+     * @param esperaMaxima     Tiempo máximo que un préstamo espera por una conexión libre.
+     * @param inactividadMaxima Tiempo que una conexión puede permanecer sin uso antes de cerrarse.
+     */
+    public PoolConexiones(FabricaConexiones fabrica, int tamanoMaximo, Duration esperaMaxima, Duration inactividadMaxima) {
+        if (tamanoMaximo <= 0) {
+            throw new IllegalArgumentException("El tamaño del pool debe ser mayor que 0");
+        }
+        this.fabrica = fabrica;
+        this.tamanoMaximo = tamanoMaximo;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.inactividadMaximaNanos = inactividadMaxima.toNanos();
+        this.permisos = new Semaphore(tamanoMaximo, true);
+
+        this.limpiador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-conexiones-limpiador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1, inactividadMaxima.toMillis() / 2);
+        limpiador.scheduleWithFixedDelay(this::expulsarInactivas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool, esperando si todas están en uso.
+     * La conexión devuelta debe cerrarse para reintegrarla al pool.
+     *
+     * @return Conexión válida lista para usar.
+     * @throws SQLTimeoutException si no queda una conexión libre dentro del tiempo de espera.
+     * @throws SQLException        si el pool está cerrado o no se puede abrir una conexión.
+     */
+    public Connection obtenerConexion() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("No hay conexiones libres tras esperar "
+                        + TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos) + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión", e);
+        }
+        registrarEspera(System.nanoTime() - inicio);
+
+        try {
+            return envolver(conexionValida());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta una operación con una conexión prestada y la devuelve al terminar.
+     * Pensado para las operaciones de consola, que gestionan sus propios errores SQL.
+     *
+     * @param operacion Operación a ejecutar.
+     * @return true si se obtuvo la conexión y se ejecutó la operación.
+     */
+    public boolean ejecutar(Consumer<Connection> operacion) {
+        try (Connection conn = obtenerConexion()) {
+            operacion.accept(conn);
+            return true;
+        } catch (SQLException e) {
+            logger.error("No se pudo obtener una conexión del pool", e);
+            System.out.println("❌ No se pudo conectar con la base de datos.");
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve las métricas actuales del pool.
+     *
+     * @return Instantánea de las estadísticas.
+     */
+    public Estadisticas getEstadisticas() {
+        long total = prestamos.sum();
+        return new Estadisticas(
+                tamanoMaximo - permisos.availablePermits(),
+                inactivas.size(),
+                total,
+                total == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(esperaTotalNanos.sum() / total),
+                TimeUnit.NANOSECONDS.toMicros(esperaMaximaObservadaNanos.get()),
+                timeouts.sum(),
+                creadas.sum(),
+                descartadas.sum(),
+                sentenciasPreparadas.sum(),
+                sentenciasReutilizadas.sum());
+    }
+
+    /**
+     * Cierra el pool y todas las conexiones inactivas. Las prestadas se cierran al devolverse.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        limpiador.shutdownNow();
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            cerrarFisica(inactiva.conexion());
+        }
+    }
+
+    /**
+     * Toma la conexión inactiva más reciente que siga siendo válida o abre una nueva.
+     */
+    private Connection conexionValida() throws SQLException {
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            Connection conn = inactiva.conexion();
+            if (esValida(conn)) {
+                return conn;
+            }
+            logger.warn("Conexión inválida descartada del pool");
+            descartar(conn);
+        }
+        Connection nueva = fabrica.crear();
+        creadas.increment();
+        return nueva;
+    }
+
+    private boolean esValida(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(SEGUNDOS_VALIDACION);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        prestamos.increment();
+        esperaTotalNanos.add(nanos);
+        esperaMaximaObservadaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Reintegra al pool una conexión devuelta por el usuario.
+     */
+    private void devolver(Connection conn) {
+        try {
+            if (cerrado || conn.isClosed()) {
+                descartar(conn);
+                return;
+            }
+            // Deshacer cualquier transacción abierta para no contaminar el siguiente préstamo
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            SentenciasPreparadas cache = sentencias.get(conn);
+            if (cache != null) {
+                cache.liberarTodas();
+            }
+            inactivas.offerFirst(new ConexionInactiva(conn, System.nanoTime()));
+        } catch (SQLException e) {
+            logger.warn("Error al devolver una conexión al pool; se descarta", e);
+            descartar(conn);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Cierra las conexiones que superan el tiempo máximo de inactividad.
+     * Las más antiguas están al final de la cola.
+     */
+    private void expulsarInactivas() {
+        long limite = System.nanoTime() - inactividadMaximaNanos;
+        ConexionInactiva ultima;
+        while ((ultima = inactivas.peekLast()) != null && ultima.devueltaNanos() - limite < 0) {
+            if (inactivas.removeLastOccurrence(ultima)) {
+                logger.debug("Cerrando conexión inactiva del pool");
+                descartar(ultima.conexion());
+            }
+        }
+    }
+
+    private void descartar(Connection conn) {
+        descartadas.increment();
+        cerrarFisica(conn);
+    }
+
+    private void cerrarFisica(Connection conn) {
+        SentenciasPreparadas cache = sentencias.remove(conn);
+        if (cache != null) {
+            cache.cerrarTodas();
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.debug("Error al cerrar una conexión física", e);
+        }
+    }
+
+    private Connection envolver(Connection real) {
+        return (Connection) Proxy.newProxyInstance(
+                PoolConexiones.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexionPrestada(real));
+    }
+
+    /**
+     * Intercepta {@code close()} de la conexión prestada para devolverla al pool
+     * y bloquea su uso una vez devuelta.
+     */
+    private final class ConexionPrestada implements InvocationHandler {
+
+        private final Connection real;
+        private boolean devuelta;
+
+        ConexionPrestada(Connection real) {
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close" -> {
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(real);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return devuelta || real.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "ConexionPrestada[" + real + "]";
+                }
+                default -> {
+                    if (devuelta) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+                    if (esCacheable(metodo)) {
+                        return prepararCacheada(proxy, args);
+                    }
+                    try {
+                        return metodo.invoke(real, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+
+        /**
+         * {@code prepareStatement(String)} y {@code prepareStatement(String, int autoGeneratedKeys)}
+         * pasan por la caché; las variantes con tipo de cursor o columnas se preparan sin guardar.
+         */
+        private static boolean esCacheable(Method metodo) {
+            if (SENTENCIAS_POR_CONEXION <= 0 || !metodo.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] tipos = metodo.getParameterTypes();
+            return tipos.length == 1 || (tipos.length == 2 && tipos[1] == int.class);
+        }
+
+        private PreparedStatement prepararCacheada(Object proxy, Object[] args) throws SQLException {
+            SentenciasPreparadas cache = sentencias.computeIfAbsent(real,
+                    c -> new SentenciasPreparadas(c, SENTENCIAS_POR_CONEXION));
+            long preparadasAntes = cache.getPreparadas();
+            int clavesGeneradas = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+            PreparedStatement sentencia = cache.preparar((String) args[0], clavesGeneradas, (Connection) proxy);
+            if (cache.getPreparadas() > preparadasAntes) {
+                sentenciasPreparadas.increment();
+            } else {
+                sentenciasReutilizadas.increment();
+            }
+            return sentencia;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.empresa.conexion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * Caché de sentencias preparadas de una conexión física del pool.
+ * <p>
+ * {@code prepareStatement(sql)} y {@code prepareStatement(sql, autoGeneratedKeys)} devuelven la
+ * sentencia ya preparada para ese SQL si está libre. Al cerrarla no se cierra de verdad: se limpian
+ * sus parámetros y lotes, se cierran sus resultados y vuelve a la caché para el siguiente uso.
+ * Las sentencias a las que se cambia la configuración (tamaño de fetch, filas máximas...) se
+ * cierran al devolverse para no arrastrar esa configuración. Cuando la caché está llena se
+ * cierra la sentencia libre usada hace más tiempo.
+ * <p>
+ * No es segura entre hilos: una conexión física solo la usa un préstamo a la vez.
+ */
+final class SentenciasPreparadas {
+
+    private static final Logger logger = LoggerFactory.getLogger(SentenciasPreparadas.class);
+
+    /** Métodos que cambian la configuración de la sentencia más allá de sus parámetros. */
+    private static final Set<String> METODOS_CONFIGURACION = Set.of(
+            "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize",
+            "setQueryTimeout", "setEscapeProcessing", "setCursorName", "setPoolable", "closeOnCompletion");
+
+    private record Clave(String sql, int clavesGeneradas) {
+    }
+
+    /** Sentencia real guardada en la caché, si hay un préstamo usándola y cuántas veces se ha prestado. */
+    private static final class Entrada {
+        final PreparedStatement sentencia;
+        boolean enUso;
+        int usos;
+
+        Entrada(PreparedStatement sentencia) {
+            this.sentencia = sentencia;
+        }
+    }
+
+    private final Connection conexion;
+    private final int maximo;
+    // Orden de acceso: la primera entrada es la usada hace más tiempo
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long reutilizadas;
+    private long preparadas;
+
+    /**
+     * @param conexion Conexión física sobre la que se preparan las sentencias.
+     * @param maximo   Número máximo de sentencias guardadas.
+     */
+    SentenciasPreparadas(Connection conexion, int maximo) {
+        this.conexion = conexion;
+        this.maximo = maximo;
+    }
+
+    /**
+     * Devuelve una sentencia preparada para el SQL, reutilizando la de la caché si está libre.
+     *
+     * @param sql             Sentencia SQL.
+     * @param clavesGeneradas {@link Statement#RETURN_GENERATED_KEYS} o {@link Statement#NO_GENERATED_KEYS}.
+     * @param prestada        Conexión prestada que devuelve {@code getConnection()} de la sentencia.
+     * @return Sentencia cuyo {@code close()} la devuelve a la caché.
+     * @throws SQLException si falla la preparación.
+     */
+    PreparedStatement preparar(String sql, int clavesGeneradas, Connection prestada) throws SQLException {
+        Clave clave = new Clave(sql, clavesGeneradas);
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && !entrada.enUso) {
+            reutilizadas++;
+        } else if (entrada != null) {
+            // La misma sentencia ya está abierta en este préstamo: se prepara otra sin guardar
+            preparadas++;
+            return prepararReal(sql, clavesGeneradas);
+        } else {
+            preparadas++;
+            entrada = new Entrada(prepararReal(sql, clavesGeneradas));
+            entradas.put(clave, entrada);
+            expulsarSobrantes();
+        }
+        entrada.enUso = true;
+        entrada.usos++;
+        return envolver(clave, entrada, prestada);
+    }
+
+    /**
+     * Libera las sentencias que un préstamo dejó sin cerrar, para que el siguiente pueda usarlas.
+     */
+    void liberarTodas() {
+        for (Iterator<Entrada> it = entradas.values().iterator(); it.hasNext(); ) {
+            Entrada entrada = it.next();
+            if (entrada.enUso) {
+                entrada.enUso = false;
+                if (!limpiar(entrada.sentencia)) {
+                    it.remove();
+                    cerrar(entrada.sentencia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cierra todas las sentencias guardadas.
+     */
+    void cerrarTodas() {
+        entradas.values().forEach(e -> cerrar(e.sentencia));
+        entradas.clear();
+    }
+
+    long getReutilizadas() {
+        return reutilizadas;
+    }
+
+    long getPreparadas() {
+        return preparadas;
+    }
+
+    int tamano() {
+        return entradas.size();
+    }
+
+    private PreparedStatement prepararReal(String sql, int clavesGeneradas) throws SQLException {
+        return clavesGeneradas == Statement.RETURN_GENERATED_KEYS
+                ? conexion.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conexion.prepareStatement(sql);
+    }
+
+    private void expulsarSobrantes() {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (entradas.size() > maximo && it.hasNext()) {
+            Entrada entrada = it.next();
+            if (!entrada.enUso) {
+                it.remove();
+                cerrar(entrada.sentencia);
+            }
+        }
+    }
+
+    /**
+     * Devuelve una sentencia a la caché tras el {@code close()} del usuario.
+     */
+    private void devolver(Clave clave, Entrada entrada, boolean configuracionCambiada) {
+        entrada.enUso = false;
+        if (configuracionCambiada || !limpiar(entrada.sentencia)) {
+            entradas.remove(clave, entrada);
+            cerrar(entrada.sentencia);
+        }
+    }
+
+    /**
+     * Deja la sentencia lista para otro uso.
+     *
+     * @return false si no se pudo limpiar y hay que descartarla.
+     */
+    private static boolean limpiar(PreparedStatement sentencia) {
+        try {
+            sentencia.clearParameters();
+            sentencia.clearBatch();
+            sentencia.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            logger.debug("No se pudo limpiar una sentencia cacheada; se descarta", e);
+            return false;
+        }
+    }
+
+    private static void cerrar(PreparedStatement sentencia) {
+        try {
+            sentencia.close();
+        } catch (SQLException e) {
+            logger.debug("Error al cerrar una sentencia cacheada", e);
+        }
+    }
+
+    private PreparedStatement envolver(Clave clave, Entrada entrada, Connection prestada) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                SentenciasPreparadas.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new SentenciaPrestada(clave, entrada, prestada));
+    }
+
+    /**
+     * Intercepta {@code close()} para devolver la sentencia a la caché y cierra los resultados
+     * abiertos con ella, como haría el cierre real.
+     */
+    private final class SentenciaPrestada implements InvocationHandler {
+
+        private final Clave clave;
+        private final Entrada entrada;
+        private final Connection prestada;
+        private final int uso;
+        private final List<ResultSet> resultados = new ArrayList<>();
+        private boolean cerrada;
+        private boolean configuracionCambiada;
+
+        SentenciaPrestada(Clave clave, Entrada entrada, Connection prestada) {
+            this.clave = clave;
+            this.entrada = entrada;
+            this.prestada = prestada;
+            this.uso = entrada.usos;
+        }
+
+        /** La sentencia deja de valer si se cerró o si la conexión se devolvió y otro préstamo la reutiliza. */
+        private boolean vigente() {
+            return !cerrada && entrada.enUso && entrada.usos == uso;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nombre = metodo.getName();
+            switch (nombre) {
+                case "close" -> {
+                    if (vigente()) {
+                        cerrarResultados();
+                        devolver(clave, entrada, configuracionCambiada);
+                    }
+                    cerrada = true;
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !vigente();
+                }
+                case "getConnection" -> {
+                    return prestada;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "SentenciaCacheada[" + clave.sql() + "]";
+                }
+                default -> {
+                    if (!vigente()) {
+                        throw new SQLException("La sentencia ya está cerrada");
+                    }
+                    if (METODOS_CONFIGURACION.contains(nombre)) {
+                        configuracionCambiada = true;
+                    } else if (nombre.startsWith("execute")) {
+                        // El driver cierra los resultados anteriores al volver a ejecutar
+                        resultados.clear();
+                    }
+                    Object resultado;
+                    try {
+                        resultado = metodo.invoke(entrada.sentencia, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (resultado instanceof ResultSet rs) {
+                        resultados.add(rs);
+                    }
+                    return resultado;
+                }
+            }
+        }
+
+        private void cerrarResultados() {
+            for (ResultSet rs : resultados) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    logger.debug("Error al cerrar un resultado de una sentencia cacheada", e);
+                }
+            }
+            resultados.clear();
+        }
+    }
+}
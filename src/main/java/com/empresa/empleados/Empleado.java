@@ -0,0 +1,12 @@
+package com.empresa.empleados;
+
+/**
+ * Datos de un empleado.
+ *
+ * @param id           ID del empleado.
+ * @param nombre       Nombre completo.
+ * @param email        Email (único).
+ * @param departamento Departamento al que pertenece.
+ */
+public record Empleado(int id, String nombre, String email, String departamento) {
+}
@@ -1,9 +1,15 @@
 package com.empresa.empleados;
 
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.Scanner;
 
 /**
@@ -16,10 +22,10 @@ public class Empleados {
     /**
      * Muestra el menú principal para gestión de empleados y gestiona las opciones seleccionadas.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param almacen Almacén del que se abre una sesión para cada operación.
      * @param scanner Scanner para leer entrada del usuario.
      */
-    public static void mostrarMenu(Connection conn, Scanner scanner) {
+    public static void mostrarMenu(Almacen almacen, Scanner scanner) {
         boolean salir = false;
 
         while (!salir) {
@@ -28,6 +34,7 @@ public class Empleados {
             System.out.println("2. Listar empleados");
             System.out.println("3. Actualizar empleado");
             System.out.println("4. Eliminar empleado");
+            System.out.println("5. Importar empleados desde CSV o JSON Lines");
             System.out.println("0. Volver al menú principal");
             System.out.print("Selecciona una opción: ");
 
@@ -42,10 +49,11 @@ public class Empleados {
             }
 
             switch (opcion) {
-                case 1 -> crearEmpleado(conn, scanner);
-                case 2 -> listarEmpleados(conn);
-                case 3 -> actualizarEmpleado(conn, scanner);
-                case 4 -> eliminarEmpleado(conn, scanner);
+                case 1 -> almacen.ejecutar(sesion -> crearEmpleado(sesion, scanner));
+                case 2 -> almacen.ejecutar(sesion -> listarEmpleados(sesion));
+                case 3 -> almacen.ejecutar(sesion -> actualizarEmpleado(sesion, scanner));
+                case 4 -> almacen.ejecutar(sesion -> eliminarEmpleado(sesion, scanner));
+                case 5 -> almacen.ejecutar(sesion -> importarEmpleados(sesion, scanner));
                 case 0 -> {
                     salir = true;
                     System.out.println("👋 Volviendo al menú principal...");
@@ -78,12 +86,12 @@ public class Empleados {
     }
 
     /**
-     * Crea un nuevo empleado solicitando datos por consola y guardándolos en la base de datos.
+     * Crea un nuevo empleado solicitando datos por consola y guardándolos en el almacén.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param sesion  Sesión abierta en el almacén.
      * @param scanner Scanner para leer entrada del usuario.
      */
-    public static void crearEmpleado(Connection conn, Scanner scanner) {
+    public static void crearEmpleado(Sesion sesion, Scanner scanner) {
         try {
             System.out.print("Nombre del empleado: ");
             String nombre = scanner.nextLine().trim();
@@ -100,21 +108,14 @@ public class Empleados {
                 return;
             }
 
-            String sql = "INSERT INTO empleados (nombre, email, departamento) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, nombre);
-                pstmt.setString(2, email);
-                pstmt.setString(3, departamento);
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
-                    System.out.println("\n✅ Empleado creado correctamente:");
-                    System.out.println("- Nombre: " + nombre);
-                    System.out.println("- Email: " + email);
-                    System.out.println("- Departamento: " + departamento);
-                } else {
-                    System.out.println("❌ No se pudo crear el empleado.");
-                    logger.warn("Insert empleado no afectó filas");
-                }
+            if (sesion.empleados().insertar(nombre, email, departamento) != null) {
+                System.out.println("\n✅ Empleado creado correctamente:");
+                System.out.println("- Nombre: " + nombre);
+                System.out.println("- Email: " + email);
+                System.out.println("- Departamento: " + departamento);
+            } else {
+                System.out.println("❌ No se pudo crear el empleado.");
+                logger.warn("Insert empleado no afectó filas");
             }
         } catch (SQLException e) {
             System.out.println("❌ Error al crear empleado.");
@@ -123,25 +124,20 @@ public class Empleados {
     }
 
     /**
-     * Lista todos los empleados guardados en la base de datos mostrando sus datos por consola.
+     * Lista todos los empleados guardados en el almacén mostrando sus datos por consola.
      *
-     * @param conn Conexión a la base de datos.
+     * @param sesion Sesión abierta en el almacén.
      */
-    public static void listarEmpleados(Connection conn) {
-        String sql = "SELECT * FROM empleados";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    public static void listarEmpleados(Sesion sesion) {
+        try {
             System.out.println("\n📋 Lista de empleados:");
-            boolean hay = false;
-            while (rs.next()) {
-                hay = true;
+            boolean[] hay = {false};
+            sesion.empleados().recorrer(empleado -> {
+                hay[0] = true;
                 System.out.printf("ID: %d | Nombre: %s | Email: %s | Departamento: %s%n",
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getString("email"),
-                        rs.getString("departamento"));
-            }
-            if (!hay) {
+                        empleado.id(), empleado.nombre(), empleado.email(), empleado.departamento());
+            });
+            if (!hay[0]) {
                 System.out.println("ℹ️ No hay empleados registrados.");
             }
         } catch (SQLException e) {
@@ -154,24 +150,19 @@ public class Empleados {
      * Actualiza los datos de un empleado identificado por su ID.
      * Solicita los nuevos valores y realiza las validaciones pertinentes.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param sesion  Sesión abierta en el almacén.
      * @param scanner Scanner para leer entrada del usuario.
      */
-    public static void actualizarEmpleado(Connection conn, Scanner scanner) {
+    public static void actualizarEmpleado(Sesion sesion, Scanner scanner) {
         try {
             // Leer ID con validación
             int id = leerEntero(scanner, "ID del empleado a actualizar: ");
 
             // Verificar que el empleado exista
-            String checkSql = "SELECT COUNT(*) FROM empleados WHERE id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, id);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("❌ No existe un empleado con el ID: " + id);
-                    logger.warn("Intento de actualizar empleado inexistente. ID: {}", id);
-                    return;
-                }
+            if (!sesion.empleados().existe(id)) {
+                System.out.println("❌ No existe un empleado con el ID: " + id);
+                logger.warn("Intento de actualizar empleado inexistente. ID: {}", id);
+                return;
             }
 
             // Leer nuevos datos
@@ -197,20 +188,11 @@ public class Empleados {
             }
 
             // Ejecutar update
-            String updateSql = "UPDATE empleados SET nombre = ?, email = ?, departamento = ? WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
-                pstmt.setString(1, nombre);
-                pstmt.setString(2, email);
-                pstmt.setString(3, departamento);
-                pstmt.setInt(4, id);
-
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
-                    System.out.println("\n✅ Empleado actualizado con éxito:");
-                    System.out.println("- Nombre: " + nombre);
-                    System.out.println("- Email: " + email);
-                    System.out.println("- Departamento: " + departamento);
-                }
+            if (sesion.empleados().actualizar(new Empleado(id, nombre, email, departamento))) {
+                System.out.println("\n✅ Empleado actualizado con éxito:");
+                System.out.println("- Nombre: " + nombre);
+                System.out.println("- Email: " + email);
+                System.out.println("- Departamento: " + departamento);
             }
         } catch (SQLException e) {
             System.out.println("❌ Error al actualizar el empleado.");
@@ -219,26 +201,21 @@ public class Empleados {
     }
 
     /**
-     * Elimina un empleado de la base de datos identificado por su ID tras confirmación del usuario.
+     * Elimina un empleado del almacén identificado por su ID tras confirmación del usuario.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param sesion  Sesión abierta en el almacén.
      * @param scanner Scanner para leer entrada del usuario.
      */
-    public static void eliminarEmpleado(Connection conn, Scanner scanner) {
+    public static void eliminarEmpleado(Sesion sesion, Scanner scanner) {
         try {
             // Leer ID con validación
             int id = leerEntero(scanner, "ID del empleado a eliminar: ");
 
             // Verificar que el empleado exista
-            String checkSql = "SELECT COUNT(*) FROM empleados WHERE id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, id);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("❌ No existe un empleado con el ID: " + id);
-                    logger.warn("Intento de eliminar empleado inexistente. ID: {}", id);
-                    return;
-                }
+            if (!sesion.empleados().existe(id)) {
+                System.out.println("❌ No existe un empleado con el ID: " + id);
+                logger.warn("Intento de eliminar empleado inexistente. ID: {}", id);
+                return;
             }
 
             // Confirmación
@@ -250,17 +227,56 @@ public class Empleados {
             }
 
             // Ejecutar eliminación
-            String sql = "DELETE FROM empleados WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, id);
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
-                    System.out.println("✅ Empleado eliminado con éxito.");
-                }
+            // Las reservas del empleado se borran en cascada
+            if (sesion.empleados().eliminar(id)) {
+                System.out.println("✅ Empleado eliminado con éxito.");
             }
         } catch (SQLException e) {
             System.out.println("❌ Error al eliminar empleado.");
             logger.error("Error al eliminar empleado", e);
         }
     }
+
+    /**
+     * Da de alta o actualiza empleados de forma masiva desde un fichero y muestra el resumen del proceso.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para leer entrada del usuario.
+     */
+    public static void importarEmpleados(Sesion sesion, Scanner scanner) {
+        System.out.print("Ruta del fichero CSV (nombre,email,departamento) o JSON Lines: ");
+        Path fichero = Path.of(scanner.nextLine().trim());
+        if (!Files.isReadable(fichero)) {
+            System.out.println("❌ No se puede leer el fichero: " + fichero);
+            return;
+        }
+
+        try {
+            ImportadorEmpleados.ResultadoImportacion resultado = sesion.empleados().importar(fichero);
+
+            System.out.println("\n✅ Importación finalizada:");
+            System.out.println("- Filas leídas: " + resultado.leidas());
+            System.out.println("- Empleados nuevos: " + resultado.insertados());
+            System.out.println("- Empleados actualizados: " + resultado.actualizados());
+            System.out.println("- Empleados sin cambios: " + resultado.sinCambios());
+            System.out.println("- Filas rechazadas: " + resultado.rechazos().size());
+            System.out.printf("- Tiempo: %d ms (%.0f filas/s)%n", resultado.millis(), resultado.filasPorSegundo());
+
+            int mostrar = Math.min(20, resultado.rechazos().size());
+            for (int i = 0; i < mostrar; i++) {
+                ImportadorEmpleados.Rechazo r = resultado.rechazos().get(i);
+                System.out.printf("  Línea %d: %s -> %s%n", r.linea(), r.contenido(), r.motivo());
+            }
+            if (resultado.rechazos().size() > mostrar) {
+                System.out.println("  ... y " + (resultado.rechazos().size() - mostrar) + " rechazos más (ver log).");
+                resultado.rechazos().subList(mostrar, resultado.rechazos().size())
+                        .forEach(r -> logger.warn("Línea {} rechazada: {}", r.linea(), r.motivo()));
+            }
+        } catch (SQLFeatureNotSupportedException e) {
+            System.out.println("ℹ️ " + e.getMessage());
+        } catch (IOException | SQLException e) {
+            logger.error("Error al importar empleados", e);
+            System.out.println("❌ Error al importar los empleados.");
+        }
+    }
 }
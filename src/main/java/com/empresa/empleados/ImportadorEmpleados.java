@@ -0,0 +1,340 @@
+package com.empresa.empleados;
+
+import com.empresa.api.Json;
+import com.empresa.reservas.ImportadorReservas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Alta y actualización masiva de empleados desde un fichero CSV o JSON Lines.
+ * <p>
+ * Cada línea es {@code nombre,email,departamento} (CSV, cabecera opcional, {@code ;} como separador
+ * y campos entre comillas dobles) o un objeto JSON por línea
+ * ({@code {"nombre":"Ana","email":"ana@empresa.com","departamento":"TI"}}); se pueden mezclar.
+ * El email identifica al empleado: si ya existe se actualizan su nombre y departamento.
+ * <p>
+ * El fichero se lee en streaming por lotes. Las líneas de cada lote se validan en paralelo, los
+ * empleados existentes del lote se leen con una consulta y las filas nuevas o con cambios se
+ * escriben con {@code INSERT ... ON DUPLICATE KEY UPDATE} por lotes ({@code addBatch}), cada
+ * lote en su propia transacción. Las filas idénticas a las guardadas no se escriben.
+ */
+public class ImportadorEmpleados {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportadorEmpleados.class);
+
+    /** Tamaño de lote por defecto. */
+    public static final int TAMANO_LOTE = 1000;
+
+    /** Longitud máxima de cada campo (columnas VARCHAR(100)). */
+    static final int LONGITUD_MAXIMA = 100;
+
+    static final String SQL_UPSERT = """
+            INSERT INTO empleados (nombre, email, departamento) VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE nombre = VALUES(nombre), departamento = VALUES(departamento)""";
+
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+    /**
+     * Fila rechazada durante la importación.
+     *
+     * @param linea     Número de línea en el fichero.
+     * @param contenido Texto original de la línea.
+     * @param motivo    Causa del rechazo.
+     */
+    public record Rechazo(int linea, String contenido, String motivo) {
+    }
+
+    /**
+     * Resultado de una importación.
+     *
+     * @param leidas      Filas de datos leídas (sin contar cabecera ni líneas vacías).
+     * @param insertados  Empleados nuevos.
+     * @param actualizados Empleados existentes cuyo nombre o departamento ha cambiado.
+     * @param sinCambios  Empleados existentes idénticos a la fila, que no se escriben.
+     * @param rechazos    Filas rechazadas con su motivo.
+     * @param millis      Duración total en milisegundos.
+     */
+    public record ResultadoImportacion(int leidas, int insertados, int actualizados, int sinCambios,
+                                       List<Rechazo> rechazos, long millis) {
+
+        /**
+         * Calcula el rendimiento de la importación.
+         *
+         * @return Filas procesadas por segundo.
+         */
+        public double filasPorSegundo() {
+            return millis == 0 ? leidas * 1000.0 : leidas * 1000.0 / millis;
+        }
+    }
+
+    /** Línea del fichero pendiente de validar. */
+    private record Linea(int numero, String texto) {
+    }
+
+    /** Fila válida; {@code clave} es el email en minúsculas, como lo compara el índice único de MySQL. */
+    private record Fila(int linea, String contenido, String nombre, String email, String departamento, String clave) {
+    }
+
+    /** Resultado de validar una línea: una fila válida o un rechazo. */
+    private record Validacion(Fila fila, Rechazo rechazo) {
+    }
+
+    /** Estado que se conserva entre lotes durante una importación. */
+    private static final class Estado {
+        final Map<String, Integer> lineaPorEmail = new HashMap<>();
+        final List<Rechazo> rechazos = new ArrayList<>();
+        int leidas;
+        int insertados;
+        int actualizados;
+        int sinCambios;
+    }
+
+    /**
+     * Importa los empleados de un fichero CSV o JSON Lines en UTF-8.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param fichero    Ruta del fichero.
+     * @param tamanoLote Filas por lote y transacción.
+     * @return Resultado de la importación.
+     * @throws IOException  si falla la lectura del fichero.
+     * @throws SQLException si falla la configuración de la conexión.
+     */
+    public static ResultadoImportacion importar(Connection conn, Path fichero, int tamanoLote)
+            throws IOException, SQLException {
+        try (Reader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            return importar(conn, lector, tamanoLote);
+        }
+    }
+
+    /**
+     * Importa los empleados leídos de un flujo de texto CSV o JSON Lines.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param origen     Flujo con el contenido.
+     * @param tamanoLote Filas por lote y transacción.
+     * @return Resultado de la importación.
+     * @throws IOException  si falla la lectura del flujo.
+     * @throws SQLException si falla la configuración de la conexión.
+     */
+    public static ResultadoImportacion importar(Connection conn, Reader origen, int tamanoLote)
+            throws IOException, SQLException {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que 0");
+        }
+        long inicio = System.nanoTime();
+        Estado estado = new Estado();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            BufferedReader lector = origen instanceof BufferedReader br ? br : new BufferedReader(origen);
+            List<Linea> lote = new ArrayList<>(tamanoLote);
+            String linea;
+            int numero = 0;
+
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (linea.isBlank() || (numero == 1 && esCabecera(linea))) {
+                    continue;
+                }
+                estado.leidas++;
+                lote.add(new Linea(numero, linea));
+                if (lote.size() >= tamanoLote) {
+                    procesarLote(conn, lote, estado);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                procesarLote(conn, lote, estado);
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        ResultadoImportacion resultado = new ResultadoImportacion(estado.leidas, estado.insertados,
+                estado.actualizados, estado.sinCambios, estado.rechazos, millis);
+        logger.info("Importación de empleados: {} leídos, {} insertados, {} actualizados, {} sin cambios, "
+                        + "{} rechazados en {} ms ({} filas/s)", resultado.leidas(), resultado.insertados(),
+                resultado.actualizados(), resultado.sinCambios(), resultado.rechazos().size(), millis,
+                Math.round(resultado.filasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Valida el lote, descarta los emails repetidos en el fichero y escribe las altas y cambios.
+     */
+    private static void procesarLote(Connection conn, List<Linea> lote, Estado estado) throws SQLException {
+        // La validación no depende de otras filas: se reparte entre los núcleos disponibles
+        List<Validacion> validaciones = lote.parallelStream().map(ImportadorEmpleados::validar).toList();
+
+        Map<String, Fila> filas = new LinkedHashMap<>();
+        for (Validacion validacion : validaciones) {
+            if (validacion.rechazo() != null) {
+                estado.rechazos.add(validacion.rechazo());
+                continue;
+            }
+            Fila fila = validacion.fila();
+            Integer anterior = estado.lineaPorEmail.putIfAbsent(fila.clave(), fila.linea());
+            if (anterior != null) {
+                estado.rechazos.add(new Rechazo(fila.linea(), fila.contenido(),
+                        "El email ya aparece en la línea " + anterior + " del fichero"));
+            } else {
+                filas.put(fila.clave(), fila);
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Empleado> existentes = buscarPorEmail(conn, filas.keySet());
+            int insertados = 0;
+            int actualizados = 0;
+            int sinCambios = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+                for (Fila fila : filas.values()) {
+                    Empleado existente = existentes.get(fila.clave());
+                    if (existente == null) {
+                        insertados++;
+                    } else if (fila.nombre().equals(existente.nombre())
+                            && fila.departamento().equals(existente.departamento())) {
+                        sinCambios++;
+                        continue;
+                    } else {
+                        actualizados++;
+                    }
+                    pstmt.setString(1, fila.nombre());
+                    pstmt.setString(2, fila.email());
+                    pstmt.setString(3, fila.departamento());
+                    pstmt.addBatch();
+                }
+                if (insertados + actualizados > 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            conn.commit();
+            estado.insertados += insertados;
+            estado.actualizados += actualizados;
+            estado.sinCambios += sinCambios;
+        } catch (SQLException e) {
+            logger.error("Error al escribir un lote de {} empleados; se deshace el lote", filas.size(), e);
+            conn.rollback();
+            for (Fila fila : filas.values()) {
+                estado.rechazos.add(new Rechazo(fila.linea(), fila.contenido(),
+                        "Error de base de datos: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Lee en una sola consulta los empleados existentes con los emails indicados.
+     *
+     * @return Empleados por email en minúsculas.
+     */
+    private static Map<String, Empleado> buscarPorEmail(Connection conn, Collection<String> claves)
+            throws SQLException {
+        StringJoiner marcadores = new StringJoiner(", ", "(", ")");
+        claves.forEach(c -> marcadores.add("?"));
+        String sql = "SELECT id, nombre, email, departamento FROM empleados WHERE email IN " + marcadores;
+
+        Map<String, Empleado> existentes = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (String clave : claves) {
+                pstmt.setString(i++, clave);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Empleado empleado = new Empleado(rs.getInt("id"), rs.getString("nombre"),
+                            rs.getString("email"), rs.getString("departamento"));
+                    existentes.put(empleado.email().toLowerCase(Locale.ROOT), empleado);
+                }
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Valida una línea del fichero sin consultar la base de datos.
+     */
+    private static Validacion validar(Linea linea) {
+        String nombre;
+        String email;
+        String departamento;
+        String texto = linea.texto().trim();
+        if (texto.startsWith("{")) {
+            try {
+                Map<String, Object> objeto = Json.leerObjeto(texto);
+                nombre = campo(objeto, "nombre");
+                email = campo(objeto, "email");
+                departamento = campo(objeto, "departamento");
+            } catch (IllegalArgumentException e) {
+                return rechazo(linea, "JSON inválido: " + e.getMessage());
+            }
+        } else {
+            List<String> campos = ImportadorReservas.separarCampos(texto);
+            if (campos.size() != 3) {
+                return rechazo(linea, "Se esperaban 3 campos y hay " + campos.size());
+            }
+            nombre = campos.get(0);
+            email = campos.get(1);
+            departamento = campos.get(2);
+        }
+
+        nombre = nombre == null ? "" : nombre.trim();
+        email = email == null ? "" : email.trim();
+        departamento = departamento == null ? "" : departamento.trim();
+        if (nombre.isEmpty() || email.isEmpty() || departamento.isEmpty()) {
+            return rechazo(linea, "Nombre, email y departamento son obligatorios");
+        }
+        if (nombre.length() > LONGITUD_MAXIMA || email.length() > LONGITUD_MAXIMA
+                || departamento.length() > LONGITUD_MAXIMA) {
+            return rechazo(linea, "Ningún campo puede superar " + LONGITUD_MAXIMA + " caracteres");
+        }
+        if (!EMAIL.matcher(email).matches()) {
+            return rechazo(linea, "Email inválido: " + email);
+        }
+        return new Validacion(new Fila(linea.numero(), linea.texto(), nombre, email, departamento,
+                email.toLowerCase(Locale.ROOT)), null);
+    }
+
+    private static Validacion rechazo(Linea linea, String motivo) {
+        return new Validacion(null, new Rechazo(linea.numero(), linea.texto(), motivo));
+    }
+
+    /**
+     * La primera línea CSV es cabecera si su segundo campo (email) no contiene {@code @}.
+     */
+    private static boolean esCabecera(String linea) {
+        if (linea.trim().startsWith("{")) {
+            return false;
+        }
+        List<String> campos = ImportadorReservas.separarCampos(linea);
+        return campos.size() > 1 && !campos.get(1).contains("@");
+    }
+
+    /**
+     * Devuelve como texto un campo de una línea JSON: los números y booleanos con su texto y
+     * {@code null} como null.
+     *
+     * @throws IllegalArgumentException si el valor es un objeto o una lista.
+     */
+    private static String campo(Map<String, Object> objeto, String clave) {
+        Object valor = objeto.get(clave);
+        if (valor instanceof Map<?, ?> || valor instanceof List<?>) {
+            throw new IllegalArgumentException("el campo '" + clave + "' no puede ser un objeto ni una lista");
+        }
+        return valor == null ? null : valor.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.empresa.empleados;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Acceso a la tabla de empleados sin interacción por consola.
+ * <p>
+ * Cada operación usa siempre el mismo texto SQL, de modo que la caché de sentencias del pool
+ * de conexiones la prepara una sola vez por conexión y la reutiliza en las llamadas siguientes.
+ */
+public final class RepositorioEmpleados {
+
+    static final String SQL_INSERTAR = "INSERT INTO empleados (nombre, email, departamento) VALUES (?, ?, ?)";
+    static final String SQL_ACTUALIZAR = "UPDATE empleados SET nombre = ?, email = ?, departamento = ? WHERE id = ?";
+    static final String SQL_EXISTE = "SELECT COUNT(*) FROM empleados WHERE id = ?";
+    static final String SQL_ELIMINAR = "DELETE FROM empleados WHERE id = ?";
+    static final String SQL_LISTAR = "SELECT id, nombre, email, departamento FROM empleados ORDER BY id";
+    static final String SQL_PAGINA =
+            "SELECT id, nombre, email, departamento FROM empleados WHERE id > ? ORDER BY id LIMIT ?";
+
+    private RepositorioEmpleados() {
+    }
+
+    /**
+     * Inserta un empleado.
+     *
+     * @param conn         Conexión a la base de datos.
+     * @param nombre       Nombre.
+     * @param email        Email (único).
+     * @param departamento Departamento.
+     * @param obtenerId    true para pedir al driver el ID generado.
+     * @return El empleado insertado (con ID 0 si no se pidió o el driver no lo devolvió), o null si no se insertó.
+     * @throws SQLException si falla la inserción (por ejemplo, por email duplicado).
+     */
+    public static Empleado insertar(Connection conn, String nombre, String email, String departamento,
+                                    boolean obtenerId) throws SQLException {
+        try (PreparedStatement pstmt = obtenerId
+                ? conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(SQL_INSERTAR)) {
+            pstmt.setString(1, nombre);
+            pstmt.setString(2, email);
+            pstmt.setString(3, departamento);
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = 0;
+            if (obtenerId) {
+                try (ResultSet claves = pstmt.getGeneratedKeys()) {
+                    if (claves != null && claves.next()) {
+                        id = claves.getInt(1);
+                    }
+                }
+            }
+            return new Empleado(id, nombre, email, departamento);
+        }
+    }
+
+    /**
+     * Sustituye los datos de un empleado.
+     *
+     * @param conn     Conexión a la base de datos.
+     * @param empleado Nuevos datos; el ID identifica al empleado.
+     * @return true si el empleado existía y se actualizó.
+     * @throws SQLException si falla la actualización.
+     */
+    public static boolean actualizar(Connection conn, Empleado empleado) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTUALIZAR)) {
+            pstmt.setString(1, empleado.nombre());
+            pstmt.setString(2, empleado.email());
+            pstmt.setString(3, empleado.departamento());
+            pstmt.setInt(4, empleado.id());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Comprueba si existe un empleado.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID del empleado.
+     * @return true si existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static boolean existe(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_EXISTE)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Elimina un empleado; sus reservas se borran en cascada.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID del empleado.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    public static boolean eliminar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ELIMINAR)) {
+            pstmt.setInt(1, id);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Recorre todos los empleados ordenados por ID.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param consumidor Recibe cada empleado.
+     * @throws SQLException si falla la consulta.
+     */
+    public static void recorrer(Connection conn, Consumer<Empleado> consumidor) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_LISTAR)) {
+            while (rs.next()) {
+                consumidor.accept(leerEmpleado(rs));
+            }
+        }
+    }
+
+    /**
+     * Lee una página de empleados ordenados por ID a partir del último de la página anterior.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param despues ID del último empleado de la página anterior (0 para la primera).
+     * @param tamano  Número máximo de empleados.
+     * @return Empleados con ID mayor que {@code despues}.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<Empleado> listarPagina(Connection conn, int despues, int tamano) throws SQLException {
+        List<Empleado> empleados = new ArrayList<>(tamano);
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_PAGINA)) {
+            pstmt.setInt(1, despues);
+            pstmt.setInt(2, tamano);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    empleados.add(leerEmpleado(rs));
+                }
+            }
+        }
+        return empleados;
+    }
+
+    /**
+     * Lee todos los empleados ordenados por ID.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return Lista de empleados.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<Empleado> listar(Connection conn) throws SQLException {
+        List<Empleado> empleados = new ArrayList<>();
+        recorrer(conn, empleados::add);
+        return empleados;
+    }
+
+    private static Empleado leerEmpleado(ResultSet rs) throws SQLException {
+        return new Empleado(rs.getInt("id"), rs.getString("nombre"), rs.getString("email"),
+                rs.getString("departamento"));
+    }
+}
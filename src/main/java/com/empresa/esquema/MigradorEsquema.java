@@ -0,0 +1,213 @@
+package com.empresa.esquema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica al arrancar las migraciones versionadas del esquema de la base de datos.
+ * <p>
+ * Los scripts están en el classpath ({@code db/migraciones/V<n>__<descripcion>.sql}) y se aplican
+ * en orden de versión. Cada migración aplicada se anota en la tabla {@value #TABLA_VERSION} junto
+ * con la suma SHA-256 del script, de modo que solo se ejecutan las pendientes. MySQL confirma
+ * implícitamente las sentencias DDL, así que una migración que falle a medias no se deshace:
+ * hay que corregirla a mano antes de volver a arrancar.
+ */
+public class MigradorEsquema {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigradorEsquema.class);
+
+    /** Tabla donde se registran las migraciones aplicadas. */
+    public static final String TABLA_VERSION = "version_esquema";
+
+    private static final String RUTA_MIGRACIONES = "db/migraciones/";
+    /** Scripts de migración en orden; añadir aquí cada script nuevo. */
+    static final List<String> SCRIPTS = List.of(
+            "V1__esquema_inicial.sql",
+            "V2__indices_rendimiento.sql",
+            "V3__series_reservas.sql",
+            "V4__version_optimista.sql",
+            "V5__archivo_reservas.sql");
+
+    private static final Pattern NOMBRE_SCRIPT = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    /**
+     * Migración del esquema.
+     *
+     * @param version     Número de versión; determina el orden de aplicación.
+     * @param descripcion Descripción tomada del nombre del script.
+     * @param script      Contenido SQL del script.
+     */
+    public record Migracion(int version, String descripcion, String script) {
+
+        /**
+         * Calcula la suma SHA-256 del script para detectar cambios en migraciones ya aplicadas.
+         *
+         * @return Suma en hexadecimal.
+         */
+        public String checksum() {
+            try {
+                byte[] suma = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(suma);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 no disponible", e);
+            }
+        }
+    }
+
+    private MigradorEsquema() {
+    }
+
+    /**
+     * Aplica las migraciones del classpath que aún no estén registradas.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return Número de migraciones aplicadas.
+     * @throws SQLException si falla alguna migración.
+     */
+    public static int migrar(Connection conn) throws SQLException {
+        return migrar(conn, cargarMigraciones());
+    }
+
+    /**
+     * Aplica las migraciones indicadas que aún no estén registradas.
+     *
+     * @param conn        Conexión a la base de datos.
+     * @param migraciones Migraciones disponibles, en cualquier orden.
+     * @return Número de migraciones aplicadas.
+     * @throws SQLException si falla alguna migración.
+     */
+    static int migrar(Connection conn, List<Migracion> migraciones) throws SQLException {
+        crearTablaVersion(conn);
+        Map<Integer, String> aplicadas = leerAplicadas(conn);
+
+        List<Migracion> ordenadas = new ArrayList<>(migraciones);
+        ordenadas.sort(Comparator.comparingInt(Migracion::version));
+
+        int aplicadasAhora = 0;
+        for (Migracion migracion : ordenadas) {
+            String checksum = aplicadas.get(migracion.version());
+            if (checksum != null) {
+                if (!checksum.equals(migracion.checksum())) {
+                    logger.warn("La migración V{} ({}) cambió después de aplicarse; no se vuelve a ejecutar",
+                            migracion.version(), migracion.descripcion());
+                }
+                continue;
+            }
+            aplicar(conn, migracion);
+            aplicadasAhora++;
+        }
+
+        if (aplicadasAhora > 0) {
+            logger.info("Esquema actualizado: {} migraciones aplicadas", aplicadasAhora);
+        } else {
+            logger.info("Esquema al día ({} migraciones registradas)", aplicadas.size());
+        }
+        return aplicadasAhora;
+    }
+
+    /**
+     * Lee del classpath los scripts de {@link #SCRIPTS}.
+     *
+     * @return Migraciones disponibles.
+     */
+    static List<Migracion> cargarMigraciones() {
+        List<Migracion> migraciones = new ArrayList<>();
+        for (String nombre : SCRIPTS) {
+            Matcher m = NOMBRE_SCRIPT.matcher(nombre);
+            if (!m.matches()) {
+                throw new IllegalStateException("Nombre de migración inválido: " + nombre);
+            }
+            try (InputStream in = MigradorEsquema.class.getClassLoader().getResourceAsStream(RUTA_MIGRACIONES + nombre)) {
+                if (in == null) {
+                    throw new IllegalStateException("No se encuentra la migración " + nombre);
+                }
+                String script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                migraciones.add(new Migracion(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '), script));
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo leer la migración " + nombre, e);
+            }
+        }
+        return migraciones;
+    }
+
+    /**
+     * Divide un script en sentencias terminadas en {@code ;}, descartando las líneas de comentario.
+     *
+     * @param script Contenido SQL.
+     * @return Sentencias sin el punto y coma final.
+     */
+    static List<String> separarSentencias(String script) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        for (String linea : script.split("\\R")) {
+            String recortada = linea.trim();
+            if (recortada.isEmpty() || recortada.startsWith("--")) {
+                continue;
+            }
+            if (!actual.isEmpty()) {
+                actual.append('\n');
+            }
+            actual.append(linea);
+            if (recortada.endsWith(";")) {
+                actual.setLength(actual.lastIndexOf(";"));
+                sentencias.add(actual.toString().trim());
+                actual.setLength(0);
+            }
+        }
+        if (!actual.toString().isBlank()) {
+            sentencias.add(actual.toString().trim());
+        }
+        return sentencias;
+    }
+
+    private static void crearTablaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + TABLA_VERSION + " ("
+                    + "version INT NOT NULL PRIMARY KEY, "
+                    + "descripcion VARCHAR(200) NOT NULL, "
+                    + "checksum CHAR(64) NOT NULL, "
+                    + "aplicada_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private static Map<Integer, String> leerAplicadas(Connection conn) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM " + TABLA_VERSION)) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return aplicadas;
+    }
+
+    private static void aplicar(Connection conn, Migracion migracion) throws SQLException {
+        logger.info("Aplicando migración V{}: {}", migracion.version(), migracion.descripcion());
+        try (Statement stmt = conn.createStatement()) {
+            for (String sentencia : separarSentencias(migracion.script())) {
+                stmt.execute(sentencia);
+            }
+        } catch (SQLException e) {
+            logger.error("Falló la migración V{} ({})", migracion.version(), migracion.descripcion(), e);
+            throw e;
+        }
+
+        String sql = "INSERT INTO " + TABLA_VERSION + " (version, descripcion, checksum) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, migracion.version());
+            pstmt.setString(2, migracion.descripcion());
+            pstmt.setString(3, migracion.checksum());
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.empresa.esquema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comprueba con {@code EXPLAIN} que las consultas frecuentes de la aplicación usan los índices
+ * creados por las migraciones en lugar de recorrer las tablas completas.
+ * <p>
+ * Las consultas son las de {@code Reservas}, {@code ConsultaReservas}, {@code ImportadorReservas}
+ * y {@code CacheSalas}, con valores fijos en lugar de parámetros.
+ */
+public class VerificadorIndices {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificadorIndices.class);
+
+    /**
+     * Consulta a comprobar y el índice que debería elegir el optimizador.
+     *
+     * @param descripcion    Uso de la consulta en la aplicación.
+     * @param sql            Consulta con valores de ejemplo.
+     * @param indiceEsperado Nombre del índice esperado.
+     */
+    public record Consulta(String descripcion, String sql, String indiceEsperado) {
+    }
+
+    /**
+     * Resultado de comprobar una consulta.
+     *
+     * @param consulta    Consulta comprobada.
+     * @param indiceUsado Índice elegido por el optimizador (columna {@code key}), o null si recorre la tabla.
+     */
+    public record Resultado(Consulta consulta, String indiceUsado) {
+
+        /**
+         * Indica si el optimizador eligió el índice esperado.
+         *
+         * @return true si la consulta usa el índice esperado.
+         */
+        public boolean usaIndice() {
+            return consulta.indiceEsperado().equalsIgnoreCase(indiceUsado);
+        }
+    }
+
+    /** Consultas de la aplicación cubiertas por los índices de las migraciones (V2 y V3). */
+    public static final List<Consulta> CONSULTAS = List.of(
+            new Consulta("Conflictos de reserva",
+                    "SELECT COUNT(*) FROM reservas WHERE sala_id = 1 AND fecha = '2025-06-26' "
+                            + "AND hora_inicio < '11:00:00' AND hora_fin > '10:00:00'",
+                    "idx_reservas_sala_fecha_horas"),
+            new Consulta("Conflictos de una serie de reservas",
+                    "SELECT fecha FROM reservas WHERE sala_id = 1 AND fecha BETWEEN '2025-06-26' AND '2025-12-26' "
+                            + "AND hora_inicio < '11:00:00' AND hora_fin > '10:00:00' "
+                            + "AND (serie_id IS NULL OR serie_id <> 0)",
+                    "idx_reservas_sala_fecha_horas"),
+            new Consulta("Ocurrencias de una serie",
+                    "SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin FROM reservas "
+                            + "WHERE serie_id = 1 ORDER BY fecha",
+                    "idx_reservas_serie"),
+            new Consulta("Ocupación por sala y fecha (importación)",
+                    "SELECT id, sala_id, fecha, hora_inicio, hora_fin FROM reservas "
+                            + "WHERE (sala_id, fecha) IN ((1, '2025-06-26'), (2, '2025-06-27'))",
+                    "idx_reservas_sala_fecha_horas"),
+            new Consulta("Listado paginado por fecha",
+                    "SELECT id FROM reservas WHERE fecha >= '2025-06-26' "
+                            + "ORDER BY fecha, hora_inicio, id LIMIT 20",
+                    "idx_reservas_fecha_hora"),
+            new Consulta("Ocupación de un día (búsqueda de huecos)",
+                    "SELECT sala_id, hora_inicio, hora_fin FROM reservas WHERE fecha = '2025-06-26'",
+                    "idx_reservas_fecha_hora"),
+            new Consulta("Reservas de un empleado",
+                    "SELECT id FROM reservas WHERE empleado_id = 1 AND fecha >= '2025-06-26'",
+                    "idx_reservas_empleado_fecha"),
+            new Consulta("Búsqueda de sala por nombre",
+                    "SELECT id, nombre, capacidad, recursos FROM salas WHERE nombre = 'Sala A'",
+                    "uq_salas_nombre"));
+
+    private VerificadorIndices() {
+    }
+
+    /**
+     * Ejecuta {@code EXPLAIN} sobre las consultas de {@link #CONSULTAS}.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return Un resultado por consulta, en el mismo orden.
+     * @throws SQLException si falla algún EXPLAIN.
+     */
+    public static List<Resultado> verificar(Connection conn) throws SQLException {
+        return verificar(conn, CONSULTAS);
+    }
+
+    /**
+     * Ejecuta {@code EXPLAIN} sobre las consultas indicadas.
+     *
+     * @param conn      Conexión a la base de datos.
+     * @param consultas Consultas a comprobar.
+     * @return Un resultado por consulta, en el mismo orden.
+     * @throws SQLException si falla algún EXPLAIN.
+     */
+    public static List<Resultado> verificar(Connection conn, List<Consulta> consultas) throws SQLException {
+        List<Resultado> resultados = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            for (Consulta consulta : consultas) {
+                String indice = null;
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN " + consulta.sql())) {
+                    // Consultas de una sola tabla: basta con la primera fila del plan
+                    if (rs.next()) {
+                        indice = rs.getString("key");
+                    }
+                }
+                Resultado resultado = new Resultado(consulta, indice);
+                if (!resultado.usaIndice()) {
+                    logger.warn("La consulta '{}' no usa el índice {} (usa: {})",
+                            consulta.descripcion(), consulta.indiceEsperado(), indice);
+                }
+                resultados.add(resultado);
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Muestra por consola el resultado de la comprobación de índices.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return true si todas las consultas usan su índice.
+     */
+    public static boolean mostrarVerificacion(Connection conn) {
+        try {
+            List<Resultado> resultados = verificar(conn);
+            System.out.println("\n📋 Uso de índices (EXPLAIN):");
+            for (Resultado r : resultados) {
+                System.out.printf("%s %s -> %s%n", r.usaIndice() ? "✅" : "❌",
+                        r.consulta().descripcion(), r.indiceUsado() == null ? "recorrido completo" : r.indiceUsado());
+            }
+            return resultados.stream().allMatch(Resultado::usaIndice);
+        } catch (SQLException e) {
+            System.out.println("❌ No se pudo comprobar el uso de índices.");
+            logger.error("Error al ejecutar EXPLAIN", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.empresa.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin bloqueos y sin asignaciones al registrar.
+ * <p>
+ * Las latencias se cuentan en cubetas log-lineales: cada potencia de dos de nanosegundos se divide
+ * en {@value #SUBCUBETAS} cubetas iguales, así que un percentil se conoce con un error relativo de
+ * como mucho 1/{@value #SUBCUBETAS} (6 %) en todo el rango, de nanosegundos a minutos, con un array
+ * fijo de {@value #CUBETAS} contadores. Registrar es un incremento atómico de la cubeta, otro del
+ * total y, solo cuando se supera el máximo, un CAS.
+ * <p>
+ * La lectura no detiene a los hilos que registran: el resumen puede mezclar registros de un instante
+ * y del siguiente, lo que no importa para percentiles de miles de llamadas.
+ */
+public final class HistogramaLatencias implements HistogramaLatenciasMBean {
+
+    private static final int BITS_SUBCUBETA = 4;
+    /** Cubetas por potencia de dos. */
+    static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    /** Cubetas en total: valores exactos por debajo de {@link #SUBCUBETAS} y el resto hasta 2^63. */
+    static final int CUBETAS = SUBCUBETAS + (63 - BITS_SUBCUBETA) * SUBCUBETAS;
+
+    /**
+     * Resumen del histograma en microsegundos.
+     *
+     * @param llamadas    Operaciones registradas.
+     * @param errores     Operaciones que fallaron (incluidas en las llamadas).
+     * @param p50Micros   Mediana.
+     * @param p99Micros   Percentil 99.
+     * @param maxMicros   Máximo exacto.
+     * @param mediaMicros Media.
+     */
+    public record Resumen(long llamadas, long errores, long p50Micros, long p99Micros, long maxMicros,
+                          long mediaMicros) {
+
+        /**
+         * @return Fracción de llamadas con error (0 si no hay llamadas).
+         */
+        public double tasaErrores() {
+            return llamadas == 0 ? 0 : (double) errores / llamadas;
+        }
+    }
+
+    private final String nombre;
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maximoNanos = new AtomicLong();
+
+    /**
+     * @param nombre Nombre de la operación medida.
+     */
+    public HistogramaLatencias(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Registra una operación que empezó en {@code inicioNanos} y acaba de terminar.
+     *
+     * @param inicioNanos Valor de {@link System#nanoTime()} al empezar.
+     */
+    public void registrar(long inicioNanos) {
+        anadir(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Registra una operación que empezó en {@code inicioNanos} y acaba de fallar.
+     *
+     * @param inicioNanos Valor de {@link System#nanoTime()} al empezar.
+     */
+    public void registrarError(long inicioNanos) {
+        errores.increment();
+        anadir(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Cuenta como fallida una operación cuya latencia ya se ha registrado o se registrará con
+     * {@link #registrar(long)}, para los métodos que recuperan el error y devuelven un resultado.
+     */
+    public void contarError() {
+        errores.increment();
+    }
+
+    /**
+     * Añade una latencia medida.
+     *
+     * @param nanos Duración en nanosegundos.
+     */
+    public void anadir(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubetas.incrementAndGet(cubeta(valor));
+        llamadas.increment();
+        totalNanos.add(valor);
+        long maximo = maximoNanos.get();
+        while (valor > maximo && !maximoNanos.compareAndSet(maximo, valor)) {
+            maximo = maximoNanos.get();
+        }
+    }
+
+    /**
+     * @return Resumen de las latencias registradas hasta ahora.
+     */
+    public Resumen resumen() {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        long maximo = maximoNanos.get();
+        long n = llamadas.sum();
+        return new Resumen(n, errores.sum(), percentil(copia, total, 0.50, maximo) / 1_000,
+                percentil(copia, total, 0.99, maximo) / 1_000, maximo / 1_000,
+                n == 0 ? 0 : totalNanos.sum() / n / 1_000);
+    }
+
+    /**
+     * @return Nombre de la operación medida.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public long getLlamadas() {
+        return llamadas.sum();
+    }
+
+    @Override
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    @Override
+    public double getTasaErrores() {
+        return resumen().tasaErrores();
+    }
+
+    @Override
+    public long getP50Micros() {
+        return resumen().p50Micros();
+    }
+
+    @Override
+    public long getP99Micros() {
+        return resumen().p99Micros();
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return maximoNanos.get() / 1_000;
+    }
+
+    @Override
+    public long getMediaMicros() {
+        return resumen().mediaMicros();
+    }
+
+    /**
+     * Pone a cero el histograma. Los registros simultáneos al reinicio pueden conservarse o perderse.
+     */
+    @Override
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        llamadas.reset();
+        errores.reset();
+        totalNanos.reset();
+        maximoNanos.set(0);
+    }
+
+    /**
+     * @param nanos Latencia (no negativa).
+     * @return Índice de la cubeta que la contiene.
+     */
+    static int cubeta(long nanos) {
+        if (nanos < SUBCUBETAS) {
+            return (int) nanos;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(nanos);
+        int desplazamiento = exponente - BITS_SUBCUBETA;
+        int sub = (int) (nanos >>> desplazamiento) & (SUBCUBETAS - 1);
+        return SUBCUBETAS + desplazamiento * SUBCUBETAS + sub;
+    }
+
+    /**
+     * @param cubeta Índice de cubeta.
+     * @return Mayor latencia que cae en la cubeta.
+     */
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS) {
+            return cubeta;
+        }
+        int desplazamiento = (cubeta - SUBCUBETAS) / SUBCUBETAS;
+        long sub = (cubeta - SUBCUBETAS) % SUBCUBETAS;
+        long inferior = (SUBCUBETAS + sub) << desplazamiento;
+        return inferior + (1L << desplazamiento) - 1;
+    }
+
+    /**
+     * Devuelve el límite superior de la cubeta donde cae el percentil, sin pasar del máximo observado.
+     */
+    private static long percentil(long[] cubetas, long total, double percentil, long maximo) {
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = (long) Math.ceil(percentil * total);
+        long acumulado = 0;
+        for (int i = 0; i < cubetas.length; i++) {
+            acumulado += cubetas[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo);
+            }
+        }
+        return maximo;
+    }
+}
@@ -0,0 +1,31 @@
+package com.empresa.metricas;
+
+/**
+ * Vista JMX de un {@link HistogramaLatencias} (por ejemplo, desde JConsole o VisualVM).
+ */
+public interface HistogramaLatenciasMBean {
+
+    /** @return Operaciones registradas desde el arranque o el último reinicio. */
+    long getLlamadas();
+
+    /** @return Operaciones que fallaron. */
+    long getErrores();
+
+    /** @return Fracción de operaciones que fallaron. */
+    double getTasaErrores();
+
+    /** @return Mediana de la latencia en microsegundos. */
+    long getP50Micros();
+
+    /** @return Percentil 99 de la latencia en microsegundos. */
+    long getP99Micros();
+
+    /** @return Latencia máxima en microsegundos. */
+    long getMaxMicros();
+
+    /** @return Latencia media en microsegundos. */
+    long getMediaMicros();
+
+    /** Pone a cero el histograma. */
+    void reiniciar();
+}
@@ -0,0 +1,134 @@
+package com.empresa.metricas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Operaciones del almacén cuya latencia se mide, cada una con su {@link HistogramaLatencias}.
+ * <p>
+ * Ser un enumerado permite que el código medido acceda a su histograma sin buscarlo en un mapa:
+ * <pre>
+ * long inicio = System.nanoTime();
+ * ...
+ * OperacionMedida.RESERVAS_CREAR.registrar(inicio);
+ * </pre>
+ */
+public enum OperacionMedida {
+
+    SALAS_INSERTAR("salas.insertar"),
+    SALAS_ACTUALIZAR("salas.actualizar"),
+    SALAS_EXISTE("salas.existe"),
+    SALAS_BUSCAR("salas.buscar"),
+    SALAS_ELIMINAR("salas.eliminar"),
+    SALAS_BUSCAR_POR_NOMBRE("salas.buscarPorNombre"),
+    SALAS_LISTAR("salas.listar"),
+    SALAS_LISTAR_PAGINA("salas.listarPagina"),
+    SALAS_RECARGAR_LISTADO("salas.recargarListado"),
+    SALAS_BUSCAR_POR_RECURSOS("salas.buscarPorRecursos"),
+    EMPLEADOS_INSERTAR("empleados.insertar"),
+    EMPLEADOS_ACTUALIZAR("empleados.actualizar"),
+    EMPLEADOS_EXISTE("empleados.existe"),
+    EMPLEADOS_ELIMINAR("empleados.eliminar"),
+    EMPLEADOS_LISTAR("empleados.listar"),
+    EMPLEADOS_LISTAR_PAGINA("empleados.listarPagina"),
+    EMPLEADOS_RECARGAR_LISTADO("empleados.recargarListado"),
+    EMPLEADOS_IMPORTAR("empleados.importar"),
+    RESERVAS_CREAR("reservas.crear"),
+    RESERVAS_ACTUALIZAR("reservas.actualizar"),
+    RESERVAS_CONFLICTO("reservas.existeConflicto"),
+    RESERVAS_EXISTE("reservas.existe"),
+    RESERVAS_BUSCAR("reservas.buscar"),
+    RESERVAS_ELIMINAR("reservas.eliminar"),
+    RESERVAS_LISTAR("reservas.listar"),
+    RESERVAS_LISTAR_PAGINA("reservas.listarPagina"),
+    RESERVAS_RECORRER("reservas.recorrer"),
+    RESERVAS_BUSCAR_HUECOS("reservas.buscarHuecos"),
+    RESERVAS_INFORME_OCUPACION("reservas.informeOcupacion"),
+    RESERVAS_CREAR_SERIE("reservas.crearSerie"),
+    RESERVAS_ACTUALIZAR_SERIE("reservas.actualizarSerie"),
+    RESERVAS_CANCELAR_SERIE("reservas.cancelarSerie"),
+    RESERVAS_BUSCAR_SERIE("reservas.buscarSerie"),
+    RESERVAS_LISTAR_SERIES("reservas.listarSeries"),
+    RESERVAS_IMPORTAR("reservas.importar"),
+    RESERVAS_ARCHIVAR("reservas.archivar");
+
+    /** Dominio de los MBeans: {@code com.empresa:type=Latencias,name=reservas.crear}. */
+    public static final String DOMINIO_JMX = "com.empresa";
+
+    private static final Logger logger = LoggerFactory.getLogger(OperacionMedida.class);
+
+    private final HistogramaLatencias histograma;
+
+    OperacionMedida(String nombre) {
+        this.histograma = new HistogramaLatencias(nombre);
+    }
+
+    /**
+     * @return Nombre de la operación, como "reservas.crear".
+     */
+    public String nombre() {
+        return histograma.getNombre();
+    }
+
+    /**
+     * @return Histograma de la operación.
+     */
+    public HistogramaLatencias histograma() {
+        return histograma;
+    }
+
+    /**
+     * @param inicioNanos Valor de {@link System#nanoTime()} al empezar la operación.
+     */
+    public void registrar(long inicioNanos) {
+        histograma.registrar(inicioNanos);
+    }
+
+    /**
+     * @param inicioNanos Valor de {@link System#nanoTime()} al empezar la operación que ha fallado.
+     */
+    public void registrarError(long inicioNanos) {
+        histograma.registrarError(inicioNanos);
+    }
+
+    /**
+     * Pone a cero los histogramas de todas las operaciones.
+     */
+    public static void reiniciarTodas() {
+        for (OperacionMedida operacion : values()) {
+            operacion.histograma.reiniciar();
+        }
+    }
+
+    /**
+     * Publica el histograma de cada operación como MBean en el servidor JMX de la plataforma.
+     * Se puede llamar más de una vez: las operaciones ya publicadas se dejan como están.
+     */
+    public static void registrarEnJmx() {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        for (OperacionMedida operacion : values()) {
+            try {
+                servidor.registerMBean(operacion.histograma, nombreJmx(operacion));
+            } catch (InstanceAlreadyExistsException e) {
+                // Ya publicado
+            } catch (JMException e) {
+                logger.warn("No se pudo publicar en JMX la latencia de {}", operacion.nombre(), e);
+            }
+        }
+    }
+
+    /**
+     * @param operacion Operación medida.
+     * @return Nombre JMX de su histograma.
+     * @throws JMException si el nombre no es válido.
+     */
+    public static ObjectName nombreJmx(OperacionMedida operacion) throws JMException {
+        return new ObjectName(DOMINIO_JMX + ":type=Latencias,name=" + operacion.nombre());
+    }
+}
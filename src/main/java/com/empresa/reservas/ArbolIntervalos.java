@@ -0,0 +1,247 @@
+package com.empresa.reservas;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Árbol de intervalos (AVL aumentado) con las reservas de una sala en una fecha concreta.
+ * Cada nodo guarda el intervalo [inicio, fin) en segundos del día y el mayor fin de su subárbol,
+ * lo que permite responder consultas de solapamiento en O(log n).
+ * No es seguro para hilos: la sincronización la realiza quien lo usa ({@link IndiceDisponibilidad},
+ * el motor embebido de {@code com.empresa.almacen}).
+ */
+public class ArbolIntervalos {
+
+    /** Valor devuelto por {@link #idSolapado} cuando no hay solapamiento. */
+    static final int NINGUNO = Integer.MIN_VALUE;
+
+    private static final class Nodo {
+        final int inicio;
+        final int fin;
+        final int id;
+        int maxFin;
+        int altura = 1;
+        Nodo izq;
+        Nodo der;
+
+        Nodo(int inicio, int fin, int id) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.id = id;
+            this.maxFin = fin;
+        }
+    }
+
+    private Nodo raiz;
+    private int tamano;
+
+    /**
+     * Inserta el intervalo de una reserva.
+     *
+     * @param id     ID de la reserva.
+     * @param inicio Inicio en segundos del día.
+     * @param fin    Fin en segundos del día.
+     */
+    public void insertar(int id, int inicio, int fin) {
+        raiz = insertar(raiz, new Nodo(inicio, fin, id));
+        tamano++;
+    }
+
+    /**
+     * Elimina el intervalo de una reserva.
+     *
+     * @param id     ID de la reserva.
+     * @param inicio Inicio en segundos del día con el que se insertó.
+     * @return true si se encontró y eliminó el intervalo.
+     */
+    public boolean eliminar(int id, int inicio) {
+        int antes = tamano;
+        raiz = eliminar(raiz, inicio, id);
+        return tamano < antes;
+    }
+
+    /**
+     * Indica si algún intervalo del árbol se solapa con [inicio, fin).
+     *
+     * @param inicio    Inicio en segundos del día.
+     * @param fin       Fin en segundos del día.
+     * @param excluirId ID de reserva a ignorar, puede ser null.
+     * @return true si existe solapamiento.
+     */
+    public boolean haySolapamiento(int inicio, int fin, Integer excluirId) {
+        return idSolapado(inicio, fin, excluirId) != NINGUNO;
+    }
+
+    /**
+     * Busca un intervalo del árbol que se solape con [inicio, fin).
+     *
+     * @param inicio    Inicio en segundos del día.
+     * @param fin       Fin en segundos del día.
+     * @param excluirId ID de reserva a ignorar, puede ser null.
+     * @return ID del primer intervalo solapado, o {@link #NINGUNO}.
+     */
+    int idSolapado(int inicio, int fin, Integer excluirId) {
+        return buscar(raiz, inicio, fin, excluirId != null, excluirId == null ? 0 : excluirId);
+    }
+
+    /**
+     * Indica si algún intervalo del árbol se solapa con [inicio, fin), sin contar las reservas
+     * que cumplan {@code ignorar} (por ejemplo, las de la serie que se está modificando).
+     *
+     * @param inicio  Inicio en segundos del día.
+     * @param fin     Fin en segundos del día.
+     * @param ignorar Recibe el ID de cada reserva solapada y devuelve true si no cuenta.
+     * @return true si existe solapamiento con alguna reserva que no se ignora.
+     */
+    public boolean haySolapamientoSalvo(int inicio, int fin, IntPredicate ignorar) {
+        return buscar(raiz, inicio, fin, ignorar);
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    public boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    private static int buscar(Nodo nodo, int inicio, int fin, boolean excluir, int excluirId) {
+        // Ningún intervalo del subárbol termina después del inicio buscado
+        if (nodo == null || nodo.maxFin <= inicio) {
+            return NINGUNO;
+        }
+        int encontrado = buscar(nodo.izq, inicio, fin, excluir, excluirId);
+        if (encontrado != NINGUNO) {
+            return encontrado;
+        }
+        // Todo lo que hay a la derecha empieza en o después de nodo.inicio
+        if (nodo.inicio >= fin) {
+            return NINGUNO;
+        }
+        if (nodo.fin > inicio && !(excluir && nodo.id == excluirId)) {
+            return nodo.id;
+        }
+        return buscar(nodo.der, inicio, fin, excluir, excluirId);
+    }
+
+    private static boolean buscar(Nodo nodo, int inicio, int fin, IntPredicate ignorar) {
+        if (nodo == null || nodo.maxFin <= inicio) {
+            return false;
+        }
+        if (buscar(nodo.izq, inicio, fin, ignorar)) {
+            return true;
+        }
+        if (nodo.inicio >= fin) {
+            return false;
+        }
+        if (nodo.fin > inicio && !ignorar.test(nodo.id)) {
+            return true;
+        }
+        return buscar(nodo.der, inicio, fin, ignorar);
+    }
+
+    private static int comparar(int inicioA, int idA, int inicioB, int idB) {
+        int c = Integer.compare(inicioA, inicioB);
+        return c != 0 ? c : Integer.compare(idA, idB);
+    }
+
+    private static Nodo insertar(Nodo nodo, Nodo nuevo) {
+        if (nodo == null) {
+            return nuevo;
+        }
+        if (comparar(nuevo.inicio, nuevo.id, nodo.inicio, nodo.id) < 0) {
+            nodo.izq = insertar(nodo.izq, nuevo);
+        } else {
+            nodo.der = insertar(nodo.der, nuevo);
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo eliminar(Nodo nodo, int inicio, int id) {
+        if (nodo == null) {
+            return null;
+        }
+        int c = comparar(inicio, id, nodo.inicio, nodo.id);
+        if (c < 0) {
+            nodo.izq = eliminar(nodo.izq, inicio, id);
+        } else if (c > 0) {
+            nodo.der = eliminar(nodo.der, inicio, id);
+        } else {
+            tamano--;
+            if (nodo.izq == null) {
+                return nodo.der;
+            }
+            if (nodo.der == null) {
+                return nodo.izq;
+            }
+            // Sustituir por el mínimo del subárbol derecho
+            Nodo sucesor = nodo.der;
+            while (sucesor.izq != null) {
+                sucesor = sucesor.izq;
+            }
+            sucesor.der = quitarMinimo(nodo.der);
+            sucesor.izq = nodo.izq;
+            return balancear(sucesor);
+        }
+        return balancear(nodo);
+    }
+
+    private static Nodo quitarMinimo(Nodo nodo) {
+        if (nodo.izq == null) {
+            return nodo.der;
+        }
+        nodo.izq = quitarMinimo(nodo.izq);
+        return balancear(nodo);
+    }
+
+    private static int altura(Nodo nodo) {
+        return nodo == null ? 0 : nodo.altura;
+    }
+
+    private static void recalcular(Nodo nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izq), altura(nodo.der));
+        int max = nodo.fin;
+        if (nodo.izq != null) {
+            max = Math.max(max, nodo.izq.maxFin);
+        }
+        if (nodo.der != null) {
+            max = Math.max(max, nodo.der.maxFin);
+        }
+        nodo.maxFin = max;
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.izq;
+        nodo.izq = nuevaRaiz.der;
+        nuevaRaiz.der = nodo;
+        recalcular(nodo);
+        recalcular(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.der;
+        nodo.der = nuevaRaiz.izq;
+        nuevaRaiz.izq = nodo;
+        recalcular(nodo);
+        recalcular(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static Nodo balancear(Nodo nodo) {
+        recalcular(nodo);
+        int factor = altura(nodo.izq) - altura(nodo.der);
+        if (factor > 1) {
+            if (altura(nodo.izq.izq) < altura(nodo.izq.der)) {
+                nodo.izq = rotarIzquierda(nodo.izq);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.der.der) < altura(nodo.der.izq)) {
+                nodo.der = rotarDerecha(nodo.der);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+}
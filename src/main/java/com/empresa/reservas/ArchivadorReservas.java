@@ -0,0 +1,232 @@
+package com.empresa.reservas;
+
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traslada las reservas pasadas de {@code reservas} a {@code reservas_archivo} por bloques, para que
+ * la tabla que usan las altas, los conflictos y los listados no crezca con el historial.
+ * <p>
+ * Cada bloque es una transacción corta: se bloquean hasta {@code tamanoBloque} reservas anteriores
+ * a la fecha de corte en el orden del índice {@code (fecha, hora_inicio, id)}, se copian con un
+ * {@code INSERT ... SELECT} y se borran, y se confirma antes de pasar al siguiente. Así los
+ * bloqueos de filas duran lo que tarda un bloque y no toda la ejecución. Las ocurrencias de una
+ * serie que todavía tiene fechas a partir del corte no se archivan, porque modificar la serie
+ * regenera todas sus ocurrencias en {@code reservas}.
+ * <p>
+ * Las reservas archivadas solo se consultan si se pide: {@link ConsultaReservas.Filtro#archivo()}
+ * y {@link InformeOcupacion.Periodo#archivo()} leen {@link #RESERVAS_CON_ARCHIVO} en lugar de
+ * {@code reservas}.
+ */
+public class ArchivadorReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivadorReservas.class);
+
+    /** Reservas por transacción. */
+    public static final int TAMANO_BLOQUE = 1000;
+    /** Espera entre bloques para dejar paso al resto de transacciones. */
+    public static final Duration PAUSA = Duration.ofMillis(20);
+
+    /**
+     * Reservas vigentes y archivadas con las columnas que leen los listados y el informe, para
+     * usar en lugar de la tabla {@code reservas}.
+     */
+    static final String RESERVAS_CON_ARCHIVO = """
+            (SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin FROM reservas
+             UNION ALL
+             SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin FROM reservas_archivo)""";
+
+    /** Reservas archivables: anteriores al corte y fuera de series con fechas a partir del corte. */
+    private static final String CONDICION_ARCHIVABLE = """
+            r.fecha < ? AND (r.serie_id IS NULL OR NOT EXISTS (
+                SELECT 1 FROM reservas o WHERE o.serie_id = r.serie_id AND o.fecha >= ?))""";
+
+    static final String SQL_PRIMER_BLOQUE = "SELECT r.id, r.fecha, r.hora_inicio FROM reservas r WHERE "
+            + CONDICION_ARCHIVABLE + " ORDER BY r.fecha, r.hora_inicio, r.id LIMIT ? FOR UPDATE";
+
+    /** Continúa tras la última reserva vista, como la paginación por clave de {@link ConsultaReservas}. */
+    static final String SQL_SIGUIENTE_BLOQUE = "SELECT r.id, r.fecha, r.hora_inicio FROM reservas r WHERE "
+            + CONDICION_ARCHIVABLE
+            + " AND (r.fecha > ? OR (r.fecha = ? AND (r.hora_inicio > ? OR (r.hora_inicio = ? AND r.id > ?))))"
+            + " ORDER BY r.fecha, r.hora_inicio, r.id LIMIT ? FOR UPDATE";
+
+    /**
+     * Resultado de una ejecución.
+     *
+     * @param archivadas Reservas trasladadas al archivo.
+     * @param bloques    Transacciones confirmadas.
+     * @param millis     Duración total en milisegundos.
+     */
+    public record ResultadoArchivado(int archivadas, int bloques, long millis) {
+    }
+
+    /**
+     * Traslada al archivo todas las reservas anteriores a una fecha.
+     *
+     * @param conn         Conexión a la base de datos; se deja en el modo de autocommit que tenía.
+     * @param antesDe      Fecha de corte: se archivan las reservas de días anteriores.
+     * @param tamanoBloque Reservas por transacción.
+     * @param pausa        Espera entre bloques para dejar paso al resto de transacciones (puede ser cero).
+     * @return Resumen de la ejecución.
+     * @throws SQLException si falla un bloque; los bloques anteriores quedan archivados.
+     */
+    public static ResultadoArchivado archivar(Connection conn, LocalDate antesDe, int tamanoBloque, Duration pausa)
+            throws SQLException {
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser mayor que 0");
+        }
+        long inicio = System.currentTimeMillis();
+        String marcadores = String.join(", ", Collections.nCopies(tamanoBloque, "?"));
+        // Con un número fijo de marcadores la sentencia es siempre la misma y se reutiliza preparada
+        String sqlCopiar = "INSERT INTO reservas_archivo (id, sala_id, empleado_id, fecha, hora_inicio, hora_fin, "
+                + "serie_id, version) SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin, serie_id, version "
+                + "FROM reservas WHERE fecha < ? AND id IN (" + marcadores + ")";
+        String sqlBorrar = "DELETE FROM reservas WHERE fecha < ? AND id IN (" + marcadores + ")";
+
+        int archivadas = 0;
+        int bloques = 0;
+        ConsultaReservas.Cursor cursor = null;
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            while (true) {
+                List<ConsultaReservas.Cursor> bloque = leerBloque(conn, antesDe, cursor, tamanoBloque);
+                if (bloque.isEmpty()) {
+                    conn.commit();
+                    break;
+                }
+                int copiadas;
+                int borradas;
+                try {
+                    copiadas = ejecutar(conn, sqlCopiar, antesDe, bloque, tamanoBloque);
+                    borradas = ejecutar(conn, sqlBorrar, antesDe, bloque, tamanoBloque);
+                    if (copiadas != borradas) {
+                        throw new SQLException("Se copiaron " + copiadas + " reservas al archivo y se borraron "
+                                + borradas + ": han cambiado durante el archivado");
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                // Las reservas pasadas ya no participan en los conflictos: se liberan del índice
+                IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+                bloque.forEach(r -> indice.eliminar(r.id()));
+                archivadas += borradas;
+                bloques++;
+                cursor = bloque.get(bloque.size() - 1);
+                // Al cerrar el planificador se interrumpe el hilo: se para entre bloques
+                if (bloque.size() < tamanoBloque || !esperar(pausa)) {
+                    break;
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        ResultadoArchivado resultado = new ResultadoArchivado(archivadas, bloques, System.currentTimeMillis() - inicio);
+        logger.info("Archivadas {} reservas anteriores al {} en {} bloques ({} ms)", resultado.archivadas(), antesDe,
+                resultado.bloques(), resultado.millis());
+        return resultado;
+    }
+
+    /**
+     * Archiva periódicamente, en un hilo propio, las reservas con más de {@code dias} días de
+     * antigüedad. La primera ejecución es al cabo de un intervalo, para no competir con el arranque.
+     *
+     * @param almacen   Almacén del que se toma una sesión en cada ejecución.
+     * @param dias      Días de antigüedad a partir de los que se archiva una reserva.
+     * @param intervalo Tiempo entre el final de una ejecución y el inicio de la siguiente.
+     * @return Planificador, que hay que cerrar antes que el almacén.
+     */
+    public static ScheduledExecutorService programar(Almacen almacen, int dias, Duration intervalo) {
+        if (dias <= 0) {
+            throw new IllegalArgumentException("Los días de antigüedad deben ser mayores que 0");
+        }
+        ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "archivador-reservas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1, intervalo.toMillis());
+        planificador.scheduleWithFixedDelay(() -> {
+            try (Sesion sesion = almacen.abrirSesion()) {
+                sesion.reservas().archivar(LocalDate.now().minusDays(dias));
+            } catch (SQLFeatureNotSupportedException e) {
+                logger.info("Archivado programado desactivado: {}", e.getMessage());
+                planificador.shutdown();
+            } catch (SQLException | RuntimeException e) {
+                // Se reintenta en la siguiente ejecución; lo ya archivado queda archivado
+                logger.error("Error en el archivado programado de reservas", e);
+            }
+        }, periodo, periodo, TimeUnit.MILLISECONDS);
+        logger.info("Archivado de reservas con más de {} días cada {}", dias, intervalo);
+        return planificador;
+    }
+
+    private static List<ConsultaReservas.Cursor> leerBloque(Connection conn, LocalDate antesDe,
+                                                           ConsultaReservas.Cursor despues, int tamano)
+            throws SQLException {
+        List<ConsultaReservas.Cursor> bloque = new ArrayList<>(Math.min(tamano, TAMANO_BLOQUE));
+        String sql = despues == null ? SQL_PRIMER_BLOQUE : SQL_SIGUIENTE_BLOQUE;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            pstmt.setDate(i++, Date.valueOf(antesDe));
+            pstmt.setDate(i++, Date.valueOf(antesDe));
+            if (despues != null) {
+                pstmt.setDate(i++, Date.valueOf(despues.fecha()));
+                pstmt.setDate(i++, Date.valueOf(despues.fecha()));
+                pstmt.setTime(i++, Time.valueOf(despues.horaInicio()));
+                pstmt.setTime(i++, Time.valueOf(despues.horaInicio()));
+                pstmt.setInt(i++, despues.id());
+            }
+            pstmt.setInt(i, tamano);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bloque.add(new ConsultaReservas.Cursor(rs.getDate(2).toLocalDate(), rs.getTime(3).toLocalTime(),
+                            rs.getInt(1)));
+                }
+            }
+        }
+        return bloque;
+    }
+
+    private static int ejecutar(Connection conn, String sql, LocalDate antesDe, List<ConsultaReservas.Cursor> bloque,
+                                int tamanoBloque) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            // Las filas del bloque están bloqueadas desde que se leyeron; la fecha se repite por seguridad
+            pstmt.setDate(1, Date.valueOf(antesDe));
+            for (int i = 0; i < tamanoBloque; i++) {
+                // Los marcadores sobrantes del último bloque llevan un ID que no existe
+                pstmt.setInt(i + 2, i < bloque.size() ? bloque.get(i).id() : 0);
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @return false si el hilo se ha interrumpido.
+     */
+    private static boolean esperar(Duration pausa) {
+        if (!pausa.isZero() && !pausa.isNegative()) {
+            try {
+                Thread.sleep(pausa);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+}
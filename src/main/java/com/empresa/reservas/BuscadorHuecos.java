@@ -0,0 +1,180 @@
+package com.empresa.reservas;
+
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.Sala;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Búsqueda de huecos libres en todas las salas para una fecha.
+ * <p>
+ * La ocupación de cada sala en el día se guarda en un mapa de bits con un bit por tramo de
+ * {@value #MINUTOS_POR_TRAMO} minutos (288 bits por sala), construido con las reservas de la fecha
+ * leídas de una sola vez. Un tramo está ocupado si alguna reserva lo cubre aunque sea en parte, así
+ * que los huecos propuestos nunca entran en conflicto. Las salas candidatas suelen llegar ya
+ * filtradas por el {@link com.empresa.salas.IndiceRecursos}. Para cada sala que cumple capacidad y recursos
+ * se salta de reserva en reserva con {@link BitSet#nextSetBit}/{@link BitSet#nextClearBit}: el coste
+ * depende del número de reservas del día, no del de horarios candidatos.
+ */
+public final class BuscadorHuecos {
+
+    /** Resolución del mapa de ocupación. */
+    public static final int MINUTOS_POR_TRAMO = 5;
+    static final int TRAMOS_POR_DIA = 24 * 60 / MINUTOS_POR_TRAMO;
+    private static final int SEGUNDOS_POR_TRAMO = MINUTOS_POR_TRAMO * 60;
+
+    /** Orden de los resultados: primero el hueco más temprano y, a igualdad, la sala más ajustada. */
+    private static final Comparator<Hueco> ORDEN = Comparator.comparing(Hueco::inicio)
+            .thenComparingInt(h -> h.sala().capacidad())
+            .thenComparingInt(h -> h.sala().id());
+
+    /**
+     * Condiciones de la búsqueda.
+     *
+     * @param fecha           Fecha del hueco.
+     * @param duracionMinutos Duración de la reunión.
+     * @param capacidadMinima Capacidad mínima de la sala.
+     * @param recursos        Máscara de recursos del {@link CatalogoRecursos} que debe tener la sala (0 = cualquiera).
+     * @param desde           Hora a partir de la cual puede empezar.
+     * @param hasta           Hora a la que debe haber terminado.
+     * @param maximo          Número máximo de huecos a devolver (uno por sala).
+     */
+    public record Criterios(LocalDate fecha, int duracionMinutos, int capacidadMinima, long recursos,
+                            LocalTime desde, LocalTime hasta, int maximo) {
+
+        public Criterios {
+            Objects.requireNonNull(fecha, "fecha");
+            if (duracionMinutos <= 0) {
+                throw new IllegalArgumentException("La duración debe ser mayor que 0");
+            }
+            if (!desde.isBefore(hasta)) {
+                throw new IllegalArgumentException("La hora desde debe ser anterior a la hora hasta");
+            }
+            if (maximo <= 0) {
+                throw new IllegalArgumentException("El máximo de resultados debe ser mayor que 0");
+            }
+        }
+    }
+
+    /**
+     * Hueco libre en una sala.
+     *
+     * @param sala   Sala libre.
+     * @param fecha  Fecha.
+     * @param inicio Hora de inicio propuesta.
+     * @param fin    Hora de fin ({@code inicio} más la duración pedida).
+     */
+    public record Hueco(Sala sala, LocalDate fecha, LocalTime inicio, LocalTime fin) {
+    }
+
+    /**
+     * Ocupación de las salas en un día, con un mapa de bits por sala que tiene alguna reserva.
+     * No es segura para hilos: se construye y consulta dentro de una misma búsqueda.
+     */
+    public static final class Ocupacion {
+
+        private final Map<Integer, BitSet> porSala = new HashMap<>();
+
+        /**
+         * Marca como ocupados los tramos que cubre una reserva.
+         *
+         * @param salaId ID de la sala.
+         * @param inicio Hora de inicio de la reserva.
+         * @param fin    Hora de fin de la reserva.
+         */
+        public void marcar(int salaId, LocalTime inicio, LocalTime fin) {
+            int primero = inicio.toSecondOfDay() / SEGUNDOS_POR_TRAMO;
+            int ultimo = Math.min(TRAMOS_POR_DIA, (fin.toSecondOfDay() + SEGUNDOS_POR_TRAMO - 1) / SEGUNDOS_POR_TRAMO);
+            if (primero < ultimo) {
+                porSala.computeIfAbsent(salaId, id -> new BitSet(TRAMOS_POR_DIA)).set(primero, ultimo);
+            }
+        }
+
+        /**
+         * Marca como ocupados los tramos {@code [desde, hasta)} de una sala.
+         */
+        void marcarTramos(int salaId, int desde, int hasta) {
+            porSala.computeIfAbsent(salaId, id -> new BitSet(TRAMOS_POR_DIA))
+                    .set(desde, Math.min(hasta, TRAMOS_POR_DIA));
+        }
+
+        /**
+         * @return Número de salas con alguna reserva.
+         */
+        public int salasOcupadas() {
+            return porSala.size();
+        }
+
+        BitSet de(int salaId) {
+            return porSala.get(salaId);
+        }
+    }
+
+    private BuscadorHuecos() {
+    }
+
+    /**
+     * Busca el primer hueco de cada sala que cumple los criterios.
+     *
+     * @param salas     Salas candidatas.
+     * @param ocupacion Ocupación de las salas en la fecha de los criterios.
+     * @param criterios Condiciones de la búsqueda.
+     * @return Como mucho {@code criterios.maximo()} huecos, uno por sala, del más temprano al más tardío.
+     */
+    public static List<Hueco> buscar(Collection<Sala> salas, Ocupacion ocupacion, Criterios criterios) {
+        int tramos = (criterios.duracionMinutos() + MINUTOS_POR_TRAMO - 1) / MINUTOS_POR_TRAMO;
+        int desde = (criterios.desde().toSecondOfDay() + SEGUNDOS_POR_TRAMO - 1) / SEGUNDOS_POR_TRAMO;
+        int hasta = criterios.hasta().equals(LocalTime.MAX)
+                ? TRAMOS_POR_DIA
+                : criterios.hasta().toSecondOfDay() / SEGUNDOS_POR_TRAMO;
+        BitSet libre = new BitSet(0);
+
+        PriorityQueue<Hueco> mejores = new PriorityQueue<>(ORDEN.reversed());
+        for (Sala sala : salas) {
+            if (sala.capacidad() < criterios.capacidadMinima() || !sala.tieneRecursos(criterios.recursos())) {
+                continue;
+            }
+            BitSet ocupado = ocupacion.de(sala.id());
+            int tramo = primerTramoLibre(ocupado == null ? libre : ocupado, desde, hasta, tramos);
+            if (tramo < 0) {
+                continue;
+            }
+            LocalTime inicio = LocalTime.ofSecondOfDay((long) tramo * SEGUNDOS_POR_TRAMO);
+            LocalTime fin = inicio.plusMinutes(criterios.duracionMinutos());
+            if (fin.equals(LocalTime.MIDNIGHT)) {
+                fin = LocalTime.MAX;
+            }
+            mejores.add(new Hueco(sala, criterios.fecha(), inicio, fin));
+            if (mejores.size() > criterios.maximo()) {
+                mejores.poll();
+            }
+        }
+
+        List<Hueco> resultado = new ArrayList<>(mejores);
+        resultado.sort(ORDEN);
+        return resultado;
+    }
+
+    /**
+     * Busca el primer tramo a partir del cual hay {@code longitud} tramos libres seguidos.
+     *
+     * @param ocupado  Tramos ocupados.
+     * @param desde    Primer tramo en el que puede empezar.
+     * @param hasta    Tramo (exclusivo) en el que debe haber terminado.
+     * @param longitud Número de tramos necesarios.
+     * @return Tramo de inicio, o -1 si no hay hueco.
+     */
+    static int primerTramoLibre(BitSet ocupado, int desde, int hasta, int longitud) {
+        int inicio = ocupado.nextClearBit(desde);
+        while (inicio + longitud <= hasta) {
+            int siguienteOcupado = ocupado.nextSetBit(inicio);
+            if (siguienteOcupado < 0 || siguienteOcupado >= inicio + longitud) {
+                return inicio;
+            }
+            inicio = ocupado.nextClearBit(siguienteOcupado);
+        }
+        return -1;
+    }
+}
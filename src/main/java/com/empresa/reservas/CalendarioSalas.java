@@ -0,0 +1,1026 @@
+package com.empresa.reservas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Calendario de ocupación de todas las salas, guardado fuera del heap en un fichero proyectado en memoria.
+ * <p>
+ * Cada par (sala, día) es un mapa de bits de ancho fijo con un bit por tramo de {@code minutos}
+ * minutos: 288 bits (5 palabras de 64) con tramos de 5 minutos, 96 (2 palabras) con tramos de 15. Un
+ * tramo está ocupado si alguna reserva lo cubre aunque sea en parte, así que los bits son un
+ * superconjunto de la ocupación real: si todos los tramos de un horario están libres no hay conflicto,
+ * y basta con un AND por palabra para saberlo. Si alguno está ocupado puede ser una reserva que solo lo
+ * roza, y la respuesta exacta la dan el {@link IndiceDisponibilidad} o SQL.
+ * <p>
+ * Los días ocupan {@code dias} huecos circulares (la fecha con día de época {@code d} va en el hueco
+ * {@code d mod dias}) marcados con la fecha que contienen. Un día se construye la primera vez que se
+ * consulta, con una sola lectura de {@code reservas}, y a partir de ahí lo mantienen las altas, cambios
+ * y bajas de {@link ServicioReservas}.
+ * <p>
+ * Junto a cada día se guarda su huella en la base de datos: el número de reservas y el XOR de un
+ * resumen MD5 de 64 bits de cada fila (ID, sala, versión y horario). Al arrancar se proyecta el
+ * fichero y los días con huella no se usan hasta comprobarla con una consulta agregada la primera vez
+ * que se piden: si coincide se aprovechan tal cual y, si no, se vuelven a construir. Los días que
+ * cambiaron después de construirse no tienen huella y se descartan, igual que todos si la aplicación
+ * no se cerró bien. El fichero se abre con un {@link FileLock} exclusivo, así que solo lo usa un
+ * proceso a la vez; los demás trabajan sin calendario.
+ * <p>
+ * Las consultas no bloquean (lectura optimista de un {@link StampedLock}); las construcciones y las
+ * escrituras se serializan con el cerrojo de escritura, que se mantiene durante la lectura de la base
+ * de datos para que una reserva escrita a la vez no se pierda. Como el {@link IndiceDisponibilidad},
+ * supone que las reservas solo cambian a través de esta aplicación.
+ */
+public final class CalendarioSalas {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarioSalas.class);
+    private static final CalendarioSalas INSTANCIA = new CalendarioSalas(Clock.systemDefaultZone());
+
+    /** Minutos de cada tramo: 5, 10, 15, 20, 30 o 60. */
+    public static final int MINUTOS_POR_TRAMO = Integer.getInteger("calendario.minutos", 5);
+    /** Días a partir de hoy que se pueden construir. */
+    public static final int DIAS = Integer.getInteger("calendario.dias", 366);
+    /** Salas distintas que caben en el calendario. */
+    public static final int MAXIMO_SALAS = Integer.getInteger("calendario.maximoSalas", 2048);
+
+    static final String SQL_DIA = "SELECT sala_id, hora_inicio, hora_fin, id, version FROM reservas WHERE fecha = ?";
+    /** Misma huella que calcula {@link #huellaFila} para cada fila, agregada por MySQL. */
+    static final String SQL_HUELLA = "SELECT COUNT(*), BIT_XOR(CAST(CONV(LEFT(MD5(CONCAT_WS(',', "
+            + "id, sala_id, version, hora_inicio, hora_fin)), 16), 16, 10) AS UNSIGNED)) "
+            + "FROM reservas WHERE fecha = ?";
+    static final String SQL_SALA = "SELECT fecha, hora_inicio, hora_fin FROM reservas "
+            + "WHERE sala_id = ? AND fecha BETWEEN ? AND ?";
+    static final String SQL_EMPLEADO = "SELECT DISTINCT sala_id, fecha FROM reservas "
+            + "WHERE empleado_id = ? AND fecha >= ?";
+
+    private static final int MAGICO = 0x43414c33; // "CAL3"
+    private static final int TAMANO_CABECERA = 64;
+    private static final int POSICION_LIMPIO = 16;
+    /** Bytes de cada hueco de día: la fecha y la huella (número de reservas y XOR de sus resúmenes). */
+    private static final int BYTES_POR_DIA = 24;
+    private static final long SIN_DIA = Long.MIN_VALUE;
+    private static final long SIN_HUELLA = -1;
+    /** ID de sala a partir del cual las salas no se guardan en el calendario, para acotar la tabla de filas. */
+    private static final int LIMITE_ID = 1 << 22;
+
+    private static final int LIBRE = 0;
+    private static final int OCUPADO = 1;
+    private static final int SIN_CONSTRUIR = 2;
+
+    /**
+     * Una sala en una fecha.
+     *
+     * @param salaId ID de la sala.
+     * @param fecha  Fecha.
+     */
+    public record DiaSala(int salaId, LocalDate fecha) {
+    }
+
+    /**
+     * Uso del calendario desde que se abrió.
+     *
+     * @param consultas       Comprobaciones de horario.
+     * @param libres          Comprobaciones resueltas como libres sin consultar nada más.
+     * @param construcciones  Días leídos de la base de datos.
+     * @param verificaciones  Días guardados en el fichero que se comprobaron con su huella y se aprovecharon.
+     * @param diasConstruidos Días disponibles en el fichero.
+     * @param salas           Salas con alguna reserva en el fichero.
+     * @param bytes           Tamaño del fichero.
+     */
+    public record Estadisticas(long consultas, long libres, long construcciones, long verificaciones,
+                               int diasConstruidos, int salas, long bytes) {
+
+        /**
+         * @return Proporción de comprobaciones resueltas por el calendario, entre 0 y 1.
+         */
+        public double tasaLibres() {
+            return consultas == 0 ? 0 : (double) libres / consultas;
+        }
+    }
+
+    /**
+     * Fichero proyectado y su geometría, fija mientras está abierto.
+     * <p>
+     * Formato: cabecera de {@value #TAMANO_CABECERA} bytes (mágico, minutos, días, salas, cierre
+     * limpio), la fecha y la huella de cada hueco de día, el ID de la sala de cada fila y, por último,
+     * los mapas de bits: día a día, una fila de {@code palabras} longs por sala.
+     */
+    private static final class Mapa {
+
+        final FileChannel canal;
+        final MappedByteBuffer bytes;
+        final int minutos;
+        final int dias;
+        final int maxSalas;
+        final int tramos;
+        final int palabras;
+        final int segundosPorTramo;
+        final long inicioDirectorio;
+        final long inicioBits;
+        final long tamano;
+        /**
+         * Fila + 1 de cada sala indexada por su ID (0 = sin fila), para consultar sin objetos intermedios.
+         * Solo se modifica con el cerrojo de escritura; el array se sustituye cuando hay que agrandarlo.
+         */
+        volatile int[] filaPorSala = new int[0];
+        /** Número de salas con fila. */
+        int salas;
+        /** Huecos leídos del fichero al abrirlo cuya huella aún no se ha comparado con la base de datos. */
+        final boolean[] porVerificar;
+
+        Mapa(FileChannel canal, MappedByteBuffer bytes, int minutos, int dias, int maxSalas) {
+            this.canal = canal;
+            this.bytes = bytes;
+            this.minutos = minutos;
+            this.dias = dias;
+            this.maxSalas = maxSalas;
+            this.tramos = 24 * 60 / minutos;
+            this.palabras = (tramos + 63) / 64;
+            this.segundosPorTramo = minutos * 60;
+            this.inicioDirectorio = TAMANO_CABECERA + dias * (long) BYTES_POR_DIA;
+            this.inicioBits = (inicioDirectorio + maxSalas * 4L + 7) & ~7L;
+            this.tamano = tamano(minutos, dias, maxSalas);
+            this.porVerificar = new boolean[dias];
+        }
+
+        static long tamano(int minutos, int dias, int maxSalas) {
+            int palabras = (24 * 60 / minutos + 63) / 64;
+            long inicioBits = (TAMANO_CABECERA + dias * (long) BYTES_POR_DIA + maxSalas * 4L + 7) & ~7L;
+            return inicioBits + (long) dias * maxSalas * palabras * 8;
+        }
+
+        int hueco(long dia) {
+            return (int) Math.floorMod(dia, (long) dias);
+        }
+
+        long dia(int hueco) {
+            return bytes.getLong(TAMANO_CABECERA + hueco * BYTES_POR_DIA);
+        }
+
+        /**
+         * Cambia la fecha de un hueco y borra su huella.
+         */
+        void ponerDia(int hueco, long dia) {
+            bytes.putLong(TAMANO_CABECERA + hueco * BYTES_POR_DIA, dia);
+            borrarHuella(hueco);
+            porVerificar[hueco] = false;
+        }
+
+        /**
+         * @return true si el hueco tiene el día y se puede usar (no está pendiente de verificar).
+         */
+        boolean usable(int hueco, long dia) {
+            return dia(hueco) == dia && !porVerificar[hueco];
+        }
+
+        boolean tieneHuella(int hueco) {
+            return bytes.getLong(TAMANO_CABECERA + hueco * BYTES_POR_DIA + 8) != SIN_HUELLA;
+        }
+
+        boolean huellaCoincide(int hueco, long reservas, long resumen) {
+            int posicion = TAMANO_CABECERA + hueco * BYTES_POR_DIA;
+            return bytes.getLong(posicion + 8) == reservas && bytes.getLong(posicion + 16) == resumen;
+        }
+
+        void ponerHuella(int hueco, long reservas, long resumen) {
+            int posicion = TAMANO_CABECERA + hueco * BYTES_POR_DIA;
+            bytes.putLong(posicion + 8, reservas);
+            bytes.putLong(posicion + 16, resumen);
+        }
+
+        void borrarHuella(int hueco) {
+            bytes.putLong(TAMANO_CABECERA + hueco * BYTES_POR_DIA + 8, SIN_HUELLA);
+        }
+
+        int posicion(int hueco, int fila, int palabra) {
+            return (int) (inicioBits + (((long) hueco * maxSalas + fila) * palabras + palabra) * 8);
+        }
+
+        /**
+         * @return Fila de la sala, asignándole una libre si no tiene; -1 si no quedan filas o el ID no cabe.
+         */
+        int asignarFila(int salaId) {
+            if (salaId <= 0 || salaId >= LIMITE_ID) {
+                return -1;
+            }
+            int fila = fila(salaId);
+            if (fila >= 0) {
+                return fila;
+            }
+            for (int i = 0; i < maxSalas; i++) {
+                if (salaDeFila(i) == 0) {
+                    bytes.putInt((int) (inicioDirectorio + i * 4L), salaId);
+                    ponerFila(salaId, i);
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return Fila de la sala, o -1 si no tiene.
+         */
+        int fila(int salaId) {
+            int[] filas = filaPorSala;
+            return salaId >= 0 && salaId < filas.length ? filas[salaId] - 1 : -1;
+        }
+
+        /**
+         * @return ID de la sala de una fila, o 0 si está libre.
+         */
+        int salaDeFila(int fila) {
+            return bytes.getInt((int) (inicioDirectorio + fila * 4L));
+        }
+
+        void ponerFila(int salaId, int fila) {
+            int[] filas = filaPorSala;
+            if (salaId >= filas.length) {
+                filas = Arrays.copyOf(filas, Math.min(LIMITE_ID, Math.max(salaId + 1, filas.length * 2)));
+            }
+            filas[salaId] = fila + 1;
+            filaPorSala = filas;
+            salas++;
+        }
+
+        /**
+         * Quita la sala del directorio.
+         *
+         * @return Fila que tenía, o -1 si no tenía.
+         */
+        int quitarFila(int salaId) {
+            int fila = fila(salaId);
+            if (fila >= 0) {
+                filaPorSala[salaId] = 0;
+                bytes.putInt((int) (inicioDirectorio + fila * 4L), 0);
+                salas--;
+            }
+            return fila;
+        }
+
+        void marcar(int hueco, int fila, int primero, int ultimo) {
+            for (int tramo = primero; tramo < ultimo; tramo++) {
+                int posicion = posicion(hueco, fila, tramo >>> 6);
+                bytes.putLong(posicion, bytes.getLong(posicion) | 1L << tramo);
+            }
+        }
+
+        void desmarcar(int hueco, int fila, int primero, int ultimo) {
+            for (int tramo = primero; tramo < ultimo; tramo++) {
+                int posicion = posicion(hueco, fila, tramo >>> 6);
+                bytes.putLong(posicion, bytes.getLong(posicion) & ~(1L << tramo));
+            }
+        }
+
+        void limpiar(int hueco, int fila) {
+            for (int i = 0; i < palabras; i++) {
+                bytes.putLong(posicion(hueco, fila, i), 0);
+            }
+        }
+
+        int primerTramo(LocalTime inicio) {
+            return inicio.toSecondOfDay() / segundosPorTramo;
+        }
+
+        int ultimoTramo(LocalTime fin) {
+            return Math.min(tramos, (fin.toSecondOfDay() + segundosPorTramo - 1) / segundosPorTramo);
+        }
+    }
+
+    private final Clock reloj;
+    private final StampedLock lock = new StampedLock();
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder libres = new LongAdder();
+    private final LongAdder construcciones = new LongAdder();
+    private final LongAdder verificaciones = new LongAdder();
+    private volatile Mapa mapa;
+
+    /**
+     * @param reloj Reloj del que se toma la fecha de hoy (sustituible en los tests).
+     */
+    CalendarioSalas(Clock reloj) {
+        this.reloj = reloj;
+    }
+
+    /**
+     * Devuelve el calendario compartido por toda la aplicación.
+     *
+     * @return Instancia única del calendario.
+     */
+    public static CalendarioSalas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Abre el calendario con la geometría de {@link #MINUTOS_POR_TRAMO}, {@link #DIAS} y {@link #MAXIMO_SALAS}.
+     *
+     * @param fichero Fichero del calendario; se crea si no existe.
+     * @throws IOException si no se puede crear o proyectar el fichero, o si otro proceso lo tiene abierto.
+     */
+    public void abrir(Path fichero) throws IOException {
+        abrir(fichero, MINUTOS_POR_TRAMO, DIAS, MAXIMO_SALAS);
+    }
+
+    /**
+     * Abre el calendario y bloquea el fichero para los demás procesos. Si el fichero existe con la misma
+     * geometría y se cerró bien, sus días con huella se reutilizan después de verificarla; si no, se
+     * crea vacío.
+     *
+     * @param fichero  Fichero del calendario.
+     * @param minutos  Minutos de cada tramo: 5, 10, 15, 20, 30 o 60.
+     * @param dias     Días a partir de hoy que se pueden construir.
+     * @param maxSalas Salas distintas que caben.
+     * @throws IOException si no se puede crear o proyectar el fichero, o si otro proceso lo tiene abierto.
+     */
+    public void abrir(Path fichero, int minutos, int dias, int maxSalas) throws IOException {
+        if (minutos <= 0 || minutos % BuscadorHuecos.MINUTOS_POR_TRAMO != 0 || 60 % minutos != 0) {
+            throw new IllegalArgumentException("Los tramos deben ser de 5, 10, 15, 20, 30 o 60 minutos: " + minutos);
+        }
+        if (dias <= 0 || maxSalas <= 0) {
+            throw new IllegalArgumentException("Los días y las salas deben ser mayores que 0");
+        }
+        long tamano = Mapa.tamano(minutos, dias, maxSalas);
+        if (tamano > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El calendario ocuparía " + tamano + " bytes (máximo 2 GB): "
+                    + "reduce los días o las salas");
+        }
+        cerrar();
+
+        FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (!bloquear(canal)) {
+                throw new IOException("El calendario de salas " + fichero + " está abierto por otro proceso");
+            }
+            boolean reutilizable = canal.size() == tamano && cabeceraCoincide(canal, minutos, dias, maxSalas);
+            if (!reutilizable) {
+                canal.truncate(0);
+            }
+            MappedByteBuffer bytes = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+            bytes.order(ByteOrder.LITTLE_ENDIAN);
+            Mapa nuevo = new Mapa(canal, bytes, minutos, dias, maxSalas);
+            if (!reutilizable) {
+                bytes.putInt(0, MAGICO);
+                bytes.putInt(4, minutos);
+                bytes.putInt(8, dias);
+                bytes.putInt(12, maxSalas);
+                descartarDias(nuevo);
+                logger.info("Calendario de salas creado en {} ({} bytes)", fichero, tamano);
+            } else if (bytes.getInt(POSICION_LIMPIO) == 0) {
+                descartarDias(nuevo);
+                logger.warn("El calendario de salas no se cerró correctamente; sus días se volverán a construir");
+            } else {
+                marcarPorVerificar(nuevo);
+            }
+            for (int i = 0; i < maxSalas; i++) {
+                int salaId = nuevo.salaDeFila(i);
+                if (salaId > 0 && salaId < LIMITE_ID) {
+                    nuevo.ponerFila(salaId, i);
+                } else if (salaId != 0) {
+                    bytes.putInt((int) (nuevo.inicioDirectorio + i * 4L), 0);
+                }
+            }
+            // Hasta el cierre, el fichero puede no reflejar las últimas escrituras
+            bytes.putInt(POSICION_LIMPIO, 0);
+            bytes.force(0, TAMANO_CABECERA);
+            long sello = lock.writeLock();
+            try {
+                mapa = nuevo;
+            } finally {
+                lock.unlockWrite(sello);
+            }
+            if (reutilizable) {
+                logger.info("Calendario de salas abierto: {} días por verificar, {} salas", diasConstruidos(nuevo),
+                        nuevo.salas);
+            }
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Escribe en disco el calendario, lo marca como cerrado correctamente y deja de usarlo.
+     */
+    public void cerrar() {
+        Mapa actual;
+        long sello = lock.writeLock();
+        try {
+            actual = mapa;
+            mapa = null;
+        } finally {
+            lock.unlockWrite(sello);
+        }
+        if (actual == null) {
+            return;
+        }
+        try {
+            actual.bytes.force();
+            actual.bytes.putInt(POSICION_LIMPIO, 1);
+            actual.bytes.force(0, TAMANO_CABECERA);
+            actual.canal.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo cerrar correctamente el calendario de salas", e);
+        }
+    }
+
+    /**
+     * @return true si el calendario está abierto.
+     */
+    public boolean estaAbierto() {
+        return mapa != null;
+    }
+
+    /**
+     * Comprueba con el calendario si un horario está libre, construyendo el día si hace falta.
+     * Una respuesta negativa no indica conflicto: solo que hay que comprobarlo de otra forma.
+     *
+     * @param conn       Conexión con la que construir el día si todavía no está en el calendario.
+     * @param salaId     ID de la sala.
+     * @param fecha      Fecha.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @return true si ninguna reserva de la sala se solapa con el horario.
+     */
+    public boolean estaLibre(Connection conn, int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
+        Mapa m = mapa;
+        if (m == null) {
+            return false;
+        }
+        consultas.increment();
+        long dia = fecha.toEpochDay();
+        int primero = m.primerTramo(horaInicio);
+        int ultimo = m.ultimoTramo(horaFin);
+        int estado = leer(m, salaId, dia, primero, ultimo);
+        if (estado == SIN_CONSTRUIR && construir(m, conn, fecha)) {
+            estado = leer(m, salaId, dia, primero, ultimo);
+        }
+        if (estado != LIBRE) {
+            return false;
+        }
+        libres.increment();
+        return true;
+    }
+
+    /**
+     * Devuelve la ocupación de todas las salas en un día en tramos de {@link BuscadorHuecos#MINUTOS_POR_TRAMO}
+     * minutos, construyendo el día si hace falta.
+     *
+     * @param conn  Conexión con la que construir el día si todavía no está en el calendario.
+     * @param fecha Fecha.
+     * @return Ocupación del día, o null si el calendario no puede darla (cerrado o fecha fuera de plazo).
+     */
+    public BuscadorHuecos.Ocupacion ocupacion(Connection conn, LocalDate fecha) {
+        Mapa m = mapa;
+        if (m == null) {
+            return null;
+        }
+        long dia = fecha.toEpochDay();
+        int hueco = m.hueco(dia);
+        for (int intento = 0; intento < 2; intento++) {
+            long sello = lock.readLock();
+            try {
+                if (mapa == m && m.usable(hueco, dia)) {
+                    return copiarOcupacion(m, hueco);
+                }
+            } finally {
+                lock.unlockRead(sello);
+            }
+            if (intento == 0 && !construir(m, conn, fecha)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marca una reserva recién escrita. Se ignora si su día todavía no está en el calendario: al
+     * construirlo ya se leerá de la base de datos. Un día pendiente de verificar se descarta.
+     *
+     * @param salaId     ID de la sala.
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     */
+    public void marcar(int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
+        if (mapa == null) {
+            return;
+        }
+        long sello = lock.writeLock();
+        try {
+            Mapa m = mapa;
+            if (m == null) {
+                return;
+            }
+            long dia = fecha.toEpochDay();
+            int hueco = m.hueco(dia);
+            if (m.dia(hueco) != dia) {
+                return;
+            }
+            if (m.porVerificar[hueco]) {
+                m.ponerDia(hueco, SIN_DIA);
+                return;
+            }
+            int fila = m.asignarFila(salaId);
+            if (fila < 0) {
+                // Sin sitio para la sala el día ya no está completo
+                m.ponerDia(hueco, SIN_DIA);
+                logger.warn("El calendario de salas está lleno ({} salas); se descarta el día {}", m.maxSalas, fecha);
+                return;
+            }
+            m.marcar(hueco, fila, m.primerTramo(horaInicio), m.ultimoTramo(horaFin));
+            m.borrarHuella(hueco);
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Libera el horario de una reserva recién cambiada o eliminada, sin leer la base de datos. Solo se
+     * borran los tramos que cubría enteros; los que compartía en parte con otra siguen marcados, lo que
+     * solo hace que esos horarios se comprueben con el índice.
+     * <p>
+     * Quien llama debe tener, desde antes de escribir el cambio hasta después de esta llamada, el cerrojo
+     * de {@link ServicioReservas} de la sala y fecha que tenía la reserva. Solo así ninguna otra reserva
+     * ha podido ocupar esos tramos: una que se hiciera entretanto no cambiaría los bits, que ya estaban
+     * marcados, y quedaría como libre al borrarlos.
+     *
+     * @param salaId     ID de la sala.
+     * @param fecha      Fecha que tenía la reserva.
+     * @param horaInicio Hora de inicio que tenía.
+     * @param horaFin    Hora de fin que tenía.
+     */
+    public void liberar(int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
+        if (mapa == null) {
+            return;
+        }
+        long sello = lock.writeLock();
+        try {
+            Mapa m = mapa;
+            if (m == null) {
+                return;
+            }
+            long dia = fecha.toEpochDay();
+            int hueco = m.hueco(dia);
+            if (m.dia(hueco) != dia) {
+                return;
+            }
+            if (m.porVerificar[hueco]) {
+                m.ponerDia(hueco, SIN_DIA);
+                return;
+            }
+            int fila = m.fila(salaId);
+            if (fila >= 0) {
+                int primero = (horaInicio.toSecondOfDay() + m.segundosPorTramo - 1) / m.segundosPorTramo;
+                m.desmarcar(hueco, fila, primero, Math.min(m.tramos, horaFin.toSecondOfDay() / m.segundosPorTramo));
+            }
+            m.borrarHuella(hueco);
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Marca las ocurrencias de una serie recién escrita.
+     *
+     * @param serie Serie guardada.
+     */
+    public void marcar(SerieReservas serie) {
+        if (mapa != null) {
+            serie.fechas().forEach(fecha -> marcar(serie.salaId(), fecha, serie.horaInicio(), serie.horaFin()));
+        }
+    }
+
+    /**
+     * Vuelve a leer de la base de datos la ocupación de los pares (sala, día) que están en el
+     * calendario, tras cambiar o eliminar reservas suyas. Se hace una consulta por sala. Si falla, esos
+     * días se descartan y se volverán a construir.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param dias Pares (sala, día) afectados.
+     */
+    public void recalcular(Connection conn, Collection<DiaSala> dias) {
+        if (mapa == null || dias.isEmpty()) {
+            return;
+        }
+        Map<Integer, TreeSet<LocalDate>> porSala = new HashMap<>();
+        dias.forEach(d -> porSala.computeIfAbsent(d.salaId(), k -> new TreeSet<>()).add(d.fecha()));
+        long sello = lock.writeLock();
+        try {
+            Mapa m = mapa;
+            if (m == null) {
+                return;
+            }
+            for (Map.Entry<Integer, TreeSet<LocalDate>> entrada : porSala.entrySet()) {
+                recalcularSala(m, conn, entrada.getKey(), entrada.getValue());
+            }
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Atajo de {@link #recalcular(Connection, Collection)} para una sola sala y día.
+     *
+     * @param conn   Conexión a la base de datos.
+     * @param salaId ID de la sala.
+     * @param fecha  Fecha.
+     */
+    public void recalcular(Connection conn, int salaId, LocalDate fecha) {
+        recalcular(conn, List.of(new DiaSala(salaId, fecha)));
+    }
+
+    /**
+     * Atajo de {@link #recalcular(Connection, Collection)} para las ocurrencias de una serie.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param serie Serie cuyas fechas se recalculan.
+     */
+    public void recalcular(Connection conn, SerieReservas serie) {
+        if (mapa != null) {
+            recalcular(conn, serie.fechas().map(f -> new DiaSala(serie.salaId(), f)).toList());
+        }
+    }
+
+    /**
+     * Devuelve los pares (sala, día) desde hoy con reservas de un empleado, para recalcularlos
+     * después de eliminarlo con sus reservas.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param empleadoId ID del empleado.
+     * @return Pares afectados (vacío si el calendario está cerrado).
+     * @throws SQLException si falla la consulta.
+     */
+    public List<DiaSala> diasDeEmpleado(Connection conn, int empleadoId) throws SQLException {
+        if (mapa == null) {
+            return List.of();
+        }
+        List<DiaSala> dias = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_EMPLEADO)) {
+            pstmt.setInt(1, empleadoId);
+            pstmt.setDate(2, Date.valueOf(LocalDate.now(reloj)));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    dias.add(new DiaSala(rs.getInt(1), rs.getDate(2).toLocalDate()));
+                }
+            }
+        }
+        return dias;
+    }
+
+    /**
+     * Borra todas las reservas de una sala (borrado en cascada al eliminar la sala) y libera su fila.
+     *
+     * @param salaId ID de la sala.
+     */
+    public void eliminarSala(int salaId) {
+        if (mapa == null) {
+            return;
+        }
+        long sello = lock.writeLock();
+        try {
+            Mapa m = mapa;
+            int fila = m == null ? -1 : m.fila(salaId);
+            if (fila < 0) {
+                return;
+            }
+            for (int hueco = 0; hueco < m.dias; hueco++) {
+                m.limpiar(hueco, fila);
+                // Los días pendientes conservan su huella: si la sala tenía reservas, no coincidirá
+                if (!m.porVerificar[hueco]) {
+                    m.borrarHuella(hueco);
+                }
+            }
+            m.quitarFila(salaId);
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Descarta todos los días, por ejemplo tras deshacer una transacción cuyas escrituras ya se
+     * habían anotado. Se volverán a construir según se consulten.
+     */
+    public void invalidar() {
+        long sello = lock.writeLock();
+        try {
+            Mapa m = mapa;
+            if (m != null) {
+                descartarDias(m);
+            }
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * @return Instantánea de las estadísticas.
+     */
+    public Estadisticas getEstadisticas() {
+        Mapa m = mapa;
+        long sello = lock.readLock();
+        try {
+            return new Estadisticas(consultas.sum(), libres.sum(), construcciones.sum(), verificaciones.sum(),
+                    m == null ? 0 : diasConstruidos(m), m == null ? 0 : m.salas, m == null ? 0 : m.tamano);
+        } finally {
+            lock.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Lee el estado de un horario sin bloquear; si una escritura se cruza, repite con el cerrojo de lectura.
+     */
+    private int leer(Mapa m, int salaId, long dia, int primero, int ultimo) {
+        long sello = lock.tryOptimisticRead();
+        if (sello != 0) {
+            int estado = consultar(m, salaId, dia, primero, ultimo);
+            if (lock.validate(sello)) {
+                return estado;
+            }
+        }
+        sello = lock.readLock();
+        try {
+            return consultar(m, salaId, dia, primero, ultimo);
+        } finally {
+            lock.unlockRead(sello);
+        }
+    }
+
+    private static int consultar(Mapa m, int salaId, long dia, int primero, int ultimo) {
+        int hueco = m.hueco(dia);
+        if (!m.usable(hueco, dia)) {
+            return SIN_CONSTRUIR;
+        }
+        int fila = m.fila(salaId);
+        if (fila < 0 || primero >= ultimo) {
+            return LIBRE;
+        }
+        int desde = primero >>> 6;
+        int hasta = (ultimo - 1) >>> 6;
+        for (int palabra = desde; palabra <= hasta; palabra++) {
+            long mascara = -1L;
+            if (palabra == desde) {
+                mascara &= -1L << primero;
+            }
+            if (palabra == hasta) {
+                mascara &= -1L >>> (63 - ((ultimo - 1) & 63));
+            }
+            if ((m.bytes.getLong(m.posicion(hueco, fila, palabra)) & mascara) != 0) {
+                return OCUPADO;
+            }
+        }
+        return LIBRE;
+    }
+
+    /**
+     * Construye un día con las reservas de todas las salas leídas en una sola consulta. Si el día
+     * viene del fichero, primero compara su huella con la base de datos y, si coincide, lo aprovecha.
+     *
+     * @return true si el día está en el calendario al terminar.
+     */
+    private boolean construir(Mapa m, Connection conn, LocalDate fecha) {
+        long dia = fecha.toEpochDay();
+        long hoy = LocalDate.now(reloj).toEpochDay();
+        if (dia < hoy || dia >= hoy + m.dias) {
+            return false;
+        }
+        long sello = lock.writeLock();
+        try {
+            if (mapa != m) {
+                return false;
+            }
+            int hueco = m.hueco(dia);
+            if (m.usable(hueco, dia)) {
+                return true;
+            }
+            if (m.dia(hueco) == dia && verificar(m, conn, hueco, fecha)) {
+                return true;
+            }
+            m.ponerDia(hueco, SIN_DIA);
+            for (int fila = 0; fila < m.maxSalas; fila++) {
+                m.limpiar(hueco, fila);
+            }
+            long reservas = 0;
+            long resumen = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_DIA)) {
+                pstmt.setDate(1, Date.valueOf(fecha));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        reservas++;
+                        resumen ^= huellaFila(rs.getInt(4), rs.getInt(1), rs.getInt(5), rs.getTime(2), rs.getTime(3));
+                        int fila = m.asignarFila(rs.getInt(1));
+                        if (fila < 0) {
+                            logger.warn("El calendario de salas está lleno ({} salas); el día {} se "
+                                    + "comprobará sin él", m.maxSalas, fecha);
+                            return false;
+                        }
+                        m.marcar(hueco, fila, m.primerTramo(rs.getTime(2).toLocalTime()),
+                                m.ultimoTramo(rs.getTime(3).toLocalTime()));
+                    }
+                }
+            }
+            m.ponerDia(hueco, dia);
+            m.ponerHuella(hueco, reservas, resumen);
+            construcciones.increment();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("No se pudo construir el día {} del calendario de salas", fecha, e);
+            return false;
+        } finally {
+            lock.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Compara la huella guardada de un día leído del fichero con la de la base de datos. Se llama con
+     * el cerrojo de escritura. Si la consulta falla (por ejemplo, en una base de datos sin {@code MD5}),
+     * el día se vuelve a construir.
+     *
+     * @return true si coinciden y el día se puede usar tal cual.
+     */
+    private boolean verificar(Mapa m, Connection conn, int hueco, LocalDate fecha) {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_HUELLA)) {
+            pstmt.setDate(1, Date.valueOf(fecha));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                // BIT_XOR devuelve un BIGINT UNSIGNED, que no siempre cabe en un long con signo
+                if (rs.next() && m.huellaCoincide(hueco, rs.getLong(1), Long.parseUnsignedLong(rs.getString(2)))) {
+                    m.porVerificar[hueco] = false;
+                    verificaciones.increment();
+                    return true;
+                }
+            }
+        } catch (SQLException | NumberFormatException e) {
+            logger.warn("No se pudo verificar el día {} del calendario de salas; se vuelve a construir", fecha, e);
+            return false;
+        }
+        logger.debug("El día {} del calendario de salas cambió desde que se guardó; se vuelve a construir", fecha);
+        return false;
+    }
+
+    /**
+     * Resumen de 64 bits de una reserva para la huella de su día: los 8 primeros bytes del MD5 de
+     * {@code id,sala,versión,inicio,fin}, igual que {@link #SQL_HUELLA}. A diferencia de una suma o un
+     * CRC, cambiar o intercambiar campos entre filas no puede dejar el XOR del día como estaba salvo por
+     * una colisión de 64 bits.
+     */
+    static long huellaFila(int id, int salaId, int version, Time inicio, Time fin) {
+        String fila = id + "," + salaId + "," + version + "," + inicio + "," + fin;
+        try {
+            byte[] md5 = MessageDigest.getInstance("MD5").digest(fila.getBytes(StandardCharsets.US_ASCII));
+            return ByteBuffer.wrap(md5).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            // Toda JVM incluye MD5
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Vuelve a leer las reservas de una sala en los días indicados que están en el calendario.
+     * Los días pendientes de verificar se descartan. Se llama con el cerrojo de escritura.
+     */
+    private void recalcularSala(Mapa m, Connection conn, int salaId, TreeSet<LocalDate> fechas) {
+        List<LocalDate> construidas = new ArrayList<>();
+        for (LocalDate fecha : fechas) {
+            int hueco = m.hueco(fecha.toEpochDay());
+            if (m.usable(hueco, fecha.toEpochDay())) {
+                construidas.add(fecha);
+                m.borrarHuella(hueco);
+            } else if (m.dia(hueco) == fecha.toEpochDay()) {
+                m.ponerDia(hueco, SIN_DIA);
+            }
+        }
+        if (construidas.isEmpty()) {
+            return;
+        }
+        int filaActual = m.fila(salaId);
+        if (filaActual >= 0) {
+            construidas.forEach(f -> m.limpiar(m.hueco(f.toEpochDay()), filaActual));
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_SALA)) {
+            pstmt.setInt(1, salaId);
+            pstmt.setDate(2, Date.valueOf(construidas.get(0)));
+            pstmt.setDate(3, Date.valueOf(construidas.get(construidas.size() - 1)));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate fecha = rs.getDate(1).toLocalDate();
+                    int hueco = m.hueco(fecha.toEpochDay());
+                    if (!fechas.contains(fecha) || m.dia(hueco) != fecha.toEpochDay()) {
+                        continue;
+                    }
+                    int fila = m.asignarFila(salaId);
+                    if (fila < 0) {
+                        m.ponerDia(hueco, SIN_DIA);
+                        continue;
+                    }
+                    m.marcar(hueco, fila, m.primerTramo(rs.getTime(2).toLocalTime()),
+                            m.ultimoTramo(rs.getTime(3).toLocalTime()));
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("No se pudo recalcular la sala {} en el calendario; se descartan sus días", salaId, e);
+            construidas.forEach(f -> m.ponerDia(m.hueco(f.toEpochDay()), SIN_DIA));
+        }
+    }
+
+    /**
+     * Pasa la ocupación de un día a tramos de {@link BuscadorHuecos#MINUTOS_POR_TRAMO} minutos.
+     */
+    private static BuscadorHuecos.Ocupacion copiarOcupacion(Mapa m, int hueco) {
+        BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+        int factor = m.minutos / BuscadorHuecos.MINUTOS_POR_TRAMO;
+        for (int fila = 0; fila < m.maxSalas; fila++) {
+            int salaId = m.salaDeFila(fila);
+            if (salaId == 0) {
+                continue;
+            }
+            for (int palabra = 0; palabra < m.palabras; palabra++) {
+                long bits = m.bytes.getLong(m.posicion(hueco, fila, palabra));
+                while (bits != 0) {
+                    int tramo = palabra * 64 + Long.numberOfTrailingZeros(bits);
+                    ocupacion.marcarTramos(salaId, tramo * factor, (tramo + 1) * factor);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return ocupacion;
+    }
+
+    private static void descartarDias(Mapa m) {
+        for (int hueco = 0; hueco < m.dias; hueco++) {
+            m.ponerDia(hueco, SIN_DIA);
+        }
+    }
+
+    /**
+     * Deja pendientes de verificar los días guardados con huella y descarta los que no la tienen.
+     */
+    private static void marcarPorVerificar(Mapa m) {
+        for (int hueco = 0; hueco < m.dias; hueco++) {
+            if (m.dia(hueco) == SIN_DIA) {
+                continue;
+            }
+            if (m.tieneHuella(hueco)) {
+                m.porVerificar[hueco] = true;
+            } else {
+                m.ponerDia(hueco, SIN_DIA);
+            }
+        }
+    }
+
+    /**
+     * Bloquea el fichero para este proceso.
+     *
+     * @return false si lo tiene bloqueado otro proceso (u otro calendario de este).
+     */
+    private static boolean bloquear(FileChannel canal) throws IOException {
+        try {
+            return canal.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    private static int diasConstruidos(Mapa m) {
+        int construidos = 0;
+        for (int hueco = 0; hueco < m.dias; hueco++) {
+            if (m.dia(hueco) != SIN_DIA) {
+                construidos++;
+            }
+        }
+        return construidos;
+    }
+
+    private static boolean cabeceraCoincide(FileChannel canal, int minutos, int dias, int maxSalas) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        while (cabecera.hasRemaining() && canal.read(cabecera, cabecera.position()) > 0) {
+            // Se lee hasta completar la cabecera
+        }
+        return !cabecera.hasRemaining() && cabecera.getInt(0) == MAGICO && cabecera.getInt(4) == minutos
+                && cabecera.getInt(8) == dias && cabecera.getInt(12) == maxSalas;
+    }
+}
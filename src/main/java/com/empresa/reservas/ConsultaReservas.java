@@ -0,0 +1,216 @@
+package com.empresa.reservas;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Consultas de lectura de reservas con filtros, paginación por clave y lectura en streaming.
+ * <p>
+ * Las páginas se ordenan por {@code (fecha, hora_inicio, id)} y cada página continúa a partir
+ * de la última fila de la anterior, de modo que el coste no crece con el número de página.
+ * Los resultados se leen con {@code setFetchSize} sobre un cursor de solo avance para que
+ * la memoria no dependa del tamaño de la tabla.
+ */
+public class ConsultaReservas {
+
+    /** Filas que el driver trae en cada viaje al servidor. */
+    static final int FILAS_POR_FETCH = 500;
+
+    private static final String SELECT_BASE = """
+            SELECT r.id, r.fecha, r.hora_inicio, r.hora_fin, s.nombre AS sala_nombre, e.nombre AS empleado_nombre
+            FROM %s r
+            JOIN salas s ON r.sala_id = s.id
+            JOIN empleados e ON r.empleado_id = e.id""";
+
+    /**
+     * Filtros opcionales del listado; los campos null no filtran.
+     *
+     * @param desde      Fecha mínima (incluida).
+     * @param hasta      Fecha máxima (incluida).
+     * @param sala       Nombre exacto de la sala.
+     * @param empleadoId ID del empleado.
+     * @param archivo    true para incluir las reservas trasladadas por {@link ArchivadorReservas}.
+     */
+    public record Filtro(LocalDate desde, LocalDate hasta, String sala, Integer empleadoId, boolean archivo) {
+
+        /** Filtro que no restringe ninguna reserva vigente. */
+        public static final Filtro NINGUNO = new Filtro(null, null, null, null);
+
+        /**
+         * Filtro sobre las reservas vigentes, sin las archivadas.
+         */
+        public Filtro(LocalDate desde, LocalDate hasta, String sala, Integer empleadoId) {
+            this(desde, hasta, sala, empleadoId, false);
+        }
+    }
+
+    /**
+     * Posición de una reserva en el orden del listado, usada para pedir la página siguiente.
+     *
+     * @param fecha      Fecha de la última reserva mostrada.
+     * @param horaInicio Hora de inicio de la última reserva mostrada.
+     * @param id         ID de la última reserva mostrada.
+     */
+    public record Cursor(LocalDate fecha, LocalTime horaInicio, int id) {
+    }
+
+    /**
+     * Reserva con los nombres de sala y empleado resueltos.
+     *
+     * @param id         ID de la reserva.
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @param sala       Nombre de la sala.
+     * @param empleado   Nombre del empleado.
+     */
+    public record Fila(int id, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, String sala, String empleado) {
+
+        /**
+         * Devuelve la posición de esta fila en el orden del listado.
+         *
+         * @return Cursor para continuar tras esta fila.
+         */
+        public Cursor cursor() {
+            return new Cursor(fecha, horaInicio, id);
+        }
+    }
+
+    /**
+     * Página de resultados.
+     *
+     * @param filas     Reservas de la página.
+     * @param siguiente Cursor para pedir la página siguiente, o null si no hay más.
+     */
+    public record Pagina(List<Fila> filas, Cursor siguiente) {
+    }
+
+    /**
+     * Obtiene una página de reservas ordenada por fecha, hora de inicio e ID.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param filtro  Filtros a aplicar.
+     * @param despues Cursor de la última fila de la página anterior, o null para la primera.
+     * @param tamano  Número máximo de filas de la página.
+     * @return Página con las reservas y el cursor de continuación.
+     * @throws SQLException si falla la consulta.
+     */
+    public static Pagina listarPagina(Connection conn, Filtro filtro, Cursor despues, int tamano) throws SQLException {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0");
+        }
+        List<Object> parametros = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(selectBase(filtro));
+        List<String> condiciones = condiciones(filtro, parametros);
+
+        if (despues != null) {
+            // Expandido en lugar de (a, b, c) > (?, ?, ?) para que el optimizador use el índice
+            condiciones.add("(r.fecha > ? OR (r.fecha = ? AND (r.hora_inicio > ? OR (r.hora_inicio = ? AND r.id > ?))))");
+            parametros.add(Date.valueOf(despues.fecha()));
+            parametros.add(Date.valueOf(despues.fecha()));
+            parametros.add(Time.valueOf(despues.horaInicio()));
+            parametros.add(Time.valueOf(despues.horaInicio()));
+            parametros.add(despues.id());
+        }
+        anadirWhere(sql, condiciones);
+        sql.append(" ORDER BY r.fecha, r.hora_inicio, r.id LIMIT ?");
+        parametros.add(tamano);
+
+        List<Fila> filas = new ArrayList<>(tamano);
+        try (PreparedStatement pstmt = prepararLectura(conn, sql.toString(), parametros, Math.min(tamano, FILAS_POR_FETCH));
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                filas.add(leerFila(rs));
+            }
+        }
+        Cursor siguiente = filas.size() == tamano ? filas.get(filas.size() - 1).cursor() : null;
+        return new Pagina(filas, siguiente);
+    }
+
+    /**
+     * Recorre en streaming todas las reservas que cumplen el filtro, en orden,
+     * sin acumularlas en memoria.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param filtro     Filtros a aplicar.
+     * @param consumidor Acción a ejecutar con cada reserva.
+     * @return Número de reservas recorridas.
+     * @throws SQLException si falla la consulta.
+     */
+    public static long recorrer(Connection conn, Filtro filtro, Consumer<Fila> consumidor) throws SQLException {
+        List<Object> parametros = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(selectBase(filtro));
+        anadirWhere(sql, condiciones(filtro, parametros));
+        sql.append(" ORDER BY r.fecha, r.hora_inicio, r.id");
+
+        long total = 0;
+        try (PreparedStatement pstmt = prepararLectura(conn, sql.toString(), parametros, FILAS_POR_FETCH);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                consumidor.accept(leerFila(rs));
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private static String selectBase(Filtro filtro) {
+        return SELECT_BASE.formatted(filtro.archivo() ? ArchivadorReservas.RESERVAS_CON_ARCHIVO : "reservas");
+    }
+
+    private static List<String> condiciones(Filtro filtro, List<Object> parametros) {
+        List<String> condiciones = new ArrayList<>();
+        if (filtro.desde() != null) {
+            condiciones.add("r.fecha >= ?");
+            parametros.add(Date.valueOf(filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            condiciones.add("r.fecha <= ?");
+            parametros.add(Date.valueOf(filtro.hasta()));
+        }
+        if (filtro.sala() != null) {
+            condiciones.add("s.nombre = ?");
+            parametros.add(filtro.sala());
+        }
+        if (filtro.empleadoId() != null) {
+            condiciones.add("r.empleado_id = ?");
+            parametros.add(filtro.empleadoId());
+        }
+        return condiciones;
+    }
+
+    private static void anadirWhere(StringBuilder sql, List<String> condiciones) {
+        if (!condiciones.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", condiciones));
+        }
+    }
+
+    private static PreparedStatement prepararLectura(Connection conn, String sql, List<Object> parametros, int fetchSize)
+            throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            pstmt.setFetchSize(fetchSize);
+            for (int i = 0; i < parametros.size(); i++) {
+                pstmt.setObject(i + 1, parametros.get(i));
+            }
+            return pstmt;
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+    }
+
+    static Fila leerFila(ResultSet rs) throws SQLException {
+        return new Fila(
+                rs.getInt("id"),
+                rs.getDate("fecha").toLocalDate(),
+                rs.getTime("hora_inicio").toLocalTime(),
+                rs.getTime("hora_fin").toLocalTime(),
+                rs.getString("sala_nombre"),
+                rs.getString("empleado_nombre"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.empresa.reservas;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrupa las altas de reservas de hilos concurrentes en transacciones cortas con un solo commit
+ * (group commit), para que cada reserva no pague por separado la escritura del registro de
+ * transacciones en disco del servidor.
+ * <p>
+ * No hay un hilo escritor propio: el primer hilo que llega sin que haya otro escribiendo es el
+ * líder. Espera como mucho {@code maxEspera} a que se junten {@code maxLote} peticiones (sin esperar
+ * si {@code maxEspera} es 0), se lleva las que haya en la cola y las escribe con su propia conexión.
+ * Mientras tanto, los hilos que llegan se encolan y esperan; al terminar, el líder despierta a cada
+ * uno con su resultado y cede el puesto al primero de la cola, que escribe a su vez todo lo que se
+ * ha acumulado durante el commit anterior. Sin concurrencia, cada lote tiene una sola reserva y no
+ * se espera nada.
+ */
+final class EscrituraAgrupada {
+
+    /**
+     * Escribe un lote de peticiones con la conexión del líder y completa cada una.
+     */
+    @FunctionalInterface
+    interface Escritor {
+        void escribir(Connection conn, List<Peticion> lote);
+    }
+
+    /**
+     * Alta de una reserva pendiente y su resultado. Los campos de estado se leen y escriben con el
+     * cerrojo de la {@link EscrituraAgrupada}, salvo el resultado, que solo escribe el líder antes
+     * de publicarlo.
+     */
+    static final class Peticion {
+
+        final int salaId;
+        final int empleadoId;
+        final LocalDate fecha;
+        final LocalTime horaInicio;
+        final LocalTime horaFin;
+        private final Condition aviso;
+        private ServicioReservas.Resultado resultado;
+        private Exception error;
+        private boolean terminada;
+        private boolean liderar;
+
+        private Peticion(int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin,
+                         Condition aviso) {
+            this.salaId = salaId;
+            this.empleadoId = empleadoId;
+            this.fecha = fecha;
+            this.horaInicio = horaInicio;
+            this.horaFin = horaFin;
+            this.aviso = aviso;
+        }
+
+        Reserva reserva(int id) {
+            return new Reserva(id, salaId, empleadoId, fecha, horaInicio, horaFin);
+        }
+
+        void completar(ServicioReservas.Resultado resultado) {
+            this.resultado = resultado;
+        }
+
+        void fallar(Exception error) {
+            this.error = error;
+        }
+
+        boolean completada() {
+            return resultado != null || error != null;
+        }
+
+        private ServicioReservas.Resultado resultado() throws SQLException {
+            if (error instanceof SQLException e) {
+                throw e;
+            }
+            if (error instanceof RuntimeException e) {
+                throw e;
+            }
+            return resultado;
+        }
+    }
+
+    private final int maxLote;
+    private final long maxEsperaNanos;
+    private final Escritor escritor;
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    /** Avisa al líder que espera de que la cola ya tiene un lote completo. */
+    private final Condition lleno = cerrojo.newCondition();
+    private final ArrayDeque<Peticion> cola = new ArrayDeque<>();
+    private boolean hayLider;
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder reservas = new LongAdder();
+
+    /**
+     * @param maxLote        Número máximo de reservas por transacción.
+     * @param maxEsperaNanos Tiempo máximo que el líder espera a que se llene el lote (0 = no esperar).
+     * @param escritor       Escritura de cada lote.
+     */
+    EscrituraAgrupada(int maxLote, long maxEsperaNanos, Escritor escritor) {
+        if (maxLote < 2) {
+            throw new IllegalArgumentException("El lote debe admitir al menos 2 reservas");
+        }
+        this.maxLote = maxLote;
+        this.maxEsperaNanos = Math.max(0, maxEsperaNanos);
+        this.escritor = escritor;
+    }
+
+    /**
+     * Encola un alta y espera a que se escriba, en este hilo si le toca ser líder o en el de otro.
+     *
+     * @param conn Conexión del hilo, en modo autocommit; solo se usa si este hilo es el líder.
+     * @return Resultado del alta.
+     * @throws SQLException si falla la escritura de esta reserva.
+     */
+    ServicioReservas.Resultado crear(Connection conn, int salaId, int empleadoId, LocalDate fecha,
+                                     LocalTime horaInicio, LocalTime horaFin) throws SQLException {
+        Peticion peticion;
+        List<Peticion> lote;
+        cerrojo.lock();
+        try {
+            peticion = new Peticion(salaId, empleadoId, fecha, horaInicio, horaFin, cerrojo.newCondition());
+            cola.add(peticion);
+            if (hayLider) {
+                if (cola.size() >= maxLote) {
+                    lleno.signal();
+                }
+                // Otro hilo escribirá esta reserva: hay que esperar al resultado aunque se interrumpa
+                while (!peticion.terminada && !peticion.liderar) {
+                    peticion.aviso.awaitUninterruptibly();
+                }
+                if (peticion.terminada) {
+                    return peticion.resultado();
+                }
+            }
+            // Este hilo es el líder y su petición, la primera de la cola
+            hayLider = true;
+            esperarLote();
+            lote = new ArrayList<>(Math.min(cola.size(), maxLote));
+            while (lote.size() < maxLote && !cola.isEmpty()) {
+                lote.add(cola.poll());
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+
+        try {
+            escritor.escribir(conn, lote);
+        } catch (RuntimeException e) {
+            for (Peticion p : lote) {
+                if (!p.completada()) {
+                    p.fallar(e);
+                }
+            }
+        } finally {
+            lotes.increment();
+            reservas.add(lote.size());
+            terminar(lote);
+        }
+        return peticion.resultado();
+    }
+
+    /**
+     * Espera como mucho {@code maxEspera} a que la cola tenga un lote completo. Si se interrumpe,
+     * deja de esperar y se escribe lo que haya.
+     */
+    private void esperarLote() {
+        long espera = maxEsperaNanos;
+        try {
+            while (cola.size() < maxLote && espera > 0) {
+                espera = lleno.awaitNanos(espera);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Despierta a los hilos del lote y cede el puesto de líder al primero de la cola.
+     */
+    private void terminar(List<Peticion> lote) {
+        cerrojo.lock();
+        try {
+            for (Peticion p : lote) {
+                p.terminada = true;
+                p.aviso.signal();
+            }
+            Peticion siguiente = cola.peek();
+            if (siguiente == null) {
+                hayLider = false;
+            } else {
+                siguiente.liderar = true;
+                siguiente.aviso.signal();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * @return Lotes escritos desde que se creó.
+     */
+    long getLotes() {
+        return lotes.sum();
+    }
+
+    /**
+     * @return Reservas escritas en lotes desde que se creó.
+     */
+    long getReservas() {
+        return reservas.sum();
+    }
+}
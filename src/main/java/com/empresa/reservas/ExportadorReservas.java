@@ -0,0 +1,422 @@
+package com.empresa.reservas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de reservas a iCalendar (.ics, para clientes de correo) y CSV (para el almacén de
+ * datos), con compresión gzip opcional.
+ * <p>
+ * Las reservas llegan de una en una desde un cursor de solo avance y cada una se codifica en UTF-8
+ * directamente sobre un búfer fijo de {@link #TAMANO_BUFER} bytes, que se escribe en el canal del
+ * fichero cuando se llena. La memoria usada no depende del número de reservas. El fichero se escribe
+ * con el sufijo {@code .parcial} y se renombra al terminar, de modo que una exportación fallida no
+ * deja un fichero a medias con el nombre final.
+ */
+public class ExportadorReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportadorReservas.class);
+
+    /** Tamaño del búfer de escritura: el canal solo se escribe cuando se llena. */
+    static final int TAMANO_BUFER = 64 * 1024;
+
+    /** Octetos máximos de una línea de iCalendar antes de plegarla (RFC 5545, 3.1). */
+    static final int OCTETOS_POR_LINEA = 75;
+
+    static final String CABECERA_CSV = "id,fecha,hora_inicio,hora_fin,sala,empleado";
+
+    private static final String SUFIJO_GZIP = ".gz";
+    private static final String SUFIJO_PARCIAL = ".parcial";
+
+    /**
+     * Formato del fichero exportado.
+     */
+    public enum Formato {
+        ICS(".ics"),
+        CSV(".csv");
+
+        private final String extension;
+
+        Formato(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Deduce el formato de la extensión del fichero, sin contar un {@code .gz} final.
+         *
+         * @param fichero Ruta del fichero.
+         * @return Formato, o null si la extensión no es {@code .ics} ni {@code .csv}.
+         */
+        public static Formato de(Path fichero) {
+            String nombre = fichero.getFileName().toString().toLowerCase();
+            if (nombre.endsWith(SUFIJO_GZIP)) {
+                nombre = nombre.substring(0, nombre.length() - SUFIJO_GZIP.length());
+            }
+            for (Formato formato : values()) {
+                if (nombre.endsWith(formato.extension)) {
+                    return formato;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Origen de las reservas a exportar, normalmente una consulta en streaming con filtros.
+     */
+    @FunctionalInterface
+    public interface Origen {
+
+        /**
+         * @param consumidor Recibe cada reserva en orden.
+         * @return Número de reservas recorridas.
+         * @throws SQLException si falla la consulta.
+         */
+        long recorrer(Consumer<ConsultaReservas.Fila> consumidor) throws SQLException;
+    }
+
+    /**
+     * Resultado de una exportación.
+     *
+     * @param reservas Reservas exportadas.
+     * @param bytes    Tamaño del fichero escrito (comprimido, si se pidió gzip).
+     * @param millis   Duración total en milisegundos.
+     */
+    public record ResultadoExportacion(long reservas, long bytes, long millis) {
+
+        /**
+         * @return Reservas exportadas por segundo.
+         */
+        public double reservasPorSegundo() {
+            return millis == 0 ? reservas * 1000.0 : reservas * 1000.0 / millis;
+        }
+    }
+
+    /**
+     * @param fichero Ruta del fichero.
+     * @return true si el nombre termina en {@code .gz} y debe comprimirse.
+     */
+    public static boolean comprimido(Path fichero) {
+        return fichero.getFileName().toString().toLowerCase().endsWith(SUFIJO_GZIP);
+    }
+
+    /**
+     * Exporta las reservas del origen a un fichero, sustituyéndolo si ya existe.
+     *
+     * @param origen  Reservas a exportar, en el orden en que se escribirán.
+     * @param formato Formato del fichero.
+     * @param destino Ruta del fichero.
+     * @param gzip    true para comprimir el fichero con gzip.
+     * @return Resumen de la exportación.
+     * @throws IOException  si falla la escritura del fichero.
+     * @throws SQLException si falla la lectura de las reservas.
+     */
+    public static ResultadoExportacion exportar(Origen origen, Formato formato, Path destino, boolean gzip)
+            throws IOException, SQLException {
+        long inicio = System.currentTimeMillis();
+        Path parcial = destino.resolveSibling(destino.getFileName() + SUFIJO_PARCIAL);
+        long reservas;
+        try {
+            try (Escritor escritor = new Escritor(abrir(parcial, gzip), formato, gzip)) {
+                escritor.empezar(LocalDateTime.now(ZoneOffset.UTC));
+                try {
+                    reservas = origen.recorrer(escritor::escribir);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                escritor.terminar();
+            }
+            mover(parcial, destino);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(parcial);
+            throw e;
+        }
+        ResultadoExportacion resultado = new ResultadoExportacion(reservas, Files.size(destino),
+                System.currentTimeMillis() - inicio);
+        logger.info("Exportadas {} reservas a {} ({} bytes) en {} ms", resultado.reservas(), destino,
+                resultado.bytes(), resultado.millis());
+        return resultado;
+    }
+
+    private static WritableByteChannel abrir(Path fichero, boolean gzip) throws IOException {
+        FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (!gzip) {
+            return canal;
+        }
+        try {
+            return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(canal), TAMANO_BUFER));
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private static void mover(Path origen, Path destino) throws IOException {
+        try {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Da formato a las reservas y las escribe en un canal a través de un búfer fijo. La línea en
+     * curso se compone en un {@link StringBuilder} reutilizado, así que escribir una reserva no
+     * crea objetos salvo los textos que ya trae la fila.
+     */
+    static final class Escritor implements Closeable {
+
+        private final WritableByteChannel canal;
+        private final Formato formato;
+        private final ByteBuffer bufer;
+        private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder linea = new StringBuilder(256);
+        private final StringBuilder sello = new StringBuilder(16);
+
+        Escritor(WritableByteChannel canal, Formato formato, boolean gzip) {
+            this.canal = canal;
+            this.formato = formato;
+            // Sin gzip el canal es el fichero y escribe sin copia desde memoria directa; con gzip se
+            // comprime desde un array, así que el búfer va en el heap
+            this.bufer = gzip ? ByteBuffer.allocate(TAMANO_BUFER) : ByteBuffer.allocateDirect(TAMANO_BUFER);
+        }
+
+        /**
+         * Escribe la cabecera del fichero.
+         *
+         * @param ahora Momento de la exportación en UTC, usado como {@code DTSTAMP} de los eventos.
+         */
+        void empezar(LocalDateTime ahora) throws IOException {
+            if (formato == Formato.CSV) {
+                linea.append(CABECERA_CSV).append("\r\n");
+            } else {
+                fechaHora(sello, ahora.toLocalDate(), ahora.toLocalTime()).append('Z');
+                linea.append("BEGIN:VCALENDAR\r\n")
+                        .append("VERSION:2.0\r\n")
+                        .append("PRODID:-//Empresa//Reservas de salas//ES\r\n")
+                        .append("CALSCALE:GREGORIAN\r\n")
+                        .append("METHOD:PUBLISH\r\n")
+                        .append("X-WR-CALNAME:Reservas de salas\r\n");
+            }
+            volcarLinea();
+        }
+
+        /**
+         * Escribe una reserva.
+         *
+         * @throws UncheckedIOException si falla la escritura, para poder usarse como {@link Consumer}.
+         */
+        void escribir(ConsultaReservas.Fila fila) {
+            try {
+                if (formato == Formato.CSV) {
+                    csv(fila);
+                } else {
+                    evento(fila);
+                }
+                volcarLinea();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Escribe el final del fichero y lo que quede en el búfer.
+         */
+        void terminar() throws IOException {
+            if (formato == Formato.ICS) {
+                linea.append("END:VCALENDAR\r\n");
+            }
+            volcarLinea();
+            codificador.encode(CharBuffer.allocate(0), bufer, true);
+            codificador.flush(bufer);
+            vaciar();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+
+        private void csv(ConsultaReservas.Fila fila) {
+            fecha(linea.append(fila.id()).append(','), fila.fecha(), '-').append(',');
+            hora(linea, fila.horaInicio(), ':').append(',');
+            hora(linea, fila.horaFin(), ':').append(',');
+            campoCsv(fila.sala());
+            linea.append(',');
+            campoCsv(fila.empleado());
+            linea.append("\r\n");
+        }
+
+        private void campoCsv(String valor) {
+            boolean comillas = false;
+            for (int i = 0; i < valor.length() && !comillas; i++) {
+                char c = valor.charAt(i);
+                comillas = c == ',' || c == ';' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!comillas) {
+                linea.append(valor);
+                return;
+            }
+            linea.append('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '"') {
+                    linea.append('"');
+                }
+                linea.append(c);
+            }
+            linea.append('"');
+        }
+
+        private void evento(ConsultaReservas.Fila fila) {
+            linea.append("BEGIN:VEVENT\r\n")
+                    .append("UID:reserva-").append(fila.id()).append("@reservas-salas\r\n")
+                    .append("DTSTAMP:").append(sello).append("\r\n");
+            // Hora local sin zona: el cliente la muestra tal cual, como en la consola
+            fechaHora(linea.append("DTSTART:"), fila.fecha(), fila.horaInicio()).append("\r\n");
+            fechaHora(linea.append("DTEND:"), fila.fecha(), fila.horaFin()).append("\r\n");
+            propiedad("SUMMARY", fila.sala(), " - ", fila.empleado());
+            propiedad("LOCATION", fila.sala(), "", "");
+            linea.append("END:VEVENT\r\n");
+        }
+
+        /**
+         * Añade una propiedad de texto escapada y plegada a {@link #OCTETOS_POR_LINEA} octetos.
+         */
+        private void propiedad(String nombre, String valor, String separador, String resto) {
+            int inicio = linea.length();
+            linea.append(nombre).append(':');
+            escaparTexto(valor);
+            linea.append(separador);
+            escaparTexto(resto);
+            plegar(linea, inicio);
+            linea.append("\r\n");
+        }
+
+        private void escaparTexto(String valor) {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                switch (c) {
+                    case '\\', ';', ',' -> linea.append('\\').append(c);
+                    case '\n' -> linea.append("\\n");
+                    case '\r' -> { }
+                    default -> linea.append(c);
+                }
+            }
+        }
+
+        /**
+         * Codifica la línea en curso en el búfer, escribiendo en el canal cada vez que se llena.
+         */
+        private void volcarLinea() throws IOException {
+            CharBuffer caracteres = CharBuffer.wrap(linea);
+            while (true) {
+                CoderResult resultado = codificador.encode(caracteres, bufer, false);
+                if (resultado.isUnderflow()) {
+                    break;
+                }
+                if (resultado.isOverflow()) {
+                    vaciar();
+                } else {
+                    resultado.throwException();
+                }
+            }
+            linea.setLength(0);
+        }
+
+        private void vaciar() throws IOException {
+            bufer.flip();
+            while (bufer.hasRemaining()) {
+                canal.write(bufer);
+            }
+            bufer.clear();
+        }
+    }
+
+    /**
+     * Parte la línea que empieza en {@code inicio} en líneas de como mucho {@link #OCTETOS_POR_LINEA}
+     * octetos en UTF-8, cada continuación precedida de CRLF y un espacio. No separa los pares suplentes.
+     */
+    static void plegar(StringBuilder sb, int inicio) {
+        int octetos = 0;
+        for (int i = inicio; i < sb.length(); i++) {
+            char c = sb.charAt(i);
+            int tamano = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : 3;
+            if (octetos + tamano > OCTETOS_POR_LINEA) {
+                sb.insert(i, "\r\n ");
+                i += 3;
+                // El espacio de la continuación cuenta como un octeto
+                octetos = 1;
+            }
+            octetos += tamano;
+            if (Character.isHighSurrogate(c)) {
+                i++;
+            }
+        }
+    }
+
+    private static StringBuilder fechaHora(StringBuilder sb, LocalDate fecha, LocalTime hora) {
+        return hora(fecha(sb, fecha, (char) 0).append('T'), hora, (char) 0);
+    }
+
+    /**
+     * Añade la fecha como {@code yyyy-MM-dd}, o {@code yyyyMMdd} si el separador es 0.
+     */
+    private static StringBuilder fecha(StringBuilder sb, LocalDate fecha, char separador) {
+        sb.append(fecha.getYear());
+        if (separador != 0) {
+            sb.append(separador);
+        }
+        dosCifras(sb, fecha.getMonthValue());
+        if (separador != 0) {
+            sb.append(separador);
+        }
+        dosCifras(sb, fecha.getDayOfMonth());
+        return sb;
+    }
+
+    /**
+     * Añade la hora como {@code HH:mm:ss}, o {@code HHmmss} si el separador es 0.
+     */
+    private static StringBuilder hora(StringBuilder sb, LocalTime hora, char separador) {
+        dosCifras(sb, hora.getHour());
+        if (separador != 0) {
+            sb.append(separador);
+        }
+        dosCifras(sb, hora.getMinute());
+        if (separador != 0) {
+            sb.append(separador);
+        }
+        dosCifras(sb, hora.getSecond());
+        return sb;
+    }
+
+    private static void dosCifras(StringBuilder sb, int valor) {
+        sb.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+}
@@ -0,0 +1,438 @@
+package com.empresa.reservas;
+
+import com.empresa.salas.CacheSalas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Importación masiva de reservas desde ficheros CSV.
+ * <p>
+ * Formato de cada línea (la cabecera es opcional):
+ * {@code sala,empleado_id,fecha,hora_inicio,hora_fin}, por ejemplo
+ * {@code Sala A,3,2025-07-01,09:00:00,10:00:00}. Se admite {@code ;} como separador
+ * y campos entre comillas dobles.
+ * <p>
+ * El fichero se lee en streaming y se procesa por lotes: las salas y empleados se resuelven
+ * con una consulta cada uno al empezar, la ocupación existente se lee con una consulta por lote
+ * y los solapamientos dentro del propio fichero se detectan en memoria. Cada lote se inserta
+ * con {@code addBatch}/{@code executeBatch} en su propia transacción, con los cerrojos de
+ * {@link ServicioReservas} de sus pares (sala, fecha) tomados desde la lectura de la ocupación
+ * hasta que el calendario y el índice reflejan las filas insertadas.
+ */
+public class ImportadorReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportadorReservas.class);
+
+    /** Tamaño de lote por defecto. */
+    public static final int TAMANO_LOTE = 500;
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO reservas (sala_id, empleado_id, fecha, hora_inicio, hora_fin) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Fila rechazada durante la importación.
+     *
+     * @param linea     Número de línea en el fichero.
+     * @param contenido Texto original de la línea.
+     * @param motivo    Causa del rechazo.
+     */
+    public record Rechazo(int linea, String contenido, String motivo) {
+    }
+
+    /**
+     * Resultado de una importación.
+     *
+     * @param leidas     Filas de datos leídas (sin contar cabecera ni líneas vacías).
+     * @param insertadas Reservas insertadas.
+     * @param rechazos   Filas rechazadas con su motivo.
+     * @param millis     Duración total en milisegundos.
+     */
+    public record ResultadoImportacion(int leidas, int insertadas, List<Rechazo> rechazos, long millis) {
+
+        /**
+         * Calcula el rendimiento de la importación.
+         *
+         * @return Filas procesadas por segundo.
+         */
+        public double filasPorSegundo() {
+            return millis == 0 ? leidas * 1000.0 : leidas * 1000.0 / millis;
+        }
+    }
+
+    /** Fila válida pendiente de insertar. */
+    private record Fila(int linea, String contenido, int salaId, int empleadoId, LocalDate fecha,
+                        LocalTime inicio, LocalTime fin) {
+
+        ClaveSalaFecha clave() {
+            return new ClaveSalaFecha(salaId, fecha);
+        }
+    }
+
+    private record ClaveSalaFecha(int salaId, LocalDate fecha) {
+    }
+
+    /** Estado que se conserva entre lotes durante una importación. */
+    private static final class Estado {
+        final Map<String, Integer> salas;
+        final Set<Integer> empleados;
+        final Map<ClaveSalaFecha, ArbolIntervalos> ocupacion = new HashMap<>();
+        final List<Rechazo> rechazos = new ArrayList<>();
+        int leidas;
+        int insertadas;
+
+        Estado(Map<String, Integer> salas, Set<Integer> empleados) {
+            this.salas = salas;
+            this.empleados = empleados;
+        }
+    }
+
+    /**
+     * Importa las reservas de un fichero CSV en UTF-8.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param fichero    Ruta del fichero CSV.
+     * @param tamanoLote Filas por lote y transacción.
+     * @return Resultado de la importación.
+     * @throws IOException  si falla la lectura del fichero.
+     * @throws SQLException si falla la preparación de la importación.
+     */
+    public static ResultadoImportacion importar(Connection conn, Path fichero, int tamanoLote) throws IOException, SQLException {
+        try (Reader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            return importar(conn, lector, tamanoLote);
+        }
+    }
+
+    /**
+     * Importa las reservas leídas de un flujo de texto CSV.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param origen     Flujo con el contenido CSV.
+     * @param tamanoLote Filas por lote y transacción.
+     * @return Resultado de la importación.
+     * @throws IOException  si falla la lectura del flujo.
+     * @throws SQLException si falla la preparación de la importación.
+     */
+    public static ResultadoImportacion importar(Connection conn, Reader origen, int tamanoLote) throws IOException, SQLException {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que 0");
+        }
+        long inicio = System.nanoTime();
+        Estado estado = new Estado(cargarSalas(conn), cargarEmpleados(conn));
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            BufferedReader lector = origen instanceof BufferedReader br ? br : new BufferedReader(origen);
+            List<Fila> lote = new ArrayList<>(tamanoLote);
+            String linea;
+            int numero = 0;
+
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (linea.isBlank() || (numero == 1 && esCabecera(linea))) {
+                    continue;
+                }
+                estado.leidas++;
+                Fila fila = parsear(numero, linea, estado);
+                if (fila != null) {
+                    lote.add(fila);
+                }
+                if (lote.size() >= tamanoLote) {
+                    procesarLote(conn, lote, estado);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                procesarLote(conn, lote, estado);
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        ResultadoImportacion resultado = new ResultadoImportacion(estado.leidas, estado.insertadas, estado.rechazos, millis);
+        logger.info("Importación de reservas: {} leídas, {} insertadas, {} rechazadas en {} ms ({} filas/s)",
+                resultado.leidas(), resultado.insertadas(), resultado.rechazos().size(), millis,
+                Math.round(resultado.filasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Procesa un lote con los cerrojos de {@link ServicioReservas} de todos sus pares (sala, fecha), tomados
+     * en orden creciente. Así ninguna alta de la consola, la API o {@code --lote} puede colarse entre la
+     * lectura de la ocupación y la actualización del índice y el calendario.
+     */
+    private static void procesarLote(Connection conn, List<Fila> lote, Estado estado) throws SQLException {
+        List<Lock> cerrojos = ServicioReservas.getInstancia().cerrojos(lote, Fila::salaId, Fila::fecha);
+        cerrojos.forEach(Lock::lock);
+        try {
+            procesarLoteBloqueado(conn, lote, estado);
+        } finally {
+            cerrojos.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Comprueba los solapamientos del lote, inserta las filas aceptadas, confirma la transacción y
+     * actualiza el calendario y el índice. Requiere los cerrojos de los pares del lote.
+     */
+    private static void procesarLoteBloqueado(Connection conn, List<Fila> lote, Estado estado) throws SQLException {
+        cargarOcupacion(conn, lote, estado.ocupacion);
+
+        List<Fila> aceptadas = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            ArbolIntervalos arbol = estado.ocupacion.get(fila.clave());
+            int solapado = arbol.idSolapado(fila.inicio().toSecondOfDay(), fila.fin().toSecondOfDay(), null);
+            if (solapado == ArbolIntervalos.NINGUNO) {
+                // Las filas del fichero se marcan con id negativo (-línea) para distinguirlas
+                arbol.insertar(-fila.linea(), fila.inicio().toSecondOfDay(), fila.fin().toSecondOfDay());
+                aceptadas.add(fila);
+            } else if (solapado < 0) {
+                estado.rechazos.add(new Rechazo(fila.linea(), fila.contenido(),
+                        "Se solapa con la línea " + (-solapado) + " del fichero"));
+            } else {
+                estado.rechazos.add(new Rechazo(fila.linea(), fila.contenido(),
+                        "Se solapa con la reserva existente " + solapado));
+            }
+        }
+        if (aceptadas.isEmpty()) {
+            return;
+        }
+
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        boolean mantenerIndice = indice.estaCargado();
+        int[] ids = null;
+        // Solo lo que va hasta el commit puede deshacerse y rechazar filas; lo posterior ya está confirmado
+        try {
+            try (PreparedStatement pstmt = mantenerIndice
+                    ? conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(SQL_INSERTAR)) {
+                for (Fila fila : aceptadas) {
+                    pstmt.setInt(1, fila.salaId());
+                    pstmt.setInt(2, fila.empleadoId());
+                    pstmt.setDate(3, Date.valueOf(fila.fecha()));
+                    pstmt.setTime(4, Time.valueOf(fila.inicio()));
+                    pstmt.setTime(5, Time.valueOf(fila.fin()));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                if (mantenerIndice) {
+                    ids = clavesGeneradas(pstmt);
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            logger.error("Error al insertar un lote de {} reservas; se deshace el lote", aceptadas.size(), e);
+            conn.rollback();
+            for (Fila fila : aceptadas) {
+                estado.ocupacion.get(fila.clave()).eliminar(-fila.linea(), fila.inicio().toSecondOfDay());
+                estado.rechazos.add(new Rechazo(fila.linea(), fila.contenido(), "Error de base de datos: " + e.getMessage()));
+            }
+            return;
+        }
+
+        estado.insertadas += aceptadas.size();
+        CalendarioSalas calendario = CalendarioSalas.getInstancia();
+        aceptadas.forEach(f -> calendario.marcar(f.salaId(), f.fecha(), f.inicio(), f.fin()));
+        if (mantenerIndice) {
+            registrarEnIndice(ids, aceptadas, indice);
+        }
+    }
+
+    /**
+     * Lee en una sola consulta las reservas existentes de los pares (sala, fecha) del lote. Los pares
+     * que ya se habían consultado en lotes anteriores se vuelven a leer para ver las altas hechas desde
+     * entonces por otros; de ellos solo se añaden las reservas que no se solapan con nada conocido, porque
+     * las que se solapan son las ya leídas o las que insertó este mismo fichero.
+     */
+    private static void cargarOcupacion(Connection conn, List<Fila> lote, Map<ClaveSalaFecha, ArbolIntervalos> ocupacion)
+            throws SQLException {
+        Set<ClaveSalaFecha> pares = new LinkedHashSet<>();
+        Set<ClaveSalaFecha> nuevos = new HashSet<>();
+        for (Fila fila : lote) {
+            if (pares.add(fila.clave()) && !ocupacion.containsKey(fila.clave())) {
+                ocupacion.put(fila.clave(), new ArbolIntervalos());
+                nuevos.add(fila.clave());
+            }
+        }
+
+        StringJoiner marcadores = new StringJoiner(", ", "(", ")");
+        pares.forEach(c -> marcadores.add("(?, ?)"));
+        String sql = "SELECT id, sala_id, fecha, hora_inicio, hora_fin FROM reservas WHERE (sala_id, fecha) IN "
+                + marcadores;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (ClaveSalaFecha clave : pares) {
+                pstmt.setInt(i++, clave.salaId());
+                pstmt.setDate(i++, Date.valueOf(clave.fecha()));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ClaveSalaFecha clave = new ClaveSalaFecha(rs.getInt("sala_id"), rs.getDate("fecha").toLocalDate());
+                    ArbolIntervalos arbol = ocupacion.get(clave);
+                    int inicio = rs.getTime("hora_inicio").toLocalTime().toSecondOfDay();
+                    int fin = rs.getTime("hora_fin").toLocalTime().toSecondOfDay();
+                    if (nuevos.contains(clave) || arbol.idSolapado(inicio, fin, null) == ArbolIntervalos.NINGUNO) {
+                        arbol.insertar(rs.getInt("id"), inicio, fin);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee las claves generadas por el INSERT del lote. Un fallo aquí no invalida el lote: se devuelve
+     * null y las reservas se insertan igualmente, aunque no se puedan añadir al índice.
+     */
+    private static int[] clavesGeneradas(PreparedStatement pstmt) {
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet claves = pstmt.getGeneratedKeys()) {
+            while (claves != null && claves.next()) {
+                ids.add(claves.getInt(1));
+            }
+        } catch (SQLException e) {
+            logger.warn("No se pudieron leer las claves generadas del lote", e);
+            return null;
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Añade al índice de disponibilidad las reservas ya confirmadas usando las claves generadas. Si faltan
+     * claves o falla el registro, se invalida el índice en lugar de dar por fallidas filas ya guardadas.
+     */
+    private static void registrarEnIndice(int[] ids, List<Fila> aceptadas, IndiceDisponibilidad indice) {
+        if (ids == null || ids.length < aceptadas.size()) {
+            logger.warn("El driver no devolvió todas las claves generadas; se invalida el índice de disponibilidad");
+            indice.invalidar();
+            return;
+        }
+        try {
+            for (int i = 0; i < aceptadas.size(); i++) {
+                Fila fila = aceptadas.get(i);
+                indice.registrar(ids[i], fila.salaId(), fila.empleadoId(), fila.fecha(), fila.inicio(), fila.fin());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo actualizar el índice de disponibilidad; se invalida", e);
+            indice.invalidar();
+        }
+    }
+
+    /**
+     * Valida una línea del fichero. Si no es válida, registra el rechazo y devuelve null.
+     */
+    private static Fila parsear(int numero, String linea, Estado estado) {
+        List<String> campos = separarCampos(linea);
+        if (campos.size() != 5) {
+            estado.rechazos.add(new Rechazo(numero, linea, "Se esperaban 5 campos y hay " + campos.size()));
+            return null;
+        }
+
+        Integer salaId = estado.salas.get(campos.get(0));
+        if (salaId == null) {
+            estado.rechazos.add(new Rechazo(numero, linea, "La sala '" + campos.get(0) + "' no existe"));
+            return null;
+        }
+
+        int empleadoId;
+        LocalDate fecha;
+        LocalTime inicio;
+        LocalTime fin;
+        try {
+            empleadoId = Integer.parseInt(campos.get(1));
+            fecha = Date.valueOf(campos.get(2)).toLocalDate();
+            inicio = Time.valueOf(campos.get(3)).toLocalTime();
+            fin = Time.valueOf(campos.get(4)).toLocalTime();
+        } catch (IllegalArgumentException e) {
+            estado.rechazos.add(new Rechazo(numero, linea, "Formato inválido: " + e.getMessage()));
+            return null;
+        }
+
+        if (!estado.empleados.contains(empleadoId)) {
+            estado.rechazos.add(new Rechazo(numero, linea, "El empleado " + empleadoId + " no existe"));
+            return null;
+        }
+        if (!inicio.isBefore(fin)) {
+            estado.rechazos.add(new Rechazo(numero, linea, "La hora de inicio debe ser anterior a la hora de fin"));
+            return null;
+        }
+        return new Fila(numero, linea, salaId, empleadoId, fecha, inicio, fin);
+    }
+
+    /**
+     * Separa una línea CSV por comas o punto y coma, respetando los campos entre comillas dobles.
+     */
+    public static List<String> separarCampos(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if ((c == ',' || c == ';') && !entreComillas) {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    /**
+     * La primera línea es cabecera si su segundo campo (empleado_id) no es numérico.
+     */
+    private static boolean esCabecera(String linea) {
+        List<String> campos = separarCampos(linea);
+        return campos.size() > 1 && !campos.get(1).matches("\\d+");
+    }
+
+    private static Map<String, Integer> cargarSalas(Connection conn) throws SQLException {
+        Map<String, Integer> salas = new HashMap<>();
+        CacheSalas cache = CacheSalas.getInstancia();
+        if (cache.estaCargada()) {
+            cache.todas().forEach(s -> salas.putIfAbsent(s.nombre(), s.id()));
+            return salas;
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, nombre FROM salas")) {
+            while (rs.next()) {
+                salas.put(rs.getString("nombre"), rs.getInt("id"));
+            }
+        }
+        return salas;
+    }
+
+    private static Set<Integer> cargarEmpleados(Connection conn) throws SQLException {
+        Set<Integer> empleados = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM empleados")) {
+            while (rs.next()) {
+                empleados.add(rs.getInt("id"));
+            }
+        }
+        return empleados;
+    }
+}
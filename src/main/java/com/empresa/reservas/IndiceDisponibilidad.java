@@ -0,0 +1,259 @@
+package com.empresa.reservas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de la ocupación de las salas.
+ * Mantiene un {@link ArbolIntervalos} por cada par (sala, fecha) para responder en O(log n)
+ * si un horario se solapa con alguna reserva existente, sin consultar la base de datos.
+ * Se carga desde la tabla {@code reservas} al arrancar y se actualiza desde las operaciones
+ * de {@link Reservas}; mientras no esté cargado, las comprobaciones usan SQL.
+ */
+public class IndiceDisponibilidad {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceDisponibilidad.class);
+    private static final IndiceDisponibilidad INSTANCIA = new IndiceDisponibilidad();
+
+    /** Clave de agrupación de las reservas: una sala en una fecha. */
+    private record ClaveSalaFecha(int salaId, LocalDate fecha) {
+    }
+
+    /** Datos de una reserva indexada, necesarios para localizarla al actualizar o eliminar. */
+    private record Entrada(int salaId, int empleadoId, LocalDate fecha, int inicio, int fin) {
+    }
+
+    private final Map<ClaveSalaFecha, ArbolIntervalos> arboles = new HashMap<>();
+    private final Map<Integer, Entrada> porId = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean cargado;
+
+    /**
+     * Devuelve el índice compartido por toda la aplicación.
+     *
+     * @return Instancia única del índice.
+     */
+    public static IndiceDisponibilidad getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Carga (o recarga) el índice con todas las reservas de la base de datos.
+     *
+     * @param conn Conexión a la base de datos.
+     * @throws SQLException si falla la lectura de la tabla de reservas.
+     */
+    public void cargar(Connection conn) throws SQLException {
+        String sql = "SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin FROM reservas";
+        Map<ClaveSalaFecha, ArbolIntervalos> nuevosArboles = new HashMap<>();
+        Map<Integer, Entrada> nuevoPorId = new HashMap<>();
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                Entrada entrada = new Entrada(
+                        rs.getInt("sala_id"),
+                        rs.getInt("empleado_id"),
+                        rs.getDate("fecha").toLocalDate(),
+                        rs.getTime("hora_inicio").toLocalTime().toSecondOfDay(),
+                        rs.getTime("hora_fin").toLocalTime().toSecondOfDay());
+                int id = rs.getInt("id");
+                nuevoPorId.put(id, entrada);
+                nuevosArboles.computeIfAbsent(new ClaveSalaFecha(entrada.salaId(), entrada.fecha()), k -> new ArbolIntervalos())
+                        .insertar(id, entrada.inicio(), entrada.fin());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            arboles.clear();
+            arboles.putAll(nuevosArboles);
+            porId.clear();
+            porId.putAll(nuevoPorId);
+            cargado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Índice de disponibilidad cargado con {} reservas", nuevoPorId.size());
+    }
+
+    /**
+     * Indica si el índice refleja el contenido de la base de datos.
+     *
+     * @return true si se ha cargado y no se ha invalidado después.
+     */
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    /**
+     * Vacía el índice y lo marca como no cargado, de modo que las comprobaciones vuelvan a usar SQL.
+     */
+    public void invalidar() {
+        lock.writeLock().lock();
+        try {
+            cargado = false;
+            arboles.clear();
+            porId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Verifica si el horario dado se solapa con alguna reserva indexada de la sala en esa fecha.
+     *
+     * @param salaId     ID de la sala.
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @param excluirId  ID de reserva a excluir de la comprobación, puede ser null.
+     * @return true si existe conflicto; false en caso contrario.
+     */
+    public boolean haySolapamiento(int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, Integer excluirId) {
+        lock.readLock().lock();
+        try {
+            ArbolIntervalos arbol = arboles.get(new ClaveSalaFecha(salaId, fecha));
+            return arbol != null
+                    && arbol.haySolapamiento(horaInicio.toSecondOfDay(), horaFin.toSecondOfDay(), excluirId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve los datos indexados de una reserva.
+     *
+     * @param id ID de la reserva.
+     * @return Reserva (sin versión), o null si no está indexada o el índice no está cargado.
+     */
+    public Reserva buscar(int id) {
+        lock.readLock().lock();
+        try {
+            Entrada entrada = porId.get(id);
+            return entrada == null ? null : new Reserva(id, entrada.salaId(), entrada.empleadoId(), entrada.fecha(),
+                    LocalTime.ofSecondOfDay(entrada.inicio()), LocalTime.ofSecondOfDay(entrada.fin()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registra una reserva nueva o sustituye los datos de una ya indexada.
+     * Las modificaciones se ignoran mientras el índice no esté cargado.
+     *
+     * @param id         ID de la reserva.
+     * @param salaId     ID de la sala.
+     * @param empleadoId ID del empleado.
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     */
+    public void registrar(int id, int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
+        Entrada entrada = new Entrada(salaId, empleadoId, fecha, horaInicio.toSecondOfDay(), horaFin.toSecondOfDay());
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            quitar(id);
+            porId.put(id, entrada);
+            arboles.computeIfAbsent(new ClaveSalaFecha(salaId, fecha), k -> new ArbolIntervalos())
+                    .insertar(id, entrada.inicio(), entrada.fin());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina una reserva del índice.
+     *
+     * @param id ID de la reserva.
+     */
+    public void eliminar(int id) {
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            quitar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina todas las reservas de una sala (borrado en cascada al eliminar la sala).
+     *
+     * @param salaId ID de la sala.
+     */
+    public void eliminarPorSala(int salaId) {
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            porId.values().removeIf(e -> e.salaId() == salaId);
+            arboles.keySet().removeIf(k -> k.salaId() == salaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina todas las reservas de un empleado (borrado en cascada al eliminar el empleado).
+     *
+     * @param empleadoId ID del empleado.
+     */
+    public void eliminarPorEmpleado(int empleadoId) {
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            porId.entrySet().stream()
+                    .filter(e -> e.getValue().empleadoId() == empleadoId)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(this::quitar);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve el número de reservas indexadas.
+     *
+     * @return Número de reservas.
+     */
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return porId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void quitar(int id) {
+        Entrada anterior = porId.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        ClaveSalaFecha clave = new ClaveSalaFecha(anterior.salaId(), anterior.fecha());
+        ArbolIntervalos arbol = arboles.get(clave);
+        if (arbol != null) {
+            arbol.eliminar(id, anterior.inicio());
+            if (arbol.estaVacio()) {
+                arboles.remove(clave);
+            }
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.empresa.reservas;
+
+import com.empresa.salas.Sala;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Informe de ocupación de las salas en un rango de fechas: porcentaje de uso de cada sala y de cada
+ * día, mapa de calor por día de la semana y hora, y minutos reservados por departamento.
+ * <p>
+ * Las reservas del rango se leen en una sola pasada con un cursor de solo avance y se acumulan en
+ * arrays de primitivos (minutos por sala y hora, por día, por día de la semana y hora y por
+ * departamento), de modo que la memoria depende del número de salas, días y departamentos y no del
+ * de reservas. En rangos de {@value #DIAS_PARALELO} días o más, con varios procesadores, el hilo que
+ * lee el cursor reparte las filas en bloques de {@value #FILAS_POR_BLOQUE} entre varios hilos, cada
+ * uno con sus propios arrays, que se suman al terminar.
+ * <p>
+ * El porcentaje de ocupación cuenta solo los minutos dentro de la jornada del {@link Periodo}
+ * (todos los días del rango); el mapa de calor y los departamentos cuentan el día completo.
+ */
+public final class InformeOcupacion {
+
+    /** Longitud máxima del rango, para acotar los arrays por día. */
+    public static final int DIAS_MAXIMOS = 3660;
+    /** A partir de este número de días la agregación se reparte entre varios hilos. */
+    static final int DIAS_PARALELO = 90;
+    static final int FILAS_POR_BLOQUE = 1024;
+    private static final int HILOS_MAXIMOS = 4;
+    private static final int BLOQUES_EN_COLA = 8;
+    /** Campos de cada fila en un bloque: sala, día, minuto de inicio, minuto de fin y departamento. */
+    private static final int CAMPOS = 5;
+    private static final int HORAS = 24;
+    private static final int[] FIN = new int[0];
+
+    static final String SQL_RESERVAS = """
+            SELECT r.sala_id, r.fecha, r.hora_inicio, r.hora_fin, e.departamento
+            FROM reservas r
+            JOIN empleados e ON r.empleado_id = e.id
+            WHERE r.fecha >= ? AND r.fecha <= ?""";
+
+    /** Igual que {@link #SQL_RESERVAS} con las reservas archivadas. */
+    static final String SQL_RESERVAS_CON_ARCHIVO =
+            SQL_RESERVAS.replace("FROM reservas r", "FROM " + ArchivadorReservas.RESERVAS_CON_ARCHIVO + " r");
+
+    /**
+     * Rango del informe y jornada sobre la que se calcula el porcentaje de ocupación.
+     *
+     * @param desde        Primer día (incluido).
+     * @param hasta        Último día (incluido).
+     * @param horaApertura Hora de inicio de la jornada (0-23).
+     * @param horaCierre   Hora de fin de la jornada (1-24, mayor que la de apertura).
+     * @param archivo      true para incluir las reservas trasladadas por {@link ArchivadorReservas}.
+     */
+    public record Periodo(LocalDate desde, LocalDate hasta, int horaApertura, int horaCierre, boolean archivo) {
+
+        public Periodo {
+            Objects.requireNonNull(desde, "desde");
+            Objects.requireNonNull(hasta, "hasta");
+            if (hasta.isBefore(desde)) {
+                throw new IllegalArgumentException("La fecha hasta no puede ser anterior a la fecha desde");
+            }
+            if (hasta.toEpochDay() - desde.toEpochDay() >= DIAS_MAXIMOS) {
+                throw new IllegalArgumentException("El rango no puede superar " + DIAS_MAXIMOS + " días");
+            }
+            if (horaApertura < 0 || horaCierre > HORAS || horaApertura >= horaCierre) {
+                throw new IllegalArgumentException("La jornada debe estar entre las 0 y las 24 h y no estar vacía");
+            }
+        }
+
+        /**
+         * Periodo sobre las reservas vigentes, sin las archivadas.
+         */
+        public Periodo(LocalDate desde, LocalDate hasta, int horaApertura, int horaCierre) {
+            this(desde, hasta, horaApertura, horaCierre, false);
+        }
+
+        /**
+         * @return Número de días del rango.
+         */
+        public int dias() {
+            return (int) (hasta.toEpochDay() - desde.toEpochDay()) + 1;
+        }
+
+        /**
+         * @return Minutos de la jornada de un día.
+         */
+        public int minutosJornada() {
+            return (horaCierre - horaApertura) * 60;
+        }
+    }
+
+    /**
+     * Uso de una sala en el rango.
+     *
+     * @param sala       Sala.
+     * @param minutos    Minutos reservados dentro de la jornada.
+     * @param porcentaje Minutos reservados sobre los minutos de jornada del rango (0-100).
+     * @param horaPunta  Hora del día con más minutos reservados, o -1 si no tiene reservas.
+     */
+    public record OcupacionSala(Sala sala, long minutos, double porcentaje, int horaPunta) {
+    }
+
+    /**
+     * Uso de las salas por los empleados de un departamento.
+     *
+     * @param departamento Nombre del departamento.
+     * @param reservas     Número de reservas.
+     * @param minutos      Minutos reservados.
+     */
+    public record OcupacionDepartamento(String departamento, long reservas, long minutos) {
+    }
+
+    /**
+     * Resultado del informe.
+     *
+     * @param periodo       Rango y jornada.
+     * @param reservas      Reservas del rango en salas conocidas.
+     * @param porcentaje    Ocupación media de todas las salas en la jornada (0-100).
+     * @param salas         Ocupación de cada sala, de la más a la menos ocupada.
+     * @param porDia        Ocupación media de las salas en la jornada de cada día del rango (0-100).
+     * @param mapaCalor     Ocupación por día de la semana (lunes = 0) y hora del día (0-100).
+     * @param departamentos Uso por departamento, del que más minutos reserva al que menos.
+     */
+    public record Informe(Periodo periodo, long reservas, double porcentaje, List<OcupacionSala> salas,
+                          double[] porDia, double[][] mapaCalor, List<OcupacionDepartamento> departamentos) {
+
+        /**
+         * @param fecha Día del rango.
+         * @return Ocupación media de las salas en la jornada de ese día.
+         */
+        public double porcentajeDia(LocalDate fecha) {
+            return porDia[(int) (fecha.toEpochDay() - periodo.desde().toEpochDay())];
+        }
+
+        /**
+         * @return Hora del día con más ocupación en el conjunto de la semana, o -1 si no hay reservas.
+         */
+        public int horaPunta() {
+            double[] porHora = new double[HORAS];
+            for (double[] dia : mapaCalor) {
+                for (int h = 0; h < HORAS; h++) {
+                    porHora[h] += dia[h];
+                }
+            }
+            return maximo(porHora);
+        }
+    }
+
+    private InformeOcupacion() {
+    }
+
+    /**
+     * Genera el informe leyendo las reservas del rango en una sola pasada.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param salas   Salas sobre las que se calcula la ocupación; se ignoran las reservas de otras salas.
+     * @param periodo Rango y jornada.
+     * @return Informe de ocupación.
+     * @throws SQLException si falla la consulta.
+     */
+    public static Informe generar(Connection conn, Collection<Sala> salas, Periodo periodo) throws SQLException {
+        return generar(conn, salas, periodo, hilos(periodo));
+    }
+
+    static Informe generar(Connection conn, Collection<Sala> salas, Periodo periodo, int hilos) throws SQLException {
+        String sql = periodo.archivo() ? SQL_RESERVAS_CON_ARCHIVO : SQL_RESERVAS;
+        try (Agregador agregador = new Agregador(salas, periodo, hilos);
+             PreparedStatement pstmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(ConsultaReservas.FILAS_POR_FETCH);
+            pstmt.setDate(1, Date.valueOf(periodo.desde()));
+            pstmt.setDate(2, Date.valueOf(periodo.hasta()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    agregador.anadir(rs.getInt(1), rs.getDate(2).toLocalDate(), rs.getTime(3).toLocalTime(),
+                            rs.getTime(4).toLocalTime(), rs.getString(5));
+                }
+            }
+            return agregador.terminar();
+        }
+    }
+
+    /**
+     * Acumula reservas de un rango y calcula el informe. Se alimenta desde un solo hilo; si reparte
+     * el trabajo, sus hilos terminan con {@link #terminar()} o {@link #close()}.
+     */
+    public static final class Agregador implements AutoCloseable {
+
+        private final List<Sala> salas;
+        private final Periodo periodo;
+        private final Map<Integer, Integer> indiceSala = new HashMap<>();
+        private final Map<String, Integer> indiceDepartamento = new HashMap<>();
+        private final List<String> departamentos = new ArrayList<>();
+        /** Agregación en el propio hilo, o null si se reparte. */
+        private final Acumulador local;
+        private final ExecutorService ejecutor;
+        private final BlockingQueue<int[]> cola;
+        private final List<Future<Acumulador>> futuros = new ArrayList<>();
+        private int[] bloque;
+        private int filas;
+        private boolean terminado;
+
+        Agregador(Collection<Sala> salas, Periodo periodo, int hilos) {
+            this.salas = List.copyOf(salas);
+            this.periodo = periodo;
+            for (Sala sala : this.salas) {
+                indiceSala.put(sala.id(), indiceSala.size());
+            }
+            if (hilos <= 1) {
+                local = new Acumulador(this.salas.size(), periodo);
+                ejecutor = null;
+                cola = null;
+                return;
+            }
+            local = null;
+            cola = new ArrayBlockingQueue<>(BLOQUES_EN_COLA);
+            bloque = new int[FILAS_POR_BLOQUE * CAMPOS];
+            ejecutor = Executors.newFixedThreadPool(hilos, r -> {
+                Thread hilo = new Thread(r, "informe-ocupacion");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            for (int i = 0; i < hilos; i++) {
+                futuros.add(ejecutor.submit(() -> acumular(new Acumulador(this.salas.size(), periodo))));
+            }
+        }
+
+        /**
+         * Crea un agregador que reparte el trabajo si el rango es largo y hay varios procesadores.
+         *
+         * @param salas   Salas sobre las que se calcula la ocupación.
+         * @param periodo Rango y jornada.
+         * @return Agregador vacío.
+         */
+        public static Agregador para(Collection<Sala> salas, Periodo periodo) {
+            return new Agregador(salas, periodo, hilos(periodo));
+        }
+
+        /**
+         * Añade una reserva; se ignoran las de salas desconocidas o fuera del rango.
+         *
+         * @param salaId       ID de la sala.
+         * @param fecha        Fecha.
+         * @param inicio       Hora de inicio.
+         * @param fin          Hora de fin ({@link LocalTime#MAX} para el final del día).
+         * @param departamento Departamento del empleado que reserva.
+         */
+        public void anadir(int salaId, LocalDate fecha, LocalTime inicio, LocalTime fin, String departamento) {
+            Integer sala = indiceSala.get(salaId);
+            long dia = fecha.toEpochDay() - periodo.desde().toEpochDay();
+            if (sala == null || dia < 0 || dia >= periodo.dias()) {
+                return;
+            }
+            int minutoInicio = inicio.toSecondOfDay() / 60;
+            int minutoFin = (fin.toSecondOfDay() + 59) / 60;
+            if (minutoInicio >= minutoFin) {
+                return;
+            }
+            Integer indice = indiceDepartamento.get(departamento);
+            if (indice == null) {
+                indice = departamentos.size();
+                indiceDepartamento.put(departamento, indice);
+                departamentos.add(departamento);
+            }
+            if (local != null) {
+                local.anadir(sala, (int) dia, minutoInicio, minutoFin, indice);
+                return;
+            }
+            int i = filas++ * CAMPOS;
+            bloque[i] = sala;
+            bloque[i + 1] = (int) dia;
+            bloque[i + 2] = minutoInicio;
+            bloque[i + 3] = minutoFin;
+            bloque[i + 4] = indice;
+            if (filas == FILAS_POR_BLOQUE) {
+                enviar(bloque);
+                bloque = new int[FILAS_POR_BLOQUE * CAMPOS];
+                filas = 0;
+            }
+        }
+
+        /**
+         * Espera a que se procesen todas las reservas y calcula el informe.
+         *
+         * @return Informe de ocupación.
+         */
+        public Informe terminar() {
+            terminado = true;
+            if (local != null) {
+                return local.informe(salas, departamentos);
+            }
+            if (filas > 0) {
+                enviar(Arrays.copyOf(bloque, filas * CAMPOS));
+            }
+            for (int i = 0; i < futuros.size(); i++) {
+                enviar(FIN);
+            }
+            Acumulador total = new Acumulador(salas.size(), periodo);
+            try {
+                for (Future<Acumulador> futuro : futuros) {
+                    total.sumar(futuro.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Informe de ocupación interrumpido", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error al agregar la ocupación", e.getCause());
+            } finally {
+                ejecutor.shutdownNow();
+            }
+            return total.informe(salas, departamentos);
+        }
+
+        /**
+         * Detiene los hilos si el informe no llegó a terminarse (por ejemplo, si falló la lectura).
+         */
+        @Override
+        public void close() {
+            if (ejecutor != null && !terminado) {
+                ejecutor.shutdownNow();
+            }
+        }
+
+        /**
+         * Encola un bloque sin quedarse bloqueado si algún hilo ha fallado.
+         */
+        private void enviar(int[] datos) {
+            try {
+                while (!cola.offer(datos, 100, TimeUnit.MILLISECONDS)) {
+                    for (Future<Acumulador> futuro : futuros) {
+                        if (futuro.isDone()) {
+                            futuro.get();
+                            throw new IllegalStateException("Un hilo del informe terminó antes de tiempo");
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Informe de ocupación interrumpido", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error al agregar la ocupación", e.getCause());
+            }
+        }
+
+        private Acumulador acumular(Acumulador acumulador) throws InterruptedException {
+            while (true) {
+                int[] datos = cola.take();
+                if (datos == FIN) {
+                    return acumulador;
+                }
+                for (int i = 0; i < datos.length; i += CAMPOS) {
+                    acumulador.anadir(datos[i], datos[i + 1], datos[i + 2], datos[i + 3], datos[i + 4]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Minutos reservados de un hilo. Las salas, días y departamentos llegan como índices.
+     */
+    private static final class Acumulador {
+
+        private final Periodo periodo;
+        private final int minutoApertura;
+        private final int minutoCierre;
+        private final int diaSemanaInicial;
+        private long reservas;
+        /** Minutos por sala y hora del día: {@code [sala * 24 + hora]}. */
+        private final long[] salaHora;
+        /** Minutos dentro de la jornada de cada día del rango. */
+        private final long[] dia;
+        /** Minutos por día de la semana y hora: {@code [diaSemana * 24 + hora]}. */
+        private final long[] semanaHora = new long[7 * HORAS];
+        private long[] departamentoMinutos = new long[8];
+        private long[] departamentoReservas = new long[8];
+
+        Acumulador(int salas, Periodo periodo) {
+            this.periodo = periodo;
+            this.minutoApertura = periodo.horaApertura() * 60;
+            this.minutoCierre = periodo.horaCierre() * 60;
+            this.diaSemanaInicial = periodo.desde().getDayOfWeek().ordinal();
+            this.salaHora = new long[salas * HORAS];
+            this.dia = new long[periodo.dias()];
+        }
+
+        void anadir(int sala, int indiceDia, int inicio, int fin, int departamento) {
+            reservas++;
+            int diaSemana = (diaSemanaInicial + indiceDia) % 7;
+            for (int hora = inicio / 60; hora * 60 < fin; hora++) {
+                int minutos = Math.min(fin, hora * 60 + 60) - Math.max(inicio, hora * 60);
+                salaHora[sala * HORAS + hora] += minutos;
+                semanaHora[diaSemana * HORAS + hora] += minutos;
+            }
+            int enJornada = Math.min(fin, minutoCierre) - Math.max(inicio, minutoApertura);
+            if (enJornada > 0) {
+                dia[indiceDia] += enJornada;
+            }
+            if (departamento >= departamentoMinutos.length) {
+                int tamano = Math.max(departamento + 1, departamentoMinutos.length * 2);
+                departamentoMinutos = Arrays.copyOf(departamentoMinutos, tamano);
+                departamentoReservas = Arrays.copyOf(departamentoReservas, tamano);
+            }
+            departamentoMinutos[departamento] += fin - inicio;
+            departamentoReservas[departamento]++;
+        }
+
+        void sumar(Acumulador otro) {
+            reservas += otro.reservas;
+            sumar(salaHora, otro.salaHora);
+            sumar(dia, otro.dia);
+            sumar(semanaHora, otro.semanaHora);
+            if (otro.departamentoMinutos.length > departamentoMinutos.length) {
+                departamentoMinutos = Arrays.copyOf(departamentoMinutos, otro.departamentoMinutos.length);
+                departamentoReservas = Arrays.copyOf(departamentoReservas, otro.departamentoReservas.length);
+            }
+            sumar(departamentoMinutos, otro.departamentoMinutos);
+            sumar(departamentoReservas, otro.departamentoReservas);
+        }
+
+        private static void sumar(long[] destino, long[] origen) {
+            for (int i = 0; i < origen.length; i++) {
+                destino[i] += origen[i];
+            }
+        }
+
+        Informe informe(List<Sala> salas, List<String> departamentos) {
+            int dias = periodo.dias();
+            long jornadaSala = (long) dias * periodo.minutosJornada();
+
+            List<OcupacionSala> ocupacionSalas = new ArrayList<>(salas.size());
+            long totalJornada = 0;
+            for (int s = 0; s < salas.size(); s++) {
+                long minutos = 0;
+                double[] porHora = new double[HORAS];
+                for (int hora = 0; hora < HORAS; hora++) {
+                    long enHora = salaHora[s * HORAS + hora];
+                    porHora[hora] = enHora;
+                    if (hora >= periodo.horaApertura() && hora < periodo.horaCierre()) {
+                        minutos += enHora;
+                    }
+                }
+                totalJornada += minutos;
+                ocupacionSalas.add(new OcupacionSala(salas.get(s), minutos, porcentaje(minutos, jornadaSala),
+                        maximo(porHora)));
+            }
+            ocupacionSalas.sort(Comparator.comparingDouble(OcupacionSala::porcentaje).reversed()
+                    .thenComparingInt(o -> o.sala().id()));
+
+            long jornadaDia = (long) salas.size() * periodo.minutosJornada();
+            double[] porDia = new double[dias];
+            for (int d = 0; d < dias; d++) {
+                porDia[d] = porcentaje(dia[d], jornadaDia);
+            }
+
+            double[][] mapaCalor = new double[7][HORAS];
+            for (int diaSemana = 0; diaSemana < 7; diaSemana++) {
+                long disponible = (long) salas.size() * 60 * vecesEnRango(diaSemana, dias);
+                for (int hora = 0; hora < HORAS; hora++) {
+                    mapaCalor[diaSemana][hora] = porcentaje(semanaHora[diaSemana * HORAS + hora], disponible);
+                }
+            }
+
+            List<OcupacionDepartamento> ocupacionDepartamentos = new ArrayList<>(departamentos.size());
+            for (int i = 0; i < departamentos.size(); i++) {
+                long reservasDepartamento = i < departamentoReservas.length ? departamentoReservas[i] : 0;
+                if (reservasDepartamento > 0) {
+                    ocupacionDepartamentos.add(new OcupacionDepartamento(departamentos.get(i), reservasDepartamento,
+                            departamentoMinutos[i]));
+                }
+            }
+            ocupacionDepartamentos.sort(Comparator.comparingLong(OcupacionDepartamento::minutos).reversed()
+                    .thenComparing(OcupacionDepartamento::departamento));
+
+            return new Informe(periodo, reservas, porcentaje(totalJornada, jornadaSala * salas.size()),
+                    List.copyOf(ocupacionSalas), porDia, mapaCalor, List.copyOf(ocupacionDepartamentos));
+        }
+
+        /**
+         * Número de veces que aparece un día de la semana en los {@code dias} días del rango.
+         */
+        private int vecesEnRango(int diaSemana, int dias) {
+            int desplazamiento = Math.floorMod(diaSemana - diaSemanaInicial, 7);
+            return desplazamiento < dias ? (dias - desplazamiento + 6) / 7 : 0;
+        }
+    }
+
+    private static int hilos(Periodo periodo) {
+        return periodo.dias() >= DIAS_PARALELO
+                ? Math.min(HILOS_MAXIMOS, Runtime.getRuntime().availableProcessors())
+                : 1;
+    }
+
+    private static double porcentaje(long minutos, long disponibles) {
+        return disponibles == 0 ? 0 : 100.0 * minutos / disponibles;
+    }
+
+    /**
+     * @return Índice del mayor valor positivo, o -1 si todos son 0.
+     */
+    private static int maximo(double[] valores) {
+        int maximo = -1;
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] > 0 && (maximo < 0 || valores[i] > valores[maximo])) {
+                maximo = i;
+            }
+        }
+        return maximo;
+    }
+}
@@ -0,0 +1,280 @@
+package com.empresa.reservas;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Acceso a la tabla de reservas sin interacción por consola.
+ * <p>
+ * Cada operación usa siempre el mismo texto SQL, de modo que la caché de sentencias del pool
+ * de conexiones la prepara una sola vez por conexión y la reutiliza en las llamadas siguientes.
+ */
+public final class RepositorioReservas {
+
+    static final String SQL_CONFLICTOS = """
+            SELECT COUNT(*) FROM reservas
+            WHERE sala_id = ? AND fecha = ?
+            AND hora_inicio < ? AND hora_fin > ?
+            AND id <> ?""";
+    static final String SQL_INSERTAR =
+            "INSERT INTO reservas (sala_id, empleado_id, fecha, hora_inicio, hora_fin) VALUES (?, ?, ?, ?, ?)";
+    static final String SQL_ACTUALIZAR = """
+            UPDATE reservas SET sala_id = ?, empleado_id = ?, fecha = ?, hora_inicio = ?, hora_fin = ?,
+            version = version + 1 WHERE id = ?""";
+    static final String SQL_ACTUALIZAR_VERSION = SQL_ACTUALIZAR + " AND version = ?";
+    static final String SQL_EXISTE = "SELECT COUNT(*) FROM reservas WHERE id = ?";
+    static final String SQL_BUSCAR =
+            "SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin, version FROM reservas WHERE id = ?";
+    static final String SQL_ELIMINAR = "DELETE FROM reservas WHERE id = ?";
+    static final String SQL_LISTAR = """
+            SELECT r.id, r.fecha, r.hora_inicio, r.hora_fin, s.nombre AS sala_nombre, e.nombre AS empleado_nombre
+            FROM reservas r
+            JOIN salas s ON r.sala_id = s.id
+            JOIN empleados e ON r.empleado_id = e.id""";
+    static final String SQL_OCUPACION_DIA = "SELECT sala_id, hora_inicio, hora_fin FROM reservas WHERE fecha = ?";
+
+    /** Valor de {@code id <> ?} cuando no hay reserva que excluir: los IDs empiezan en 1. */
+    private static final int SIN_EXCLUSION = 0;
+
+    private RepositorioReservas() {
+    }
+
+    /**
+     * Comprueba si alguna reserva de la sala y fecha se solapa con el horario indicado.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param salaId     ID de la sala.
+     * @param fecha      Fecha.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @param excluirId  Reserva que no se tiene en cuenta (la que se actualiza), o null.
+     * @return true si hay solapamiento.
+     * @throws SQLException si falla la consulta.
+     */
+    public static boolean existeConflicto(Connection conn, int salaId, LocalDate fecha, LocalTime horaInicio,
+                                          LocalTime horaFin, Integer excluirId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_CONFLICTOS)) {
+            pstmt.setInt(1, salaId);
+            pstmt.setDate(2, Date.valueOf(fecha));
+            pstmt.setTime(3, Time.valueOf(horaFin));
+            pstmt.setTime(4, Time.valueOf(horaInicio));
+            pstmt.setInt(5, excluirId == null ? SIN_EXCLUSION : excluirId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Inserta una reserva sin comprobar conflictos.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param salaId     ID de la sala.
+     * @param empleadoId ID del empleado.
+     * @param fecha      Fecha.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @param obtenerId  true para pedir al driver el ID generado.
+     * @return La reserva insertada (con ID 0 si no se pidió o el driver no lo devolvió), o null si no se insertó.
+     * @throws SQLException si falla la inserción.
+     */
+    public static Reserva insertar(Connection conn, int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio,
+                                   LocalTime horaFin, boolean obtenerId) throws SQLException {
+        try (PreparedStatement pstmt = obtenerId
+                ? conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(SQL_INSERTAR)) {
+            pstmt.setInt(1, salaId);
+            pstmt.setInt(2, empleadoId);
+            pstmt.setDate(3, Date.valueOf(fecha));
+            pstmt.setTime(4, Time.valueOf(horaInicio));
+            pstmt.setTime(5, Time.valueOf(horaFin));
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = obtenerId ? leerIdGenerado(pstmt) : 0;
+            return new Reserva(id, salaId, empleadoId, fecha, horaInicio, horaFin);
+        }
+    }
+
+    /**
+     * Inserta varias reservas sin comprobar conflictos con una sola ida y vuelta ({@code executeBatch}).
+     * No confirma la transacción: lo hace quien llama.
+     *
+     * @param conn      Conexión a la base de datos.
+     * @param reservas  Reservas a insertar (se ignora su ID).
+     * @param obtenerId true para pedir al driver los IDs generados.
+     * @return IDs generados en el orden de {@code reservas}, con 0 en los que el driver no devolvió.
+     * @throws SQLException si falla alguna inserción.
+     */
+    public static int[] insertarLote(Connection conn, List<Reserva> reservas, boolean obtenerId) throws SQLException {
+        int[] ids = new int[reservas.size()];
+        try (PreparedStatement pstmt = obtenerId
+                ? conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(SQL_INSERTAR)) {
+            for (Reserva reserva : reservas) {
+                pstmt.setInt(1, reserva.salaId());
+                pstmt.setInt(2, reserva.empleadoId());
+                pstmt.setDate(3, Date.valueOf(reserva.fecha()));
+                pstmt.setTime(4, Time.valueOf(reserva.horaInicio()));
+                pstmt.setTime(5, Time.valueOf(reserva.horaFin()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            if (obtenerId) {
+                try (ResultSet claves = pstmt.getGeneratedKeys()) {
+                    for (int i = 0; i < ids.length && claves != null && claves.next(); i++) {
+                        ids[i] = claves.getInt(1);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Sustituye los datos de una reserva sin comprobar conflictos ni su versión, e incrementa la versión.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param reserva Nuevos datos; el ID identifica la reserva y se ignora su versión.
+     * @return true si la reserva existía y se actualizó.
+     * @throws SQLException si falla la actualización.
+     */
+    public static boolean actualizar(Connection conn, Reserva reserva) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTUALIZAR)) {
+            asignarActualizacion(pstmt, reserva);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Sustituye los datos de una reserva solo si sigue en la versión indicada, e incrementa la versión.
+     * Comprueba la existencia y la versión en la misma sentencia que escribe.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param reserva Nuevos datos; el ID identifica la reserva y la versión es la que se leyó.
+     * @return true si se actualizó; false si no existe o ya tiene otra versión.
+     * @throws SQLException si falla la actualización.
+     */
+    public static boolean actualizarSiVersion(Connection conn, Reserva reserva) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTUALIZAR_VERSION)) {
+            asignarActualizacion(pstmt, reserva);
+            pstmt.setInt(7, reserva.version());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    private static void asignarActualizacion(PreparedStatement pstmt, Reserva reserva) throws SQLException {
+        pstmt.setInt(1, reserva.salaId());
+        pstmt.setInt(2, reserva.empleadoId());
+        pstmt.setDate(3, Date.valueOf(reserva.fecha()));
+        pstmt.setTime(4, Time.valueOf(reserva.horaInicio()));
+        pstmt.setTime(5, Time.valueOf(reserva.horaFin()));
+        pstmt.setInt(6, reserva.id());
+    }
+
+    /**
+     * Lee una reserva con su versión actual.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la reserva.
+     * @return La reserva, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static Reserva buscar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_BUSCAR)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new Reserva(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getDate(4).toLocalDate(),
+                        rs.getTime(5).toLocalTime(), rs.getTime(6).toLocalTime(), rs.getInt(7));
+            }
+        }
+    }
+
+    /**
+     * Comprueba si existe una reserva.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la reserva.
+     * @return true si existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static boolean existe(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_EXISTE)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Elimina una reserva.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la reserva.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    public static boolean eliminar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ELIMINAR)) {
+            pstmt.setInt(1, id);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Recorre todas las reservas con el nombre de su sala y empleado, leyéndolas por bloques.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param consumidor Recibe cada reserva.
+     * @return Número de reservas recorridas.
+     * @throws SQLException si falla la consulta.
+     */
+    public static long recorrer(Connection conn, Consumer<ConsultaReservas.Fila> consumidor) throws SQLException {
+        long total = 0;
+        try (Statement stmt = conn.createStatement()) {
+            // Leer en bloques para no cargar la tabla completa en el buffer del driver
+            stmt.setFetchSize(ConsultaReservas.FILAS_POR_FETCH);
+            try (ResultSet rs = stmt.executeQuery(SQL_LISTAR)) {
+                while (rs.next()) {
+                    consumidor.accept(ConsultaReservas.leerFila(rs));
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lee en una sola consulta las reservas de un día y construye la ocupación de todas las salas.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param fecha Fecha.
+     * @return Ocupación de las salas con alguna reserva ese día.
+     * @throws SQLException si falla la consulta.
+     */
+    public static BuscadorHuecos.Ocupacion leerOcupacion(Connection conn, LocalDate fecha) throws SQLException {
+        BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_OCUPACION_DIA)) {
+            pstmt.setDate(1, Date.valueOf(fecha));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ocupacion.marcar(rs.getInt(1), rs.getTime(2).toLocalTime(), rs.getTime(3).toLocalTime());
+                }
+            }
+        }
+        return ocupacion;
+    }
+
+    private static int leerIdGenerado(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet claves = pstmt.getGeneratedKeys()) {
+            return claves != null && claves.next() ? claves.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.empresa.reservas;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Acceso a las tablas de reservas periódicas ({@code series_reservas} y la columna
+ * {@code reservas.serie_id}) sin interacción por consola ni control de transacciones:
+ * quien llama agrupa las operaciones de una serie en una transacción.
+ */
+public final class RepositorioSeries {
+
+    static final String SQL_INSERTAR = """
+            INSERT INTO series_reservas (sala_id, empleado_id, frecuencia, fecha_inicio, fecha_fin, repeticiones,
+            hora_inicio, hora_fin) VALUES (?, ?, ?, ?, ?, ?, ?, ?)""";
+    static final String SQL_ACTUALIZAR = """
+            UPDATE series_reservas SET sala_id = ?, empleado_id = ?, frecuencia = ?, fecha_inicio = ?, fecha_fin = ?,
+            repeticiones = ?, hora_inicio = ?, hora_fin = ? WHERE id = ?""";
+    static final String SQL_ELIMINAR = "DELETE FROM series_reservas WHERE id = ?";
+    static final String SQL_BUSCAR = """
+            SELECT id, sala_id, empleado_id, frecuencia, fecha_inicio, fecha_fin, repeticiones, hora_inicio, hora_fin
+            FROM series_reservas""";
+    static final String SQL_INSERTAR_OCURRENCIA = """
+            INSERT INTO reservas (sala_id, empleado_id, fecha, hora_inicio, hora_fin, serie_id)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+    static final String SQL_OCURRENCIAS = """
+            SELECT id, sala_id, empleado_id, fecha, hora_inicio, hora_fin FROM reservas
+            WHERE serie_id = ? ORDER BY fecha""";
+    static final String SQL_ELIMINAR_OCURRENCIAS = "DELETE FROM reservas WHERE serie_id = ?";
+    /**
+     * Reservas de la sala que se solapan con el horario en todo el rango de fechas de la serie.
+     * Una sola consulta por rango sobre idx_reservas_sala_fecha_horas; las fechas que no son
+     * ocurrencias se descartan después con {@link SerieReservas#incluye}.
+     */
+    static final String SQL_CONFLICTOS = """
+            SELECT fecha FROM reservas
+            WHERE sala_id = ? AND fecha BETWEEN ? AND ?
+            AND hora_inicio < ? AND hora_fin > ?
+            AND (serie_id IS NULL OR serie_id <> ?)""";
+
+    /** Valor de {@code serie_id <> ?} cuando no hay serie que excluir: los IDs empiezan en 1. */
+    private static final int SIN_EXCLUSION = 0;
+
+    private RepositorioSeries() {
+    }
+
+    /**
+     * Busca las fechas de la serie en las que la sala ya está ocupada a esa hora, con una sola consulta.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param serie      Serie a comprobar.
+     * @param excluirId  Serie cuyas ocurrencias no se tienen en cuenta (la que se modifica), o null.
+     * @return Fechas en conflicto, ordenadas y sin repetir.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<LocalDate> fechasEnConflicto(Connection conn, SerieReservas serie, Integer excluirId)
+            throws SQLException {
+        TreeSet<LocalDate> conflictos = new TreeSet<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_CONFLICTOS)) {
+            pstmt.setInt(1, serie.salaId());
+            pstmt.setDate(2, Date.valueOf(serie.fechaInicio()));
+            pstmt.setDate(3, Date.valueOf(serie.ultimaFecha()));
+            pstmt.setTime(4, Time.valueOf(serie.horaFin()));
+            pstmt.setTime(5, Time.valueOf(serie.horaInicio()));
+            pstmt.setInt(6, excluirId == null ? SIN_EXCLUSION : excluirId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate fecha = rs.getDate(1).toLocalDate();
+                    if (serie.incluye(fecha)) {
+                        conflictos.add(fecha);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(conflictos);
+    }
+
+    /**
+     * Inserta la regla de una serie.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param serie Serie a guardar (se ignora su ID).
+     * @return ID generado.
+     * @throws SQLException si falla la inserción o el driver no devuelve el ID.
+     */
+    public static int insertar(Connection conn, SerieReservas serie) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+            asignarCampos(pstmt, serie);
+            pstmt.executeUpdate();
+            try (ResultSet claves = pstmt.getGeneratedKeys()) {
+                if (claves == null || !claves.next()) {
+                    throw new SQLException("No se obtuvo el ID generado de la serie");
+                }
+                return claves.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Sustituye la regla de una serie, sin tocar sus ocurrencias.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param serie Nuevos datos; el ID identifica la serie.
+     * @return true si la serie existía.
+     * @throws SQLException si falla la actualización.
+     */
+    public static boolean actualizar(Connection conn, SerieReservas serie) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTUALIZAR)) {
+            asignarCampos(pstmt, serie);
+            pstmt.setInt(9, serie.id());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Elimina una serie; la clave foránea borra sus ocurrencias en cascada.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la serie.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    public static boolean eliminar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ELIMINAR)) {
+            pstmt.setInt(1, id);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Busca una serie por ID.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la serie.
+     * @return La serie, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static SerieReservas buscar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_BUSCAR + " WHERE id = ?")) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? leer(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Lista todas las series ordenadas por ID.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return Series guardadas.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<SerieReservas> listar(Connection conn) throws SQLException {
+        List<SerieReservas> series = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_BUSCAR + " ORDER BY id")) {
+            while (rs.next()) {
+                series.add(leer(rs));
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Inserta las ocurrencias de una serie con un único lote, sin comprobar conflictos.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param serie Serie guardada (con ID).
+     * @return Número de ocurrencias insertadas.
+     * @throws SQLException si falla la inserción.
+     */
+    public static int insertarOcurrencias(Connection conn, SerieReservas serie) throws SQLException {
+        int insertadas = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERTAR_OCURRENCIA)) {
+            Time inicio = Time.valueOf(serie.horaInicio());
+            Time fin = Time.valueOf(serie.horaFin());
+            for (Iterator<LocalDate> fechas = serie.fechas().iterator(); fechas.hasNext(); ) {
+                pstmt.setInt(1, serie.salaId());
+                pstmt.setInt(2, serie.empleadoId());
+                pstmt.setDate(3, Date.valueOf(fechas.next()));
+                pstmt.setTime(4, inicio);
+                pstmt.setTime(5, fin);
+                pstmt.setInt(6, serie.id());
+                pstmt.addBatch();
+                insertadas++;
+            }
+            pstmt.executeBatch();
+        }
+        return insertadas;
+    }
+
+    /**
+     * Lee las ocurrencias guardadas de una serie.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param serieId ID de la serie.
+     * @return Reservas de la serie ordenadas por fecha.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<Reserva> ocurrencias(Connection conn, int serieId) throws SQLException {
+        List<Reserva> reservas = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_OCURRENCIAS)) {
+            pstmt.setInt(1, serieId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reservas.add(new Reserva(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getDate(4).toLocalDate(),
+                            rs.getTime(5).toLocalTime(), rs.getTime(6).toLocalTime()));
+                }
+            }
+        }
+        return reservas;
+    }
+
+    /**
+     * Elimina todas las ocurrencias de una serie y conserva la regla.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param serieId ID de la serie.
+     * @return Número de ocurrencias eliminadas.
+     * @throws SQLException si falla el borrado.
+     */
+    public static int eliminarOcurrencias(Connection conn, int serieId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ELIMINAR_OCURRENCIAS)) {
+            pstmt.setInt(1, serieId);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private static void asignarCampos(PreparedStatement pstmt, SerieReservas serie) throws SQLException {
+        pstmt.setInt(1, serie.salaId());
+        pstmt.setInt(2, serie.empleadoId());
+        pstmt.setString(3, serie.frecuencia().name());
+        pstmt.setDate(4, Date.valueOf(serie.fechaInicio()));
+        pstmt.setDate(5, serie.fechaFin() == null ? null : Date.valueOf(serie.fechaFin()));
+        if (serie.repeticiones() == null) {
+            pstmt.setNull(6, Types.INTEGER);
+        } else {
+            pstmt.setInt(6, serie.repeticiones());
+        }
+        pstmt.setTime(7, Time.valueOf(serie.horaInicio()));
+        pstmt.setTime(8, Time.valueOf(serie.horaFin()));
+    }
+
+    private static SerieReservas leer(ResultSet rs) throws SQLException {
+        Date fechaFin = rs.getDate("fecha_fin");
+        int valor = rs.getInt("repeticiones");
+        Integer repeticiones = rs.wasNull() ? null : valor;
+        return new SerieReservas(rs.getInt("id"), rs.getInt("sala_id"), rs.getInt("empleado_id"),
+                SerieReservas.Frecuencia.valueOf(rs.getString("frecuencia")),
+                rs.getDate("fecha_inicio").toLocalDate(),
+                fechaFin == null ? null : fechaFin.toLocalDate(),
+                repeticiones,
+                rs.getTime("hora_inicio").toLocalTime(), rs.getTime("hora_fin").toLocalTime());
+    }
+}
@@ -0,0 +1,26 @@
+package com.empresa.reservas;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Datos de una reserva de sala.
+ *
+ * @param id         ID de la reserva.
+ * @param salaId     ID de la sala reservada.
+ * @param empleadoId ID del empleado que reserva.
+ * @param fecha      Fecha de la reserva.
+ * @param horaInicio Hora de inicio.
+ * @param horaFin    Hora de fin.
+ * @param version    Versión de la fila, que aumenta con cada actualización.
+ */
+public record Reserva(int id, int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin,
+                      int version) {
+
+    /**
+     * Crea una reserva en su primera versión.
+     */
+    public Reserva(int id, int salaId, int empleadoId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
+        this(id, salaId, empleadoId, fecha, horaInicio, horaFin, 0);
+    }
+}
@@ -1,26 +1,71 @@
 package com.empresa.reservas;
 
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
+import com.empresa.metricas.OperacionMedida;
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.Sala;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
 import java.util.Scanner;
 
 /**
  * Clase para gestionar operaciones CRUD de reservas en salas mediante consola.
- * Interactúa con base de datos usando JDBC y realiza validaciones de conflictos.
+ * Trabaja sobre una sesión del {@link Almacen} configurado y realiza validaciones de conflictos.
  */
 public class Reservas {
 
     private static final Logger logger = LoggerFactory.getLogger(Reservas.class);
+    private static final int TAMANO_PAGINA = 20;
+    private static final int MAXIMO_HUECOS = 10;
+    private static final LocalTime APERTURA_POR_DEFECTO = LocalTime.of(8, 0);
+    private static final LocalTime CIERRE_POR_DEFECTO = LocalTime.of(20, 0);
+    private static final int DIAS_INFORME_POR_DEFECTO = 30;
+    private static final int SALAS_EN_INFORME = 5;
+    /** Por debajo de este porcentaje una sala se considera infrautilizada. */
+    private static final double OCUPACION_BAJA = 10.0;
+    private static final String[] DIAS_SEMANA = {"Lun", "Mar", "Mié", "Jue", "Vie", "Sáb", "Dom"};
+    /** Intensidad del mapa de calor: hasta 5 %, 25 %, 50 %, 75 % y más. */
+    private static final String[] NIVELES_CALOR = {" · ", " ░ ", " ▒ ", " ▓ ", " █ "};
+
+    /**
+     * Estrategia para detectar conflictos de horario.
+     * <ul>
+     *     <li>INDICE: da por libre el horario si lo asegura el {@link CalendarioSalas}; si no, usa
+     *     {@link IndiceDisponibilidad} si está cargado y SQL en caso contrario.</li>
+     *     <li>SQL: consulta siempre la base de datos.</li>
+     *     <li>VERIFICACION: consulta todos, registra discrepancias y da por buena la respuesta SQL.</li>
+     * </ul>
+     */
+    public enum ModoConflictos { INDICE, SQL, VERIFICACION }
+
+    private static volatile ModoConflictos modoConflictos =
+            ModoConflictos.valueOf(System.getProperty("reservas.modoConflictos", "INDICE").toUpperCase());
+
+    /**
+     * Cambia la estrategia de detección de conflictos.
+     *
+     * @param modo Nuevo modo de comprobación.
+     */
+    public static void setModoConflictos(ModoConflictos modo) {
+        modoConflictos = modo;
+    }
 
     /**
      * Muestra el menú principal de gestión de reservas e interactúa con el usuario.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param almacen Almacén del que se abre una sesión para cada operación.
      * @param scanner Scanner para entrada de datos por consola.
      */
-    public static void mostrarMenu(Connection conn, Scanner scanner) {
+    public static void mostrarMenu(Almacen almacen, Scanner scanner) {
         boolean salir = false;
 
         while (!salir) {
@@ -29,6 +74,12 @@ public class Reservas {
             System.out.println("2. Listar reservas");
             System.out.println("3. Actualizar reserva");
             System.out.println("4. Eliminar reserva");
+            System.out.println("5. Importar reservas desde CSV");
+            System.out.println("6. Buscar salas libres");
+            System.out.println("7. Reservas periódicas");
+            System.out.println("8. Informe de ocupación de salas");
+            System.out.println("9. Exportar reservas (iCalendar o CSV)");
+            System.out.println("10. Archivar reservas antiguas");
             System.out.println("0. Volver al menú principal");
             System.out.print("Selecciona una opción: ");
 
@@ -46,10 +97,16 @@ public class Reservas {
 
             // Evaluar opción seleccionada
             switch (opcion) {
-                case 1 -> crearReserva(conn, scanner);
-                case 2 -> listarReservas(conn);
-                case 3 -> actualizarReserva(conn, scanner);
-                case 4 -> eliminarReserva(conn, scanner);
+                case 1 -> almacen.ejecutar(sesion -> crearReserva(sesion, scanner));
+                case 2 -> almacen.ejecutar(sesion -> listarReservasPaginado(sesion, scanner));
+                case 3 -> almacen.ejecutar(sesion -> actualizarReserva(sesion, scanner));
+                case 4 -> almacen.ejecutar(sesion -> eliminarReserva(sesion, scanner));
+                case 5 -> almacen.ejecutar(sesion -> importarReservas(sesion, scanner));
+                case 6 -> almacen.ejecutar(sesion -> buscarSalasLibres(sesion, scanner));
+                case 7 -> ReservasPeriodicas.mostrarMenu(almacen, scanner);
+                case 8 -> almacen.ejecutar(sesion -> mostrarInformeOcupacion(sesion, scanner));
+                case 9 -> almacen.ejecutar(sesion -> exportarReservas(sesion, scanner));
+                case 10 -> almacen.ejecutar(sesion -> archivarReservas(sesion, scanner));
                 case 0 -> {
                     salir = true;
                     System.out.println("👋 Volviendo al menú principal...");
@@ -62,41 +119,84 @@ public class Reservas {
         }
     }
 
+    /**
+     * Obtiene el ID de una sala a partir de su nombre.
+     *
+     * @param sesion     Sesión abierta en el almacén.
+     * @param nombreSala Nombre de la sala.
+     * @return ID de la sala, o null si no existe.
+     * @throws SQLException si falla la consulta al almacén.
+     */
+    private static Integer buscarIdSala(Sesion sesion, String nombreSala) throws SQLException {
+        Sala sala = sesion.salas().buscarPorNombre(nombreSala);
+        return sala == null ? null : sala.id();
+    }
+
     /**
      * Verifica si existe un conflicto de reserva en la misma sala, fecha y horario dado.
+     * La duración de cada comprobación se registra en {@link OperacionMedida#RESERVAS_CONFLICTO}.
      *
      * @param conn       Conexión a la base de datos.
      * @param salaId     ID de la sala.
-     * @param fecha      Fecha de la reserva (formato YYYY-MM-DD).
-     * @param horaInicio Hora de inicio (formato HH:MM:SS).
-     * @param horaFin    Hora de fin (formato HH:MM:SS).
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
      * @param excluirId  ID de reserva a excluir de la comprobación (útil para actualizar), puede ser null.
      * @return true si existe conflicto; false en caso contrario.
      */
-    private static boolean existeConflictoReserva(Connection conn, int salaId, String fecha, String horaInicio, String horaFin, Integer excluirId) {
-        String sql = """
-            SELECT COUNT(*) FROM reservas
-            WHERE sala_id = ? AND fecha = ?
-            AND (hora_inicio < ? AND hora_fin > ?)""";
-
-        if (excluirId != null) {
-            sql += " AND id <> ?";
-        }
+    static boolean existeConflictoReserva(Connection conn, int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, Integer excluirId) {
+        long inicio = System.nanoTime();
+        boolean conflicto = comprobarConflicto(conn, salaId, fecha, horaInicio, horaFin, excluirId);
+        OperacionMedida.RESERVAS_CONFLICTO.registrar(inicio);
+        return conflicto;
+    }
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, salaId);
-            stmt.setDate(2, Date.valueOf(fecha));
-            stmt.setTime(3, Time.valueOf(horaFin));
-            stmt.setTime(4, Time.valueOf(horaInicio));
+    private static boolean comprobarConflicto(Connection conn, int salaId, LocalDate fecha, LocalTime horaInicio,
+                                              LocalTime horaFin, Integer excluirId) {
+        if (modoConflictos == ModoConflictos.SQL) {
+            return existeConflictoReservaSql(conn, salaId, fecha, horaInicio, horaFin, excluirId);
+        }
+        // El calendario solo puede asegurar que el horario está libre; si no lo asegura, decide el índice o SQL
+        boolean libreCalendario = CalendarioSalas.getInstancia().estaLibre(conn, salaId, fecha, horaInicio, horaFin);
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        if (modoConflictos == ModoConflictos.INDICE) {
+            return !libreCalendario && (indice.estaCargado()
+                    ? indice.haySolapamiento(salaId, fecha, horaInicio, horaFin, excluirId)
+                    : existeConflictoReservaSql(conn, salaId, fecha, horaInicio, horaFin, excluirId));
+        }
 
-            if (excluirId != null) {
-                stmt.setInt(5, excluirId);
+        boolean conflictoSql = existeConflictoReservaSql(conn, salaId, fecha, horaInicio, horaFin, excluirId);
+        if (indice.estaCargado()) {
+            boolean conflictoIndice = indice.haySolapamiento(salaId, fecha, horaInicio, horaFin, excluirId);
+            if (conflictoSql != conflictoIndice) {
+                logger.warn("Discrepancia índice/SQL en sala {} fecha {} {}-{}: índice={}, sql={}",
+                        salaId, fecha, horaInicio, horaFin, conflictoIndice, conflictoSql);
             }
+        }
+        if (libreCalendario && conflictoSql) {
+            logger.warn("Discrepancia calendario/SQL en sala {} fecha {} {}-{}: el calendario lo daba por libre",
+                    salaId, fecha, horaInicio, horaFin);
+        }
+        return conflictoSql;
+    }
 
-            ResultSet rs = stmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
+    /**
+     * Verifica el conflicto de reserva directamente contra la base de datos.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param salaId     ID de la sala.
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @param excluirId  ID de reserva a excluir de la comprobación, puede ser null.
+     * @return true si existe conflicto; false en caso contrario.
+     */
+    private static boolean existeConflictoReservaSql(Connection conn, int salaId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, Integer excluirId) {
+        try {
+            return RepositorioReservas.existeConflicto(conn, salaId, fecha, horaInicio, horaFin, excluirId);
         } catch (SQLException e) {
             logger.error("Error verificando conflicto de reserva", e);
+            OperacionMedida.RESERVAS_CONFLICTO.histograma().contarError();
             // En caso de error asumimos conflicto para evitar duplicados
             return true;
         }
@@ -105,27 +205,19 @@ public class Reservas {
     /**
      * Método para crear una nueva reserva, solicitando datos y validando conflictos.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param sesion  Sesión abierta en el almacén.
      * @param scanner Scanner para entrada por consola.
      */
-    public static void crearReserva(Connection conn, Scanner scanner) {
+    public static void crearReserva(Sesion sesion, Scanner scanner) {
         try {
             System.out.print("Nombre de la sala: ");
             String nombreSala = scanner.nextLine().trim();
 
             // Buscar ID de sala por nombre
-            String sqlSala = "SELECT id FROM salas WHERE nombre = ?";
-            Integer idSala = null;
-            try (PreparedStatement psSala = conn.prepareStatement(sqlSala)) {
-                psSala.setString(1, nombreSala);
-                try (ResultSet rs = psSala.executeQuery()) {
-                    if (rs.next()) {
-                        idSala = rs.getInt("id");
-                    } else {
-                        System.out.println("❌ La sala con nombre '" + nombreSala + "' no existe.");
-                        return;
-                    }
-                }
+            Integer idSala = buscarIdSala(sesion, nombreSala);
+            if (idSala == null) {
+                System.out.println("❌ La sala con nombre '" + nombreSala + "' no existe.");
+                return;
             }
 
             int idEmpleado = leerEntero(scanner, "ID del empleado: ");
@@ -137,31 +229,20 @@ public class Reservas {
             System.out.print("Hora de fin (HH:MM:SS): ");
             String horaFin = scanner.nextLine().trim();
 
-            // Verificar conflictos antes de insertar
-            if (existeConflictoReserva(conn, idSala, fecha, horaInicio, horaFin, null)) {
-                System.out.println("❌ Conflicto: ya existe una reserva en ese horario.");
-                return;
-            }
-
-            String sql = "INSERT INTO reservas (sala_id, empleado_id, fecha, hora_inicio, hora_fin) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, idSala);
-                pstmt.setInt(2, idEmpleado);
-                pstmt.setDate(3, Date.valueOf(fecha));
-                pstmt.setTime(4, Time.valueOf(horaInicio));
-                pstmt.setTime(5, Time.valueOf(horaFin));
+            // Comprobar conflictos e insertar de forma atómica para esta sala y fecha
+            ServicioReservas.Resultado resultado = sesion.reservas().crear(idSala, idEmpleado,
+                    Date.valueOf(fecha).toLocalDate(), Time.valueOf(horaInicio).toLocalTime(), Time.valueOf(horaFin).toLocalTime());
 
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
+            switch (resultado.estado()) {
+                case CREADA -> {
                     System.out.println("\n✅ Reserva creada exitosamente:");
                     System.out.println("- Sala: " + nombreSala);
                     System.out.println("- ID Empleado: " + idEmpleado);
                     System.out.println("- Fecha: " + fecha);
                     System.out.println("- Hora inicio: " + horaInicio + " | Hora fin: " + horaFin);
-                } else {
-                    System.out.println("❌ No se pudo crear la reserva.");
-                    logger.warn("Insert reservas no afectó filas");
                 }
+                case CONFLICTO -> System.out.println("❌ Conflicto: ya existe una reserva en ese horario.");
+                default -> System.out.println("❌ No se pudo crear la reserva.");
             }
         } catch (SQLException | IllegalArgumentException e) {
             logger.error("Error al crear la reserva", e);
@@ -172,34 +253,16 @@ public class Reservas {
     /**
      * Lista todas las reservas existentes mostrando datos relacionados.
      *
-     * @param conn Conexión a la base de datos.
+     * @param sesion Sesión abierta en el almacén.
      */
-    public static void listarReservas(Connection conn) {
-        String sql = """
-            SELECT r.id, r.fecha, r.hora_inicio, r.hora_fin, s.nombre AS sala_nombre, e.nombre AS empleado_nombre
-            FROM reservas r
-            JOIN salas s ON r.sala_id = s.id
-            JOIN empleados e ON r.empleado_id = e.id
-        """;
-
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
+    public static void listarReservas(Sesion sesion) {
+        try {
             System.out.println("\n📋 Listado de reservas:");
-            boolean hayRegistros = false;
-
-            while (rs.next()) {
-                hayRegistros = true;
-                System.out.printf("ID: %d | Sala: %s | Empleado: %s | Fecha: %s | %s-%s%n",
-                        rs.getInt("id"),
-                        rs.getString("sala_nombre"),
-                        rs.getString("empleado_nombre"),
-                        rs.getDate("fecha"),
-                        rs.getTime("hora_inicio"),
-                        rs.getTime("hora_fin"));
-            }
+            long total = sesion.reservas().recorrer(fila ->
+                    System.out.printf("ID: %d | Sala: %s | Empleado: %s | Fecha: %s | %s-%s%n",
+                            fila.id(), fila.sala(), fila.empleado(), fila.fecha(), fila.horaInicio(), fila.horaFin()));
 
-            if (!hayRegistros) {
+            if (total == 0) {
                 System.out.println("ℹ️ No hay reservas registradas en el sistema.");
             }
         } catch (SQLException e) {
@@ -209,41 +272,170 @@ public class Reservas {
     }
 
     /**
-     * Actualiza una reserva existente solicitando los nuevos datos y validando conflictos.
+     * Lista las reservas por páginas, con filtros opcionales de fechas, sala y empleado.
+     * Cada página se pide a partir de la última reserva mostrada (paginación por clave).
      *
-     * @param conn    Conexión a la base de datos.
+     * @param sesion  Sesión abierta en el almacén.
      * @param scanner Scanner para entrada por consola.
      */
-    public static void actualizarReserva(Connection conn, Scanner scanner) {
+    public static void listarReservasPaginado(Sesion sesion, Scanner scanner) {
         try {
-            int id = leerEntero(scanner, "ID de la reserva a actualizar: ");
+            ConsultaReservas.Filtro filtro = leerFiltro(scanner);
+
+            ConsultaReservas.Cursor cursor = null;
+            int numeroPagina = 1;
+            while (true) {
+                ConsultaReservas.Pagina pagina = sesion.reservas().listarPagina(filtro, cursor, TAMANO_PAGINA);
+                if (pagina.filas().isEmpty()) {
+                    System.out.println(numeroPagina == 1
+                            ? "ℹ️ No hay reservas que cumplan los filtros."
+                            : "ℹ️ No hay más reservas.");
+                    return;
+                }
 
-            // Verificar que la reserva exista
-            String checkSql = "SELECT COUNT(*) FROM reservas WHERE id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, id);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("❌ No existe una reserva con el ID: " + id);
+                System.out.println("\n📋 Reservas (página " + numeroPagina + "):");
+                for (ConsultaReservas.Fila fila : pagina.filas()) {
+                    System.out.printf("ID: %d | Sala: %s | Empleado: %s | Fecha: %s | %s-%s%n",
+                            fila.id(), fila.sala(), fila.empleado(), fila.fecha(), fila.horaInicio(), fila.horaFin());
+                }
+                if (pagina.siguiente() == null) {
+                    return;
+                }
+
+                System.out.print("Enter para la página siguiente, 0 para terminar: ");
+                if (scanner.nextLine().trim().equals("0")) {
                     return;
                 }
+                cursor = pagina.siguiente();
+                numeroPagina++;
+            }
+        } catch (SQLException e) {
+            logger.error("Error al obtener la página de reservas", e);
+            System.out.println("❌ Error al leer las reservas.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Filtro inválido: revise el formato de fechas y el ID del empleado.");
+            logger.warn("Filtro de listado de reservas inválido", e);
+        }
+    }
+
+    /**
+     * Exporta a un fichero iCalendar o CSV las reservas que cumplen los filtros. El formato se deduce
+     * de la extensión y un {@code .gz} final comprime el fichero.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void exportarReservas(Sesion sesion, Scanner scanner) {
+        System.out.print("Fichero de destino (.ics o .csv, añade .gz para comprimir): ");
+        Path fichero = Path.of(scanner.nextLine().trim());
+        ExportadorReservas.Formato formato = ExportadorReservas.Formato.de(fichero);
+        if (formato == null) {
+            System.out.println("❌ Extensión no reconocida: use .ics, .csv, .ics.gz o .csv.gz");
+            return;
+        }
+
+        try {
+            ConsultaReservas.Filtro filtro = leerFiltro(scanner);
+            ExportadorReservas.ResultadoExportacion resultado = ExportadorReservas.exportar(
+                    consumidor -> sesion.reservas().recorrer(filtro, consumidor), formato, fichero,
+                    ExportadorReservas.comprimido(fichero));
+            System.out.printf("✅ %d reservas exportadas a %s (%d KB) en %d ms (%.0f reservas/s)%n",
+                    resultado.reservas(), fichero, resultado.bytes() / 1024, resultado.millis(),
+                    resultado.reservasPorSegundo());
+        } catch (IOException e) {
+            logger.error("Error al escribir la exportación de reservas en {}", fichero, e);
+            System.out.println("❌ No se pudo escribir el fichero: " + e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Error al leer las reservas a exportar", e);
+            System.out.println("❌ Error al leer las reservas.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Filtro inválido: revise el formato de fechas y el ID del empleado.");
+            logger.warn("Filtro de exportación de reservas inválido", e);
+        }
+    }
+
+    /**
+     * Pide los filtros opcionales de fechas, sala y empleado.
+     *
+     * @throws IllegalArgumentException si una fecha o el ID del empleado no son válidos.
+     */
+    private static ConsultaReservas.Filtro leerFiltro(Scanner scanner) {
+        System.out.print("Fecha desde (YYYY-MM-DD, vacío = sin límite): ");
+        String desde = scanner.nextLine().trim();
+        System.out.print("Fecha hasta (YYYY-MM-DD, vacío = sin límite): ");
+        String hasta = scanner.nextLine().trim();
+        System.out.print("Nombre de la sala (vacío = todas): ");
+        String sala = scanner.nextLine().trim();
+        System.out.print("ID del empleado (vacío = todos): ");
+        String empleado = scanner.nextLine().trim();
+
+        return new ConsultaReservas.Filtro(
+                desde.isEmpty() ? null : Date.valueOf(desde).toLocalDate(),
+                hasta.isEmpty() ? null : Date.valueOf(hasta).toLocalDate(),
+                sala.isEmpty() ? null : sala,
+                empleado.isEmpty() ? null : Integer.parseInt(empleado),
+                leerIncluirArchivo(scanner));
+    }
+
+    private static boolean leerIncluirArchivo(Scanner scanner) {
+        System.out.print("¿Incluir reservas archivadas? (S/N, vacío = no): ");
+        return scanner.nextLine().trim().equalsIgnoreCase("S");
+    }
+
+    /**
+     * Traslada al archivo las reservas con más días de antigüedad de los indicados. Las
+     * archivadas se pueden seguir consultando en los listados y el informe de ocupación.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void archivarReservas(Sesion sesion, Scanner scanner) {
+        int dias = leerEntero(scanner, "Archivar reservas de hace más de (días): ");
+        if (dias <= 0) {
+            System.out.println("❌ Los días deben ser mayores que 0.");
+            return;
+        }
+        LocalDate antesDe = LocalDate.now().minusDays(dias);
+        try {
+            ArchivadorReservas.ResultadoArchivado resultado = sesion.reservas().archivar(antesDe);
+            System.out.printf("✅ %d reservas anteriores al %s archivadas en %d transacciones (%d ms)%n",
+                    resultado.archivadas(), antesDe, resultado.bloques(), resultado.millis());
+        } catch (SQLFeatureNotSupportedException e) {
+            System.out.println("ℹ️ " + e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Error al archivar las reservas anteriores al {}", antesDe, e);
+            System.out.println("❌ Error al archivar: las reservas ya archivadas se conservan; vuelva a intentarlo.");
+        }
+    }
+
+    /**
+     * Actualiza una reserva existente solicitando los nuevos datos y validando conflictos.
+     * Se lee la reserva con su versión antes de pedir los datos; si otro usuario la cambia mientras
+     * tanto, la actualización se rechaza sin sobrescribir su cambio.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void actualizarReserva(Sesion sesion, Scanner scanner) {
+        try {
+            int id = leerEntero(scanner, "ID de la reserva a actualizar: ");
+
+            // Leer la reserva y la versión a partir de la que se edita
+            Reserva actual = sesion.reservas().buscar(id);
+            if (actual == null) {
+                System.out.println("❌ No existe una reserva con el ID: " + id);
+                return;
             }
+            System.out.println("ℹ️ Datos actuales: sala " + actual.salaId() + ", empleado " + actual.empleadoId()
+                    + ", " + actual.fecha() + " de " + actual.horaInicio() + " a " + actual.horaFin());
 
             // Solicitar y validar nombre de sala
             System.out.print("Nombre de la sala: ");
             String nombreSala = scanner.nextLine().trim();
-            String sqlSala = "SELECT id FROM salas WHERE nombre = ?";
-            Integer salaId = null;
-            try (PreparedStatement psSala = conn.prepareStatement(sqlSala)) {
-                psSala.setString(1, nombreSala);
-                try (ResultSet rs = psSala.executeQuery()) {
-                    if (rs.next()) {
-                        salaId = rs.getInt("id");
-                    } else {
-                        System.out.println("❌ La sala con nombre '" + nombreSala + "' no existe.");
-                        return;
-                    }
-                }
+            Integer salaId = buscarIdSala(sesion, nombreSala);
+            if (salaId == null) {
+                System.out.println("❌ La sala con nombre '" + nombreSala + "' no existe.");
+                return;
             }
 
             int empleadoId = leerEntero(scanner, "Nuevo ID del empleado: ");
@@ -255,31 +447,23 @@ public class Reservas {
             System.out.print("Nueva hora fin (HH:MM:SS): ");
             String horaFin = scanner.nextLine().trim();
 
-            // Verificar conflictos excluyendo la reserva actual
-            if (existeConflictoReserva(conn, salaId, fecha, horaInicio, horaFin, id)) {
-                System.out.println("❌ Conflicto de horario. No se puede actualizar.");
-                return;
-            }
+            // Verificar conflictos excluyendo la reserva actual y actualizar de forma atómica
+            ServicioReservas.Resultado resultado = sesion.reservas().actualizar(id, actual.version(), salaId, empleadoId,
+                    Date.valueOf(fecha).toLocalDate(), Time.valueOf(horaInicio).toLocalTime(), Time.valueOf(horaFin).toLocalTime());
 
-            String updateSql = "UPDATE reservas SET sala_id = ?, empleado_id = ?, fecha = ?, hora_inicio = ?, hora_fin = ? WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
-                pstmt.setInt(1, salaId);
-                pstmt.setInt(2, empleadoId);
-                pstmt.setDate(3, Date.valueOf(fecha));
-                pstmt.setTime(4, Time.valueOf(horaInicio));
-                pstmt.setTime(5, Time.valueOf(horaFin));
-                pstmt.setInt(6, id);
-
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
+            switch (resultado.estado()) {
+                case ACTUALIZADA -> {
                     System.out.println("\n✅ Reserva actualizada con éxito:");
                     System.out.println("- Sala: " + nombreSala);
                     System.out.println("- ID Empleado: " + empleadoId);
                     System.out.println("- Fecha: " + fecha);
                     System.out.println("- Hora inicio: " + horaInicio + " | Hora fin: " + horaFin);
-                } else {
-                    System.out.println("❌ No se pudo actualizar la reserva.");
                 }
+                case CONFLICTO -> System.out.println("❌ Conflicto de horario. No se puede actualizar.");
+                case DESACTUALIZADA -> System.out.println(
+                        "❌ Otro usuario ha modificado la reserva mientras la editabas. Vuelve a intentarlo.");
+                case NO_ENCONTRADA -> System.out.println("❌ La reserva se ha eliminado mientras la editabas.");
+                default -> System.out.println("❌ No se pudo actualizar la reserva.");
             }
         } catch (SQLException | IllegalArgumentException e) {
             logger.error("Error al actualizar la reserva", e);
@@ -290,22 +474,17 @@ public class Reservas {
     /**
      * Elimina una reserva existente solicitando confirmación al usuario.
      *
-     * @param conn    Conexión a la base de datos.
+     * @param sesion  Sesión abierta en el almacén.
      * @param scanner Scanner para entrada por consola.
      */
-    public static void eliminarReserva(Connection conn, Scanner scanner) {
+    public static void eliminarReserva(Sesion sesion, Scanner scanner) {
         try {
             int id = leerEntero(scanner, "ID de la reserva a eliminar: ");
 
             // Verificar que la reserva exista
-            String checkSql = "SELECT COUNT(*) FROM reservas WHERE id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, id);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("❌ No existe una reserva con el ID: " + id);
-                    return;
-                }
+            if (!sesion.reservas().existe(id)) {
+                System.out.println("❌ No existe una reserva con el ID: " + id);
+                return;
             }
 
             System.out.print("¿Está seguro de eliminar la reserva? (S/N): ");
@@ -315,15 +494,10 @@ public class Reservas {
                 return;
             }
 
-            String sql = "DELETE FROM reservas WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, id);
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
-                    System.out.println("✅ Reserva eliminada con éxito.");
-                } else {
-                    System.out.println("❌ No se pudo eliminar la reserva.");
-                }
+            if (sesion.reservas().eliminar(id)) {
+                System.out.println("✅ Reserva eliminada con éxito.");
+            } else {
+                System.out.println("❌ No se pudo eliminar la reserva.");
             }
         } catch (SQLException e) {
             logger.error("Error al eliminar reserva", e);
@@ -331,6 +505,225 @@ public class Reservas {
         }
     }
 
+    /**
+     * Importa reservas de forma masiva desde un fichero CSV y muestra el resumen del proceso.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void importarReservas(Sesion sesion, Scanner scanner) {
+        System.out.print("Ruta del fichero CSV (sala,empleado_id,fecha,hora_inicio,hora_fin): ");
+        Path fichero = Path.of(scanner.nextLine().trim());
+        if (!Files.isReadable(fichero)) {
+            System.out.println("❌ No se puede leer el fichero: " + fichero);
+            return;
+        }
+
+        try {
+            ImportadorReservas.ResultadoImportacion resultado = sesion.reservas().importar(fichero);
+
+            System.out.println("\n✅ Importación finalizada:");
+            System.out.println("- Filas leídas: " + resultado.leidas());
+            System.out.println("- Reservas insertadas: " + resultado.insertadas());
+            System.out.println("- Filas rechazadas: " + resultado.rechazos().size());
+            System.out.printf("- Tiempo: %d ms (%.0f filas/s)%n", resultado.millis(), resultado.filasPorSegundo());
+
+            int mostrar = Math.min(20, resultado.rechazos().size());
+            for (int i = 0; i < mostrar; i++) {
+                ImportadorReservas.Rechazo r = resultado.rechazos().get(i);
+                System.out.printf("  Línea %d: %s -> %s%n", r.linea(), r.contenido(), r.motivo());
+            }
+            if (resultado.rechazos().size() > mostrar) {
+                System.out.println("  ... y " + (resultado.rechazos().size() - mostrar) + " rechazos más (ver log).");
+                resultado.rechazos().subList(mostrar, resultado.rechazos().size())
+                        .forEach(r -> logger.warn("Línea {} rechazada: {}", r.linea(), r.motivo()));
+            }
+        } catch (SQLFeatureNotSupportedException e) {
+            System.out.println("ℹ️ " + e.getMessage());
+        } catch (IOException | SQLException e) {
+            logger.error("Error al importar reservas", e);
+            System.out.println("❌ Error al importar las reservas.");
+        }
+    }
+
+    /**
+     * Busca los primeros huecos libres en todas las salas que cumplen capacidad y recursos,
+     * y permite reservar uno de ellos directamente.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void buscarSalasLibres(Sesion sesion, Scanner scanner) {
+        try {
+            System.out.print("Fecha (YYYY-MM-DD): ");
+            LocalDate fecha = Date.valueOf(scanner.nextLine().trim()).toLocalDate();
+            int duracion = leerEntero(scanner, "Duración (minutos): ");
+            int capacidad = leerEntero(scanner, "Capacidad mínima: ");
+            System.out.print("Recursos necesarios separados por comas (" + CatalogoRecursos.disponibles()
+                    + "; vacío = ninguno): ");
+            String recursos = scanner.nextLine().trim();
+            long mascaraRecursos;
+            try {
+                mascaraRecursos = CatalogoRecursos.validar(recursos);
+            } catch (IllegalArgumentException e) {
+                System.out.println("❌ " + e.getMessage());
+                return;
+            }
+            System.out.print("Desde (HH:MM:SS, vacío = " + APERTURA_POR_DEFECTO + "): ");
+            String desde = scanner.nextLine().trim();
+            System.out.print("Hasta (HH:MM:SS, vacío = " + CIERRE_POR_DEFECTO + "): ");
+            String hasta = scanner.nextLine().trim();
+
+            BuscadorHuecos.Criterios criterios = new BuscadorHuecos.Criterios(fecha, duracion, capacidad,
+                    mascaraRecursos,
+                    desde.isEmpty() ? APERTURA_POR_DEFECTO : Time.valueOf(desde).toLocalTime(),
+                    hasta.isEmpty() ? CIERRE_POR_DEFECTO : Time.valueOf(hasta).toLocalTime(),
+                    MAXIMO_HUECOS);
+
+            long inicio = System.nanoTime();
+            List<BuscadorHuecos.Hueco> huecos = sesion.reservas().buscarHuecos(criterios);
+            logger.info("Búsqueda de huecos para {}: {} resultados en {} µs",
+                    fecha, huecos.size(), (System.nanoTime() - inicio) / 1_000);
+            if (huecos.isEmpty()) {
+                System.out.println("ℹ️ No hay salas libres que cumplan los criterios.");
+                return;
+            }
+
+            System.out.println("\n📋 Huecos disponibles:");
+            for (int i = 0; i < huecos.size(); i++) {
+                BuscadorHuecos.Hueco hueco = huecos.get(i);
+                System.out.printf("%d. %s (capacidad %d, %s) | %s %s-%s%n", i + 1, hueco.sala().nombre(),
+                        hueco.sala().capacidad(), hueco.sala().recursos(), hueco.fecha(), hueco.inicio(), hueco.fin());
+            }
+
+            System.out.print("Número del hueco a reservar (vacío = ninguno): ");
+            String eleccion = scanner.nextLine().trim();
+            if (eleccion.isEmpty()) {
+                return;
+            }
+            int indice = Integer.parseInt(eleccion) - 1;
+            if (indice < 0 || indice >= huecos.size()) {
+                System.out.println("❌ Número de hueco no válido.");
+                return;
+            }
+            BuscadorHuecos.Hueco hueco = huecos.get(indice);
+            int idEmpleado = leerEntero(scanner, "ID del empleado: ");
+
+            // Otro usuario puede haber ocupado el hueco desde la búsqueda: la creación vuelve a comprobarlo
+            ServicioReservas.Resultado resultado = sesion.reservas().crear(hueco.sala().id(), idEmpleado,
+                    hueco.fecha(), hueco.inicio(), hueco.fin());
+            switch (resultado.estado()) {
+                case CREADA -> System.out.println("✅ Reserva creada en " + hueco.sala().nombre() + " el "
+                        + hueco.fecha() + " de " + hueco.inicio() + " a " + hueco.fin() + ".");
+                case CONFLICTO -> System.out.println("❌ Conflicto: el hueco acaba de ocuparse. Repita la búsqueda.");
+                default -> System.out.println("❌ No se pudo crear la reserva.");
+            }
+        } catch (SQLException e) {
+            logger.error("Error al buscar salas libres", e);
+            System.out.println("❌ Error al buscar salas libres.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Datos inválidos: revise la fecha, las horas y la duración.");
+            logger.warn("Criterios de búsqueda de huecos inválidos", e);
+        }
+    }
+
+    /**
+     * Muestra la ocupación de las salas en un rango de fechas: salas más y menos usadas,
+     * uso por departamento y mapa de calor por día de la semana y hora.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void mostrarInformeOcupacion(Sesion sesion, Scanner scanner) {
+        try {
+            LocalDate hoy = LocalDate.now();
+            System.out.print("Desde (YYYY-MM-DD, vacío = hace " + DIAS_INFORME_POR_DEFECTO + " días): ");
+            String desde = scanner.nextLine().trim();
+            System.out.print("Hasta (YYYY-MM-DD, vacío = hoy): ");
+            String hasta = scanner.nextLine().trim();
+            InformeOcupacion.Periodo periodo = new InformeOcupacion.Periodo(
+                    desde.isEmpty() ? hoy.minusDays(DIAS_INFORME_POR_DEFECTO) : Date.valueOf(desde).toLocalDate(),
+                    hasta.isEmpty() ? hoy : Date.valueOf(hasta).toLocalDate(),
+                    APERTURA_POR_DEFECTO.getHour(), CIERRE_POR_DEFECTO.getHour(), leerIncluirArchivo(scanner));
+
+            long inicio = System.nanoTime();
+            InformeOcupacion.Informe informe = sesion.reservas().informeOcupacion(periodo);
+            logger.info("Informe de ocupación del {} al {}: {} reservas en {} ms", periodo.desde(), periodo.hasta(),
+                    informe.reservas(), (System.nanoTime() - inicio) / 1_000_000);
+            if (informe.salas().isEmpty()) {
+                System.out.println("ℹ️ No hay salas registradas.");
+                return;
+            }
+
+            System.out.printf("%n📊 Ocupación del %s al %s (jornada %d-%d h): %d salas, %d reservas%n",
+                    periodo.desde(), periodo.hasta(), periodo.horaApertura(), periodo.horaCierre(),
+                    informe.salas().size(), informe.reservas());
+            System.out.printf("Ocupación media: %.1f %%%s%n", informe.porcentaje(),
+                    informe.horaPunta() < 0 ? "" : " | hora punta: " + informe.horaPunta() + " h");
+
+            System.out.println("\n🔥 Salas más ocupadas:");
+            for (InformeOcupacion.OcupacionSala sala
+                    : informe.salas().subList(0, Math.min(SALAS_EN_INFORME, informe.salas().size()))) {
+                System.out.printf("  %-20s %5.1f %%%s%n", sala.sala().nombre(), sala.porcentaje(),
+                        sala.horaPunta() < 0 ? "" : " (hora punta " + sala.horaPunta() + " h)");
+            }
+            List<InformeOcupacion.OcupacionSala> infrautilizadas = informe.salas().stream()
+                    .filter(sala -> sala.porcentaje() < OCUPACION_BAJA)
+                    .toList();
+            System.out.printf("%n💤 Salas por debajo del %.0f %% de ocupación: %d%n", OCUPACION_BAJA,
+                    infrautilizadas.size());
+            for (int i = infrautilizadas.size() - 1;
+                 i >= Math.max(0, infrautilizadas.size() - SALAS_EN_INFORME); i--) {
+                InformeOcupacion.OcupacionSala sala = infrautilizadas.get(i);
+                System.out.printf("  %-20s %5.1f %%%n", sala.sala().nombre(), sala.porcentaje());
+            }
+
+            if (!informe.departamentos().isEmpty()) {
+                System.out.println("\n👥 Uso por departamento:");
+                for (InformeOcupacion.OcupacionDepartamento departamento : informe.departamentos()) {
+                    System.out.printf("  %-20s %6d reservas %9.1f h%n", departamento.departamento(),
+                            departamento.reservas(), departamento.minutos() / 60.0);
+                }
+            }
+
+            System.out.println("\n🗓️ Mapa de calor (ocupación por día de la semana y hora):");
+            StringBuilder linea = new StringBuilder("     ");
+            for (int hora = periodo.horaApertura(); hora < periodo.horaCierre(); hora++) {
+                linea.append(String.format("%3d", hora));
+            }
+            System.out.println(linea);
+            for (int dia = 0; dia < DIAS_SEMANA.length; dia++) {
+                linea.setLength(0);
+                linea.append(String.format("  %-3s", DIAS_SEMANA[dia]));
+                for (int hora = periodo.horaApertura(); hora < periodo.horaCierre(); hora++) {
+                    linea.append(nivelCalor(informe.mapaCalor()[dia][hora]));
+                }
+                System.out.println(linea);
+            }
+            System.out.println("  Leyenda: · < 5 %, ░ < 25 %, ▒ < 50 %, ▓ < 75 %, █ ≥ 75 %");
+        } catch (SQLException e) {
+            logger.error("Error al calcular la ocupación de las salas", e);
+            System.out.println("❌ Error al calcular la ocupación de las salas.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Datos inválidos: "
+                    + (e.getMessage() != null ? e.getMessage() : "revise el formato de las fechas"));
+            logger.warn("Rango del informe de ocupación inválido", e);
+        }
+    }
+
+    private static String nivelCalor(double porcentaje) {
+        if (porcentaje < 5) {
+            return NIVELES_CALOR[0];
+        }
+        if (porcentaje < 25) {
+            return NIVELES_CALOR[1];
+        }
+        if (porcentaje < 50) {
+            return NIVELES_CALOR[2];
+        }
+        return porcentaje < 75 ? NIVELES_CALOR[3] : NIVELES_CALOR[4];
+    }
+
     /**
      * Método auxiliar para leer un número entero de manera segura desde consola.
      * Continúa solicitando hasta obtener una entrada válida.
@@ -339,7 +732,7 @@ public class Reservas {
      * @param mensaje Mensaje a mostrar al usuario.
      * @return Entero leído.
      */
-    private static int leerEntero(Scanner scanner, String mensaje) {
+    static int leerEntero(Scanner scanner, String mensaje) {
         while (true) {
             System.out.print(mensaje);
             if (scanner.hasNextInt()) {
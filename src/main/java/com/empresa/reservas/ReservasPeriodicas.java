@@ -0,0 +1,250 @@
+package com.empresa.reservas;
+
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
+import com.empresa.salas.Sala;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Gestión por consola de las reservas periódicas ({@link SerieReservas}): una reunión que se repite
+ * cada día, semana o mes se crea, modifica o cancela de una vez en lugar de reserva a reserva.
+ */
+public class ReservasPeriodicas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservasPeriodicas.class);
+    private static final int MAXIMO_CONFLICTOS_MOSTRADOS = 20;
+
+    /**
+     * Muestra el menú de reservas periódicas e interactúa con el usuario.
+     *
+     * @param almacen Almacén del que se abre una sesión para cada operación.
+     * @param scanner Scanner para entrada de datos por consola.
+     */
+    public static void mostrarMenu(Almacen almacen, Scanner scanner) {
+        boolean salir = false;
+
+        while (!salir) {
+            System.out.println("\n--- Reservas periódicas ---");
+            System.out.println("1. Crear reserva periódica");
+            System.out.println("2. Listar reservas periódicas");
+            System.out.println("3. Modificar una serie completa");
+            System.out.println("4. Cancelar una serie completa");
+            System.out.println("0. Volver al menú de reservas");
+            System.out.print("Selecciona una opción: ");
+
+            String input = scanner.nextLine().trim();
+            int opcion;
+            try {
+                opcion = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Entrada inválida. Por favor, introduce un número.");
+                logger.warn("Entrada inválida para opción menú reservas periódicas: {}", input);
+                continue;
+            }
+
+            switch (opcion) {
+                case 1 -> almacen.ejecutar(sesion -> crearSerie(sesion, scanner));
+                case 2 -> almacen.ejecutar(sesion -> listarSeries(sesion));
+                case 3 -> almacen.ejecutar(sesion -> modificarSerie(sesion, scanner));
+                case 4 -> almacen.ejecutar(sesion -> cancelarSerie(sesion, scanner));
+                case 0 -> {
+                    salir = true;
+                    System.out.println("👋 Volviendo al menú de reservas...");
+                }
+                default -> {
+                    System.out.println("❌ Opción no válida.");
+                    logger.warn("Opción inválida en menú reservas periódicas: {}", opcion);
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea una serie solicitando la regla por consola. Si alguna ocurrencia choca con otra reserva
+     * no se crea ninguna y se muestran las fechas en conflicto.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void crearSerie(Sesion sesion, Scanner scanner) {
+        try {
+            SerieReservas serie = leerSerie(sesion, scanner);
+            if (serie == null) {
+                return;
+            }
+            ServicioReservas.ResultadoSerie resultado = sesion.reservas().crearSerie(serie);
+            switch (resultado.estado()) {
+                case CREADA -> System.out.println("\n✅ Serie " + resultado.serieId() + " creada con "
+                        + resultado.ocurrencias() + " reservas: " + serie.descripcion());
+                case CONFLICTO -> mostrarConflictos(resultado.conflictos());
+                default -> System.out.println("❌ No se pudo crear la serie.");
+            }
+        } catch (SQLException e) {
+            logger.error("Error al crear la serie de reservas", e);
+            System.out.println("❌ Error al crear la serie de reservas.");
+        }
+    }
+
+    /**
+     * Lista las series con su sala, empleado y regla.
+     *
+     * @param sesion Sesión abierta en el almacén.
+     */
+    public static void listarSeries(Sesion sesion) {
+        try {
+            List<SerieReservas> series = sesion.reservas().listarSeries();
+            if (series.isEmpty()) {
+                System.out.println("ℹ️ No hay reservas periódicas registradas.");
+                return;
+            }
+            Map<Integer, String> salas = new HashMap<>();
+            sesion.salas().recorrer(sala -> salas.put(sala.id(), sala.nombre()));
+
+            System.out.println("\n📋 Reservas periódicas:");
+            for (SerieReservas serie : series) {
+                System.out.printf("ID: %d | Sala: %s | ID Empleado: %d | %s%n", serie.id(),
+                        salas.getOrDefault(serie.salaId(), "#" + serie.salaId()), serie.empleadoId(),
+                        serie.descripcion());
+            }
+        } catch (SQLException e) {
+            logger.error("Error al listar las series de reservas", e);
+            System.out.println("❌ Error al leer las reservas periódicas.");
+        }
+    }
+
+    /**
+     * Sustituye la regla de una serie y regenera todas sus reservas.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void modificarSerie(Sesion sesion, Scanner scanner) {
+        try {
+            int id = Reservas.leerEntero(scanner, "ID de la serie a modificar: ");
+            SerieReservas actual = sesion.reservas().buscarSerie(id);
+            if (actual == null) {
+                System.out.println("❌ No existe una serie con el ID: " + id);
+                return;
+            }
+            System.out.println("Serie actual: " + actual.descripcion());
+            System.out.println("ℹ️ Las reservas de la serie modificadas una a una se sustituirán.");
+
+            SerieReservas nueva = leerSerie(sesion, scanner);
+            if (nueva == null) {
+                return;
+            }
+            ServicioReservas.ResultadoSerie resultado = sesion.reservas().actualizarSerie(id, nueva);
+            switch (resultado.estado()) {
+                case ACTUALIZADA -> System.out.println("✅ Serie " + id + " actualizada con "
+                        + resultado.ocurrencias() + " reservas: " + nueva.descripcion());
+                case CONFLICTO -> mostrarConflictos(resultado.conflictos());
+                case NO_ENCONTRADA -> System.out.println("❌ No existe una serie con el ID: " + id);
+                default -> System.out.println("❌ No se pudo modificar la serie.");
+            }
+        } catch (SQLException e) {
+            logger.error("Error al modificar la serie de reservas", e);
+            System.out.println("❌ Error al modificar la serie de reservas.");
+        }
+    }
+
+    /**
+     * Cancela una serie completa tras confirmación del usuario.
+     *
+     * @param sesion  Sesión abierta en el almacén.
+     * @param scanner Scanner para entrada por consola.
+     */
+    public static void cancelarSerie(Sesion sesion, Scanner scanner) {
+        try {
+            int id = Reservas.leerEntero(scanner, "ID de la serie a cancelar: ");
+            SerieReservas serie = sesion.reservas().buscarSerie(id);
+            if (serie == null) {
+                System.out.println("❌ No existe una serie con el ID: " + id);
+                return;
+            }
+
+            System.out.print("¿Cancelar todas las reservas de la serie (" + serie.descripcion() + ")? (S/N): ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("S")) {
+                System.out.println("ℹ️ Operación cancelada");
+                return;
+            }
+            if (sesion.reservas().cancelarSerie(id)) {
+                System.out.println("✅ Serie " + id + " cancelada.");
+            } else {
+                System.out.println("❌ No existe una serie con el ID: " + id);
+            }
+        } catch (SQLException e) {
+            logger.error("Error al cancelar la serie de reservas", e);
+            System.out.println("❌ Error al cancelar la serie de reservas.");
+        }
+    }
+
+    /**
+     * Lee por consola la regla de una serie.
+     *
+     * @return La serie, o null si algún dato no es válido (ya se ha informado al usuario).
+     */
+    private static SerieReservas leerSerie(Sesion sesion, Scanner scanner) throws SQLException {
+        System.out.print("Nombre de la sala: ");
+        String nombreSala = scanner.nextLine().trim();
+        Sala sala = sesion.salas().buscarPorNombre(nombreSala);
+        if (sala == null) {
+            System.out.println("❌ La sala con nombre '" + nombreSala + "' no existe.");
+            return null;
+        }
+        int idEmpleado = Reservas.leerEntero(scanner, "ID del empleado: ");
+
+        System.out.print("Frecuencia (D = diaria, S = semanal, M = mensual): ");
+        SerieReservas.Frecuencia frecuencia = switch (scanner.nextLine().trim().toUpperCase()) {
+            case "D" -> SerieReservas.Frecuencia.DIARIA;
+            case "S" -> SerieReservas.Frecuencia.SEMANAL;
+            case "M" -> SerieReservas.Frecuencia.MENSUAL;
+            default -> null;
+        };
+        if (frecuencia == null) {
+            System.out.println("❌ Frecuencia no válida.");
+            return null;
+        }
+
+        try {
+            System.out.print("Fecha de la primera reserva (YYYY-MM-DD): ");
+            LocalDate inicio = Date.valueOf(scanner.nextLine().trim()).toLocalDate();
+            System.out.print("Fecha de fin (YYYY-MM-DD) o número de repeticiones: ");
+            String fin = scanner.nextLine().trim();
+            System.out.print("Hora de inicio (HH:MM:SS): ");
+            String horaInicio = scanner.nextLine().trim();
+            System.out.print("Hora de fin (HH:MM:SS): ");
+            String horaFin = scanner.nextLine().trim();
+
+            boolean porRepeticiones = fin.matches("\\d+");
+            return new SerieReservas(0, sala.id(), idEmpleado, frecuencia, inicio,
+                    porRepeticiones ? null : Date.valueOf(fin).toLocalDate(),
+                    porRepeticiones ? Integer.valueOf(fin) : null,
+                    Time.valueOf(horaInicio).toLocalTime(), Time.valueOf(horaFin).toLocalTime());
+        } catch (IllegalArgumentException e) {
+            // Date.valueOf y Time.valueOf no explican el error; las reglas de la serie sí
+            String motivo = e.getMessage() == null ? "formato de fecha u hora incorrecto" : e.getMessage();
+            System.out.println("❌ Datos inválidos: " + motivo);
+            logger.warn("Datos de serie de reservas inválidos", e);
+            return null;
+        }
+    }
+
+    private static void mostrarConflictos(List<LocalDate> conflictos) {
+        System.out.println("❌ Conflicto: la sala ya está reservada a esa hora en " + conflictos.size()
+                + " de las fechas. No se ha guardado ninguna reserva de la serie.");
+        conflictos.stream().limit(MAXIMO_CONFLICTOS_MOSTRADOS).forEach(f -> System.out.println("  - " + f));
+        if (conflictos.size() > MAXIMO_CONFLICTOS_MOSTRADOS) {
+            System.out.println("  ... y " + (conflictos.size() - MAXIMO_CONFLICTOS_MOSTRADOS) + " fechas más.");
+        }
+    }
+}
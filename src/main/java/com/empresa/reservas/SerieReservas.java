@@ -0,0 +1,145 @@
+package com.empresa.reservas;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Reserva periódica: la misma sala y horario cada día, semana o mes, hasta una fecha o un número
+ * de repeticiones.
+ * <p>
+ * La serie se guarda como regla y las fechas se calculan al vuelo: {@link #fechas()} las genera
+ * de forma perezosa y {@link #incluye} decide si una fecha es ocurrencia sin recorrer la serie.
+ * Cada ocurrencia se calcula desde la fecha de inicio ({@code inicio + n meses}), así que una serie
+ * mensual que empieza el 31 cae el último día de los meses más cortos y vuelve al 31 después.
+ *
+ * @param id           ID de la serie (0 si aún no se ha guardado).
+ * @param salaId       ID de la sala.
+ * @param empleadoId   ID del empleado.
+ * @param frecuencia   Cada cuánto se repite.
+ * @param fechaInicio  Fecha de la primera ocurrencia.
+ * @param fechaFin     Última fecha posible, o null si la serie termina por número de repeticiones.
+ * @param repeticiones Número de ocurrencias, o null si la serie termina en {@code fechaFin}.
+ * @param horaInicio   Hora de inicio de cada ocurrencia.
+ * @param horaFin      Hora de fin de cada ocurrencia.
+ */
+public record SerieReservas(int id, int salaId, int empleadoId, Frecuencia frecuencia, LocalDate fechaInicio,
+                            LocalDate fechaFin, Integer repeticiones, LocalTime horaInicio, LocalTime horaFin) {
+
+    /** Máximo de ocurrencias de una serie (dos años de reservas diarias). */
+    public static final int MAXIMO_OCURRENCIAS = 730;
+
+    /** Periodo de repetición. */
+    public enum Frecuencia {
+        DIARIA(ChronoUnit.DAYS), SEMANAL(ChronoUnit.WEEKS), MENSUAL(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unidad;
+
+        Frecuencia(ChronoUnit unidad) {
+            this.unidad = unidad;
+        }
+    }
+
+    public SerieReservas {
+        Objects.requireNonNull(frecuencia, "frecuencia");
+        Objects.requireNonNull(fechaInicio, "fechaInicio");
+        if ((fechaFin == null) == (repeticiones == null)) {
+            throw new IllegalArgumentException("Indica la fecha de fin o el número de repeticiones, pero no ambos");
+        }
+        if (fechaFin != null && fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio");
+        }
+        if (repeticiones != null && (repeticiones <= 0 || repeticiones > MAXIMO_OCURRENCIAS)) {
+            throw new IllegalArgumentException("Las repeticiones deben estar entre 1 y " + MAXIMO_OCURRENCIAS);
+        }
+        if (fechaFin != null && indiceUltima(frecuencia, fechaInicio, fechaFin) >= MAXIMO_OCURRENCIAS) {
+            throw new IllegalArgumentException("Una serie no puede tener más de " + MAXIMO_OCURRENCIAS + " ocurrencias");
+        }
+        if (!horaInicio.isBefore(horaFin)) {
+            throw new IllegalArgumentException("La hora de inicio debe ser anterior a la de fin");
+        }
+    }
+
+    /**
+     * Devuelve la misma serie con otro ID.
+     *
+     * @param nuevoId ID asignado al guardarla.
+     * @return Serie con el ID indicado.
+     */
+    public SerieReservas conId(int nuevoId) {
+        return new SerieReservas(nuevoId, salaId, empleadoId, frecuencia, fechaInicio, fechaFin, repeticiones,
+                horaInicio, horaFin);
+    }
+
+    /**
+     * Genera las fechas de la serie en orden, a medida que se consumen.
+     *
+     * @return Fechas de las ocurrencias.
+     */
+    public Stream<LocalDate> fechas() {
+        Stream<LocalDate> fechas = Stream.iterate(0L, n -> n + 1).map(this::ocurrencia);
+        return repeticiones != null
+                ? fechas.limit(repeticiones)
+                : fechas.takeWhile(f -> !f.isAfter(fechaFin));
+    }
+
+    /**
+     * @return Número de ocurrencias de la serie.
+     */
+    public int numeroOcurrencias() {
+        return repeticiones != null ? repeticiones : (int) indiceUltima(frecuencia, fechaInicio, fechaFin) + 1;
+    }
+
+    /**
+     * @return Fecha de la última ocurrencia.
+     */
+    public LocalDate ultimaFecha() {
+        return ocurrencia(numeroOcurrencias() - 1);
+    }
+
+    /**
+     * Indica si una fecha es una de las ocurrencias, sin generar las anteriores.
+     *
+     * @param fecha Fecha a comprobar.
+     * @return true si la serie tiene una ocurrencia ese día.
+     */
+    public boolean incluye(LocalDate fecha) {
+        if (fecha.isBefore(fechaInicio) || fecha.isAfter(ultimaFecha())) {
+            return false;
+        }
+        long n = frecuencia.unidad.between(fechaInicio, fecha);
+        // between trunca: del 31 de enero al 28 de febrero hay 0 meses, pero es la ocurrencia 1
+        return ocurrencia(n).equals(fecha) || ocurrencia(n + 1).equals(fecha);
+    }
+
+    /**
+     * Describe la regla para mostrarla por consola.
+     *
+     * @return Texto como "Semanal desde 2025-07-07, 10 veces, 09:00-10:00".
+     */
+    public String descripcion() {
+        String nombre = frecuencia.name().charAt(0) + frecuencia.name().substring(1).toLowerCase();
+        String fin = repeticiones != null ? repeticiones + " veces" : "hasta " + fechaFin;
+        return nombre + " desde " + fechaInicio + ", " + fin + ", " + horaInicio + "-" + horaFin;
+    }
+
+    private LocalDate ocurrencia(long n) {
+        return fechaInicio.plus(n, frecuencia.unidad);
+    }
+
+    /**
+     * Posición de la última ocurrencia que no pasa de la fecha de fin. {@code between} trunca y la
+     * ocurrencia así calculada puede quedarse una por debajo o una por encima de la buena.
+     */
+    private static long indiceUltima(Frecuencia frecuencia, LocalDate fechaInicio, LocalDate fechaFin) {
+        long n = frecuencia.unidad.between(fechaInicio, fechaFin);
+        for (long k = n + 1; k > n - 1; k--) {
+            if (!fechaInicio.plus(k, frecuencia.unidad).isAfter(fechaFin)) {
+                return k;
+            }
+        }
+        return n - 1;
+    }
+}
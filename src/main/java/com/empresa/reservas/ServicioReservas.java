@@ -0,0 +1,636 @@
+package com.empresa.reservas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servicio de reservas seguro ante llamadas concurrentes.
+ * <p>
+ * La comprobación de conflictos y la escritura se ejecutan de forma atómica bajo un cerrojo
+ * por (sala, fecha). Los cerrojos se reparten en franjas: dos reservas de la misma sala y día
+ * se serializan, mientras que las de salas o días distintos avanzan en paralelo salvo colisión
+ * de franja. La exclusión es dentro de este proceso; varias instancias de la aplicación contra
+ * la misma base de datos no se coordinan entre sí.
+ * <p>
+ * Las series de reservas periódicas toman a la vez, en orden creciente, los cerrojos de todas
+ * las franjas de sus ocurrencias, comprueban los conflictos de todas las fechas con una sola
+ * consulta ({@link RepositorioSeries#fechasEnConflicto}) y escriben la serie en una transacción.
+ * <p>
+ * Con la escritura agrupada activada ({@code -Dreservas.grupo.lote}, 32 por defecto en la instancia
+ * compartida), las altas concurrentes sobre conexiones en modo autocommit se escriben juntas en
+ * transacciones de hasta ese número de reservas con un solo commit ({@link EscrituraAgrupada}); cada
+ * llamada recibe su propio resultado. {@code -Dreservas.grupo.esperaMicros} permite que el líder del
+ * lote espere a que lleguen más reservas (0 por defecto: agrupa solo las que llegan durante el commit
+ * anterior). Un alta sin concurrencia se escribe como siempre, sin transacción ni espera.
+ */
+public class ServicioReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServicioReservas.class);
+    private static final ServicioReservas INSTANCIA = new ServicioReservas(
+            Integer.getInteger("reservas.franjas", 64),
+            Integer.getInteger("reservas.grupo.lote", 32),
+            Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(Long.getLong("reservas.grupo.esperaMicros", 0))));
+
+    /**
+     * Resultado de una operación del servicio. DESACTUALIZADA indica que otro cambió la reserva
+     * después de que quien edita leyera su versión, y la edición no se ha guardado.
+     */
+    public enum Estado { CREADA, ACTUALIZADA, CONFLICTO, NO_ENCONTRADA, DESACTUALIZADA, ERROR }
+
+    /**
+     * Resultado de crear o actualizar una reserva.
+     *
+     * @param estado  Resultado de la operación.
+     * @param id      ID de la reserva afectada, o null si no se conoce.
+     * @param version Versión de la reserva tras actualizarla, o null si no se conoce.
+     */
+    public record Resultado(Estado estado, Integer id, Integer version) {
+
+        public Resultado(Estado estado, Integer id) {
+            this(estado, id, null);
+        }
+    }
+
+    /**
+     * Resultado de crear o modificar una serie de reservas periódicas.
+     *
+     * @param estado      CREADA, ACTUALIZADA, CONFLICTO o NO_ENCONTRADA.
+     * @param serieId     ID de la serie, o null si no se ha creado.
+     * @param ocurrencias Reservas guardadas para la serie.
+     * @param conflictos  Fechas en las que la sala ya está ocupada (solo con CONFLICTO).
+     */
+    public record ResultadoSerie(Estado estado, Integer serieId, int ocurrencias, List<LocalDate> conflictos) {
+    }
+
+    /** Operación sobre la base de datos que se ejecuta dentro de una transacción. */
+    @FunctionalInterface
+    private interface Transaccion<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    private final ReentrantLock[] franjas;
+    private final int mascara;
+    private final int maxLote;
+    private final long maxEsperaNanos;
+    /** Se crea con la primera alta agrupada; null hasta entonces o si las altas no se agrupan. */
+    private volatile EscrituraAgrupada grupo;
+
+    /**
+     * Devuelve el servicio compartido por toda la aplicación.
+     *
+     * @return Instancia única del servicio.
+     */
+    public static ServicioReservas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Crea un servicio con el número de franjas de cerrojos indicado (se redondea a potencia de 2),
+     * sin agrupar las altas.
+     *
+     * @param numeroFranjas Número mínimo de franjas.
+     */
+    public ServicioReservas(int numeroFranjas) {
+        this(numeroFranjas, 1, Duration.ZERO);
+    }
+
+    /**
+     * Crea un servicio que agrupa las altas concurrentes en transacciones de hasta {@code maxLote} reservas.
+     *
+     * @param numeroFranjas Número mínimo de franjas de cerrojos.
+     * @param maxLote       Reservas como máximo por transacción (1 = no agrupar).
+     * @param maxEspera     Tiempo máximo que se espera a que se llene un lote (cero = no esperar).
+     */
+    public ServicioReservas(int numeroFranjas, int maxLote, Duration maxEspera) {
+        if (numeroFranjas <= 0) {
+            throw new IllegalArgumentException("El número de franjas debe ser mayor que 0");
+        }
+        int tamano = Integer.highestOneBit(numeroFranjas);
+        if (tamano < numeroFranjas) {
+            tamano <<= 1;
+        }
+        franjas = new ReentrantLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        mascara = tamano - 1;
+        if (maxLote < 1) {
+            throw new IllegalArgumentException("El tamaño máximo del lote debe ser mayor que 0");
+        }
+        this.maxLote = maxLote;
+        this.maxEsperaNanos = maxEspera.toNanos();
+    }
+
+    /**
+     * Crea una reserva si no se solapa con ninguna otra de la misma sala y fecha.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param salaId     ID de la sala.
+     * @param empleadoId ID del empleado.
+     * @param fecha      Fecha de la reserva.
+     * @param horaInicio Hora de inicio.
+     * @param horaFin    Hora de fin.
+     * @return CREADA con el ID generado (si el driver lo devuelve), CONFLICTO o ERROR.
+     * @throws SQLException si falla la escritura.
+     */
+    public Resultado crear(Connection conn, int salaId, int empleadoId, LocalDate fecha,
+                           LocalTime horaInicio, LocalTime horaFin) throws SQLException {
+        // Con una transacción abierta por quien llama no se puede confirmar el trabajo de otros hilos
+        if (maxLote > 1 && conn.getAutoCommit()) {
+            return grupo().crear(conn, salaId, empleadoId, fecha, horaInicio, horaFin);
+        }
+        return crearSola(conn, salaId, empleadoId, fecha, horaInicio, horaFin);
+    }
+
+    /**
+     * Devuelve la escritura agrupada, creándola la primera vez. No se crea en el constructor para no
+     * publicar {@code this} (a través de {@link #escribirLote}) antes de que el objeto esté construido.
+     */
+    private EscrituraAgrupada grupo() {
+        EscrituraAgrupada actual = grupo;
+        if (actual == null) {
+            synchronized (this) {
+                // Otro hilo puede haberla creado mientras se esperaba el monitor
+                actual = grupo;
+                if (actual == null) {
+                    actual = new EscrituraAgrupada(maxLote, maxEsperaNanos, this::escribirLote);
+                    grupo = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    private Resultado crearSola(Connection conn, int salaId, int empleadoId, LocalDate fecha,
+                                LocalTime horaInicio, LocalTime horaFin) throws SQLException {
+        Lock cerrojo = cerrojo(salaId, fecha);
+        cerrojo.lock();
+        try {
+            if (Reservas.existeConflictoReserva(conn, salaId, fecha, horaInicio, horaFin, null)) {
+                return new Resultado(Estado.CONFLICTO, null);
+            }
+
+            // Solo se piden las claves generadas cuando hay que mantener el índice
+            IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+            boolean mantenerIndice = indice.estaCargado();
+            Reserva reserva = RepositorioReservas.insertar(conn, salaId, empleadoId, fecha, horaInicio, horaFin, mantenerIndice);
+            if (reserva == null) {
+                logger.warn("Insert reservas no afectó filas");
+                return new Resultado(Estado.ERROR, null);
+            }
+            CalendarioSalas.getInstancia().marcar(salaId, fecha, horaInicio, horaFin);
+            return new Resultado(Estado.CREADA, mantenerIndice ? registrarEnIndice(reserva) : null);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Escribe un lote de altas de {@link EscrituraAgrupada} con la conexión del líder. Se toman a la vez,
+     * en orden creciente, los cerrojos de todas las franjas del lote; las que chocan con reservas
+     * guardadas o con otra anterior del mismo lote terminan en CONFLICTO y el resto se inserta con un
+     * {@code executeBatch} y un solo commit. Si la transacción falla (por ejemplo, porque una reserva
+     * apunta a una sala que ya no existe) se deshace y cada reserva se escribe por separado, para que
+     * el error llegue solo a quien lo causó.
+     */
+    private void escribirLote(Connection conn, List<EscrituraAgrupada.Peticion> lote) {
+        if (lote.size() == 1) {
+            EscrituraAgrupada.Peticion p = lote.get(0);
+            escribirSola(conn, p);
+            return;
+        }
+        List<Lock> cerrojos = cerrojos(lote);
+        cerrojos.forEach(Lock::lock);
+        try {
+            List<EscrituraAgrupada.Peticion> aceptadas = new ArrayList<>(lote.size());
+            for (EscrituraAgrupada.Peticion p : lote) {
+                try {
+                    if (solapaConAceptada(p, aceptadas) || Reservas.existeConflictoReserva(conn, p.salaId, p.fecha,
+                            p.horaInicio, p.horaFin, null)) {
+                        p.completar(new Resultado(Estado.CONFLICTO, null));
+                    } else {
+                        aceptadas.add(p);
+                    }
+                } catch (RuntimeException e) {
+                    p.fallar(e);
+                }
+            }
+            if (aceptadas.isEmpty()) {
+                return;
+            }
+
+            IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+            boolean mantenerIndice = indice.estaCargado();
+            List<Reserva> reservas = new ArrayList<>(aceptadas.size());
+            aceptadas.forEach(p -> reservas.add(p.reserva(0)));
+            int[] ids;
+            try {
+                ids = enTransaccion(conn, () -> RepositorioReservas.insertarLote(conn, reservas, mantenerIndice));
+            } catch (SQLException e) {
+                logger.warn("Falló la transacción de un lote de {} reservas; se escriben una a una",
+                        aceptadas.size(), e);
+                aceptadas.forEach(p -> escribirSola(conn, p));
+                return;
+            }
+            CalendarioSalas calendario = CalendarioSalas.getInstancia();
+            aceptadas.forEach(p -> calendario.marcar(p.salaId, p.fecha, p.horaInicio, p.horaFin));
+            for (int i = 0; i < aceptadas.size(); i++) {
+                Integer id = mantenerIndice ? registrarEnIndice(aceptadas.get(i).reserva(ids[i])) : null;
+                aceptadas.get(i).completar(new Resultado(Estado.CREADA, id));
+            }
+        } finally {
+            cerrojos.forEach(Lock::unlock);
+        }
+    }
+
+    private void escribirSola(Connection conn, EscrituraAgrupada.Peticion p) {
+        try {
+            p.completar(crearSola(conn, p.salaId, p.empleadoId, p.fecha, p.horaInicio, p.horaFin));
+        } catch (SQLException | RuntimeException e) {
+            p.fallar(e);
+        }
+    }
+
+    private static boolean solapaConAceptada(EscrituraAgrupada.Peticion p, List<EscrituraAgrupada.Peticion> aceptadas) {
+        for (EscrituraAgrupada.Peticion otra : aceptadas) {
+            if (otra.salaId == p.salaId && otra.fecha.equals(p.fecha)
+                    && p.horaInicio.isBefore(otra.horaFin) && p.horaFin.isAfter(otra.horaInicio)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Modifica una reserva si el nuevo horario no se solapa con otra de la misma sala y fecha.
+     * Con la versión leída por quien edita, la existencia y la versión se comprueban en el propio
+     * {@code UPDATE}: si otro la cambió entretanto no se escribe nada y el resultado es DESACTUALIZADA.
+     * Solo en ese caso se hace una segunda consulta para distinguirlo de una reserva que ya no existe.
+     * <p>
+     * Con el calendario abierto se bloquea también la franja de origen, en orden creciente con la de
+     * destino: el horario anterior se libera en el calendario, y una reserva nueva en él hecha entretanto
+     * quedaría como libre.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param id         ID de la reserva.
+     * @param version    Versión leída por quien edita, o null para sobrescribir sin comprobarla.
+     * @param salaId     Nuevo ID de sala.
+     * @param empleadoId Nuevo ID de empleado.
+     * @param fecha      Nueva fecha.
+     * @param horaInicio Nueva hora de inicio.
+     * @param horaFin    Nueva hora de fin.
+     * @return ACTUALIZADA (con la nueva versión si se indicó la leída), CONFLICTO, NO_ENCONTRADA o DESACTUALIZADA.
+     * @throws SQLException si falla la escritura.
+     */
+    public Resultado actualizar(Connection conn, int id, Integer version, int salaId, int empleadoId, LocalDate fecha,
+                                LocalTime horaInicio, LocalTime horaFin) throws SQLException {
+        while (true) {
+            Reserva anterior = origen(conn, id);
+            List<Lock> cerrojos = cerrojos(anterior, salaId, fecha);
+            cerrojos.forEach(Lock::lock);
+            try {
+                // Si otro la movió mientras se esperaban los cerrojos, se vuelve a empezar
+                if (anterior == null || mismoHorario(anterior, origen(conn, id))) {
+                    return actualizarBloqueada(conn, id, version, salaId, empleadoId, fecha, horaInicio, horaFin,
+                            anterior);
+                }
+            } finally {
+                cerrojos.forEach(Lock::unlock);
+            }
+        }
+    }
+
+    private Resultado actualizarBloqueada(Connection conn, int id, Integer version, int salaId, int empleadoId,
+                                          LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, Reserva anterior)
+            throws SQLException {
+        if (Reservas.existeConflictoReserva(conn, salaId, fecha, horaInicio, horaFin, id)) {
+            return new Resultado(Estado.CONFLICTO, id);
+        }
+        if (version == null) {
+            Reserva reserva = new Reserva(id, salaId, empleadoId, fecha, horaInicio, horaFin);
+            if (!RepositorioReservas.actualizar(conn, reserva)) {
+                return new Resultado(Estado.NO_ENCONTRADA, id);
+            }
+        } else if (!RepositorioReservas.actualizarSiVersion(conn,
+                new Reserva(id, salaId, empleadoId, fecha, horaInicio, horaFin, version))) {
+            return new Resultado(RepositorioReservas.existe(conn, id) ? Estado.DESACTUALIZADA : Estado.NO_ENCONTRADA,
+                    id);
+        }
+        IndiceDisponibilidad.getInstancia().registrar(id, salaId, empleadoId, fecha, horaInicio, horaFin);
+        CalendarioSalas calendario = CalendarioSalas.getInstancia();
+        if (anterior != null) {
+            calendario.liberar(anterior.salaId(), anterior.fecha(), anterior.horaInicio(), anterior.horaFin());
+        }
+        calendario.marcar(salaId, fecha, horaInicio, horaFin);
+        return new Resultado(Estado.ACTUALIZADA, id, version == null ? null : version + 1);
+    }
+
+    /**
+     * Elimina una reserva. Con el calendario abierto se hace con el cerrojo de su franja, por el mismo
+     * motivo que en {@link #actualizar}.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la reserva.
+     * @return true si la reserva existía.
+     * @throws SQLException si falla el borrado.
+     */
+    public boolean eliminar(Connection conn, int id) throws SQLException {
+        while (true) {
+            Reserva anterior = origen(conn, id);
+            Lock cerrojo = anterior == null ? null : cerrojo(anterior.salaId(), anterior.fecha());
+            if (cerrojo != null) {
+                cerrojo.lock();
+            }
+            try {
+                if (anterior != null && !mismoHorario(anterior, origen(conn, id))) {
+                    continue;
+                }
+                if (!RepositorioReservas.eliminar(conn, id)) {
+                    return false;
+                }
+                IndiceDisponibilidad.getInstancia().eliminar(id);
+                if (anterior != null) {
+                    CalendarioSalas.getInstancia().liberar(anterior.salaId(), anterior.fecha(), anterior.horaInicio(),
+                            anterior.horaFin());
+                }
+                return true;
+            } finally {
+                if (cerrojo != null) {
+                    cerrojo.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea una serie de reservas periódicas si ninguna de sus ocurrencias se solapa con otra reserva.
+     * La serie y todas sus ocurrencias se guardan en una sola transacción.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param serie Serie a crear (se ignora su ID).
+     * @return CREADA con el ID y el número de ocurrencias, o CONFLICTO con las fechas ocupadas.
+     * @throws SQLException si falla la escritura o la sala o el empleado no existen.
+     */
+    public ResultadoSerie crearSerie(Connection conn, SerieReservas serie) throws SQLException {
+        List<Lock> cerrojos = cerrojos(serie);
+        cerrojos.forEach(Lock::lock);
+        try {
+            List<LocalDate> conflictos = RepositorioSeries.fechasEnConflicto(conn, serie, null);
+            if (!conflictos.isEmpty()) {
+                return new ResultadoSerie(Estado.CONFLICTO, null, 0, conflictos);
+            }
+
+            // La regla se inserta primero para conocer el ID con el que se enlazan las ocurrencias
+            SerieReservas guardada = enTransaccion(conn, () -> {
+                SerieReservas conId = serie.conId(RepositorioSeries.insertar(conn, serie));
+                RepositorioSeries.insertarOcurrencias(conn, conId);
+                return conId;
+            });
+            registrarOcurrencias(conn, guardada.id());
+            CalendarioSalas.getInstancia().marcar(guardada);
+            return new ResultadoSerie(Estado.CREADA, guardada.id(), guardada.numeroOcurrencias(), List.of());
+        } finally {
+            cerrojos.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Sustituye la regla de una serie y regenera todas sus ocurrencias, si ninguna de las nuevas se
+     * solapa con reservas ajenas a la serie. Las ocurrencias modificadas una a una se pierden.
+     *
+     * @param conn  Conexión a la base de datos.
+     * @param id    ID de la serie.
+     * @param nueva Nueva regla (se ignora su ID).
+     * @return ACTUALIZADA, CONFLICTO con las fechas ocupadas o NO_ENCONTRADA.
+     * @throws SQLException si falla la escritura o la sala o el empleado no existen.
+     */
+    public ResultadoSerie actualizarSerie(Connection conn, int id, SerieReservas nueva) throws SQLException {
+        SerieReservas serie = nueva.conId(id);
+        // Basta con los cerrojos del destino: liberar las ocurrencias anteriores no crea conflictos
+        List<Lock> cerrojos = cerrojos(serie);
+        cerrojos.forEach(Lock::lock);
+        try {
+            SerieReservas anterior = RepositorioSeries.buscar(conn, id);
+            if (anterior == null) {
+                return new ResultadoSerie(Estado.NO_ENCONTRADA, id, 0, List.of());
+            }
+            List<LocalDate> conflictos = RepositorioSeries.fechasEnConflicto(conn, serie, id);
+            if (!conflictos.isEmpty()) {
+                return new ResultadoSerie(Estado.CONFLICTO, id, 0, conflictos);
+            }
+
+            List<Reserva> anteriores = ocurrenciasIndexadas(conn, id);
+            int ocurrencias = enTransaccion(conn, () -> {
+                RepositorioSeries.actualizar(conn, serie);
+                RepositorioSeries.eliminarOcurrencias(conn, id);
+                return RepositorioSeries.insertarOcurrencias(conn, serie);
+            });
+            IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+            anteriores.forEach(r -> indice.eliminar(r.id()));
+            registrarOcurrencias(conn, id);
+            CalendarioSalas calendario = CalendarioSalas.getInstancia();
+            calendario.recalcular(conn, anterior);
+            calendario.marcar(serie);
+            return new ResultadoSerie(Estado.ACTUALIZADA, id, ocurrencias, List.of());
+        } finally {
+            cerrojos.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Cancela una serie completa: borra la regla y, en cascada, todas sus ocurrencias.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la serie.
+     * @return true si la serie existía.
+     * @throws SQLException si falla el borrado.
+     */
+    public boolean cancelarSerie(Connection conn, int id) throws SQLException {
+        List<Reserva> ocurrencias = ocurrenciasIndexadas(conn, id);
+        CalendarioSalas calendario = CalendarioSalas.getInstancia();
+        SerieReservas serie = calendario.estaAbierto() ? RepositorioSeries.buscar(conn, id) : null;
+        if (!RepositorioSeries.eliminar(conn, id)) {
+            return false;
+        }
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        ocurrencias.forEach(r -> indice.eliminar(r.id()));
+        if (serie != null) {
+            calendario.recalcular(conn, serie);
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve el cerrojo de la franja que corresponde a una sala y fecha.
+     *
+     * @param salaId ID de la sala.
+     * @param fecha  Fecha.
+     * @return Cerrojo compartido por todas las reservas de esa franja.
+     */
+    Lock cerrojo(int salaId, LocalDate fecha) {
+        return franjas[franja(salaId, fecha)];
+    }
+
+    /**
+     * Devuelve los cerrojos de todas las franjas que tocan las ocurrencias de una serie, sin
+     * repetir y en orden creciente de franja para que dos series no se bloqueen entre sí.
+     */
+    List<Lock> cerrojos(SerieReservas serie) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        serie.fechas().forEach(fecha -> indices.add(franja(serie.salaId(), fecha)));
+        List<Lock> cerrojos = new ArrayList<>(indices.size());
+        indices.forEach(i -> cerrojos.add(franjas[i]));
+        return cerrojos;
+    }
+
+    /**
+     * Devuelve los cerrojos de las franjas de origen (si se conoce) y destino de un cambio, sin repetir y
+     * en orden creciente.
+     */
+    private List<Lock> cerrojos(Reserva origen, int salaId, LocalDate fecha) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        indices.add(franja(salaId, fecha));
+        if (origen != null) {
+            indices.add(franja(origen.salaId(), origen.fecha()));
+        }
+        List<Lock> cerrojos = new ArrayList<>(indices.size());
+        indices.forEach(i -> cerrojos.add(franjas[i]));
+        return cerrojos;
+    }
+
+    /**
+     * Devuelve los cerrojos de las franjas de un lote de altas, sin repetir y en orden creciente.
+     */
+    private List<Lock> cerrojos(List<EscrituraAgrupada.Peticion> lote) {
+        return cerrojos(lote, p -> p.salaId, p -> p.fecha);
+    }
+
+    /**
+     * Devuelve los cerrojos de las franjas de un conjunto de pares (sala, fecha), sin repetir y en orden
+     * creciente. Lo usan las escrituras por lotes de fuera del servicio, como la importación de CSV.
+     *
+     * @param elementos Elementos de los que se obtiene cada par.
+     * @param sala      Extrae el ID de la sala de un elemento.
+     * @param fecha     Extrae la fecha de un elemento.
+     * @return Cerrojos que hay que tomar, en el orden en que deben tomarse.
+     */
+    <T> List<Lock> cerrojos(Collection<T> elementos, ToIntFunction<T> sala, Function<T, LocalDate> fecha) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        elementos.forEach(e -> indices.add(franja(sala.applyAsInt(e), fecha.apply(e))));
+        List<Lock> cerrojos = new ArrayList<>(indices.size());
+        indices.forEach(i -> cerrojos.add(franjas[i]));
+        return cerrojos;
+    }
+
+    /**
+     * @return Lotes de altas escritos por la escritura agrupada (0 si está desactivada).
+     */
+    public long getLotesAgrupados() {
+        EscrituraAgrupada actual = grupo;
+        return actual == null ? 0 : actual.getLotes();
+    }
+
+    /**
+     * @return Reservas escritas por la escritura agrupada (0 si está desactivada).
+     */
+    public long getReservasAgrupadas() {
+        EscrituraAgrupada actual = grupo;
+        return actual == null ? 0 : actual.getReservas();
+    }
+
+    private int franja(int salaId, LocalDate fecha) {
+        int hash = 31 * salaId + Long.hashCode(fecha.toEpochDay());
+        // Mezclar los bits altos para repartir mejor salas y días consecutivos
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return hash & mascara;
+    }
+
+    /**
+     * Ejecuta una operación en una transacción y restaura después el modo autocommit de la conexión.
+     */
+    private static <T> T enTransaccion(Connection conn, Transaccion<T> operacion) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            T resultado = operacion.ejecutar();
+            conn.commit();
+            return resultado;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Devuelve el horario guardado de una reserva, que hay que liberar en el calendario al cambiarla o
+     * eliminarla: del índice si está cargado y, si no, de la base de datos.
+     *
+     * @return Reserva guardada, o null si el calendario está cerrado o la reserva no existe.
+     */
+    private static Reserva origen(Connection conn, int id) throws SQLException {
+        if (!CalendarioSalas.getInstancia().estaAbierto()) {
+            return null;
+        }
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        return indice.estaCargado() ? indice.buscar(id) : RepositorioReservas.buscar(conn, id);
+    }
+
+    private static boolean mismoHorario(Reserva a, Reserva b) {
+        return b != null && a.salaId() == b.salaId() && a.fecha().equals(b.fecha())
+                && a.horaInicio().equals(b.horaInicio()) && a.horaFin().equals(b.horaFin());
+    }
+
+    /**
+     * Lee las ocurrencias guardadas de una serie si hay que mantener el índice; si no, devuelve una lista vacía.
+     */
+    private static List<Reserva> ocurrenciasIndexadas(Connection conn, int serieId) throws SQLException {
+        return IndiceDisponibilidad.getInstancia().estaCargado()
+                ? RepositorioSeries.ocurrencias(conn, serieId)
+                : List.of();
+    }
+
+    /**
+     * Añade al índice las ocurrencias recién escritas de una serie.
+     */
+    private static void registrarOcurrencias(Connection conn, int serieId) throws SQLException {
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        for (Reserva r : ocurrenciasIndexadas(conn, serieId)) {
+            indice.registrar(r.id(), r.salaId(), r.empleadoId(), r.fecha(), r.horaInicio(), r.horaFin());
+        }
+    }
+
+    /**
+     * Añade al índice la reserva recién insertada.
+     * Si el driver no devolvió el ID generado, invalida el índice para volver a la comprobación SQL.
+     */
+    private static Integer registrarEnIndice(Reserva reserva) {
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        if (reserva.id() > 0) {
+            indice.registrar(reserva.id(), reserva.salaId(), reserva.empleadoId(), reserva.fecha(),
+                    reserva.horaInicio(), reserva.horaFin());
+            return reserva.id();
+        }
+        logger.warn("No se obtuvo el ID generado de la reserva; se invalida el índice de disponibilidad");
+        indice.invalidar();
+        return null;
+    }
+}
@@ -0,0 +1,216 @@
+package com.empresa.salas;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en memoria de los datos de las salas (ID, nombre, capacidad y recursos).
+ * <p>
+ * Se carga completa al arrancar y la mantienen al día las operaciones de {@link Salas}.
+ * Mientras no esté cargada, las búsquedas van siempre a la base de datos. Una vez cargada,
+ * los nombres que no estén en memoria se consultan en la base de datos y se añaden (lectura
+ * a través de la caché), por si otra instancia de la aplicación creó la sala.
+ * <p>
+ * Junto a la caché se mantiene un {@link IndiceRecursos} para buscar salas por recursos y capacidad.
+ */
+public class CacheSalas {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSalas.class);
+    private static final CacheSalas INSTANCIA = new CacheSalas();
+
+    /**
+     * Contadores de uso de la caché.
+     *
+     * @param aciertos Búsquedas resueltas desde memoria.
+     * @param fallos   Búsquedas que tuvieron que consultar la base de datos.
+     * @param tamano   Salas en caché.
+     */
+    public record Estadisticas(long aciertos, long fallos, int tamano) {
+
+        /**
+         * Calcula la proporción de búsquedas resueltas desde memoria.
+         *
+         * @return Tasa de aciertos entre 0 y 1.
+         */
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+
+    private final Map<Integer, Sala> porId = new ConcurrentHashMap<>();
+    private final Map<String, Sala> porNombre = new ConcurrentHashMap<>();
+    private final IndiceRecursos indiceRecursos = new IndiceRecursos();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private volatile boolean cargada;
+
+    /**
+     * Devuelve la caché compartida por toda la aplicación.
+     *
+     * @return Instancia única de la caché.
+     */
+    public static CacheSalas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Carga (o recarga) todas las salas de la base de datos.
+     *
+     * @param conn Conexión a la base de datos.
+     * @throws SQLException si falla la lectura de la tabla de salas.
+     */
+    public synchronized void cargar(Connection conn) throws SQLException {
+        List<Sala> salas = RepositorioSalas.listar(conn);
+        porId.clear();
+        porNombre.clear();
+        indiceRecursos.vaciar();
+        salas.forEach(this::poner);
+        cargada = true;
+        logger.info("Caché de salas cargada con {} salas", salas.size());
+    }
+
+    /**
+     * Indica si la caché contiene todas las salas de la base de datos.
+     *
+     * @return true si se ha cargado y no se ha invalidado después.
+     */
+    public boolean estaCargada() {
+        return cargada;
+    }
+
+    /**
+     * Vacía la caché y la marca como no cargada.
+     */
+    public synchronized void invalidar() {
+        cargada = false;
+        porId.clear();
+        porNombre.clear();
+        indiceRecursos.vaciar();
+    }
+
+    /**
+     * Busca una sala por su nombre, desde memoria si es posible.
+     *
+     * @param conn   Conexión a la base de datos, usada si la sala no está en caché.
+     * @param nombre Nombre de la sala.
+     * @return La sala, o null si no existe.
+     * @throws SQLException si falla la consulta a la base de datos.
+     */
+    public Sala buscarPorNombre(Connection conn, String nombre) throws SQLException {
+        if (cargada) {
+            Sala sala = porNombre.get(nombre);
+            if (sala != null) {
+                aciertos.increment();
+                return sala;
+            }
+        }
+        fallos.increment();
+
+        Sala sala = RepositorioSalas.buscarPorNombre(conn, nombre);
+        if (sala != null && cargada) {
+            registrar(sala);
+        }
+        return sala;
+    }
+
+    /**
+     * Busca una sala por su ID en memoria.
+     *
+     * @param id ID de la sala.
+     * @return La sala, o null si no está en caché.
+     */
+    public Sala buscarPorId(int id) {
+        Sala sala = porId.get(id);
+        if (sala != null) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+        }
+        return sala;
+    }
+
+    /**
+     * Devuelve todas las salas en caché ordenadas por ID.
+     *
+     * @return Copia de las salas en caché.
+     */
+    public List<Sala> todas() {
+        List<Sala> salas = new ArrayList<>(porId.values());
+        salas.sort(Comparator.comparingInt(Sala::id));
+        return salas;
+    }
+
+    /**
+     * Busca en memoria las salas con todos los recursos indicados y al menos la capacidad pedida.
+     *
+     * @param recursos        Máscara de recursos del {@link CatalogoRecursos} (0 = cualquiera).
+     * @param capacidadMinima Capacidad mínima.
+     * @return Salas que cumplen ambas condiciones ordenadas por ID; vacía si la caché no está cargada.
+     */
+    public synchronized List<Sala> buscarPorRecursos(long recursos, int capacidadMinima) {
+        return indiceRecursos.buscar(recursos, capacidadMinima);
+    }
+
+    /**
+     * Añade o sustituye una sala tras crearla o actualizarla.
+     * Se ignora mientras la caché no esté cargada.
+     *
+     * @param sala Datos actuales de la sala.
+     */
+    public synchronized void registrar(Sala sala) {
+        if (!cargada) {
+            return;
+        }
+        quitar(sala.id());
+        poner(sala);
+    }
+
+    /**
+     * Elimina una sala de la caché.
+     *
+     * @param id ID de la sala eliminada.
+     */
+    public synchronized void eliminar(int id) {
+        quitar(id);
+    }
+
+    /**
+     * Devuelve los contadores de uso de la caché.
+     *
+     * @return Instantánea de las estadísticas.
+     */
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(aciertos.sum(), fallos.sum(), porId.size());
+    }
+
+    private void poner(Sala sala) {
+        porId.put(sala.id(), sala);
+        indiceRecursos.registrar(sala);
+        if (sala.nombre() == null) {
+            return;
+        }
+        // Si hay salas con el mismo nombre se conserva la de menor ID
+        porNombre.merge(sala.nombre(), sala, (actual, nueva) -> actual.id() <= nueva.id() ? actual : nueva);
+    }
+
+    private void quitar(int id) {
+        Sala anterior = porId.remove(id);
+        indiceRecursos.eliminar(id);
+        if (anterior == null || anterior.nombre() == null) {
+            return;
+        }
+        porNombre.remove(anterior.nombre(), anterior);
+        // Recuperar otra sala con el mismo nombre, si la hay
+        porId.values().stream()
+                .filter(s -> anterior.nombre().equals(s.nombre()))
+                .min(Comparator.comparingInt(Sala::id))
+                .ifPresent(s -> porNombre.putIfAbsent(s.nombre(), s));
+    }
+}
@@ -0,0 +1,158 @@
+package com.empresa.salas;
+
+import java.util.*;
+
+/**
+ * Catálogo de los recursos que puede tener una sala.
+ * <p>
+ * Cada recurso ocupa un bit de una máscara {@code long}: el conjunto de recursos de una sala se
+ * guarda en un solo número y comprobar si tiene varios recursos es una operación AND. En la base
+ * de datos se sigue guardando el texto ({@code salas.recursos}), escrito siempre con los nombres del
+ * catálogo y en su orden, y la máscara se calcula al leer la sala.
+ */
+public final class CatalogoRecursos {
+
+    /**
+     * Recursos del catálogo. El bit de cada uno es su posición, así que los nuevos se añaden al final.
+     */
+    public enum Recurso {
+        PROYECTOR("Proyector"),
+        PIZARRA("Pizarra"),
+        VIDEOCONFERENCIA("Videoconferencia"),
+        AUDIO("Audio"),
+        TV("TV");
+
+        private final String nombre;
+
+        Recurso(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * @return Nombre con el que se muestra y se guarda.
+         */
+        public String nombre() {
+            return nombre;
+        }
+
+        /**
+         * @return Máscara con solo el bit de este recurso.
+         */
+        public long bit() {
+            return 1L << ordinal();
+        }
+    }
+
+    private static final Recurso[] RECURSOS = Recurso.values();
+    private static final Map<String, Recurso> POR_NOMBRE = new HashMap<>();
+
+    static {
+        for (Recurso recurso : RECURSOS) {
+            POR_NOMBRE.put(clave(recurso.nombre()), recurso);
+        }
+    }
+
+    private CatalogoRecursos() {
+    }
+
+    /**
+     * Calcula la máscara de un texto de recursos, ignorando los nombres que no están en el catálogo
+     * (datos anteriores al catálogo o escritos fuera de la aplicación).
+     *
+     * @param texto Recursos separados por comas o punto y coma; puede ser null.
+     * @return Máscara de los recursos reconocidos.
+     */
+    public static long mascara(String texto) {
+        long mascara = 0;
+        for (String nombre : separar(texto)) {
+            Recurso recurso = POR_NOMBRE.get(clave(nombre));
+            if (recurso != null) {
+                mascara |= recurso.bit();
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Valida un texto de recursos contra el catálogo.
+     *
+     * @param texto Recursos separados por comas o punto y coma, sin distinguir mayúsculas.
+     * @return Máscara de los recursos.
+     * @throws IllegalArgumentException si algún nombre no está en el catálogo.
+     */
+    public static long validar(String texto) {
+        long mascara = 0;
+        List<String> desconocidos = new ArrayList<>();
+        for (String nombre : separar(texto)) {
+            Recurso recurso = POR_NOMBRE.get(clave(nombre));
+            if (recurso == null) {
+                desconocidos.add(nombre);
+            } else {
+                mascara |= recurso.bit();
+            }
+        }
+        if (!desconocidos.isEmpty()) {
+            throw new IllegalArgumentException("Recursos desconocidos: " + String.join(", ", desconocidos)
+                    + ". Disponibles: " + disponibles());
+        }
+        return mascara;
+    }
+
+    /**
+     * Escribe una máscara con los nombres del catálogo, en el orden del catálogo.
+     *
+     * @param mascara Máscara de recursos.
+     * @return Texto como "Proyector, Pizarra", o cadena vacía si no hay ninguno.
+     */
+    public static String texto(long mascara) {
+        StringJoiner texto = new StringJoiner(", ");
+        for (Recurso recurso : RECURSOS) {
+            if ((mascara & recurso.bit()) != 0) {
+                texto.add(recurso.nombre());
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Valida un texto de recursos y lo reescribe con los nombres del catálogo.
+     *
+     * @param texto Recursos introducidos por el usuario.
+     * @return Texto normalizado.
+     * @throws IllegalArgumentException si algún nombre no está en el catálogo.
+     */
+    public static String normalizar(String texto) {
+        return texto(validar(texto));
+    }
+
+    /**
+     * @return Nombres de todos los recursos del catálogo separados por comas.
+     */
+    public static String disponibles() {
+        return texto(-1L);
+    }
+
+    /**
+     * @return Número de recursos del catálogo.
+     */
+    public static int tamano() {
+        return RECURSOS.length;
+    }
+
+    private static List<String> separar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        List<String> nombres = new ArrayList<>();
+        for (String nombre : texto.split("[,;]")) {
+            if (!nombre.isBlank()) {
+                nombres.add(nombre.trim());
+            }
+        }
+        return nombres;
+    }
+
+    private static String clave(String nombre) {
+        return nombre.trim().toLowerCase(Locale.ROOT);
+    }
+}
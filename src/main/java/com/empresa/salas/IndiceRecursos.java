@@ -0,0 +1,106 @@
+package com.empresa.salas;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido de salas por recurso: para cada recurso del {@link CatalogoRecursos}, un mapa
+ * de bits con los IDs de las salas que lo tienen.
+ * <p>
+ * Las salas con varios recursos se obtienen con un AND de los mapas de bits de cada uno, sin
+ * recorrer todas las salas ni comparar textos; después solo se comprueba la capacidad de las
+ * candidatas. No es seguro para hilos: la sincronización la realiza quien lo usa
+ * ({@link CacheSalas}, el motor embebido de {@code com.empresa.almacen}).
+ */
+public class IndiceRecursos {
+
+    private final BitSet[] porRecurso = new BitSet[CatalogoRecursos.tamano()];
+    private final BitSet todas = new BitSet();
+    private final Map<Integer, Sala> porId = new HashMap<>();
+
+    public IndiceRecursos() {
+        for (int i = 0; i < porRecurso.length; i++) {
+            porRecurso[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Añade una sala o sustituye sus datos.
+     *
+     * @param sala Datos actuales de la sala.
+     */
+    public void registrar(Sala sala) {
+        eliminar(sala.id());
+        porId.put(sala.id(), sala);
+        todas.set(sala.id());
+        for (int i = 0; i < porRecurso.length; i++) {
+            if ((sala.mascaraRecursos() & (1L << i)) != 0) {
+                porRecurso[i].set(sala.id());
+            }
+        }
+    }
+
+    /**
+     * Quita una sala del índice.
+     *
+     * @param id ID de la sala.
+     */
+    public void eliminar(int id) {
+        if (porId.remove(id) == null) {
+            return;
+        }
+        todas.clear(id);
+        for (BitSet salas : porRecurso) {
+            salas.clear(id);
+        }
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public void vaciar() {
+        porId.clear();
+        todas.clear();
+        for (BitSet salas : porRecurso) {
+            salas.clear();
+        }
+    }
+
+    /**
+     * Busca las salas que tienen todos los recursos indicados y al menos la capacidad pedida.
+     *
+     * @param recursos        Máscara de los recursos requeridos (0 = cualquiera).
+     * @param capacidadMinima Capacidad mínima.
+     * @return Salas que cumplen ambas condiciones, ordenadas por ID.
+     */
+    public List<Sala> buscar(long recursos, int capacidadMinima) {
+        BitSet candidatas = (BitSet) todas.clone();
+        for (int i = 0; i < porRecurso.length && !candidatas.isEmpty(); i++) {
+            if ((recursos & (1L << i)) != 0) {
+                candidatas.and(porRecurso[i]);
+            }
+        }
+        if ((recursos >>> porRecurso.length) != 0) {
+            // Bits fuera del catálogo: ninguna sala puede tenerlos
+            return List.of();
+        }
+        List<Sala> salas = new ArrayList<>(candidatas.cardinality());
+        for (int id = candidatas.nextSetBit(0); id >= 0; id = candidatas.nextSetBit(id + 1)) {
+            Sala sala = porId.get(id);
+            if (sala.capacidad() >= capacidadMinima) {
+                salas.add(sala);
+            }
+        }
+        return salas;
+    }
+
+    /**
+     * @return Número de salas indexadas.
+     */
+    public int tamano() {
+        return porId.size();
+    }
+}
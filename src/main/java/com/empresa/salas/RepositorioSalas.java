@@ -0,0 +1,226 @@
+package com.empresa.salas;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Acceso a la tabla de salas sin interacción por consola.
+ * <p>
+ * Cada operación usa siempre el mismo texto SQL, de modo que la caché de sentencias del pool
+ * de conexiones la prepara una sola vez por conexión y la reutiliza en las llamadas siguientes.
+ */
+public final class RepositorioSalas {
+
+    static final String SQL_INSERTAR = "INSERT INTO salas (nombre, capacidad, recursos) VALUES (?, ?, ?)";
+    static final String SQL_ACTUALIZAR =
+            "UPDATE salas SET nombre = ?, capacidad = ?, recursos = ?, version = version + 1 WHERE id = ?";
+    static final String SQL_ACTUALIZAR_VERSION = SQL_ACTUALIZAR + " AND version = ?";
+    static final String SQL_EXISTE = "SELECT COUNT(*) FROM salas WHERE id = ?";
+    static final String SQL_ELIMINAR = "DELETE FROM salas WHERE id = ?";
+    static final String SQL_BUSCAR = "SELECT id, nombre, capacidad, recursos, version FROM salas WHERE id = ?";
+    static final String SQL_BUSCAR_POR_NOMBRE =
+            "SELECT id, nombre, capacidad, recursos, version FROM salas WHERE nombre = ?";
+    static final String SQL_LISTAR = "SELECT id, nombre, capacidad, recursos, version FROM salas ORDER BY id";
+    static final String SQL_PAGINA =
+            "SELECT id, nombre, capacidad, recursos, version FROM salas WHERE id > ? ORDER BY id LIMIT ?";
+
+    private RepositorioSalas() {
+    }
+
+    /**
+     * Inserta una sala.
+     *
+     * @param conn      Conexión a la base de datos.
+     * @param nombre    Nombre de la sala.
+     * @param capacidad Capacidad.
+     * @param recursos  Recursos disponibles.
+     * @param obtenerId true para pedir al driver el ID generado.
+     * @return La sala insertada (con ID 0 si no se pidió o el driver no lo devolvió), o null si no se insertó.
+     * @throws SQLException si falla la inserción (por ejemplo, por nombre duplicado).
+     */
+    public static Sala insertar(Connection conn, String nombre, int capacidad, String recursos, boolean obtenerId)
+            throws SQLException {
+        try (PreparedStatement pstmt = obtenerId
+                ? conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(SQL_INSERTAR)) {
+            pstmt.setString(1, nombre);
+            pstmt.setInt(2, capacidad);
+            pstmt.setString(3, recursos);
+            if (pstmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = 0;
+            if (obtenerId) {
+                try (ResultSet claves = pstmt.getGeneratedKeys()) {
+                    if (claves != null && claves.next()) {
+                        id = claves.getInt(1);
+                    }
+                }
+            }
+            return new Sala(id, nombre, capacidad, recursos);
+        }
+    }
+
+    /**
+     * Sustituye los datos de una sala sin comprobar su versión, e incrementa la versión.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param sala Nuevos datos; el ID identifica la sala y se ignora su versión.
+     * @return true si la sala existía y se actualizó.
+     * @throws SQLException si falla la actualización.
+     */
+    public static boolean actualizar(Connection conn, Sala sala) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTUALIZAR)) {
+            asignarActualizacion(pstmt, sala);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Sustituye los datos de una sala solo si sigue en la versión indicada, e incrementa la versión.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param sala Nuevos datos; el ID identifica la sala y la versión es la que se leyó.
+     * @return true si se actualizó; false si no existe o ya tiene otra versión.
+     * @throws SQLException si falla la actualización (por ejemplo, por nombre duplicado).
+     */
+    public static boolean actualizarSiVersion(Connection conn, Sala sala) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTUALIZAR_VERSION)) {
+            asignarActualizacion(pstmt, sala);
+            pstmt.setInt(5, sala.version());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    private static void asignarActualizacion(PreparedStatement pstmt, Sala sala) throws SQLException {
+        pstmt.setString(1, sala.nombre());
+        pstmt.setInt(2, sala.capacidad());
+        pstmt.setString(3, sala.recursos());
+        pstmt.setInt(4, sala.id());
+    }
+
+    /**
+     * Lee una sala de la base de datos con su versión actual.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la sala.
+     * @return La sala, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static Sala buscar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_BUSCAR)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? leerSala(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Comprueba si existe una sala.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la sala.
+     * @return true si existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static boolean existe(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_EXISTE)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Elimina una sala; sus reservas se borran en cascada.
+     *
+     * @param conn Conexión a la base de datos.
+     * @param id   ID de la sala.
+     * @return true si se eliminó.
+     * @throws SQLException si falla el borrado.
+     */
+    public static boolean eliminar(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_ELIMINAR)) {
+            pstmt.setInt(1, id);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Busca una sala por su nombre en la base de datos.
+     *
+     * @param conn   Conexión a la base de datos.
+     * @param nombre Nombre de la sala.
+     * @return La sala, o null si no existe.
+     * @throws SQLException si falla la consulta.
+     */
+    public static Sala buscarPorNombre(Connection conn, String nombre) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_BUSCAR_POR_NOMBRE)) {
+            pstmt.setString(1, nombre);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? leerSala(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Recorre todas las salas ordenadas por ID.
+     *
+     * @param conn       Conexión a la base de datos.
+     * @param consumidor Recibe cada sala.
+     * @throws SQLException si falla la consulta.
+     */
+    public static void recorrer(Connection conn, Consumer<Sala> consumidor) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_LISTAR)) {
+            while (rs.next()) {
+                consumidor.accept(leerSala(rs));
+            }
+        }
+    }
+
+    /**
+     * Lee todas las salas ordenadas por ID.
+     *
+     * @param conn Conexión a la base de datos.
+     * @return Lista de salas.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<Sala> listar(Connection conn) throws SQLException {
+        List<Sala> salas = new ArrayList<>();
+        recorrer(conn, salas::add);
+        return salas;
+    }
+
+    /**
+     * Lee una página de salas ordenadas por ID a partir de la última de la página anterior.
+     *
+     * @param conn    Conexión a la base de datos.
+     * @param despues ID de la última sala de la página anterior (0 para la primera).
+     * @param tamano  Número máximo de salas.
+     * @return Salas con ID mayor que {@code despues}.
+     * @throws SQLException si falla la consulta.
+     */
+    public static List<Sala> listarPagina(Connection conn, int despues, int tamano) throws SQLException {
+        List<Sala> salas = new ArrayList<>(tamano);
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_PAGINA)) {
+            pstmt.setInt(1, despues);
+            pstmt.setInt(2, tamano);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    salas.add(leerSala(rs));
+                }
+            }
+        }
+        return salas;
+    }
+
+    private static Sala leerSala(ResultSet rs) throws SQLException {
+        return new Sala(rs.getInt("id"), rs.getString("nombre"), rs.getInt("capacidad"), rs.getString("recursos"),
+                rs.getInt("version"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.empresa.salas;
+
+/**
+ * Datos de una sala de reuniones.
+ *
+ * @param id              ID de la sala.
+ * @param nombre          Nombre de la sala.
+ * @param capacidad       Número máximo de personas.
+ * @param recursos        Recursos disponibles (proyector, pizarra...).
+ * @param version         Versión de la fila, que aumenta con cada actualización.
+ * @param mascaraRecursos Recursos reconocidos en el {@link CatalogoRecursos}, un bit por recurso.
+ */
+public record Sala(int id, String nombre, int capacidad, String recursos, int version, long mascaraRecursos) {
+
+    /**
+     * Crea una sala calculando la máscara a partir del texto de recursos.
+     *
+     * @param id        ID de la sala.
+     * @param nombre    Nombre de la sala.
+     * @param capacidad Número máximo de personas.
+     * @param recursos  Recursos disponibles.
+     * @param version   Versión de la fila.
+     */
+    public Sala(int id, String nombre, int capacidad, String recursos, int version) {
+        this(id, nombre, capacidad, recursos, version, CatalogoRecursos.mascara(recursos));
+    }
+
+    /**
+     * Crea una sala en su primera versión calculando la máscara a partir del texto de recursos.
+     *
+     * @param id        ID de la sala.
+     * @param nombre    Nombre de la sala.
+     * @param capacidad Número máximo de personas.
+     * @param recursos  Recursos disponibles.
+     */
+    public Sala(int id, String nombre, int capacidad, String recursos) {
+        this(id, nombre, capacidad, recursos, 0);
+    }
+
+    /**
+     * @param requeridos Máscara de recursos.
+     * @return true si la sala tiene todos los recursos indicados.
+     */
+    public boolean tieneRecursos(long requeridos) {
+        return (mascaraRecursos & requeridos) == requeridos;
+    }
+}
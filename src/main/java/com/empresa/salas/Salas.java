@@ -1,9 +1,13 @@
 package com.empresa.salas;
 
+import com.empresa.almacen.Almacen;
+import com.empresa.almacen.Sesion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.*;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -18,10 +22,10 @@ public class Salas {
      * Muestra el menú principal de gestión de salas.
      * Permite seleccionar acciones interactivas desde consola.
      *
-     * @param conn    Conexión activa a la base de datos
+     * @param almacen Almacén del que se abre una sesión para cada operación
      * @param scanner Scanner para capturar la entrada del usuario
      */
-    public static void mostrarMenu(Connection conn, Scanner scanner) {
+    public static void mostrarMenu(Almacen almacen, Scanner scanner) {
         boolean salir = false;
 
         while (!salir) {
@@ -30,6 +34,7 @@ public class Salas {
             System.out.println("2. Listar salas");
             System.out.println("3. Actualizar sala");
             System.out.println("4. Eliminar sala");
+            System.out.println("5. Buscar salas por recursos y capacidad");
             System.out.println("0. Volver al menú principal");
             System.out.print("Selecciona una opción: ");
 
@@ -44,10 +49,11 @@ public class Salas {
             }
 
             switch (opcion) {
-                case 1 -> crearSala(conn, scanner);
-                case 2 -> listarSalas(conn);
-                case 3 -> actualizarSala(conn, scanner);
-                case 4 -> eliminarSala(conn, scanner);
+                case 1 -> almacen.ejecutar(sesion -> crearSala(sesion, scanner));
+                case 2 -> almacen.ejecutar(sesion -> listarSalas(sesion));
+                case 3 -> almacen.ejecutar(sesion -> actualizarSala(sesion, scanner));
+                case 4 -> almacen.ejecutar(sesion -> eliminarSala(sesion, scanner));
+                case 5 -> almacen.ejecutar(sesion -> buscarSalasPorRecursos(sesion, scanner));
                 case 0 -> {
                     salir = true;
                     System.out.println("👋 Volviendo al menú principal...");
@@ -58,12 +64,12 @@ public class Salas {
     }
 
     /**
-     * Crea una nueva sala en la base de datos.
+     * Crea una nueva sala en el almacén.
      *
-     * @param conn    Conexión activa a la base de datos
+     * @param sesion  Sesión abierta en el almacén
      * @param scanner Scanner para capturar la entrada del usuario
      */
-    public static void crearSala(Connection conn, Scanner scanner) {
+    public static void crearSala(Sesion sesion, Scanner scanner) {
         try {
             System.out.print("Nombre de la sala: ");
             String nombre = scanner.nextLine();
@@ -71,7 +77,7 @@ public class Salas {
             System.out.print("Capacidad: ");
             int capacidad = Integer.parseInt(scanner.nextLine());
 
-            System.out.print("Recursos: ");
+            System.out.print("Recursos (" + CatalogoRecursos.disponibles() + "): ");
             String recursos = scanner.nextLine();
 
             // Validaciones básicas
@@ -85,25 +91,26 @@ public class Salas {
                 return;
             }
 
-            // Inserción en la base de datos
-            String sql = "INSERT INTO salas (nombre, capacidad, recursos) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, nombre);
-                pstmt.setInt(2, capacidad);
-                pstmt.setString(3, recursos);
+            // Guardar los recursos con los nombres del catálogo
+            recursos = normalizarRecursos(recursos);
+            if (recursos == null) {
+                return;
+            }
 
-                int filas = pstmt.executeUpdate();
+            Sala sala = sesion.salas().insertar(nombre, capacidad, recursos);
 
-                if (filas > 0) {
-                    System.out.println("\n✅ Sala creada exitosamente:");
-                    System.out.println("- Nombre: " + nombre);
-                    System.out.println("- Capacidad: " + capacidad);
-                    System.out.println("- Recursos: " + recursos);
-                } else {
-                    System.out.println("❌ No se pudo crear la sala");
-                    logger.warn("Insert salas no afectó filas");
-                }
+            if (sala != null) {
+                System.out.println("\n✅ Sala creada exitosamente:");
+                System.out.println("- Nombre: " + nombre);
+                System.out.println("- Capacidad: " + capacidad);
+                System.out.println("- Recursos: " + recursos);
+            } else {
+                System.out.println("❌ No se pudo crear la sala");
+                logger.warn("Insert salas no afectó filas");
             }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            System.out.println("❌ Ya existe una sala con ese nombre");
+            logger.warn("Nombre de sala duplicado", e);
         } catch (SQLException e) {
             System.out.println("❌ Error al crear la sala.");
             logger.error("Error al crear la sala", e);
@@ -114,29 +121,23 @@ public class Salas {
     }
 
     /**
-     * Lista todas las salas registradas en la base de datos.
+     * Lista todas las salas registradas en el almacén.
      *
-     * @param conn Conexión activa a la base de datos
+     * @param sesion Sesión abierta en el almacén
      */
-    public static void listarSalas(Connection conn) {
-        String sql = "SELECT * FROM salas";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
+    public static void listarSalas(Sesion sesion) {
+        try {
             System.out.println("\n📋 Listado de salas:");
-            boolean hayRegistros = false;
+            boolean[] hayRegistros = {false};
 
             // Recorre los resultados
-            while (rs.next()) {
-                hayRegistros = true;
+            sesion.salas().recorrer(sala -> {
+                hayRegistros[0] = true;
                 System.out.printf("ID: %d | Nombre: %s | Capacidad: %d | Recursos: %s%n",
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getInt("capacidad"),
-                        rs.getString("recursos"));
-            }
+                        sala.id(), sala.nombre(), sala.capacidad(), sala.recursos());
+            });
 
-            if (!hayRegistros) {
+            if (!hayRegistros[0]) {
                 System.out.println("ℹ️ No hay salas registradas en el sistema.");
             }
         } catch (SQLException e) {
@@ -148,10 +149,10 @@ public class Salas {
     /**
      * Actualiza la información de una sala existente.
      *
-     * @param conn    Conexión activa a la base de datos
+     * @param sesion  Sesión abierta en el almacén
      * @param scanner Scanner para capturar la entrada del usuario
      */
-    private static void actualizarSala(Connection conn, Scanner scanner) {
+    static void actualizarSala(Sesion sesion, Scanner scanner) {
         try {
             System.out.print("ID de la sala a actualizar: ");
             String idInput = scanner.nextLine();
@@ -163,17 +164,15 @@ public class Salas {
             }
             int id = Integer.parseInt(idInput);
 
-            // Verifica si la sala existe
-            String sql = "SELECT COUNT(*) FROM salas WHERE id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(sql)) {
-                checkStmt.setInt(1, id);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("❌ No existe una sala con el ID: " + id);
-                    logger.warn("Intento de actualizar sala inexistente. ID: {}", id);
-                    return;
-                }
+            // Lee la sala y la versión a partir de la que se edita
+            Sala actual = sesion.salas().buscar(id);
+            if (actual == null) {
+                System.out.println("❌ No existe una sala con el ID: " + id);
+                logger.warn("Intento de actualizar sala inexistente. ID: {}", id);
+                return;
             }
+            System.out.println("ℹ️ Datos actuales: " + actual.nombre() + ", capacidad " + actual.capacidad()
+                    + ", recursos: " + actual.recursos());
 
             // Solicita nuevos datos
             System.out.print("Nuevo nombre: ");
@@ -195,29 +194,35 @@ public class Salas {
                 return;
             }
 
-            System.out.print("Nuevos recursos: ");
+            System.out.print("Nuevos recursos (" + CatalogoRecursos.disponibles() + "): ");
             String recursos = scanner.nextLine();
             if (recursos.trim().isEmpty()) {
                 System.out.println("❌ Los recursos no pueden estar vacíos");
                 return;
             }
+            recursos = normalizarRecursos(recursos);
+            if (recursos == null) {
+                return;
+            }
 
-            // Ejecuta la actualización
-            String updateSql = "UPDATE salas SET nombre = ?, capacidad = ?, recursos = ? WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
-                pstmt.setString(1, nombre);
-                pstmt.setInt(2, capacidad);
-                pstmt.setString(3, recursos);
-                pstmt.setInt(4, id);
-
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
+            // Ejecuta la actualización solo si nadie ha cambiado la sala mientras tanto
+            Sala sala = new Sala(id, nombre, capacidad, recursos);
+            switch (sesion.salas().actualizar(sala, actual.version())) {
+                case ACTUALIZADA -> {
                     System.out.println("\n✅ Sala actualizada con éxito:");
                     System.out.println("- Nombre: " + nombre);
                     System.out.println("- Capacidad: " + capacidad);
                     System.out.println("- Recursos: " + recursos);
                 }
+                case DESACTUALIZADA -> {
+                    System.out.println("❌ Otro usuario ha modificado la sala mientras la editabas. Vuelve a intentarlo.");
+                    logger.warn("Actualización de la sala {} rechazada: versión {} desactualizada", id, actual.version());
+                }
+                case NO_EXISTE -> System.out.println("❌ La sala se ha eliminado mientras la editabas.");
             }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            System.out.println("❌ Ya existe una sala con ese nombre");
+            logger.warn("Nombre de sala duplicado", e);
         } catch (SQLException e) {
             logger.error("Error al actualizar la sala", e);
             System.out.println("❌ Error al actualizar la sala.");
@@ -225,12 +230,12 @@ public class Salas {
     }
 
     /**
-     * Elimina una sala de la base de datos tras confirmación del usuario.
+     * Elimina una sala del almacén tras confirmación del usuario.
      *
-     * @param conn    Conexión activa a la base de datos
+     * @param sesion  Sesión abierta en el almacén
      * @param scanner Scanner para capturar la entrada del usuario
      */
-    private static void eliminarSala(Connection conn, Scanner scanner) {
+    static void eliminarSala(Sesion sesion, Scanner scanner) {
         try {
             System.out.print("ID de la sala a eliminar: ");
             String idInput = scanner.nextLine();
@@ -243,15 +248,10 @@ public class Salas {
             int id = Integer.parseInt(idInput);
 
             // Verifica si la sala existe
-            String checkSql = "SELECT COUNT(*) FROM salas WHERE id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setInt(1, id);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    System.out.println("❌ No existe una sala con el ID: " + id);
-                    logger.warn("Intento de eliminar sala inexistente. ID: {}", id);
-                    return;
-                }
+            if (!sesion.salas().existe(id)) {
+                System.out.println("❌ No existe una sala con el ID: " + id);
+                logger.warn("Intento de eliminar sala inexistente. ID: {}", id);
+                return;
             }
 
             System.out.print("¿Está seguro de eliminar la sala? (S/N): ");
@@ -262,13 +262,9 @@ public class Salas {
             }
 
             // Ejecuta eliminación
-            String sql = "DELETE FROM salas WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, id);
-                int filas = pstmt.executeUpdate();
-                if (filas > 0) {
-                    System.out.println("✅ Sala eliminada con éxito.");
-                }
+            // Las reservas de la sala se borran en cascada
+            if (sesion.salas().eliminar(id)) {
+                System.out.println("✅ Sala eliminada con éxito.");
             }
         } catch (SQLException e) {
             logger.error("Error al eliminar sala", e);
@@ -278,4 +274,56 @@ public class Salas {
             logger.warn("Error de formato en ID al eliminar sala", e);
         }
     }
+    /**
+     * Busca las salas que tienen todos los recursos indicados y una capacidad mínima.
+     *
+     * @param sesion  Sesión abierta en el almacén
+     * @param scanner Scanner para capturar la entrada del usuario
+     */
+    static void buscarSalasPorRecursos(Sesion sesion, Scanner scanner) {
+        try {
+            System.out.print("Recursos necesarios (" + CatalogoRecursos.disponibles() + "; vacío = cualquiera): ");
+            long recursos = CatalogoRecursos.validar(scanner.nextLine());
+
+            System.out.print("Capacidad mínima (vacío = cualquiera): ");
+            String capacidadInput = scanner.nextLine().trim();
+            if (!capacidadInput.isEmpty() && !capacidadInput.matches("\\d+")) {
+                System.out.println("❌ La capacidad debe ser un número entero positivo");
+                return;
+            }
+            int capacidad = capacidadInput.isEmpty() ? 0 : Integer.parseInt(capacidadInput);
+
+            List<Sala> salas = sesion.salas().buscarPorRecursos(recursos, capacidad);
+            if (salas.isEmpty()) {
+                System.out.println("ℹ️ No hay salas que cumplan los criterios.");
+                return;
+            }
+            System.out.println("\n📋 Salas encontradas (" + salas.size() + "):");
+            for (Sala sala : salas) {
+                System.out.printf("ID: %d | Nombre: %s | Capacidad: %d | Recursos: %s%n",
+                        sala.id(), sala.nombre(), sala.capacidad(), sala.recursos());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+        } catch (SQLException e) {
+            logger.error("Error al buscar salas por recursos", e);
+            System.out.println("❌ Error al buscar las salas.");
+        }
+    }
+
+    /**
+     * Valida los recursos introducidos contra el catálogo y los escribe con sus nombres.
+     *
+     * @param recursos Texto introducido por el usuario
+     * @return Recursos normalizados, o null si alguno no está en el catálogo (ya se ha avisado al usuario)
+     */
+    private static String normalizarRecursos(String recursos) {
+        try {
+            return CatalogoRecursos.normalizar(recursos);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            logger.warn("Recursos de sala no válidos: {}", recursos);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,25 @@
+-- Esquema de partida. Coincide con sql/ScriptSQL.sql y no modifica las tablas si ya existen.
+CREATE TABLE IF NOT EXISTS empleados (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(100),
+    email VARCHAR(100) UNIQUE,
+    departamento VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS salas (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(100),
+    capacidad INT,
+    recursos TEXT
+);
+
+CREATE TABLE IF NOT EXISTS reservas (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    empleado_id INT,
+    sala_id INT,
+    fecha DATE,
+    hora_inicio TIME,
+    hora_fin TIME,
+    FOREIGN KEY (empleado_id) REFERENCES empleados(id) ON DELETE CASCADE,
+    FOREIGN KEY (sala_id) REFERENCES salas(id) ON DELETE CASCADE
+);
@@ -0,0 +1,14 @@
+-- Comprobación de conflictos (Reservas, ServicioReservas) y ocupación por (sala, fecha) del importador:
+--   WHERE sala_id = ? AND fecha = ? AND hora_inicio < ? AND hora_fin > ?
+-- El índice cubre la consulta completa y sustituye al índice implícito de la clave foránea sala_id.
+CREATE INDEX idx_reservas_sala_fecha_horas ON reservas (sala_id, fecha, hora_inicio, hora_fin);
+
+-- Listado paginado por clave (ConsultaReservas): ORDER BY fecha, hora_inicio, id con filtro de fechas.
+CREATE INDEX idx_reservas_fecha_hora ON reservas (fecha, hora_inicio, id);
+
+-- Reservas de un empleado (filtro del listado) y borrado en cascada al eliminar empleados.
+CREATE INDEX idx_reservas_empleado_fecha ON reservas (empleado_id, fecha, hora_inicio);
+
+-- Búsqueda de salas por nombre (Reservas, CacheSalas). El nombre identifica la sala al reservar,
+-- así que debe ser único. Si hay nombres repetidos, renómbralos antes de arrancar la aplicación.
+CREATE UNIQUE INDEX uq_salas_nombre ON salas (nombre);
@@ -0,0 +1,25 @@
+-- Reservas periódicas (SerieReservas): la regla se guarda una vez y cada ocurrencia es una fila
+-- de reservas con serie_id, de modo que conflictos, listados e índices las tratan como al resto.
+-- Exactamente uno de fecha_fin o repeticiones indica cuándo termina la serie.
+CREATE TABLE IF NOT EXISTS series_reservas (
+    id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    sala_id INT NOT NULL,
+    empleado_id INT NOT NULL,
+    frecuencia VARCHAR(10) NOT NULL,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin DATE NULL,
+    repeticiones INT NULL,
+    hora_inicio TIME NOT NULL,
+    hora_fin TIME NOT NULL,
+    FOREIGN KEY (sala_id) REFERENCES salas(id) ON DELETE CASCADE,
+    FOREIGN KEY (empleado_id) REFERENCES empleados(id) ON DELETE CASCADE
+);
+
+-- Cancelar la serie borra sus ocurrencias en cascada con un solo DELETE.
+ALTER TABLE reservas ADD COLUMN serie_id INT NULL;
+
+ALTER TABLE reservas ADD CONSTRAINT fk_reservas_serie
+    FOREIGN KEY (serie_id) REFERENCES series_reservas(id) ON DELETE CASCADE;
+
+-- Ocurrencias de una serie (modificar o cancelar la serie completa).
+CREATE INDEX idx_reservas_serie ON reservas (serie_id, fecha);
@@ -0,0 +1,7 @@
+-- Control optimista de concurrencia: cada actualización de una sala o una reserva incrementa su
+-- versión, y quien edita a partir de una versión leída solo escribe si sigue siendo la actual:
+--   UPDATE ... SET ..., version = version + 1 WHERE id = ? AND version = ?
+-- Si otro la cambió entretanto no se actualiza ninguna fila y la edición se rechaza sin bloqueos.
+ALTER TABLE salas ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE reservas ADD COLUMN version INT NOT NULL DEFAULT 0;
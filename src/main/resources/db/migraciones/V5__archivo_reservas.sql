@@ -0,0 +1,22 @@
+-- Reservas pasadas que ArchivadorReservas saca de la tabla reservas por bloques, para que la tabla
+-- que consultan las altas, los conflictos y los listados solo crezca con las reservas vigentes.
+-- Misma forma que reservas sin AUTO_INCREMENT: cada fila conserva su ID. Los listados y el informe
+-- de ocupación solo la leen si se pide incluir el archivo.
+CREATE TABLE IF NOT EXISTS reservas_archivo (
+    id INT NOT NULL PRIMARY KEY,
+    empleado_id INT,
+    sala_id INT,
+    fecha DATE,
+    hora_inicio TIME,
+    hora_fin TIME,
+    serie_id INT NULL,
+    version INT NOT NULL DEFAULT 0,
+    FOREIGN KEY (empleado_id) REFERENCES empleados(id) ON DELETE CASCADE,
+    FOREIGN KEY (sala_id) REFERENCES salas(id) ON DELETE CASCADE
+);
+
+-- Listados e informes del archivo por rango de fechas, en el mismo orden que los de reservas.
+CREATE INDEX idx_reservas_archivo_fecha_hora ON reservas_archivo (fecha, hora_inicio, id);
+
+-- Filtro por empleado y borrado en cascada al eliminar empleados.
+CREATE INDEX idx_reservas_archivo_empleado_fecha ON reservas_archivo (empleado_id, fecha, hora_inicio);
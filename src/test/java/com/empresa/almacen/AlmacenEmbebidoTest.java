@@ -0,0 +1,479 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.metricas.HistogramaLatencias;
+import com.empresa.metricas.OperacionMedida;
+import com.empresa.reservas.ConsultaReservas;
+import com.empresa.reservas.InformeOcupacion;
+import com.empresa.reservas.SerieReservas;
+import com.empresa.reservas.ServicioReservas;
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.Sala;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de {@link AlmacenEmbebido} sobre un directorio temporal.
+ */
+class AlmacenEmbebidoTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+
+    @TempDir
+    Path directorio;
+
+    private AlmacenEmbebido almacen;
+    private Sesion sesion;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        almacen = AlmacenEmbebido.abrir(directorio, 1000, false);
+        sesion = almacen.abrirSesion();
+    }
+
+    @AfterEach
+    void tearDown() {
+        almacen.close();
+    }
+
+    @Test
+    void testCadaOperacionSeMideEnSuHistogramaYLasExcepcionesCuentanComoErrores() throws SQLException {
+        HistogramaLatencias insertar = OperacionMedida.SALAS_INSERTAR.histograma();
+        HistogramaLatencias crear = OperacionMedida.RESERVAS_CREAR.histograma();
+        long llamadas = insertar.getLlamadas();
+        long errores = insertar.getErrores();
+        long reservas = crear.getLlamadas();
+
+        sesion.salas().insertar("Sala A", 10, "");
+        assertThrows(SQLIntegrityConstraintViolationException.class, () -> sesion.salas().insertar("Sala A", 4, ""));
+        sesion.empleados().insertar("Ana", "ana@empresa.com", "TI");
+        sesion.reservas().crear(1, 1, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0));
+        sesion.reservas().crear(1, 1, FECHA, LocalTime.of(9, 30), LocalTime.of(10, 30));
+
+        assertEquals(llamadas + 2, insertar.getLlamadas());
+        assertEquals(errores + 1, insertar.getErrores());
+        // Un conflicto de horario no es un error
+        assertEquals(reservas + 2, crear.getLlamadas());
+    }
+
+    @Test
+    void testCrudYUnicidadDeSalasYEmpleados() throws SQLException {
+        Sala sala = sesion.salas().insertar("Sala A", 10, "Proyector");
+        Empleado ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI");
+
+        assertEquals(1, sala.id());
+        assertEquals(sala, sesion.salas().buscarPorNombre("Sala A"));
+        assertThrows(SQLIntegrityConstraintViolationException.class,
+                () -> sesion.salas().insertar("Sala A", 5, "Pizarra"));
+        assertThrows(SQLIntegrityConstraintViolationException.class,
+                () -> sesion.empleados().insertar("Otra", "ana@empresa.com", "RRHH"));
+
+        assertEquals(OperacionesSalas.Actualizacion.ACTUALIZADA,
+                sesion.salas().actualizar(new Sala(sala.id(), "Sala B", 12, "Pizarra"), null));
+        assertNull(sesion.salas().buscarPorNombre("Sala A"));
+        assertEquals(12, sesion.salas().buscarPorNombre("Sala B").capacidad());
+        assertEquals(OperacionesSalas.Actualizacion.NO_EXISTE, sesion.salas().actualizar(new Sala(99, "Sala C", 1, "-"), null));
+        assertTrue(sesion.salas().buscarPorRecursos(CatalogoRecursos.Recurso.PROYECTOR.bit(), 0).isEmpty());
+        assertEquals(List.of(sala.id()), sesion.salas().buscarPorRecursos(CatalogoRecursos.Recurso.PIZARRA.bit(), 12)
+                .stream().map(Sala::id).toList());
+
+        assertTrue(sesion.empleados().eliminar(ana.id()));
+        assertFalse(sesion.empleados().existe(ana.id()));
+        // Los IDs no se reutilizan tras un borrado, como con AUTO_INCREMENT
+        assertEquals(ana.id() + 1, sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id());
+    }
+
+    @Test
+    void testConflictosConLaMismaSemanticaQueSql() throws SQLException {
+        int sala = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int empleado = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        OperacionesReservas reservas = sesion.reservas();
+
+        ServicioReservas.Resultado primera = reservas.crear(sala, empleado, FECHA, hora(9), hora(10));
+        assertEquals(ServicioReservas.Estado.CREADA, primera.estado());
+        assertEquals(ServicioReservas.Estado.CONFLICTO,
+                reservas.crear(sala, empleado, FECHA, LocalTime.of(9, 30), LocalTime.of(10, 30)).estado());
+        // Reservas contiguas no se solapan
+        assertEquals(ServicioReservas.Estado.CREADA, reservas.crear(sala, empleado, FECHA, hora(10), hora(11)).estado());
+        assertEquals(ServicioReservas.Estado.CREADA,
+                reservas.crear(sala, empleado, FECHA.plusDays(1), hora(9), hora(10)).estado());
+
+        // Al actualizar no cuenta la propia reserva, pero sí las demás
+        assertEquals(ServicioReservas.Estado.ACTUALIZADA,
+                reservas.actualizar(primera.id(), null, sala, empleado, FECHA, LocalTime.of(8, 30), LocalTime.of(9, 30))
+                        .estado());
+        assertEquals(ServicioReservas.Estado.CONFLICTO,
+                reservas.actualizar(primera.id(), null, sala, empleado, FECHA, hora(8), LocalTime.of(10, 30)).estado());
+        assertEquals(ServicioReservas.Estado.NO_ENCONTRADA,
+                reservas.actualizar(99, null, sala, empleado, FECHA, hora(20), hora(21)).estado());
+
+        assertThrows(SQLIntegrityConstraintViolationException.class,
+                () -> reservas.crear(sala + 1, empleado, FECHA, hora(12), hora(13)));
+        assertThrows(SQLFeatureNotSupportedException.class, () -> reservas.importar(directorio.resolve("x.csv")));
+        assertThrows(SQLFeatureNotSupportedException.class, () -> reservas.archivar(FECHA));
+    }
+
+    @Test
+    void testBorrarSalaOEmpleadoBorraSusReservasEnCascada() throws SQLException {
+        int salaA = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int salaB = sesion.salas().insertar("Sala B", 10, "Proyector").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        int luis = sesion.empleados().insertar("Luis", "luis@empresa.com", "TI").id();
+        sesion.reservas().crear(salaA, ana, FECHA, hora(9), hora(10));
+        sesion.reservas().crear(salaB, ana, FECHA, hora(9), hora(10));
+        sesion.reservas().crear(salaB, luis, FECHA, hora(10), hora(11));
+
+        assertTrue(sesion.salas().eliminar(salaA));
+        assertEquals(2, sesion.reservas().recorrer(f -> { }));
+        assertTrue(sesion.empleados().eliminar(ana));
+        assertEquals(1, sesion.reservas().recorrer(f -> { }));
+        // El hueco de la sala borrada queda libre si se vuelve a crear con otro ID
+        int nuevaA = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        assertEquals(ServicioReservas.Estado.CREADA,
+                sesion.reservas().crear(nuevaA, luis, FECHA, hora(9), hora(10)).estado());
+    }
+
+    @Test
+    void testPaginacionPorClaveConFiltros() throws SQLException {
+        int salaA = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int salaB = sesion.salas().insertar("Sala B", 10, "Proyector").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        for (int dia = 0; dia < 5; dia++) {
+            for (int h = 8; h < 12; h++) {
+                sesion.reservas().crear(salaB, ana, FECHA.plusDays(dia), hora(h), hora(h + 1));
+                sesion.reservas().crear(salaA, ana, FECHA.plusDays(dia), hora(h), hora(h + 1));
+            }
+        }
+
+        ConsultaReservas.Filtro filtro = new ConsultaReservas.Filtro(FECHA.plusDays(1), FECHA.plusDays(3), "Sala A", null);
+        List<ConsultaReservas.Fila> todas = new ArrayList<>();
+        ConsultaReservas.Cursor cursor = null;
+        do {
+            ConsultaReservas.Pagina pagina = sesion.reservas().listarPagina(filtro, cursor, 5);
+            todas.addAll(pagina.filas());
+            cursor = pagina.siguiente();
+        } while (cursor != null);
+
+        assertEquals(12, todas.size());
+        assertEquals(new ConsultaReservas.Fila(todas.get(0).id(), FECHA.plusDays(1), hora(8), hora(9), "Sala A", "Ana"),
+                todas.get(0));
+        for (int i = 1; i < todas.size(); i++) {
+            ConsultaReservas.Fila a = todas.get(i - 1);
+            ConsultaReservas.Fila b = todas.get(i);
+            assertTrue(a.fecha().isBefore(b.fecha())
+                    || (a.fecha().equals(b.fecha()) && a.horaInicio().isBefore(b.horaInicio())), "Orden incorrecto");
+        }
+        assertTrue(sesion.reservas().listarPagina(
+                new ConsultaReservas.Filtro(null, null, "No existe", null), null, 5).filas().isEmpty());
+    }
+
+    @Test
+    void testRecorrerConFiltroLeeTodasLasPaginasEnOrden() throws SQLException {
+        int salaA = sesion.salas().insertar("Sala A", 10, "").id();
+        int salaB = sesion.salas().insertar("Sala B", 10, "").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        // Más reservas de la sala A que las que se copian de una vez
+        for (int dia = 0; dia < 130; dia++) {
+            for (int h = 8; h < 18; h++) {
+                sesion.reservas().crear(salaA, ana, FECHA.plusDays(dia), hora(h), hora(h + 1));
+            }
+            sesion.reservas().crear(salaB, ana, FECHA.plusDays(dia), hora(8), hora(9));
+        }
+
+        List<ConsultaReservas.Fila> filas = new ArrayList<>();
+        long total = sesion.reservas().recorrer(new ConsultaReservas.Filtro(null, null, "Sala A", null), filas::add);
+
+        assertEquals(1300, total);
+        assertEquals(1300, filas.size());
+        assertEquals(hora(8), filas.get(0).horaInicio());
+        assertEquals(FECHA.plusDays(129), filas.get(1299).fecha());
+        assertTrue(filas.stream().allMatch(f -> f.sala().equals("Sala A")));
+        assertEquals(filas.stream().sorted(Comparator.comparing(ConsultaReservas.Fila::fecha)
+                .thenComparing(ConsultaReservas.Fila::horaInicio)).toList(), filas);
+        assertEquals(10, sesion.reservas().recorrer(
+                new ConsultaReservas.Filtro(FECHA.plusDays(3), FECHA.plusDays(3), "Sala A", null), f -> { }));
+    }
+
+    @Test
+    void testInformeOcupacionDelRango() throws SQLException {
+        int salaA = sesion.salas().insertar("Sala A", 10, "").id();
+        int salaB = sesion.salas().insertar("Sala B", 4, "").id();
+        sesion.salas().insertar("Sala C", 4, "");
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        int luis = sesion.empleados().insertar("Luis", "luis@empresa.com", "Legal").id();
+        sesion.reservas().crear(salaA, ana, FECHA, hora(9), hora(12));
+        sesion.reservas().crear(salaA, luis, FECHA.plusDays(1), hora(9), hora(10));
+        sesion.reservas().crear(salaB, ana, FECHA, hora(10), hora(11));
+        sesion.reservas().crear(salaB, ana, FECHA.plusDays(2), hora(10), hora(11));
+
+        InformeOcupacion.Informe informe = sesion.reservas().informeOcupacion(
+                new InformeOcupacion.Periodo(FECHA, FECHA.plusDays(1), 8, 20));
+
+        assertEquals(3, informe.reservas());
+        assertEquals(List.of("Sala A", "Sala B", "Sala C"),
+                informe.salas().stream().map(o -> o.sala().nombre()).toList());
+        assertEquals(240, informe.salas().get(0).minutos());
+        assertEquals(100.0 * 240 / 1440, informe.salas().get(0).porcentaje(), 1e-9);
+        assertEquals(0.0, informe.salas().get(2).porcentaje());
+        assertEquals(100.0 * 240 / 2160, informe.porcentajeDia(FECHA), 1e-9);
+        assertEquals(List.of(new InformeOcupacion.OcupacionDepartamento("TI", 2, 240),
+                new InformeOcupacion.OcupacionDepartamento("Legal", 1, 60)), informe.departamentos());
+    }
+
+    @Test
+    void testSeriesComprobadasDeUnaVezYEditadasEnBloque() throws SQLException {
+        int sala = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        OperacionesReservas reservas = sesion.reservas();
+        reservas.crear(sala, ana, FECHA.plusWeeks(2), LocalTime.of(9, 30), hora(10));
+        reservas.crear(sala, ana, FECHA.plusWeeks(4), hora(9), hora(11));
+
+        SerieReservas semanal = new SerieReservas(0, sala, ana, SerieReservas.Frecuencia.SEMANAL, FECHA, null, 6,
+                hora(9), hora(10));
+        ServicioReservas.ResultadoSerie conflicto = reservas.crearSerie(semanal);
+        assertEquals(ServicioReservas.Estado.CONFLICTO, conflicto.estado());
+        assertEquals(List.of(FECHA.plusWeeks(2), FECHA.plusWeeks(4)), conflicto.conflictos());
+        assertEquals(2, reservas.recorrer(f -> { }));
+
+        SerieReservas otraHora = new SerieReservas(0, sala, ana, SerieReservas.Frecuencia.SEMANAL, FECHA, null, 6,
+                hora(11), hora(12));
+        ServicioReservas.ResultadoSerie creada = reservas.crearSerie(otraHora);
+        assertEquals(ServicioReservas.Estado.CREADA, creada.estado());
+        assertEquals(6, creada.ocurrencias());
+        assertEquals(8, reservas.recorrer(f -> { }));
+        // Las ocurrencias bloquean la sala como cualquier reserva
+        assertEquals(ServicioReservas.Estado.CONFLICTO,
+                reservas.crear(sala, ana, FECHA.plusWeeks(5), LocalTime.of(11, 30), hora(13)).estado());
+
+        // Modificar la serie no choca con sus propias ocurrencias y las sustituye todas
+        SerieReservas masLarga = new SerieReservas(0, sala, ana, SerieReservas.Frecuencia.SEMANAL, FECHA,
+                FECHA.plusWeeks(9), null, LocalTime.of(11, 30), hora(12));
+        assertEquals(ServicioReservas.Estado.ACTUALIZADA, reservas.actualizarSerie(creada.serieId(), masLarga).estado());
+        assertEquals(12, reservas.recorrer(f -> { }));
+        assertEquals(masLarga.conId(creada.serieId()), reservas.buscarSerie(creada.serieId()));
+        assertEquals(ServicioReservas.Estado.NO_ENCONTRADA, reservas.actualizarSerie(99, masLarga).estado());
+
+        assertTrue(reservas.cancelarSerie(creada.serieId()));
+        assertFalse(reservas.cancelarSerie(creada.serieId()));
+        assertEquals(2, reservas.recorrer(f -> { }));
+        assertTrue(reservas.listarSeries().isEmpty());
+        assertEquals(ServicioReservas.Estado.CREADA,
+                reservas.crear(sala, ana, FECHA.plusWeeks(5), LocalTime.of(11, 30), hora(13)).estado());
+    }
+
+    @Test
+    void testSeriesSobrevivenAlReabrirYCaenConSuSala() throws Exception {
+        int salaA = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int salaB = sesion.salas().insertar("Sala B", 10, "Proyector").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        SerieReservas diaria = new SerieReservas(0, salaA, ana, SerieReservas.Frecuencia.DIARIA, FECHA,
+                FECHA.plusDays(9), null, hora(9), hora(10));
+        SerieReservas mensual = new SerieReservas(0, salaB, ana, SerieReservas.Frecuencia.MENSUAL, FECHA, null, 3,
+                hora(9), hora(10));
+        int idDiaria = sesion.reservas().crearSerie(diaria).serieId();
+        int idMensual = sesion.reservas().crearSerie(mensual).serieId();
+        almacen.close();
+
+        // Con instantánea a cada operación, y después solo desde el diario
+        almacen = AlmacenEmbebido.abrir(directorio, 1, false);
+        sesion = almacen.abrirSesion();
+        assertEquals(List.of(diaria.conId(idDiaria), mensual.conId(idMensual)), sesion.reservas().listarSeries());
+        assertEquals(13, sesion.reservas().recorrer(f -> { }));
+        sesion.empleados().insertar("Luis", "luis@empresa.com", "TI");
+        almacen.close();
+        almacen = AlmacenEmbebido.abrir(directorio, 1000, false);
+        sesion = almacen.abrirSesion();
+        assertEquals(ServicioReservas.Estado.CONFLICTO,
+                sesion.reservas().crear(salaA, ana, FECHA.plusDays(4), hora(9), hora(10)).estado());
+        // Los IDs de series continúan tras recuperar
+        assertEquals(idMensual + 1, sesion.reservas().crearSerie(new SerieReservas(0, salaB, ana,
+                SerieReservas.Frecuencia.SEMANAL, FECHA, null, 2, hora(12), hora(13))).serieId());
+
+        assertTrue(sesion.salas().eliminar(salaA));
+        assertEquals(2, sesion.reservas().listarSeries().size());
+        assertEquals(5, sesion.reservas().recorrer(f -> { }));
+        assertNull(sesion.reservas().buscarSerie(idDiaria));
+    }
+
+    @Test
+    void testVersionOptimistaRechazaEscriturasDesactualizadas() throws Exception {
+        int sala = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        int reserva = sesion.reservas().crear(sala, ana, FECHA, hora(9), hora(10)).id();
+        assertEquals(0, sesion.reservas().buscar(reserva).version());
+
+        ServicioReservas.Resultado resultado =
+                sesion.reservas().actualizar(reserva, 0, sala, ana, FECHA, hora(10), hora(11));
+        assertEquals(new ServicioReservas.Resultado(ServicioReservas.Estado.ACTUALIZADA, reserva, 1), resultado);
+        // Segundo editor con la versión que leyó antes del cambio
+        assertEquals(ServicioReservas.Estado.DESACTUALIZADA,
+                sesion.reservas().actualizar(reserva, 0, sala, ana, FECHA, hora(12), hora(13)).estado());
+        assertEquals(hora(10), sesion.reservas().buscar(reserva).horaInicio());
+        assertEquals(ServicioReservas.Estado.NO_ENCONTRADA,
+                sesion.reservas().actualizar(reserva + 1, 0, sala, ana, FECHA, hora(12), hora(13)).estado());
+        assertNull(sesion.reservas().buscar(reserva + 1));
+
+        Sala leida = sesion.salas().buscar(sala);
+        assertEquals(OperacionesSalas.Actualizacion.ACTUALIZADA,
+                sesion.salas().actualizar(new Sala(sala, "Sala Azul", 8, "Pizarra"), leida.version()));
+        assertEquals(OperacionesSalas.Actualizacion.DESACTUALIZADA,
+                sesion.salas().actualizar(new Sala(sala, "Sala Roja", 8, "Pizarra"), leida.version()));
+        assertEquals(OperacionesSalas.Actualizacion.NO_EXISTE,
+                sesion.salas().actualizar(new Sala(sala + 1, "Sala Roja", 8, "Pizarra"), null));
+        // Sin versión se sobrescribe igualmente
+        assertEquals(OperacionesSalas.Actualizacion.ACTUALIZADA,
+                sesion.salas().actualizar(new Sala(sala, "Sala Verde", 8, "Pizarra"), null));
+        assertEquals(new Sala(sala, "Sala Verde", 8, "Pizarra", 2), sesion.salas().buscar(sala));
+
+        // Las versiones se conservan al reabrir desde el diario
+        AlmacenEmbebido recuperado = AlmacenEmbebido.abrir(directorio, 1000, false);
+        Sesion otra = recuperado.abrirSesion();
+        assertEquals(2, otra.salas().buscar(sala).version());
+        assertEquals(1, otra.reservas().buscar(reserva).version());
+        recuperado.close();
+    }
+
+    @Test
+    void testEditoresConcurrentesNoPierdenCambios() throws Exception {
+        int sala = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int reserva = sesion.reservas().crear(sala, sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id(),
+                FECHA, hora(9), hora(10)).id();
+        int hilos = 4;
+        int[] empleados = new int[hilos];
+        for (int i = 0; i < hilos; i++) {
+            empleados[i] = sesion.empleados().insertar("Empleado " + i, "e" + i + "@empresa.com", "TI").id();
+        }
+        List<Integer> versiones = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rechazadas = new AtomicInteger();
+        List<Exception> errores = Collections.synchronizedList(new ArrayList<>());
+        CyclicBarrier salida = new CyclicBarrier(hilos);
+        List<Thread> editores = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            int empleado = empleados[i];
+            editores.add(Thread.ofPlatform().start(() -> {
+                try {
+                    Sesion propia = almacen.abrirSesion();
+                    for (int j = 0; j < 50; j++) {
+                        // Todos leen la misma versión antes de que ninguno escriba
+                        int leida = propia.reservas().buscar(reserva).version();
+                        salida.await(10, TimeUnit.SECONDS);
+                        ServicioReservas.Resultado r = propia.reservas()
+                                .actualizar(reserva, leida, sala, empleado, FECHA, hora(9), hora(10));
+                        if (r.estado() == ServicioReservas.Estado.ACTUALIZADA) {
+                            versiones.add(r.version());
+                        } else if (r.estado() == ServicioReservas.Estado.DESACTUALIZADA) {
+                            rechazadas.incrementAndGet();
+                        }
+                        salida.await(10, TimeUnit.SECONDS);
+                    }
+                } catch (Exception e) {
+                    errores.add(e);
+                }
+            }));
+        }
+        for (Thread editor : editores) {
+            editor.join();
+        }
+
+        assertEquals(List.of(), errores);
+        // En cada ronda gana exactamente un editor; los demás reciben el aviso en lugar de pisarlo
+        assertEquals(50, versiones.size());
+        assertEquals(50 * (hilos - 1), rechazadas.get());
+        assertEquals(50, sesion.reservas().buscar(reserva).version());
+        assertEquals(50, versiones.stream().distinct().count());
+    }
+
+    @Test
+    void testRecuperaElEstadoDesdeInstantaneaYDiario() throws Exception {
+        almacen.close();
+        // Instantánea cada 3 operaciones: al reabrir hay instantánea y operaciones en el diario
+        almacen = AlmacenEmbebido.abrir(directorio, 3, false);
+        sesion = almacen.abrirSesion();
+        int sala = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        int ana = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+        int reserva = sesion.reservas().crear(sala, ana, FECHA, hora(9), hora(10)).id();
+        sesion.reservas().crear(sala, ana, FECHA, hora(10), hora(11));
+        sesion.salas().actualizar(new Sala(sala, "Sala Azul", 8, "Pizarra"), null);
+        assertEquals(1, almacen.getEstadisticas().instantaneas());
+        assertEquals(2, almacen.getEstadisticas().operacionesEnDiario());
+
+        // Se abre otra instancia sin cerrar la primera, como tras una caída del proceso
+        AlmacenEmbebido recuperado = AlmacenEmbebido.abrir(directorio, 3, false);
+        Sesion otra = recuperado.abrirSesion();
+        assertEquals(new Sala(sala, "Sala Azul", 8, "Pizarra", 1), otra.salas().buscarPorNombre("Sala Azul"));
+        assertEquals(2, otra.reservas().recorrer(f -> { }));
+        assertEquals(ServicioReservas.Estado.CONFLICTO,
+                otra.reservas().crear(sala, ana, FECHA, LocalTime.of(9, 30), LocalTime.of(9, 45)).estado());
+        assertTrue(otra.reservas().existe(reserva));
+        // Los contadores de IDs continúan tras la recuperación
+        assertEquals(sala + 1, otra.salas().insertar("Sala B", 4, "TV").id());
+        recuperado.close();
+    }
+
+    @Test
+    void testDescartaElRegistroIncompletoAlFinalDelDiario() throws Exception {
+        int sala = sesion.salas().insertar("Sala A", 10, "Proyector").id();
+        sesion.salas().insertar("Sala B", 10, "Proyector");
+        Path diario = directorio.resolve(AlmacenEmbebido.FICHERO_DIARIO);
+        long valido = Files.size(diario);
+        // Escritura interrumpida: cabecera de registro sin contenido
+        Files.write(diario, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        AlmacenEmbebido recuperado = AlmacenEmbebido.abrir(directorio, 1000, false);
+        Sesion otra = recuperado.abrirSesion();
+        assertTrue(otra.salas().existe(sala));
+        assertNotNull(otra.salas().buscarPorNombre("Sala B"));
+        assertEquals(valido, Files.size(diario));
+
+        // Las escrituras posteriores se anexan tras el último registro válido
+        otra.salas().insertar("Sala C", 1, "-");
+        AlmacenEmbebido tercero = AlmacenEmbebido.abrir(directorio, 1000, false);
+        assertNotNull(tercero.abrirSesion().salas().buscarPorNombre("Sala C"));
+        tercero.close();
+        recuperado.close();
+    }
+
+    @Test
+    void testInstantaneaDanadaImpideAbrir() throws Exception {
+        sesion.salas().insertar("Sala A", 10, "Proyector");
+        almacen.close();
+        Path instantanea = directorio.resolve(AlmacenEmbebido.FICHERO_INSTANTANEA);
+        byte[] datos = Files.readAllBytes(instantanea);
+        datos[datos.length - 12] ^= 0x7f;
+        Files.write(instantanea, datos);
+
+        assertThrows(IOException.class, () -> AlmacenEmbebido.abrir(directorio, 1000, false));
+    }
+
+    @Test
+    void testOperacionesTrasCerrarFallan() {
+        almacen.close();
+        assertThrows(SQLException.class, () -> almacen.abrirSesion());
+        assertThrows(SQLException.class, () -> sesion.salas().insertar("Sala A", 10, "Proyector"));
+    }
+
+    private static LocalTime hora(int hora) {
+        return LocalTime.of(hora, 0);
+    }
+}
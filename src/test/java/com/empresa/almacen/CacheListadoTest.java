@@ -0,0 +1,192 @@
+package com.empresa.almacen;
+
+import com.empresa.empleados.Empleado;
+import com.empresa.metricas.HistogramaLatencias;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link CacheListado}.
+ * La base de datos se sustituye por una tabla en memoria que cuenta las lecturas, y el reloj es manual.
+ */
+class CacheListadoTest {
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+
+    private final TreeMap<Integer, Empleado> tabla = new TreeMap<>();
+    private HistogramaLatencias histograma;
+    private long ahora;
+    private int lecturas;
+    private int recorridosDirectos;
+    private CacheListado<Empleado> cache;
+
+    /**
+     * Prepara una tabla con tres empleados (IDs 1, 2 y 4) y una caché activa de como mucho 5 filas.
+     */
+    @BeforeEach
+    void setUp() {
+        for (int id : new int[]{1, 2, 4}) {
+            tabla.put(id, empleado(id));
+        }
+        histograma = new HistogramaLatencias("test.recargarListado");
+        cache = new CacheListado<>("empleados", Empleado::id, TTL, 5, histograma, () -> ahora);
+        cache.activar();
+    }
+
+    @Test
+    void testSegundoListadoSaleDeMemoria() throws SQLException {
+        assertEquals(List.of(1, 2, 4), ids(listar()));
+        assertEquals(List.of(1, 2, 4), ids(listar()));
+
+        assertEquals(1, lecturas);
+        CacheListado.Estadisticas e = cache.getEstadisticas();
+        assertEquals(1, e.aciertos());
+        assertEquals(1, e.fallos());
+        assertEquals(1, e.recargas());
+        assertEquals(3, e.tamano());
+        assertEquals(0.5, e.tasaAciertos());
+        assertEquals(1, e.recarga().llamadas());
+    }
+
+    @Test
+    void testRecargaAlCaducar() throws SQLException {
+        listar();
+        tabla.put(3, empleado(3));
+
+        ahora += TTL.toNanos();
+        assertEquals(List.of(1, 2, 4), ids(listar()));
+        ahora += 1;
+        assertEquals(List.of(1, 2, 3, 4), ids(listar()));
+
+        assertEquals(2, lecturas);
+        assertEquals(2, cache.getEstadisticas().recargas());
+    }
+
+    @Test
+    void testEscriturasActualizanElListadoEnOrden() throws SQLException {
+        listar();
+
+        cache.registrar(empleado(3));
+        cache.registrar(new Empleado(1, "Cambiado", "e1@empresa.com", "Ventas"));
+        cache.eliminar(2);
+        cache.eliminar(99);
+
+        List<Empleado> listado = listar();
+        assertEquals(List.of(1, 3, 4), ids(listado));
+        assertEquals("Cambiado", listado.get(0).nombre());
+        assertEquals(1, lecturas);
+    }
+
+    @Test
+    void testPaginasPorId() throws SQLException {
+        cache.registrar(empleado(3));
+
+        assertEquals(List.of(1, 2), ids(cache.listarPagina(this::leerPagina, 0, 2)));
+        assertEquals(List.of(4), ids(cache.listarPagina(this::leerPagina, 2, 2)));
+        assertEquals(List.of(4), ids(cache.listarPagina(this::leerPagina, 3, 2)));
+        assertEquals(List.of(), ids(cache.listarPagina(this::leerPagina, 4, 2)));
+
+        // El registro anterior a la carga se ignora: la carga ya lee la tabla entera
+        assertEquals(1, lecturas);
+    }
+
+    @Test
+    void testTablaDemasiadoGrandeVaALaBaseDeDatos() throws SQLException {
+        for (int id = 10; id < 13; id++) {
+            tabla.put(id, empleado(id));
+        }
+
+        assertEquals(6, listar().size());
+        assertEquals(6, listar().size());
+        assertEquals(List.of(2, 4), ids(cache.listarPagina(this::leerPagina, 1, 2)));
+
+        assertFalse(cache.estaCargado());
+        assertEquals(2, recorridosDirectos);
+        assertEquals(1, cache.getEstadisticas().recargas());
+        assertEquals(0, cache.getEstadisticas().aciertos());
+    }
+
+    @Test
+    void testRegistrarMasAllaDelMaximoDescartaElListado() throws SQLException {
+        listar();
+        cache.registrar(empleado(3));
+        cache.registrar(empleado(5));
+        assertTrue(cache.estaCargado());
+
+        cache.registrar(empleado(6));
+
+        assertFalse(cache.estaCargado());
+    }
+
+    @Test
+    void testDesactivadaNoGuardaNada() throws SQLException {
+        CacheListado<Empleado> desactivada =
+                new CacheListado<>("empleados", Empleado::id, TTL, 5, histograma, () -> ahora);
+        List<Empleado> leidos = new ArrayList<>();
+
+        desactivada.recorrer(this::leerPagina, this::recorrerDirecto, leidos::add);
+        desactivada.listarPagina(this::leerPagina, 0, 10);
+
+        assertEquals(3, leidos.size());
+        assertEquals(1, recorridosDirectos);
+        assertEquals(1, lecturas);
+        assertFalse(desactivada.estaCargado());
+        assertEquals(0, desactivada.getEstadisticas().fallos());
+    }
+
+    @Test
+    void testErrorDeRecargaSeMideYSeReintenta() throws SQLException {
+        CacheListado.Cargador<Empleado> roto = (despues, tamano) -> {
+            throw new SQLException("sin conexión");
+        };
+
+        assertThrows(SQLException.class, () -> cache.listarPagina(roto, 0, 10));
+        assertEquals(1, histograma.resumen().errores());
+        assertFalse(cache.estaCargado());
+
+        assertEquals(3, listar().size());
+        assertTrue(cache.estaCargado());
+    }
+
+    @Test
+    void testInvalidarObligaARecargar() throws SQLException {
+        listar();
+        cache.invalidar();
+        listar();
+
+        assertEquals(2, lecturas);
+    }
+
+    private List<Empleado> listar() throws SQLException {
+        List<Empleado> leidos = new ArrayList<>();
+        cache.recorrer(this::leerPagina, this::recorrerDirecto, leidos::add);
+        return leidos;
+    }
+
+    private List<Empleado> leerPagina(int despues, int tamano) {
+        lecturas++;
+        return tabla.tailMap(despues, false).values().stream().limit(tamano).toList();
+    }
+
+    private void recorrerDirecto(Consumer<Empleado> consumidor) {
+        recorridosDirectos++;
+        tabla.values().forEach(consumidor);
+    }
+
+    private static Empleado empleado(int id) {
+        return new Empleado(id, "Empleado " + id, "e" + id + "@empresa.com", "Ventas");
+    }
+
+    private static List<Integer> ids(List<Empleado> empleados) {
+        return empleados.stream().map(Empleado::id).toList();
+    }
+}
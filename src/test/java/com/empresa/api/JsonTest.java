@@ -0,0 +1,47 @@
+package com.empresa.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de {@link Json}: ida y vuelta de los tipos que usa la API y rechazo de documentos mal formados.
+ */
+class JsonTest {
+
+    @Test
+    void testEscribeYLeeUnObjetoConTodosLosTipos() {
+        Map<String, Object> objeto = Json.objeto("texto", "Sala \"A\"\n\tPlanta 1", "entero", 42, "decimal", 1.5,
+                "si", true, "nada", null, "fecha", LocalDate.of(2025, 7, 1), "lista", List.of(1, "dos"),
+                "anidado", Json.objeto("id", 7));
+
+        String texto = Json.escribir(objeto);
+
+        assertEquals("{\"texto\":\"Sala \\\"A\\\"\\n\\tPlanta 1\",\"entero\":42,\"decimal\":1.5,\"si\":true,"
+                + "\"nada\":null,\"fecha\":\"2025-07-01\",\"lista\":[1,\"dos\"],\"anidado\":{\"id\":7}}", texto);
+        assertEquals(Json.objeto("texto", "Sala \"A\"\n\tPlanta 1", "entero", 42L, "decimal", 1.5, "si", true,
+                "nada", null, "fecha", "2025-07-01", "lista", List.of(1L, "dos"), "anidado", Json.objeto("id", 7L)),
+                Json.leerObjeto(texto));
+    }
+
+    @Test
+    void testLeeEscapesUnicodeYEspacios() {
+        assertEquals(Map.of("nombre", "Peña €"), Json.leerObjeto(" {\n \"nombre\" : \"Pe\\u00f1a \\u20ac\" } "));
+        assertEquals(List.of(), Json.leer("[]"));
+        assertEquals(-3L, Json.leer("-3"));
+    }
+
+    @Test
+    void testRechazaDocumentosMalFormados() {
+        for (String texto : List.of("", "{", "{\"a\":}", "{\"a\":1,}", "[1 2]", "{\"a\":1} x", "tru", "\"abc",
+                "{a:1}", "01x", "\"\\q\"", "\"\\u12\"", "[".repeat(100))) {
+            assertThrows(IllegalArgumentException.class, () -> Json.leer(texto), texto);
+        }
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Json.leerObjeto("[1]"));
+        assertEquals("Se esperaba un objeto JSON", e.getMessage());
+    }
+}
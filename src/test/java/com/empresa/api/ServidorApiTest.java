@@ -0,0 +1,190 @@
+package com.empresa.api;
+
+import com.empresa.almacen.AlmacenEmbebido;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de {@link ServidorApi} sobre el almacén embebido, con peticiones HTTP reales a un puerto libre.
+ */
+class ServidorApiTest {
+
+    @TempDir
+    Path directorio;
+
+    private AlmacenEmbebido almacen;
+    private ServidorApi servidor;
+    private HttpClient cliente;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        almacen = AlmacenEmbebido.abrir(directorio, 1000, false);
+        servidor = ServidorApi.iniciar(almacen, new InetSocketAddress("localhost", 0));
+        cliente = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.close();
+        almacen.close();
+    }
+
+    @Test
+    void testCreaListaModificaYEliminaReservas() throws Exception {
+        HttpResponse<String> sala = peticion("POST", "salas",
+                "{\"nombre\": \"Sala A\", \"capacidad\": 8, \"recursos\": \"proyector\"}");
+        assertEquals(201, sala.statusCode());
+        assertEquals("/api/salas/1", sala.headers().firstValue("Location").orElseThrow());
+        assertEquals(Json.objeto("id", 1L, "nombre", "Sala A", "capacidad", 8L, "recursos", "Proyector", "version", 0L),
+                Json.leer(sala.body()));
+        assertEquals(201, peticion("POST", "empleados",
+                "{\"nombre\": \"Ana\", \"email\": \"ana@empresa.com\", \"departamento\": \"TI\"}").statusCode());
+
+        String reserva = "{\"sala\": \"Sala A\", \"empleadoId\": 1, \"fecha\": \"2025-07-01\", "
+                + "\"horaInicio\": \"09:00\", \"horaFin\": \"10:00\"}";
+        assertEquals(201, peticion("POST", "reservas", reserva).statusCode());
+        HttpResponse<String> conflicto = peticion("POST", "reservas", reserva.replace("\"Sala A\"", "1"));
+        assertEquals(409, conflicto.statusCode());
+        assertEquals(Map.of("error", "La sala ya está reservada en ese horario"), Json.leer(conflicto.body()));
+
+        HttpResponse<String> listado = peticion("GET", "reservas?desde=2025-07-01&sala=Sala%20A", null);
+        assertEquals(200, listado.statusCode());
+        assertEquals(Json.objeto("elementos", List.of(Json.objeto("id", 1L, "fecha", "2025-07-01",
+                "horaInicio", "09:00", "horaFin", "10:00", "sala", "Sala A", "empleado", "Ana")), "siguiente", null),
+                Json.leer(listado.body()));
+
+        assertEquals(200, peticion("PUT", "reservas/1", reserva.replace("09:00", "11:00").replace("10:00", "12:00"))
+                .statusCode());
+        assertEquals(404, peticion("PUT", "reservas/9", reserva).statusCode());
+        assertEquals(204, peticion("DELETE", "reservas/1", null).statusCode());
+        assertEquals(404, peticion("DELETE", "reservas/1", null).statusCode());
+        assertEquals(Json.objeto("elementos", List.of(), "siguiente", null),
+                Json.leer(peticion("GET", "reservas", null).body()));
+    }
+
+    @Test
+    void testPutConVersionLeidaRechazaLaEscrituraDesactualizada() throws Exception {
+        peticion("POST", "salas", "{\"nombre\": \"Sala A\", \"capacidad\": 8}");
+        peticion("POST", "empleados", "{\"nombre\": \"Ana\", \"email\": \"ana@empresa.com\"}");
+        peticion("POST", "reservas", "{\"sala\": 1, \"empleadoId\": 1, \"fecha\": \"2025-07-01\", "
+                + "\"horaInicio\": \"09:00\", \"horaFin\": \"10:00\"}");
+        assertEquals(Json.objeto("id", 1L, "sala", 1L, "empleadoId", 1L, "fecha", "2025-07-01", "horaInicio", "09:00",
+                "horaFin", "10:00", "version", 0L), Json.leer(peticion("GET", "reservas/1", null).body()));
+
+        // Dos clientes editan a partir de la versión 0: el segundo no pisa el cambio del primero
+        String edicion = "{\"sala\": 1, \"empleadoId\": 1, \"fecha\": \"2025-07-01\", "
+                + "\"horaInicio\": \"%s\", \"horaFin\": \"%s\", \"version\": 0}";
+        HttpResponse<String> primera = peticion("PUT", "reservas/1", edicion.formatted("11:00", "12:00"));
+        assertEquals(200, primera.statusCode());
+        assertEquals(Json.objeto("id", 1L, "version", 1L), Json.leer(primera.body()));
+        assertEquals(409, peticion("PUT", "reservas/1", edicion.formatted("15:00", "16:00")).statusCode());
+        assertEquals("11:00", ((Map<?, ?>) Json.leer(peticion("GET", "reservas/1", null).body())).get("horaInicio"));
+        assertEquals(404, peticion("GET", "reservas/2", null).statusCode());
+
+        String sala = "{\"nombre\": \"%s\", \"capacidad\": 8, \"version\": 0}";
+        assertEquals(200, peticion("PUT", "salas/1", sala.formatted("Sala Azul")).statusCode());
+        assertEquals(409, peticion("PUT", "salas/1", sala.formatted("Sala Roja")).statusCode());
+        assertEquals(Json.objeto("id", 1L, "nombre", "Sala Azul", "capacidad", 8L, "recursos", "", "version", 1L),
+                Json.leer(peticion("GET", "salas/1", null).body()));
+        // Sin versión se sobrescribe sin comprobarla, y la respuesta trae la versión guardada
+        HttpResponse<String> sinVersion = peticion("PUT", "salas/1", "{\"nombre\": \"Sala Roja\", \"capacidad\": 8}");
+        assertEquals(200, sinVersion.statusCode());
+        assertEquals(2L, ((Map<?, ?>) Json.leer(sinVersion.body())).get("version"));
+        assertEquals(200, peticion("PUT", "salas/1", sala.replace("0}", "2}").formatted("Sala Verde")).statusCode());
+        assertEquals(404, peticion("PUT", "salas/9", "{\"nombre\": \"Sala X\", \"capacidad\": 8}").statusCode());
+    }
+
+    @Test
+    void testRespondeConErroresDeClienteSinTocarElAlmacen() throws Exception {
+        assertEquals(404, peticion("GET", "edificios", null).statusCode());
+        assertEquals(404, peticion("GET", "salas/1/reservas", null).statusCode());
+        assertEquals(405, peticion("DELETE", "salas", null).statusCode());
+        assertEquals(405, peticion("POST", "salas/libres", "{}").statusCode());
+        assertEquals(400, peticion("GET", "salas?limite=0", null).statusCode());
+        assertEquals(400, peticion("POST", "salas", "{\"nombre\": \"Sala A\"").statusCode());
+        assertEquals(400, peticion("POST", "salas", "{\"nombre\": \"Sala A\", \"capacidad\": \"8\"}").statusCode());
+        assertEquals(400, peticion("POST", "salas",
+                "{\"nombre\": \"Sala A\", \"capacidad\": 8, \"recursos\": \"Piano\"}").statusCode());
+        assertEquals(400, peticion("POST", "reservas", "{\"sala\": \"Sala Z\", \"empleadoId\": 1, "
+                + "\"fecha\": \"2025-07-01\", \"horaInicio\": \"09:00\", \"horaFin\": \"10:00\"}").statusCode());
+        assertEquals(413, peticion("POST", "salas", "{\"nombre\": \"" + "x".repeat(ServidorApi.CUERPO_MAXIMO) + "\"}")
+                .statusCode());
+
+        assertEquals(0, almacen.getEstadisticas().salas());
+        assertEquals(new ServidorApi.Estadisticas(10, 10, 0), servidor.getEstadisticas());
+    }
+
+    @Test
+    void testRecorreLasSalasPorPaginas() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            peticion("POST", "salas", "{\"nombre\": \"Sala " + i + "\", \"capacidad\": " + (i * 2) + "}");
+        }
+        assertEquals(204, peticion("DELETE", "salas/3", null).statusCode());
+
+        List<Object> nombres = new ArrayList<>();
+        Object despues = null;
+        int paginas = 0;
+        do {
+            Map<?, ?> pagina = (Map<?, ?>) Json.leer(peticion("GET",
+                    "salas?limite=2" + (despues == null ? "" : "&despues=" + despues), null).body());
+            for (Object sala : (List<?>) pagina.get("elementos")) {
+                nombres.add(((Map<?, ?>) sala).get("nombre"));
+            }
+            despues = pagina.get("siguiente");
+            paginas++;
+        } while (despues != null);
+
+        assertEquals(List.of("Sala 1", "Sala 2", "Sala 4", "Sala 5"), nombres);
+        assertEquals(3, paginas);
+    }
+
+    @Test
+    void testSoloUnaDeLasReservasSimultaneasDelMismoHuecoSeCrea() throws Exception {
+        peticion("POST", "salas", "{\"nombre\": \"Sala A\", \"capacidad\": 8}");
+        peticion("POST", "empleados", "{\"nombre\": \"Ana\", \"email\": \"ana@empresa.com\"}");
+        String reserva = "{\"sala\": 1, \"empleadoId\": 1, \"fecha\": \"2025-07-01\", "
+                + "\"horaInicio\": \"09:00\", \"horaFin\": \"10:00\"}";
+
+        List<Future<Integer>> respuestas = new ArrayList<>();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                respuestas.add(clientes.submit(() -> peticion("POST", "reservas", reserva).statusCode()));
+            }
+        }
+        List<Integer> codigos = new ArrayList<>();
+        for (Future<Integer> respuesta : respuestas) {
+            codigos.add(respuesta.get());
+        }
+
+        assertEquals(1, codigos.stream().filter(c -> c == 201).count());
+        assertEquals(99, codigos.stream().filter(c -> c == 409).count());
+        assertEquals(1, almacen.getEstadisticas().reservas());
+    }
+
+    private HttpResponse<String> peticion(String metodo, String ruta, String cuerpo)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + servidor.getPuerto() + ServidorApi.RUTA + ruta));
+        peticion.method(metodo, cuerpo == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(cuerpo));
+        return cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.empresa.carga;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link DistribucionDiscreta}.
+ */
+class DistribucionDiscretaTest {
+
+    private static final int MUESTRAS = 200_000;
+
+    @Test
+    void testFrecuenciasProporcionalesALosPesos() {
+        DistribucionDiscreta distribucion = DistribucionDiscreta.pesos(1, 0, 3, 6);
+        int[] veces = muestrear(distribucion);
+
+        assertEquals(0, veces[1]);
+        assertEquals(0.1, (double) veces[0] / MUESTRAS, 0.01);
+        assertEquals(0.3, (double) veces[2] / MUESTRAS, 0.01);
+        assertEquals(0.6, (double) veces[3] / MUESTRAS, 0.01);
+        assertEquals(0.6, distribucion.probabilidad(3), 1e-9);
+    }
+
+    @Test
+    void testZipfConcentraLaDemandaEnLosPrimeros() {
+        DistribucionDiscreta distribucion = DistribucionDiscreta.zipf(50, 1.0);
+        int[] veces = muestrear(distribucion);
+
+        // Con s = 1 el primero sale el doble que el segundo y el triple que el tercero
+        assertEquals(2.0, (double) veces[0] / veces[1], 0.1);
+        assertEquals(3.0, (double) veces[0] / veces[2], 0.15);
+        assertEquals(1.0 / 50, DistribucionDiscreta.zipf(50, 0).probabilidad(49), 1e-9);
+        assertEquals(50, distribucion.tamano());
+    }
+
+    @Test
+    void testPesosNoValidos() {
+        assertThrows(IllegalArgumentException.class, DistribucionDiscreta::pesos);
+        assertThrows(IllegalArgumentException.class, () -> DistribucionDiscreta.pesos(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionDiscreta.pesos(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> DistribucionDiscreta.pesos(1, Double.NaN));
+    }
+
+    private static int[] muestrear(DistribucionDiscreta distribucion) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] veces = new int[distribucion.tamano()];
+        for (int i = 0; i < MUESTRAS; i++) {
+            veces[distribucion.siguiente(random)]++;
+        }
+        return veces;
+    }
+}
@@ -0,0 +1,106 @@
+package com.empresa.carga;
+
+import com.empresa.almacen.AlmacenEmbebido;
+import com.empresa.almacen.Sesion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de {@link GeneradorCarga} sobre el almacén embebido en un directorio temporal.
+ */
+class GeneradorCargaTest {
+
+    /** Lunes. */
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2030, 1, 7);
+
+    @TempDir
+    Path directorio;
+
+    private AlmacenEmbebido almacen;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        almacen = AlmacenEmbebido.abrir(directorio, 100_000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        almacen.close();
+    }
+
+    @Test
+    void testAlmacenVacioSeRellenaYLasReservasSeBorranAlTerminar() throws Exception {
+        GeneradorCarga.ResultadoCarga resultado = GeneradorCarga.ejecutar(almacen, configuracion(8, 10, 1.0));
+
+        assertTrue(resultado.operaciones() > 0);
+        for (GeneradorCarga.Accion accion : GeneradorCarga.Accion.values()) {
+            assertTrue(resultado.latencias().get(accion).llamadas() > 0, accion.name());
+        }
+        assertEquals(0, resultado.errores());
+        assertTrue(resultado.intentos() > 0);
+        assertTrue(resultado.operacionesPorSegundo() > 0);
+        try (Sesion sesion = almacen.abrirSesion()) {
+            AtomicInteger salas = new AtomicInteger();
+            AtomicInteger empleados = new AtomicInteger();
+            sesion.salas().recorrer(s -> salas.incrementAndGet());
+            sesion.empleados().recorrer(e -> empleados.incrementAndGet());
+            assertEquals(GeneradorCarga.SALAS_INICIALES, salas.get());
+            assertEquals(GeneradorCarga.EMPLEADOS_INICIALES, empleados.get());
+            assertEquals(0, sesion.reservas().recorrer(f -> { }));
+        }
+    }
+
+    @Test
+    void testDemandaConcentradaProvocaConflictos() throws Exception {
+        int reservaAjena;
+        try (Sesion sesion = almacen.abrirSesion()) {
+            int sala = sesion.salas().insertar("Sala única", 10, "").id();
+            int empleado = sesion.empleados().insertar("Ana", "ana@empresa.com", "TI").id();
+            reservaAjena = sesion.reservas().crear(sala, empleado, PRIMER_DIA.minusDays(7),
+                    GeneradorCarga.APERTURA, GeneradorCarga.CIERRE).id();
+        }
+
+        // Una sala y un día: las 24 franjas se llenan enseguida
+        GeneradorCarga.ResultadoCarga resultado = GeneradorCarga.ejecutar(almacen, configuracion(4, 1, 0));
+
+        assertTrue(resultado.tasaConflictos() > 0.5, "tasa de conflictos " + resultado.tasaConflictos());
+        assertEquals(0, resultado.errores());
+        try (Sesion sesion = almacen.abrirSesion()) {
+            // Solo se borra lo que creó el generador
+            assertTrue(sesion.reservas().existe(reservaAjena));
+            assertEquals(1, sesion.reservas().recorrer(f -> { }));
+        }
+    }
+
+    @Test
+    void testDiaLaborableSaltaLosFinesDeSemana() {
+        LocalDate viernes = LocalDate.of(2030, 1, 11);
+
+        assertEquals(viernes, GeneradorCarga.diaLaborable(viernes, 0));
+        assertEquals(LocalDate.of(2030, 1, 14), GeneradorCarga.diaLaborable(viernes, 1));
+        assertEquals(LocalDate.of(2030, 1, 14), GeneradorCarga.diaLaborable(viernes.plusDays(1), 0));
+        assertEquals(LocalDate.of(2030, 1, 21), GeneradorCarga.diaLaborable(viernes, 6));
+    }
+
+    @Test
+    void testConfiguracionNoValida() {
+        assertThrows(IllegalArgumentException.class, () -> new GeneradorCarga.Configuracion(0, Duration.ofSeconds(1),
+                Duration.ZERO, Duration.ZERO, 5, 1.0, 1, PRIMER_DIA));
+        assertThrows(IllegalArgumentException.class, () -> new GeneradorCarga.Configuracion(1, Duration.ZERO,
+                Duration.ZERO, Duration.ZERO, 5, 1.0, 1, PRIMER_DIA));
+    }
+
+    private static GeneradorCarga.Configuracion configuracion(int empleados, int dias, double zipf) {
+        return new GeneradorCarga.Configuracion(empleados, Duration.ofMillis(300), Duration.ZERO, Duration.ZERO, dias,
+                zipf, 7L, PRIMER_DIA);
+    }
+}
@@ -0,0 +1,45 @@
+package com.empresa.comandos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link Comando}.
+ */
+class ComandoTest {
+
+    @Test
+    void testInterpretaLineasConComillas() {
+        Comando comando = Comando.interpretar(3, "  sala,crear,\"Sala, grande\",12,\"Proyector;Pizarra\"  ");
+
+        assertEquals(3, comando.linea());
+        assertEquals(Comando.Entidad.SALA, comando.entidad());
+        assertEquals(Comando.Accion.CREAR, comando.accion());
+        assertEquals(List.of("Sala, grande", "12", "Proyector;Pizarra"), comando.campos());
+        assertEquals(12, comando.entero(1));
+        assertEquals("sala crear", comando.nombre());
+        assertFalse(comando.esParalelo());
+        assertTrue(Comando.interpretar(4, "RESERVA;Crear;Sala A;1;2025-07-01;09:00;10:00").esParalelo());
+        assertFalse(Comando.interpretar(5, "reserva,listar").escribe());
+    }
+
+    @Test
+    void testIgnoraVaciasYComentarios() {
+        assertNull(Comando.interpretar(1, ""));
+        assertNull(Comando.interpretar(2, "   "));
+        assertNull(Comando.interpretar(3, "# sala,eliminar,1"));
+    }
+
+    @Test
+    void testRechazaComandosMalFormados() {
+        assertThrows(IllegalArgumentException.class, () -> Comando.interpretar(1, "sala"));
+        assertThrows(IllegalArgumentException.class, () -> Comando.interpretar(1, "planta,crear,1"));
+        assertThrows(IllegalArgumentException.class, () -> Comando.interpretar(1, "sala,mover,1"));
+        assertThrows(IllegalArgumentException.class, () -> Comando.interpretar(1, "sala,crear,Sala A,10"));
+        assertThrows(IllegalArgumentException.class, () -> Comando.interpretar(1, "reserva,eliminar"));
+        assertThrows(IllegalArgumentException.class, () -> Comando.interpretar(1, "empleado,eliminar,uno").entero(0));
+    }
+}
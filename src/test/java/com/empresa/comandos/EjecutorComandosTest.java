@@ -0,0 +1,199 @@
+package com.empresa.comandos;
+
+import com.empresa.almacen.AlmacenEmbebido;
+import com.empresa.almacen.AlmacenJdbc;
+import com.empresa.conexion.PoolConexiones;
+import com.empresa.reservas.IndiceDisponibilidad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de {@link EjecutorComandos}: el reparto entre hilos sobre el almacén embebido y las
+ * transacciones agrupadas sobre conexiones JDBC simuladas con Mockito.
+ */
+class EjecutorComandosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void testEjecutaElLoteYEscribeUnaLineaJsonPorComando() throws Exception {
+        String lote = """
+                # Alta de datos
+                sala,crear,Sala A,10,Proyector
+                empleado,crear,"Pérez, Ana",ana@empresa.com,TI
+                reserva,crear,Sala A,1,2025-07-01,09:00,10:00
+                reserva,crear,1,1,2025-07-01,09:30,10:30
+                reserva,crear,Sala B,1,2025-07-01,09:00,10:00
+                reserva,actualizar,99,1,1,2025-07-01,11:00,12:00
+                reserva,crear,Sala A,1,2025-07-01,10:00,09:00
+                sala,mover,1
+
+                reserva,listar
+                """;
+        List<String> salida;
+        EjecutorComandos.Resumen resumen;
+        try (AlmacenEmbebido almacen = AlmacenEmbebido.abrir(directorio, 1000, false)) {
+            StringWriter json = new StringWriter();
+            resumen = EjecutorComandos.ejecutar(almacen, new BufferedReader(new StringReader(lote)), json,
+                    new EjecutorComandos.Configuracion(1, 0));
+            salida = json.toString().lines().toList();
+        }
+
+        assertEquals(9, resumen.comandos());
+        assertEquals(4, resumen.correctos());
+        assertEquals(1, resumen.conflictos());
+        assertEquals(1, resumen.noExisten());
+        assertEquals(3, resumen.errores());
+        assertTrue(salida.contains("{\"linea\":3,\"comando\":\"empleado crear\",\"estado\":\"OK\",\"id\":1}"));
+        assertTrue(salida.contains("{\"linea\":5,\"comando\":\"reserva crear\",\"estado\":\"CONFLICTO\"}"));
+        assertTrue(salida.contains("{\"linea\":6,\"comando\":\"reserva crear\",\"estado\":\"ERROR\","
+                + "\"mensaje\":\"La sala 'Sala B' no existe\"}"));
+        assertTrue(salida.contains("{\"linea\":7,\"comando\":\"reserva actualizar\",\"estado\":\"NO_EXISTE\",\"id\":99}"));
+        assertTrue(salida.contains("{\"linea\":9,\"estado\":\"ERROR\",\"mensaje\":\"Acción desconocida: 'mover'\"}"));
+        assertTrue(salida.contains("{\"linea\":11,\"comando\":\"reserva listar\",\"fila\":{\"id\":1,\"fecha\":\"2025-07-01\","
+                + "\"horaInicio\":\"09:00\",\"horaFin\":\"10:00\",\"sala\":\"Sala A\",\"empleado\":\"Pérez, Ana\"}}"));
+        assertTrue(salida.getLast().startsWith("{\"resumen\":{\"comandos\":9,\"correctos\":4,"));
+    }
+
+    @Test
+    void testRecursosDeSalaSeValidanContraElCatalogo() throws Exception {
+        String lote = """
+                sala,crear,Sala A,10,"proyector; PIZARRA"
+                sala,crear,Sala B,10,Jacuzzi
+                sala,actualizar,1,Sala A,12,Holograma
+                sala,listar
+                """;
+        List<String> salida;
+        EjecutorComandos.Resumen resumen;
+        try (AlmacenEmbebido almacen = AlmacenEmbebido.abrir(directorio, 1000, false)) {
+            StringWriter json = new StringWriter();
+            resumen = EjecutorComandos.ejecutar(almacen, new BufferedReader(new StringReader(lote)), json,
+                    new EjecutorComandos.Configuracion(1, 0));
+            salida = json.toString().lines().toList();
+        }
+
+        assertEquals(2, resumen.errores());
+        assertTrue(salida.get(1).contains("\"estado\":\"ERROR\",\"mensaje\":\"Recursos desconocidos: Jacuzzi."));
+        assertTrue(salida.get(2).contains("\"estado\":\"ERROR\",\"mensaje\":\"Recursos desconocidos: Holograma."));
+        assertTrue(salida.contains("{\"linea\":4,\"comando\":\"sala listar\",\"fila\":{\"id\":1,\"nombre\":\"Sala A\","
+                + "\"capacidad\":10,\"recursos\":\"Proyector, Pizarra\"}}"), salida::toString);
+    }
+
+    @Test
+    void testConVariosHilosRespetaElOrdenDeCadaSala() throws Exception {
+        StringBuilder lote = new StringBuilder("empleado,crear,Ana,ana@empresa.com,TI\n");
+        for (int sala = 1; sala <= 8; sala++) {
+            lote.append("sala,crear,Sala ").append(sala).append(",10,Pizarra\n");
+        }
+        // Reserva 1, seguida de un comando que espera a que termine para que el ID no dependa de los hilos
+        lote.append("reserva,crear,Sala 1,1,2025-07-01,07:00,08:00\n");
+        lote.append("empleado,crear,Luis,luis@empresa.com,TI\n");
+        // Cada hueco se pide dos veces seguidas: solo la primera puede crearse
+        for (int hora = 8; hora < 18; hora++) {
+            for (int sala = 1; sala <= 8; sala++) {
+                String reserva = "reserva,crear,Sala %d,1,2025-07-01,%02d:00,%02d:00%n".formatted(sala, hora, hora + 1);
+                lote.append(reserva).append(reserva);
+            }
+        }
+        // Borrar la primera reserva libera su hueco para el comando siguiente
+        lote.append("reserva,eliminar,1\n");
+        lote.append("reserva,crear,Sala 1,1,2025-07-01,07:00,08:00\n");
+        lote.append("sala,eliminar,8\n");
+        lote.append("reserva,crear,Sala 8,1,2025-07-02,08:00,09:00\n");
+
+        EjecutorComandos.Resumen resumen;
+        long reservas;
+        try (AlmacenEmbebido almacen = AlmacenEmbebido.abrir(directorio, 1000, false)) {
+            resumen = EjecutorComandos.ejecutar(almacen, new BufferedReader(new StringReader(lote.toString())),
+                    new StringWriter(), new EjecutorComandos.Configuracion(4, 0));
+            try (var sesion = almacen.abrirSesion()) {
+                reservas = sesion.reservas().recorrer(f -> { });
+            }
+        }
+
+        assertEquals(1 + 8 + 2 + 160 + 4, resumen.comandos());
+        assertEquals(80, resumen.conflictos());
+        assertEquals(1 + 8 + 2 + 80 + 3, resumen.correctos());
+        assertEquals(1, resumen.errores());
+        // Las 10 reservas de la sala 8 se borran con ella
+        assertEquals(1 + 80 - 10, reservas);
+    }
+
+    @Test
+    void testAgrupaLasEscriturasEnTransacciones() throws Exception {
+        IndiceDisponibilidad.getInstancia().invalidar();
+        Connection conn = conexionSimulada();
+        StringWriter json = new StringWriter();
+
+        EjecutorComandos.Resumen resumen = ejecutarReservas(conn, 10, 4, json);
+
+        assertEquals(10, resumen.correctos());
+        assertEquals(3, resumen.transacciones());
+        verify(conn).setAutoCommit(false);
+        verify(conn, times(3)).commit();
+        verify(conn, never()).rollback();
+    }
+
+    @Test
+    void testDeshaceLaTransaccionQueNoSePuedeConfirmar() throws Exception {
+        IndiceDisponibilidad.getInstancia().invalidar();
+        Connection conn = conexionSimulada();
+        doThrow(new SQLException("Conexión perdida")).doNothing().when(conn).commit();
+        StringWriter json = new StringWriter();
+
+        EjecutorComandos.Resumen resumen = ejecutarReservas(conn, 10, 4, json);
+
+        assertEquals(6, resumen.correctos());
+        assertEquals(4, resumen.deshechos());
+        assertEquals(2, resumen.transacciones());
+        verify(conn).rollback();
+        assertTrue(json.toString().contains(
+                "{\"transaccion\":\"DESHECHA\",\"lineas\":[1,2,3,4],\"mensaje\":\"Conexión perdida\"}"));
+    }
+
+    private static EjecutorComandos.Resumen ejecutarReservas(Connection conn, int reservas, int porTransaccion,
+                                                             StringWriter json) throws Exception {
+        StringBuilder lote = new StringBuilder();
+        for (int i = 0; i < reservas; i++) {
+            lote.append("reserva,crear,1,1,2025-07-01,%02d:00,%02d:00%n".formatted(8 + i, 9 + i));
+        }
+        try (AlmacenJdbc almacen = new AlmacenJdbc(
+                new PoolConexiones(() -> conn, 2, Duration.ofSeconds(1), Duration.ofMinutes(1)))) {
+            return EjecutorComandos.ejecutar(almacen, new BufferedReader(new StringReader(lote.toString())), json,
+                    new EjecutorComandos.Configuracion(1, porTransaccion));
+        }
+    }
+
+    /**
+     * Conexión en la que ninguna reserva tiene conflicto y todas las inserciones afectan a una fila.
+     */
+    private static Connection conexionSimulada() throws SQLException {
+        Connection conn = mock(Connection.class);
+        when(conn.isValid(anyInt())).thenReturn(true);
+        when(conn.getAutoCommit()).thenReturn(true);
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+        when(conn.prepareStatement(anyString(), anyInt())).thenReturn(pstmt);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        when(pstmt.executeUpdate()).thenReturn(1);
+        return conn;
+    }
+}
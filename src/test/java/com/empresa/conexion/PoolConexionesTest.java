@@ -0,0 +1,204 @@
+package com.empresa.conexion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link PoolConexiones}.
+ * Las conexiones físicas son mocks creados por una fábrica que las va registrando.
+ */
+class PoolConexionesTest {
+
+    private final List<Connection> fisicas = new ArrayList<>();
+    private PoolConexiones pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new PoolConexiones(this::nuevaConexion, 2, Duration.ofMillis(100), Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private Connection nuevaConexion() throws SQLException {
+        Connection conn = mock(Connection.class);
+        when(conn.isValid(anyInt())).thenReturn(true);
+        when(conn.getAutoCommit()).thenReturn(true);
+        // Cada preparación devuelve una sentencia distinta
+        when(conn.prepareStatement(anyString())).thenAnswer(i -> mock(PreparedStatement.class));
+        when(conn.prepareStatement(anyString(), anyInt())).thenAnswer(i -> mock(PreparedStatement.class));
+        fisicas.add(conn);
+        return conn;
+    }
+
+    @Test
+    void testReutilizaConexionDevuelta() throws SQLException {
+        try (Connection conn = pool.obtenerConexion()) {
+            conn.createStatement();
+        }
+        try (Connection conn = pool.obtenerConexion()) {
+            conn.createStatement();
+        }
+
+        assertEquals(1, fisicas.size());
+        verify(fisicas.get(0), times(2)).createStatement();
+        verify(fisicas.get(0), never()).close();
+        assertEquals(2, pool.getEstadisticas().prestamos());
+    }
+
+    @Test
+    void testTamanoAcotadoProvocaTimeout() throws SQLException {
+        Connection a = pool.obtenerConexion();
+        Connection b = pool.obtenerConexion();
+
+        assertThrows(SQLTimeoutException.class, pool::obtenerConexion);
+        assertEquals(1, pool.getEstadisticas().timeouts());
+        assertEquals(2, pool.getEstadisticas().activas());
+
+        a.close();
+        b.close();
+        assertEquals(0, pool.getEstadisticas().activas());
+        assertEquals(2, pool.getEstadisticas().inactivas());
+    }
+
+    @Test
+    void testDescartaConexionInvalidaAlPrestar() throws SQLException {
+        Connection conn = pool.obtenerConexion();
+        conn.close();
+        when(fisicas.get(0).isValid(anyInt())).thenReturn(false);
+
+        try (Connection otra = pool.obtenerConexion()) {
+            otra.createStatement();
+        }
+
+        assertEquals(2, fisicas.size());
+        verify(fisicas.get(0)).close();
+        assertEquals(1, pool.getEstadisticas().descartadas());
+    }
+
+    @Test
+    void testConexionDevueltaNoSePuedeUsar() throws SQLException {
+        Connection conn = pool.obtenerConexion();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+    }
+
+    @Test
+    void testDeshaceTransaccionPendienteAlDevolver() throws SQLException {
+        Connection conn = pool.obtenerConexion();
+        when(fisicas.get(0).getAutoCommit()).thenReturn(false);
+        conn.close();
+
+        verify(fisicas.get(0)).rollback();
+        verify(fisicas.get(0)).setAutoCommit(true);
+    }
+
+    @Test
+    void testExpulsaConexionesInactivas() throws Exception {
+        pool.close();
+        pool = new PoolConexiones(this::nuevaConexion, 2, Duration.ofMillis(100), Duration.ofMillis(20));
+
+        pool.obtenerConexion().close();
+        Thread.sleep(200);
+
+        assertEquals(0, pool.getEstadisticas().inactivas());
+        verify(fisicas.get(0)).close();
+    }
+
+    @Test
+    void testReutilizaSentenciaPreparadaEntrePrestamos() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM salas WHERE id = ?";
+        try (Connection conn = pool.obtenerConexion();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, 1);
+            pstmt.executeQuery();
+        }
+        try (Connection conn = pool.obtenerConexion();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, 2);
+            pstmt.executeQuery();
+        }
+
+        verify(fisicas.get(0), times(1)).prepareStatement(sql);
+        assertEquals(1, pool.getEstadisticas().sentenciasPreparadas());
+        assertEquals(1, pool.getEstadisticas().sentenciasReutilizadas());
+    }
+
+    @Test
+    void testSentenciaCacheadaSeLimpiaYNoSeCierra() throws SQLException {
+        String sql = "DELETE FROM salas WHERE id = ?";
+        PreparedStatement real = mock(PreparedStatement.class);
+        try (Connection conn = pool.obtenerConexion()) {
+            when(fisicas.get(0).prepareStatement(sql)).thenReturn(real);
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, 7);
+            pstmt.close();
+
+            assertTrue(pstmt.isClosed());
+            assertThrows(SQLException.class, pstmt::executeUpdate);
+        }
+
+        verify(real).setInt(1, 7);
+        verify(real).clearParameters();
+        verify(real, never()).close();
+    }
+
+    @Test
+    void testMismaSentenciaAbiertaDosVecesSePreparaDosVeces() throws SQLException {
+        String sql = "SELECT id FROM empleados";
+        try (Connection conn = pool.obtenerConexion();
+             PreparedStatement a = conn.prepareStatement(sql);
+             PreparedStatement b = conn.prepareStatement(sql)) {
+            assertNotSame(a, b);
+        }
+
+        verify(fisicas.get(0), times(2)).prepareStatement(sql);
+    }
+
+    @Test
+    void testClavesGeneradasSeCacheanAparte() throws SQLException {
+        String sql = "INSERT INTO salas (nombre, capacidad, recursos) VALUES (?, ?, ?)";
+        for (int i = 0; i < 2; i++) {
+            try (Connection conn = pool.obtenerConexion()) {
+                conn.prepareStatement(sql).close();
+                conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+            }
+        }
+
+        verify(fisicas.get(0), times(1)).prepareStatement(sql);
+        verify(fisicas.get(0), times(1)).prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    @Test
+    void testCambiarConfiguracionDescartaLaSentencia() throws SQLException {
+        String sql = "SELECT * FROM reservas WHERE fecha = ?";
+        try (Connection conn = pool.obtenerConexion();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setFetchSize(500);
+        }
+        try (Connection conn = pool.obtenerConexion()) {
+            conn.prepareStatement(sql).close();
+        }
+
+        verify(fisicas.get(0), times(2)).prepareStatement(sql);
+    }
+}
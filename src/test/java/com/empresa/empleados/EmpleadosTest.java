@@ -1,5 +1,6 @@
 package com.empresa.empleados;
 
+import com.empresa.almacen.AlmacenJdbc;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -50,7 +51,7 @@ class EmpleadosTest {
         when(pstmt.executeUpdate()).thenReturn(1);
 
         // Ejecuta el método bajo prueba
-        Empleados.crearEmpleado(conn, scanner);
+        Empleados.crearEmpleado(AlmacenJdbc.sesion(conn), scanner);
 
         // Verifica que se llamaron los métodos esperados con los parámetros correctos
         verify(pstmt).setString(1, "Juan Pérez");
@@ -75,7 +76,7 @@ class EmpleadosTest {
         when(pstmt.executeUpdate()).thenThrow(new SQLException("Error en la base de datos"));
 
         // Ejecuta el método bajo prueba (debería manejar la excepción internamente)
-        Empleados.crearEmpleado(conn, scanner);
+        Empleados.crearEmpleado(AlmacenJdbc.sesion(conn), scanner);
 
         // Verifica que aún se intentó ejecutar la operación
         verify(pstmt).setString(1, "Ana García");
@@ -103,7 +104,7 @@ class EmpleadosTest {
         when(rs.getString("departamento")).thenReturn("Administración");
 
         // Ejecuta el método bajo prueba
-        Empleados.listarEmpleados(conn);
+        Empleados.listarEmpleados(AlmacenJdbc.sesion(conn));
 
         // Verifica que se accedió a los datos del resultado
         verify(rs, atLeastOnce()).next();
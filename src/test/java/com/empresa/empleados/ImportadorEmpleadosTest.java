@@ -0,0 +1,130 @@
+package com.empresa.empleados;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.sql.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link ImportadorEmpleados}.
+ * Se simulan con Mockito la consulta de empleados existentes y el INSERT ... ON DUPLICATE KEY UPDATE por lotes.
+ */
+class ImportadorEmpleadosTest {
+
+    private Connection conn;
+    private PreparedStatement psBuscar;
+    private PreparedStatement psUpsert;
+
+    /**
+     * Base de datos simulada con dos empleados: ana@empresa.com (Ana, TI) y luis@empresa.com (Luis, RRHH).
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        when(conn.getAutoCommit()).thenReturn(true);
+
+        psBuscar = mock(PreparedStatement.class);
+        ResultSet rsExistentes = mock(ResultSet.class);
+        when(conn.prepareStatement(startsWith("SELECT id, nombre, email, departamento FROM empleados WHERE email IN")))
+                .thenReturn(psBuscar);
+        when(psBuscar.executeQuery()).thenReturn(rsExistentes);
+        when(rsExistentes.next()).thenReturn(true, true, false);
+        when(rsExistentes.getInt("id")).thenReturn(1, 2);
+        when(rsExistentes.getString("nombre")).thenReturn("Ana", "Luis");
+        when(rsExistentes.getString("email")).thenReturn("ana@empresa.com", "luis@empresa.com");
+        when(rsExistentes.getString("departamento")).thenReturn("TI", "RRHH");
+
+        psUpsert = mock(PreparedStatement.class);
+        when(conn.prepareStatement(ImportadorEmpleados.SQL_UPSERT)).thenReturn(psUpsert);
+        when(psUpsert.executeBatch()).thenReturn(new int[]{1, 2});
+    }
+
+    @Test
+    void testImportarClasificaAltasCambiosYRechazos() throws Exception {
+        String contenido = """
+                nombre,email,departamento
+                Ana,ANA@empresa.com,TI
+                Luis,luis@empresa.com,Ventas
+                {"nombre": "Eva \\"la jefa\\"", "email": "eva@empresa.com", "departamento": "Direcci\\u00f3n"}
+                Pepe,pepe-sin-arroba,TI
+
+                Marta,,TI
+                "Eva, otra";eva@EMPRESA.com;TI
+                {"nombre": "Rota"
+                """;
+
+        ImportadorEmpleados.ResultadoImportacion resultado =
+                ImportadorEmpleados.importar(conn, new StringReader(contenido), 100);
+
+        assertEquals(7, resultado.leidas());
+        assertEquals(1, resultado.insertados());
+        assertEquals(1, resultado.actualizados());
+        assertEquals(1, resultado.sinCambios());
+        assertThat(resultado.rechazos().stream().map(ImportadorEmpleados.Rechazo::linea).toList(),
+                contains(5, 7, 8, 9));
+        assertThat(resultado.rechazos().get(0).motivo(), containsString("Email inválido"));
+        assertThat(resultado.rechazos().get(1).motivo(), containsString("obligatorios"));
+        assertThat(resultado.rechazos().get(2).motivo(), containsString("línea 4"));
+        assertThat(resultado.rechazos().get(3).motivo(), containsString("JSON inválido"));
+
+        // Una consulta de existentes por lote; la fila sin cambios no se escribe
+        verify(psBuscar, times(1)).executeQuery();
+        verify(psUpsert, times(2)).addBatch();
+        verify(psUpsert).setString(1, "Eva \"la jefa\"");
+        verify(psUpsert).setString(3, "Dirección");
+        verify(psUpsert).setString(3, "Ventas");
+        verify(psUpsert, never()).setString(2, "ANA@empresa.com");
+        verify(conn, times(1)).commit();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    void testUnLoteFallidoSeDeshaceYLosDemasSeConfirman() throws Exception {
+        when(psUpsert.executeBatch())
+                .thenThrow(new SQLException("Deadlock found"))
+                .thenReturn(new int[]{1});
+        String csv = """
+                Nuevo Uno,uno@empresa.com,TI
+                Nuevo Dos,dos@empresa.com,TI
+                """;
+
+        ImportadorEmpleados.ResultadoImportacion resultado =
+                ImportadorEmpleados.importar(conn, new StringReader(csv), 1);
+
+        assertEquals(2, resultado.leidas());
+        assertEquals(1, resultado.insertados());
+        assertEquals(1, resultado.rechazos().size());
+        assertEquals(1, resultado.rechazos().get(0).linea());
+        assertThat(resultado.rechazos().get(0).motivo(), containsString("Deadlock found"));
+        verify(conn, times(1)).rollback();
+        verify(conn, times(1)).commit();
+    }
+
+    @Test
+    void testLineasJsonConValoresQueNoSonTexto() throws Exception {
+        String contenido = """
+                {"nombre": "Ana\\tB", "email": "nueva@empresa.com", "departamento": 3, "jefe": null}
+                {"nombre": {"de": "pila"}, "email": "otra@empresa.com", "departamento": "TI"}
+                {"nombre": "Eva", "email": "eva@empresa.com", "departamento": "TI"} extra
+                {"nombre": "Eva", "email": "eva@empresa.com", "departamento": "\\q"}
+                """;
+
+        ImportadorEmpleados.ResultadoImportacion resultado =
+                ImportadorEmpleados.importar(conn, new StringReader(contenido), 100);
+
+        assertThat(resultado.rechazos().stream().map(ImportadorEmpleados.Rechazo::linea).toList(),
+                contains(2, 3, 4));
+        resultado.rechazos().forEach(r -> assertThat(r.motivo(), containsString("JSON inválido")));
+        assertThat(resultado.rechazos().get(0).motivo(), containsString("'nombre'"));
+        verify(psUpsert).setString(1, "Ana\tB");
+        verify(psUpsert).setString(3, "3");
+    }
+}
@@ -0,0 +1,113 @@
+package com.empresa.esquema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link MigradorEsquema}.
+ * La base de datos se simula con Mockito.
+ */
+class MigradorEsquemaTest {
+
+    private Connection conn;
+    private Statement stmt;
+    private ResultSet rsAplicadas;
+    private PreparedStatement insertVersion;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        stmt = mock(Statement.class);
+        rsAplicadas = mock(ResultSet.class);
+        insertVersion = mock(PreparedStatement.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(startsWith("SELECT version, checksum"))).thenReturn(rsAplicadas);
+        when(conn.prepareStatement(startsWith("INSERT INTO " + MigradorEsquema.TABLA_VERSION))).thenReturn(insertVersion);
+    }
+
+    @Test
+    void testSepararSentenciasIgnoraComentarios() {
+        List<String> sentencias = MigradorEsquema.separarSentencias("""
+                -- comentario
+                CREATE TABLE t (
+                    id INT
+                );
+
+                CREATE INDEX i ON t (id);
+                """);
+
+        assertEquals(List.of("CREATE TABLE t (\n    id INT\n)", "CREATE INDEX i ON t (id)"), sentencias);
+    }
+
+    @Test
+    void testCargarMigracionesDelClasspath() {
+        List<MigradorEsquema.Migracion> migraciones = MigradorEsquema.cargarMigraciones();
+
+        assertEquals(List.of(1, 2, 3, 4, 5), migraciones.stream().map(MigradorEsquema.Migracion::version).toList());
+        assertEquals("indices rendimiento", migraciones.get(1).descripcion());
+        assertTrue(migraciones.get(1).script().contains("idx_reservas_sala_fecha_horas"));
+    }
+
+    @Test
+    void testTodosLosScriptsEstanRegistrados() throws Exception {
+        // Un script que no figura en SCRIPTS no se aplicaría nunca
+        Path directorio = Path.of(MigradorEsquema.class.getClassLoader().getResource("db/migraciones").toURI());
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            assertEquals(Set.copyOf(MigradorEsquema.SCRIPTS),
+                    ficheros.map(f -> f.getFileName().toString()).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void testAplicaSoloLasPendientesEnOrden() throws SQLException {
+        MigradorEsquema.Migracion v1 = new MigradorEsquema.Migracion(1, "tablas", "CREATE TABLE a (id INT);");
+        MigradorEsquema.Migracion v2 = new MigradorEsquema.Migracion(2, "indices", "CREATE INDEX i ON a (id);");
+        MigradorEsquema.Migracion v3 = new MigradorEsquema.Migracion(3, "mas", "CREATE INDEX j ON a (id);");
+        when(rsAplicadas.next()).thenReturn(true, false);
+        when(rsAplicadas.getInt("version")).thenReturn(1);
+        when(rsAplicadas.getString("checksum")).thenReturn(v1.checksum());
+
+        int aplicadas = MigradorEsquema.migrar(conn, List.of(v3, v1, v2));
+
+        assertEquals(2, aplicadas);
+        verify(stmt, never()).execute("CREATE TABLE a (id INT)");
+        var orden = inOrder(stmt, insertVersion);
+        orden.verify(stmt).execute("CREATE INDEX i ON a (id)");
+        orden.verify(insertVersion).setInt(1, 2);
+        orden.verify(stmt).execute("CREATE INDEX j ON a (id)");
+        orden.verify(insertVersion).setInt(1, 3);
+    }
+
+    @Test
+    void testMigracionFallidaNoSeRegistra() throws SQLException {
+        MigradorEsquema.Migracion v1 = new MigradorEsquema.Migracion(1, "rota", "CREATE TABLA mal;");
+        when(rsAplicadas.next()).thenReturn(false);
+        when(stmt.execute("CREATE TABLA mal")).thenThrow(new SQLSyntaxErrorException("sintaxis"));
+
+        assertThrows(SQLException.class, () -> MigradorEsquema.migrar(conn, List.of(v1)));
+        verify(insertVersion, never()).executeUpdate();
+    }
+
+    @Test
+    void testScriptModificadoNoSeReaplica() throws SQLException {
+        MigradorEsquema.Migracion v1 = new MigradorEsquema.Migracion(1, "tablas", "CREATE TABLE a (id INT);");
+        when(rsAplicadas.next()).thenReturn(true, false);
+        when(rsAplicadas.getInt("version")).thenReturn(1);
+        when(rsAplicadas.getString("checksum")).thenReturn("otra-suma");
+
+        assertEquals(0, MigradorEsquema.migrar(conn, List.of(v1)));
+        verify(stmt, never()).execute("CREATE TABLE a (id INT)");
+    }
+}
@@ -0,0 +1,53 @@
+package com.empresa.esquema;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link VerificadorIndices}.
+ * Los planes de EXPLAIN se simulan con Mockito.
+ */
+class VerificadorIndicesTest {
+
+    @Test
+    void testDetectaConsultasSinIndice() throws SQLException {
+        Connection conn = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        ResultSet planConIndice = mock(ResultSet.class);
+        ResultSet planSinIndice = mock(ResultSet.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(contains("FROM reservas"))).thenReturn(planConIndice);
+        when(stmt.executeQuery(contains("FROM salas"))).thenReturn(planSinIndice);
+        when(planConIndice.next()).thenReturn(true);
+        when(planConIndice.getString("key")).thenReturn("idx_reservas_sala_fecha_horas");
+        when(planSinIndice.next()).thenReturn(true);
+        when(planSinIndice.getString("key")).thenReturn(null);
+
+        List<VerificadorIndices.Resultado> resultados = VerificadorIndices.verificar(conn, List.of(
+                new VerificadorIndices.Consulta("conflictos", "SELECT COUNT(*) FROM reservas WHERE sala_id = 1",
+                        "idx_reservas_sala_fecha_horas"),
+                new VerificadorIndices.Consulta("sala", "SELECT id FROM salas WHERE nombre = 'A'", "uq_salas_nombre")));
+
+        assertTrue(resultados.get(0).usaIndice());
+        assertFalse(resultados.get(1).usaIndice());
+        verify(stmt).executeQuery("EXPLAIN SELECT COUNT(*) FROM reservas WHERE sala_id = 1");
+    }
+
+    @Test
+    void testConsultasEsperanIndicesDeLasMigraciones() {
+        String script = MigradorEsquema.cargarMigraciones().stream()
+                .map(MigradorEsquema.Migracion::script)
+                .reduce("", String::concat);
+
+        for (VerificadorIndices.Consulta consulta : VerificadorIndices.CONSULTAS) {
+            assertTrue(script.contains(consulta.indiceEsperado()),
+                    "Ninguna migración crea el índice " + consulta.indiceEsperado());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.empresa.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de {@link HistogramaLatencias}: precisión de las cubetas, percentiles, registro concurrente y JMX.
+ */
+class HistogramaLatenciasTest {
+
+    @Test
+    void testCadaLatenciaCaeEnUnaCubetaConMenosDeUnSeisPorCientoDeError() {
+        for (long nanos = 0; nanos < 1L << 40; nanos = nanos * 3 / 2 + 1) {
+            int cubeta = HistogramaLatencias.cubeta(nanos);
+            long limite = HistogramaLatencias.limiteSuperior(cubeta);
+            assertTrue(cubeta < HistogramaLatencias.CUBETAS);
+            assertTrue(limite >= nanos, "límite " + limite + " < " + nanos);
+            assertTrue(limite - nanos <= nanos / HistogramaLatencias.SUBCUBETAS, "error excesivo en " + nanos);
+            assertEquals(cubeta, HistogramaLatencias.cubeta(limite));
+        }
+        assertEquals(HistogramaLatencias.CUBETAS - 1, HistogramaLatencias.cubeta(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, HistogramaLatencias.limiteSuperior(HistogramaLatencias.CUBETAS - 1));
+    }
+
+    @Test
+    void testResumeLlamadasErroresYPercentiles() {
+        HistogramaLatencias histograma = new HistogramaLatencias("prueba");
+        for (int micros = 1; micros <= 1000; micros++) {
+            histograma.anadir(micros * 1_000L);
+        }
+        histograma.registrarError(System.nanoTime() - 5_000_000);
+
+        HistogramaLatencias.Resumen r = histograma.resumen();
+        assertEquals(1001, r.llamadas());
+        assertEquals(1, r.errores());
+        assertEquals(1 / 1001.0, r.tasaErrores(), 1e-9);
+        assertEquals(500, r.p50Micros(), 500 / 16.0);
+        assertEquals(991, r.p99Micros(), 991 / 16.0);
+        assertTrue(r.maxMicros() >= 5_000);
+        assertTrue(r.mediaMicros() >= 500 && r.mediaMicros() < 600);
+
+        histograma.reiniciar();
+        assertEquals(new HistogramaLatencias.Resumen(0, 0, 0, 0, 0, 0), histograma.resumen());
+    }
+
+    @Test
+    void testNoPierdeRegistrosConVariosHilos() throws InterruptedException {
+        HistogramaLatencias histograma = new HistogramaLatencias("concurrente");
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            hilos.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histograma.anadir(i);
+                }
+            }));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        HistogramaLatencias.Resumen r = histograma.resumen();
+        assertEquals(80_000, r.llamadas());
+        assertEquals(9_999 / 1_000, r.maxMicros());
+    }
+
+    @Test
+    void testPublicaCadaOperacionEnJmx() throws Exception {
+        OperacionMedida.registrarEnJmx();
+        OperacionMedida.registrarEnJmx();
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+
+        long antes = (Long) servidor.getAttribute(OperacionMedida.nombreJmx(OperacionMedida.SALAS_EXISTE), "Llamadas");
+        OperacionMedida.SALAS_EXISTE.registrar(System.nanoTime());
+
+        assertEquals(antes + 1, servidor.getAttribute(OperacionMedida.nombreJmx(OperacionMedida.SALAS_EXISTE),
+                "Llamadas"));
+        assertEquals(OperacionMedida.values().length,
+                servidor.queryNames(new javax.management.ObjectName(OperacionMedida.DOMINIO_JMX
+                        + ":type=Latencias,*"), null).size());
+    }
+}
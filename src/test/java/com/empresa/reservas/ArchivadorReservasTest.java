@@ -0,0 +1,133 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link ArchivadorReservas}.
+ * Verifican el recorrido por bloques, una transacción por bloque y la vuelta atrás si las reservas cambian.
+ */
+class ArchivadorReservasTest {
+
+    private static final LocalDate CORTE = LocalDate.of(2025, 1, 1);
+
+    private Connection conn;
+    private PreparedStatement primerBloque;
+    private PreparedStatement siguienteBloque;
+    private PreparedStatement copiar;
+    private PreparedStatement borrar;
+    private ResultSet rsPrimero;
+    private ResultSet rsSiguiente;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        primerBloque = mock(PreparedStatement.class);
+        siguienteBloque = mock(PreparedStatement.class);
+        copiar = mock(PreparedStatement.class);
+        borrar = mock(PreparedStatement.class);
+        rsPrimero = mock(ResultSet.class);
+        rsSiguiente = mock(ResultSet.class);
+        when(conn.getAutoCommit()).thenReturn(true);
+        when(conn.prepareStatement(ArchivadorReservas.SQL_PRIMER_BLOQUE)).thenReturn(primerBloque);
+        when(conn.prepareStatement(ArchivadorReservas.SQL_SIGUIENTE_BLOQUE)).thenReturn(siguienteBloque);
+        when(conn.prepareStatement(startsWith("INSERT INTO reservas_archivo"))).thenReturn(copiar);
+        when(conn.prepareStatement(startsWith("DELETE FROM reservas"))).thenReturn(borrar);
+        when(primerBloque.executeQuery()).thenReturn(rsPrimero);
+        when(siguienteBloque.executeQuery()).thenReturn(rsSiguiente);
+
+        // Primer bloque completo (2 reservas) y segundo incompleto (1)
+        when(rsPrimero.next()).thenReturn(true, true, false);
+        when(rsPrimero.getInt(1)).thenReturn(10, 11);
+        when(rsPrimero.getDate(2)).thenReturn(Date.valueOf("2024-06-01"), Date.valueOf("2024-06-01"));
+        when(rsPrimero.getTime(3)).thenReturn(Time.valueOf("09:00:00"), Time.valueOf("10:00:00"));
+        when(rsSiguiente.next()).thenReturn(true, false);
+        when(rsSiguiente.getInt(1)).thenReturn(12);
+        when(rsSiguiente.getDate(2)).thenReturn(Date.valueOf("2024-06-02"));
+        when(rsSiguiente.getTime(3)).thenReturn(Time.valueOf("09:00:00"));
+    }
+
+    @Test
+    void testArchivaPorBloquesConUnaTransaccionCadaUno() throws SQLException {
+        when(copiar.executeUpdate()).thenReturn(2, 1);
+        when(borrar.executeUpdate()).thenReturn(2, 1);
+
+        ArchivadorReservas.ResultadoArchivado resultado =
+                ArchivadorReservas.archivar(conn, CORTE, 2, Duration.ZERO);
+
+        assertEquals(3, resultado.archivadas());
+        assertEquals(2, resultado.bloques());
+        InOrder orden = inOrder(conn, copiar, borrar);
+        orden.verify(conn).setAutoCommit(false);
+        orden.verify(copiar).executeUpdate();
+        orden.verify(borrar).executeUpdate();
+        orden.verify(conn).commit();
+        orden.verify(copiar).executeUpdate();
+        orden.verify(borrar).executeUpdate();
+        orden.verify(conn).commit();
+        orden.verify(conn).setAutoCommit(true);
+        verify(conn, never()).rollback();
+        // El segundo bloque continúa tras la última reserva del primero
+        verify(siguienteBloque).setDate(3, Date.valueOf("2024-06-01"));
+        verify(siguienteBloque).setTime(5, Time.valueOf("10:00:00"));
+        verify(siguienteBloque).setInt(7, 11);
+        verify(siguienteBloque).setInt(8, 2);
+    }
+
+    @Test
+    void testBloqueIncompletoRellenaLosMarcadores() throws SQLException {
+        when(copiar.executeUpdate()).thenReturn(2, 1);
+        when(borrar.executeUpdate()).thenReturn(2, 1);
+
+        ArchivadorReservas.archivar(conn, CORTE, 2, Duration.ZERO);
+
+        // La misma sentencia para los dos bloques; en el último el marcador sobrante lleva el ID 0
+        verify(conn, times(2)).prepareStatement(startsWith("INSERT INTO reservas_archivo"));
+        verify(copiar, times(2)).setDate(1, Date.valueOf(CORTE));
+        verify(copiar).setInt(2, 10);
+        verify(copiar).setInt(3, 11);
+        verify(copiar).setInt(2, 12);
+        verify(copiar).setInt(3, 0);
+        verify(borrar).setInt(3, 0);
+    }
+
+    @Test
+    void testReservasCambiadasDeshacenElBloque() throws SQLException {
+        when(copiar.executeUpdate()).thenReturn(2);
+        when(borrar.executeUpdate()).thenReturn(1);
+
+        assertThrows(SQLException.class, () -> ArchivadorReservas.archivar(conn, CORTE, 2, Duration.ZERO));
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    void testSinReservasArchivables() throws SQLException {
+        when(rsPrimero.next()).thenReturn(false);
+
+        ArchivadorReservas.ResultadoArchivado resultado =
+                ArchivadorReservas.archivar(conn, CORTE, 2, Duration.ZERO);
+
+        assertEquals(0, resultado.archivadas());
+        assertEquals(0, resultado.bloques());
+        verify(conn, never()).prepareStatement(startsWith("INSERT"));
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    void testTamanoBloqueInvalido() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchivadorReservas.archivar(conn, CORTE, 0, Duration.ZERO));
+    }
+}
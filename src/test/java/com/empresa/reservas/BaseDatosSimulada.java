@@ -0,0 +1,273 @@
+package com.empresa.reservas;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base de datos en memoria para pruebas concurrentes, accesible mediante conexiones JDBC simuladas.
+ * Solo entiende las sentencias de {@link RepositorioReservas} que usa {@link ServicioReservas}:
+ * la comprobación de conflictos ({@code SELECT COUNT(*) FROM reservas ...}), el
+ * {@code INSERT INTO reservas}, suelto o en lote, y el {@code UPDATE} y el {@code DELETE} por ID (solo
+ * en modo autocommit); además, la lectura de un día de {@link CalendarioSalas}. Las sentencias admiten
+ * {@code clearParameters()} para poder reutilizarse desde la caché de sentencias del pool.
+ * Cada sentencia espera una latencia fija para simular el viaje de red al servidor, y cada commit
+ * (explícito o el implícito de un {@code INSERT} en modo autocommit) otra para simular la escritura
+ * del registro de transacciones en disco; como en un servidor con un único registro, los commits se
+ * confirman de uno en uno. Las filas insertadas en una transacción son visibles antes
+ * del commit y se borran si se deshace.
+ */
+class BaseDatosSimulada {
+
+    /** Fila de la tabla de reservas. */
+    record Fila(int id, int salaId, int empleadoId, LocalDate fecha, LocalTime inicio, LocalTime fin, int version) {
+    }
+
+    private final List<Fila> reservas = new ArrayList<>();
+    private final AtomicInteger secuencia = new AtomicInteger();
+    private final long latenciaNanos;
+    private final long latenciaCommitNanos;
+    private final AtomicInteger commits = new AtomicInteger();
+    private final Object registro = new Object();
+
+    BaseDatosSimulada(long latenciaNanos) {
+        this(latenciaNanos, 0);
+    }
+
+    BaseDatosSimulada(long latenciaNanos, long latenciaCommitNanos) {
+        this.latenciaNanos = latenciaNanos;
+        this.latenciaCommitNanos = latenciaCommitNanos;
+    }
+
+    /**
+     * Devuelve el número de commits hechos, contando los implícitos del modo autocommit.
+     */
+    int commits() {
+        return commits.get();
+    }
+
+    /**
+     * Devuelve una copia de las reservas almacenadas.
+     */
+    synchronized List<Fila> reservas() {
+        return new ArrayList<>(reservas);
+    }
+
+    /**
+     * Abre una conexión simulada contra esta base de datos.
+     */
+    Connection conectar() {
+        Transaccion transaccion = new Transaccion();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "prepareStatement" -> sentencia((String) args[0], transaccion);
+                    case "getAutoCommit" -> transaccion.autoCommit;
+                    case "setAutoCommit" -> {
+                        transaccion.autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "commit" -> {
+                        confirmar();
+                        transaccion.pendientes.clear();
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        deshacer(transaccion.pendientes);
+                        transaccion.pendientes.clear();
+                        yield null;
+                    }
+                    case "isValid" -> true;
+                    case "isClosed" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    /** Estado de la transacción de una conexión. */
+    private static final class Transaccion {
+        boolean autoCommit = true;
+        final List<Integer> pendientes = new ArrayList<>();
+    }
+
+    private PreparedStatement sentencia(String sql, Transaccion transaccion) {
+        Map<Integer, Object> parametros = new HashMap<>();
+        List<Map<Integer, Object>> lote = new ArrayList<>();
+        List<Integer> generadas = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "setInt", "setDate", "setTime", "setString", "setObject" -> {
+                        parametros.put((Integer) args[0], args[1]);
+                        yield null;
+                    }
+                    case "clearParameters" -> {
+                        parametros.clear();
+                        yield null;
+                    }
+                    case "executeQuery" -> {
+                        esperar();
+                        yield sql.equals(CalendarioSalas.SQL_DIA)
+                                ? filasDelDia(((Date) parametros.get(1)).toLocalDate())
+                                : resultado(contarConflictos(sql, parametros));
+                    }
+                    case "addBatch" -> {
+                        lote.add(new HashMap<>(parametros));
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        esperar();
+                        generadas.clear();
+                        for (Map<Integer, Object> fila : lote) {
+                            generadas.add(insertar(fila, transaccion));
+                        }
+                        int[] filas = new int[lote.size()];
+                        Arrays.fill(filas, 1);
+                        lote.clear();
+                        yield filas;
+                    }
+                    case "executeUpdate" -> {
+                        esperar();
+                        if (sql.startsWith("UPDATE reservas")) {
+                            yield actualizar(sql, parametros);
+                        }
+                        if (sql.startsWith("DELETE FROM reservas")) {
+                            yield eliminar((Integer) parametros.get(1));
+                        }
+                        generadas.clear();
+                        generadas.add(insertar(parametros, transaccion));
+                        yield 1;
+                    }
+                    case "getGeneratedKeys" -> resultado(generadas.stream().mapToInt(Integer::intValue).toArray());
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private synchronized int contarConflictos(String sql, Map<Integer, Object> p) {
+        if (!sql.contains("SELECT COUNT(*) FROM reservas")) {
+            throw new IllegalStateException("Sentencia no soportada: " + sql);
+        }
+        int salaId = (Integer) p.get(1);
+        LocalDate fecha = ((Date) p.get(2)).toLocalDate();
+        LocalTime fin = ((Time) p.get(3)).toLocalTime();
+        LocalTime inicio = ((Time) p.get(4)).toLocalTime();
+        int excluir = (Integer) p.get(5);
+        return (int) reservas.stream()
+                .filter(r -> r.salaId() == salaId && r.fecha().equals(fecha)
+                        && r.inicio().isBefore(fin) && r.fin().isAfter(inicio)
+                        && r.id() != excluir)
+                .count();
+    }
+
+    private int insertar(Map<Integer, Object> p, Transaccion transaccion) {
+        int id = secuencia.incrementAndGet();
+        synchronized (this) {
+            reservas.add(new Fila(id, (Integer) p.get(1), (Integer) p.get(2), ((Date) p.get(3)).toLocalDate(),
+                    ((Time) p.get(4)).toLocalTime(), ((Time) p.get(5)).toLocalTime(), 0));
+        }
+        if (transaccion.autoCommit) {
+            confirmar();
+        } else {
+            transaccion.pendientes.add(id);
+        }
+        return id;
+    }
+
+    private int actualizar(String sql, Map<Integer, Object> p) {
+        int id = (Integer) p.get(6);
+        synchronized (this) {
+            int i = indice(id);
+            if (i < 0 || sql.equals(RepositorioReservas.SQL_ACTUALIZAR_VERSION)
+                    && reservas.get(i).version() != (Integer) p.get(7)) {
+                return 0;
+            }
+            reservas.set(i, new Fila(id, (Integer) p.get(1), (Integer) p.get(2), ((Date) p.get(3)).toLocalDate(),
+                    ((Time) p.get(4)).toLocalTime(), ((Time) p.get(5)).toLocalTime(), reservas.get(i).version() + 1));
+        }
+        confirmar();
+        return 1;
+    }
+
+    private int eliminar(int id) {
+        synchronized (this) {
+            int i = indice(id);
+            if (i < 0) {
+                return 0;
+            }
+            reservas.remove(i);
+        }
+        confirmar();
+        return 1;
+    }
+
+    private int indice(int id) {
+        for (int i = 0; i < reservas.size(); i++) {
+            if (reservas.get(i).id() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Devuelve las columnas de {@link CalendarioSalas#SQL_DIA}: sala, inicio, fin, ID y versión.
+     */
+    private synchronized ResultSet filasDelDia(LocalDate fecha) {
+        List<Fila> filas = reservas.stream().filter(r -> r.fecha().equals(fecha)).toList();
+        int[] fila = {-1};
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "next" -> ++fila[0] < filas.size();
+                    case "getInt" -> switch ((Integer) args[0]) {
+                        case 1 -> filas.get(fila[0]).salaId();
+                        case 4 -> filas.get(fila[0]).id();
+                        default -> filas.get(fila[0]).version();
+                    };
+                    case "getTime" -> Time.valueOf((Integer) args[0] == 2 ? filas.get(fila[0]).inicio()
+                            : filas.get(fila[0]).fin());
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private synchronized void deshacer(List<Integer> ids) {
+        reservas.removeIf(r -> ids.contains(r.id()));
+    }
+
+    private void confirmar() {
+        commits.incrementAndGet();
+        if (latenciaCommitNanos > 0) {
+            synchronized (registro) {
+                LockSupport.parkNanos(latenciaCommitNanos);
+            }
+        }
+    }
+
+    private void esperar() {
+        if (latenciaNanos > 0) {
+            LockSupport.parkNanos(latenciaNanos);
+        }
+    }
+
+    private ResultSet resultado(int... valores) {
+        int[] fila = {-1};
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "next" -> ++fila[0] < valores.length;
+                    case "getInt" -> valores[fila[0]];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
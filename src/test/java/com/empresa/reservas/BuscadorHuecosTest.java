@@ -0,0 +1,118 @@
+package com.empresa.reservas;
+
+import com.empresa.salas.CatalogoRecursos;
+import com.empresa.salas.Sala;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link BuscadorHuecos}.
+ */
+class BuscadorHuecosTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+
+    private static final Sala PEQUENA = new Sala(1, "Sala Pequeña", 4, "Pizarra");
+    private static final Sala MEDIANA = new Sala(2, "Sala Mediana", 8, "Proyector, Pizarra");
+    private static final Sala GRANDE = new Sala(3, "Sala Grande", 20, "proyector; TV ;Videoconferencia");
+
+    @Test
+    void testDevuelveElPrimerHuecoDeCadaSalaOrdenadoPorHora() {
+        BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+        ocupacion.marcar(1, hora(8, 0), hora(9, 30));
+        ocupacion.marcar(2, hora(8, 0), hora(8, 30));
+        ocupacion.marcar(2, hora(9, 0), hora(10, 0));
+
+        List<BuscadorHuecos.Hueco> huecos = BuscadorHuecos.buscar(List.of(PEQUENA, MEDIANA, GRANDE), ocupacion,
+                criterios(60, 1, 0));
+
+        // La sala grande está libre desde la apertura; el hueco de 30 minutos de la mediana no basta
+        assertEquals(List.of(
+                new BuscadorHuecos.Hueco(GRANDE, FECHA, hora(8, 0), hora(9, 0)),
+                new BuscadorHuecos.Hueco(PEQUENA, FECHA, hora(9, 30), hora(10, 30)),
+                new BuscadorHuecos.Hueco(MEDIANA, FECHA, hora(10, 0), hora(11, 0))), huecos);
+    }
+
+    @Test
+    void testFiltraPorCapacidadYRecursosSinDistinguirMayusculas() {
+        BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+
+        List<BuscadorHuecos.Hueco> conProyector = BuscadorHuecos.buscar(List.of(PEQUENA, MEDIANA, GRANDE),
+                ocupacion, criterios(30, 5, CatalogoRecursos.validar("PROYECTOR")));
+        assertEquals(List.of(MEDIANA, GRANDE), conProyector.stream().map(BuscadorHuecos.Hueco::sala).toList());
+
+        List<BuscadorHuecos.Hueco> conTv = BuscadorHuecos.buscar(List.of(PEQUENA, MEDIANA, GRANDE),
+                ocupacion, criterios(30, 1, CatalogoRecursos.validar("Proyector, tv")));
+        assertEquals(List.of(GRANDE), conTv.stream().map(BuscadorHuecos.Hueco::sala).toList());
+
+        assertTrue(BuscadorHuecos.buscar(List.of(PEQUENA, MEDIANA, GRANDE), ocupacion,
+                criterios(30, 50, 0)).isEmpty());
+    }
+
+    @Test
+    void testLosTramosParcialesCuentanComoOcupados() {
+        BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+        // 08:00-09:02 ocupa hasta el tramo de las 09:00-09:05
+        ocupacion.marcar(1, hora(8, 0), hora(9, 2));
+        ocupacion.marcar(1, hora(10, 3), hora(12, 0));
+
+        List<BuscadorHuecos.Hueco> huecos = BuscadorHuecos.buscar(List.of(PEQUENA), ocupacion,
+                criterios(55, 1, 0));
+
+        // Entre 09:05 y 10:00 caben 55 minutos; el tramo 10:00-10:05 está ocupado por la reserva de las 10:03
+        assertEquals(List.of(new BuscadorHuecos.Hueco(PEQUENA, FECHA, hora(9, 5), hora(10, 0))), huecos);
+        assertTrue(BuscadorHuecos.buscar(List.of(PEQUENA), ocupacion, criterios(60, 1, 0))
+                .stream().allMatch(h -> !h.inicio().isBefore(hora(12, 0))));
+    }
+
+    @Test
+    void testRespetaLaFranjaHorariaYElMaximo() {
+        BuscadorHuecos.Ocupacion ocupacion = new BuscadorHuecos.Ocupacion();
+        ocupacion.marcar(3, hora(8, 0), hora(19, 30));
+
+        BuscadorHuecos.Criterios tarde = new BuscadorHuecos.Criterios(FECHA, 30, 1, 0,
+                hora(19, 0), hora(20, 0), 10);
+        assertEquals(List.of(hora(19, 0), hora(19, 0), hora(19, 30)), BuscadorHuecos.buscar(
+                List.of(PEQUENA, MEDIANA, GRANDE), ocupacion, tarde).stream().map(BuscadorHuecos.Hueco::inicio).toList());
+
+        BuscadorHuecos.Criterios uno = new BuscadorHuecos.Criterios(FECHA, 30, 1, 0,
+                hora(8, 0), hora(20, 0), 1);
+        assertEquals(List.of(PEQUENA), BuscadorHuecos.buscar(List.of(GRANDE, MEDIANA, PEQUENA), ocupacion, uno)
+                .stream().map(BuscadorHuecos.Hueco::sala).toList());
+
+        // Una reunión de 45 minutos no cabe entre las 19:30 y las 20:00
+        assertTrue(BuscadorHuecos.buscar(List.of(GRANDE), ocupacion, new BuscadorHuecos.Criterios(FECHA, 45, 1,
+                0, hora(19, 0), hora(20, 0), 10)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new BuscadorHuecos.Criterios(FECHA, 30, 1, 0,
+                hora(20, 0), hora(8, 0), 10));
+        assertThrows(IllegalArgumentException.class, () -> new BuscadorHuecos.Criterios(FECHA, 0, 1, 0,
+                hora(8, 0), hora(20, 0), 10));
+    }
+
+    @Test
+    void testPrimerTramoLibreSaltaEntreReservas() {
+        BitSet ocupado = new BitSet();
+        ocupado.set(10, 20);
+        ocupado.set(25, 30);
+
+        assertEquals(0, BuscadorHuecos.primerTramoLibre(ocupado, 0, 288, 10));
+        assertEquals(30, BuscadorHuecos.primerTramoLibre(ocupado, 5, 288, 6));
+        assertEquals(20, BuscadorHuecos.primerTramoLibre(ocupado, 12, 288, 5));
+        assertEquals(-1, BuscadorHuecos.primerTramoLibre(ocupado, 12, 24, 5));
+        assertEquals(283, BuscadorHuecos.primerTramoLibre(ocupado, 283, 288, 5));
+    }
+
+    private static BuscadorHuecos.Criterios criterios(int duracion, int capacidad, long recursos) {
+        return new BuscadorHuecos.Criterios(FECHA, duracion, capacidad, recursos, hora(8, 0), hora(20, 0), 10);
+    }
+
+    private static LocalTime hora(int hora, int minuto) {
+        return LocalTime.of(hora, minuto);
+    }
+}
@@ -0,0 +1,396 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link CalendarioSalas}.
+ * Las lecturas de {@code reservas} se simulan con Mockito y el fichero va a un directorio temporal.
+ */
+class CalendarioSalasTest {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 3, 10);
+    private static final LocalDate MANANA = HOY.plusDays(1);
+
+    @TempDir
+    Path directorio;
+
+    private Path fichero;
+    private Connection conn;
+    private PreparedStatement pstmtDia;
+    private CalendarioSalas calendario;
+
+    /**
+     * Prepara un calendario de 30 días con tramos de 5 minutos en el que la sala 1 tiene mañana una
+     * reserva de 09:00 a 10:00 (ID 10, versión 0) y la sala 2 otra de 12:00 a 12:07 (ID 11, versión 2).
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        fichero = directorio.resolve("calendario.dat");
+        conn = mock(Connection.class);
+        pstmtDia = mock(PreparedStatement.class);
+        when(conn.prepareStatement(CalendarioSalas.SQL_DIA)).thenReturn(pstmtDia);
+        ResultSet rs = filas(new Object[][]{
+                {1, "09:00", "10:00", 10, 0},
+                {2, "12:00", "12:07", 11, 2}});
+        when(pstmtDia.executeQuery()).thenReturn(rs);
+
+        calendario = nuevoCalendario();
+        calendario.abrir(fichero, 5, 30, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        calendario.cerrar();
+    }
+
+    @Test
+    void testConstruyeElDiaUnaVezYResponde() throws SQLException {
+        assertFalse(libre(1, "09:30", "10:30"));
+        assertTrue(libre(1, "10:00", "10:30"));
+        assertTrue(libre(1, "08:00", "09:00"));
+        assertTrue(libre(3, "09:00", "10:00"));
+        // 12:05-12:10 está ocupado en parte: el calendario no lo asegura
+        assertFalse(libre(2, "12:07", "12:30"));
+        assertTrue(libre(2, "12:10", "12:30"));
+
+        verify(pstmtDia, times(1)).executeQuery();
+        verify(pstmtDia).setDate(1, Date.valueOf(MANANA));
+        CalendarioSalas.Estadisticas e = calendario.getEstadisticas();
+        assertEquals(6, e.consultas());
+        assertEquals(4, e.libres());
+        assertEquals(1, e.construcciones());
+        assertEquals(1, e.diasConstruidos());
+        assertEquals(2, e.salas());
+    }
+
+    @Test
+    void testHorarioQueCruzaPalabras() throws SQLException {
+        // Los tramos de 05:20 (64) y 10:40 (128) empiezan la segunda y la tercera palabra
+        assertTrue(libre(1, "00:00", "09:00"));
+        assertFalse(libre(1, "05:00", "23:00"));
+        assertTrue(libre(1, "10:00", "23:59"));
+        assertTrue(libre(1, "10:00", LocalTime.MAX));
+    }
+
+    @Test
+    void testFechasFueraDePlazoNoSeConstruyen() throws SQLException {
+        assertFalse(calendario.estaLibre(conn, 1, HOY.minusDays(1), LocalTime.of(8, 0), LocalTime.of(9, 0)));
+        assertFalse(calendario.estaLibre(conn, 1, HOY.plusDays(30), LocalTime.of(8, 0), LocalTime.of(9, 0)));
+
+        verify(pstmtDia, never()).executeQuery();
+    }
+
+    @Test
+    void testMarcarAnadeReservasALosDiasConstruidos() {
+        // Un día sin construir no se marca: se leerá entero al consultarlo
+        calendario.marcar(1, HOY.plusDays(2), LocalTime.of(8, 0), LocalTime.of(9, 0));
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+        assertTrue(libre(1, "10:00", "11:00"));
+
+        calendario.marcar(1, MANANA, LocalTime.of(10, 0), LocalTime.of(11, 0));
+        calendario.marcar(4, MANANA, LocalTime.of(10, 0), LocalTime.of(11, 0));
+
+        assertFalse(libre(1, "10:30", "11:30"));
+        assertFalse(libre(4, "10:30", "11:30"));
+        assertTrue(libre(4, "11:00", "12:00"));
+        assertEquals(3, calendario.getEstadisticas().salas());
+    }
+
+    @Test
+    void testRecalcularLiberaLasReservasBorradas() throws SQLException {
+        assertFalse(libre(1, "09:00", "10:00"));
+        PreparedStatement pstmtSala = mock(PreparedStatement.class);
+        ResultSet rs = filas(new Object[][]{{MANANA.toString(), "15:00", "16:00"}});
+        when(conn.prepareStatement(CalendarioSalas.SQL_SALA)).thenReturn(pstmtSala);
+        when(pstmtSala.executeQuery()).thenReturn(rs);
+
+        calendario.recalcular(conn, 1, MANANA);
+
+        assertTrue(libre(1, "09:00", "10:00"));
+        assertFalse(libre(1, "15:30", "16:00"));
+        verify(pstmtSala).setInt(1, 1);
+        verify(pstmtSala).setDate(2, Date.valueOf(MANANA));
+        verify(pstmtSala).setDate(3, Date.valueOf(MANANA));
+    }
+
+    @Test
+    void testLiberarBorraSoloLosTramosCubiertosEnteros() throws SQLException {
+        assertFalse(libre(1, "09:00", "10:00"));
+        calendario.marcar(1, MANANA, LocalTime.of(10, 2), LocalTime.of(10, 58));
+        assertFalse(libre(1, "10:05", "10:55"));
+
+        calendario.liberar(1, MANANA, LocalTime.of(10, 2), LocalTime.of(10, 58));
+        calendario.liberar(1, MANANA.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        assertTrue(libre(1, "10:05", "10:55"));
+        // 10:00-10:05 y 10:55-11:00 los cubría solo en parte
+        assertFalse(libre(1, "10:00", "10:05"));
+        assertFalse(libre(1, "10:55", "11:00"));
+        assertFalse(libre(1, "09:00", "10:00"));
+        verify(pstmtDia, times(1)).executeQuery();
+    }
+
+    @Test
+    void testErrorAlRecalcularDescartaElDia() throws SQLException {
+        libre(1, "09:00", "10:00");
+        when(conn.prepareStatement(CalendarioSalas.SQL_SALA)).thenThrow(new SQLException("sin conexión"));
+
+        calendario.recalcular(conn, 1, MANANA);
+
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+    }
+
+    @Test
+    void testEliminarSalaLiberaSuFila() {
+        assertFalse(libre(1, "09:00", "10:00"));
+
+        calendario.eliminarSala(1);
+
+        assertTrue(libre(1, "09:00", "10:00"));
+        assertEquals(1, calendario.getEstadisticas().salas());
+    }
+
+    @Test
+    void testArranqueEnCalienteTrasCerrarBien() throws IOException, SQLException {
+        libre(1, "09:00", "10:00");
+        calendario.cerrar();
+        PreparedStatement pstmtHuella = huella(2, fila(10, 1, 0, "09:00", "10:00") ^ fila(11, 2, 2, "12:00", "12:07"));
+
+        CalendarioSalas reabierto = nuevoCalendario();
+        reabierto.abrir(fichero, 5, 30, 16);
+        try {
+            assertFalse(reabierto.estaLibre(conn, 1, MANANA, LocalTime.of(9, 0), LocalTime.of(10, 0)));
+            assertTrue(reabierto.estaLibre(conn, 1, MANANA, LocalTime.of(10, 0), LocalTime.of(11, 0)));
+            assertEquals(0, reabierto.getEstadisticas().construcciones());
+            assertEquals(1, reabierto.getEstadisticas().verificaciones());
+        } finally {
+            reabierto.cerrar();
+        }
+        verify(pstmtDia, times(1)).executeQuery();
+        verify(pstmtHuella, times(1)).executeQuery();
+        verify(pstmtHuella).setDate(1, Date.valueOf(MANANA));
+    }
+
+    @Test
+    void testArranqueEnCalienteReconstruyeLosDiasCambiadosFuera() throws IOException, SQLException {
+        libre(1, "09:00", "10:00");
+        calendario.cerrar();
+        // Mientras estaba cerrado, otro proceso movió la reserva de la sala 1 a las 15:00
+        huella(2, fila(10, 1, 1, "15:00", "16:00") ^ fila(11, 2, 2, "12:00", "12:07"));
+        ResultSet rs = filas(new Object[][]{
+                {1, "15:00", "16:00", 10, 1},
+                {2, "12:00", "12:07", 11, 2}});
+        when(pstmtDia.executeQuery()).thenReturn(rs);
+
+        calendario.abrir(fichero, 5, 30, 16);
+
+        assertTrue(libre(1, "09:00", "10:00"));
+        assertFalse(libre(1, "15:30", "16:00"));
+        assertEquals(0, calendario.getEstadisticas().verificaciones());
+        // La primera construcción es la de antes de cerrar
+        assertEquals(2, calendario.getEstadisticas().construcciones());
+    }
+
+    @Test
+    void testSiNoSePuedeVerificarElDiaSeVuelveAConstruir() throws IOException, SQLException {
+        libre(1, "09:00", "10:00");
+        calendario.cerrar();
+        when(conn.prepareStatement(CalendarioSalas.SQL_HUELLA)).thenThrow(new SQLException("sin MD5"));
+        ResultSet rs = filas(new Object[][]{{1, "09:00", "10:00", 10, 0}});
+        when(pstmtDia.executeQuery()).thenReturn(rs);
+
+        calendario.abrir(fichero, 5, 30, 16);
+
+        assertFalse(libre(1, "09:30", "10:00"));
+        assertTrue(libre(2, "12:00", "12:30"));
+        assertEquals(0, calendario.getEstadisticas().verificaciones());
+    }
+
+    @Test
+    void testHuellaDistingueCambiosQueConservanLosTotales() {
+        long dia = fila(5, 1, 1, "09:00", "10:00") ^ fila(9, 2, 0, "11:00", "12:00");
+        // Se borra la 5 (versión 1) y se mueve aquí la 3: mismo número de reservas, ID máximo y suma de versiones
+        assertNotEquals(dia, fila(3, 1, 1, "09:00", "10:00") ^ fila(9, 2, 0, "11:00", "12:00"));
+        // Dos reservas intercambian sus salas: cada una sube a la versión 1
+        long original = fila(10, 1, 0, "09:00", "10:00") ^ fila(11, 2, 0, "09:00", "10:00");
+        assertNotEquals(original, fila(10, 2, 1, "09:00", "10:00") ^ fila(11, 1, 1, "09:00", "10:00"));
+    }
+
+    @Test
+    void testDiasCambiadosTrasConstruirseNoSeReutilizan() throws IOException, SQLException {
+        libre(1, "09:00", "10:00");
+        calendario.marcar(3, MANANA, LocalTime.of(8, 0), LocalTime.of(9, 0));
+        calendario.cerrar();
+
+        calendario.abrir(fichero, 5, 30, 16);
+
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+        verify(conn, never()).prepareStatement(CalendarioSalas.SQL_HUELLA);
+    }
+
+    @Test
+    void testSinCierreLimpioSeDescartanLosDias() throws IOException {
+        libre(1, "09:00", "10:00");
+        calendario.cerrar();
+        // Como si el proceso hubiera terminado sin cerrarlo: el indicador de cierre limpio sigue a 0
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.allocate(4), 16);
+        }
+
+        calendario.abrir(fichero, 5, 30, 16);
+
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+        assertEquals(2, calendario.getEstadisticas().salas());
+    }
+
+    @Test
+    void testElFicheroSoloLoAbreUnCalendario() throws IOException {
+        CalendarioSalas otro = nuevoCalendario();
+        assertThrows(IOException.class, () -> otro.abrir(fichero, 5, 30, 16));
+        assertFalse(otro.estaAbierto());
+
+        calendario.cerrar();
+        otro.abrir(fichero, 5, 30, 16);
+        otro.cerrar();
+    }
+
+    @Test
+    void testOtraGeometriaCreaElFicheroDeNuevo() throws IOException {
+        libre(1, "09:00", "10:00");
+        calendario.cerrar();
+        long tamano = Files.size(fichero);
+
+        calendario.abrir(fichero, 15, 30, 16);
+
+        assertTrue(Files.size(fichero) < tamano);
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+        assertEquals(0, calendario.getEstadisticas().salas());
+    }
+
+    @Test
+    void testCalendarioLlenoNoConstruyeElDia() throws IOException {
+        calendario.cerrar();
+        calendario.abrir(directorio.resolve("pequeno.dat"), 5, 30, 1);
+
+        assertFalse(libre(3, "09:00", "10:00"));
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+    }
+
+    @Test
+    void testOcupacionEnTramosDeCincoMinutos() throws IOException {
+        calendario.cerrar();
+        calendario.abrir(directorio.resolve("quince.dat"), 15, 30, 16);
+
+        BuscadorHuecos.Ocupacion ocupacion = calendario.ocupacion(conn, MANANA);
+
+        assertEquals(2, ocupacion.salasOcupadas());
+        BitSet esperada = new BitSet();
+        esperada.set(9 * 12, 10 * 12);
+        assertEquals(esperada, ocupacion.de(1));
+        // 12:00-12:07 ocupa el tramo de 15 minutos entero
+        esperada.clear();
+        esperada.set(12 * 12, 12 * 12 + 3);
+        assertEquals(esperada, ocupacion.de(2));
+    }
+
+    @Test
+    void testInvalidarYCerrado() {
+        libre(1, "09:00", "10:00");
+        calendario.invalidar();
+        assertEquals(0, calendario.getEstadisticas().diasConstruidos());
+
+        calendario.cerrar();
+        assertFalse(calendario.estaAbierto());
+        assertFalse(libre(3, "09:00", "10:00"));
+        assertNull(calendario.ocupacion(conn, MANANA));
+    }
+
+    @Test
+    void testGeometriaInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> calendario.abrir(fichero, 7, 30, 16));
+        assertThrows(IllegalArgumentException.class, () -> calendario.abrir(fichero, 5, 100_000, 100_000));
+    }
+
+    @Test
+    void testDiasDeEmpleado() throws SQLException {
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.prepareStatement(CalendarioSalas.SQL_EMPLEADO)).thenReturn(pstmt);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt(1)).thenReturn(1);
+        when(rs.getDate(2)).thenReturn(Date.valueOf(MANANA));
+
+        assertEquals(List.of(new CalendarioSalas.DiaSala(1, MANANA)), calendario.diasDeEmpleado(conn, 7));
+        verify(pstmt).setInt(1, 7);
+        verify(pstmt).setDate(2, Date.valueOf(HOY));
+    }
+
+    private boolean libre(int salaId, String inicio, String fin) {
+        return libre(salaId, inicio, LocalTime.parse(fin));
+    }
+
+    private boolean libre(int salaId, String inicio, LocalTime fin) {
+        return calendario.estaLibre(conn, salaId, MANANA, LocalTime.parse(inicio), fin);
+    }
+
+    private static CalendarioSalas nuevoCalendario() {
+        return new CalendarioSalas(Clock.fixed(HOY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    /**
+     * Simula la huella del día en la base de datos.
+     */
+    private PreparedStatement huella(long reservas, long resumen) throws SQLException {
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.prepareStatement(CalendarioSalas.SQL_HUELLA)).thenReturn(pstmt);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(reservas);
+        // MySQL devuelve el XOR como BIGINT UNSIGNED
+        when(rs.getString(2)).thenReturn(Long.toUnsignedString(resumen));
+        return pstmt;
+    }
+
+    private static long fila(int id, int salaId, int version, String inicio, String fin) {
+        return CalendarioSalas.huellaFila(id, salaId, version, Time.valueOf(inicio + ":00"), Time.valueOf(fin + ":00"));
+    }
+
+    /**
+     * Simula un resultado con columnas (ID o fecha, hora de inicio, hora de fin) y, si se dan, el ID y
+     * la versión de la reserva.
+     */
+    private static ResultSet filas(Object[][] filas) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] actual = {-1};
+        when(rs.next()).thenAnswer(i -> ++actual[0] < filas.length);
+        when(rs.getInt(1)).thenAnswer(i -> filas[actual[0]][0]);
+        when(rs.getDate(1)).thenAnswer(i -> Date.valueOf((String) filas[actual[0]][0]));
+        when(rs.getTime(2)).thenAnswer(i -> Time.valueOf(filas[actual[0]][1] + ":00"));
+        when(rs.getTime(3)).thenAnswer(i -> Time.valueOf(filas[actual[0]][2] + ":00"));
+        when(rs.getInt(4)).thenAnswer(i -> filas[actual[0]].length > 3 ? filas[actual[0]][3] : 0);
+        when(rs.getInt(5)).thenAnswer(i -> filas[actual[0]].length > 4 ? filas[actual[0]][4] : 0);
+        return rs;
+    }
+}
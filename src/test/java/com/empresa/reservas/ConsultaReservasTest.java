@@ -0,0 +1,112 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link ConsultaReservas}.
+ * Verifican la SQL generada, los parámetros de la paginación por clave y la lectura en streaming.
+ */
+class ConsultaReservasTest {
+
+    private Connection conn;
+    private PreparedStatement pstmt;
+    private ResultSet rs;
+    private final ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        pstmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+        when(conn.prepareStatement(sql.capture(), anyInt(), anyInt())).thenReturn(pstmt);
+        when(pstmt.executeQuery()).thenReturn(rs);
+
+        when(rs.getInt("id")).thenReturn(1, 2);
+        when(rs.getDate("fecha")).thenReturn(Date.valueOf("2025-07-01"), Date.valueOf("2025-07-02"));
+        when(rs.getTime("hora_inicio")).thenReturn(Time.valueOf("09:00:00"), Time.valueOf("10:00:00"));
+        when(rs.getTime("hora_fin")).thenReturn(Time.valueOf("10:00:00"), Time.valueOf("11:00:00"));
+        when(rs.getString("sala_nombre")).thenReturn("Sala A", "Sala B");
+        when(rs.getString("empleado_nombre")).thenReturn("Ana", "Luis");
+    }
+
+    @Test
+    void testPrimeraPaginaCompletaDevuelveCursor() throws SQLException {
+        when(rs.next()).thenReturn(true, true, false);
+
+        ConsultaReservas.Pagina pagina = ConsultaReservas.listarPagina(conn, ConsultaReservas.Filtro.NINGUNO, null, 2);
+
+        assertEquals(2, pagina.filas().size());
+        assertEquals(new ConsultaReservas.Cursor(LocalDate.of(2025, 7, 2), LocalTime.of(10, 0), 2), pagina.siguiente());
+        assertThat(sql.getValue(), not(containsString("WHERE")));
+        assertThat(sql.getValue(), containsString("ORDER BY r.fecha, r.hora_inicio, r.id LIMIT ?"));
+        verify(conn).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(pstmt).setFetchSize(2);
+        verify(pstmt).setObject(1, 2);
+    }
+
+    @Test
+    void testPaginaSiguienteConFiltros() throws SQLException {
+        when(rs.next()).thenReturn(true, false);
+        ConsultaReservas.Filtro filtro = new ConsultaReservas.Filtro(
+                LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 31), "Sala A", 3);
+        ConsultaReservas.Cursor despues = new ConsultaReservas.Cursor(LocalDate.of(2025, 7, 1), LocalTime.of(8, 0), 40);
+
+        ConsultaReservas.Pagina pagina = ConsultaReservas.listarPagina(conn, filtro, despues, 20);
+
+        // Página incompleta: no hay siguiente
+        assertNull(pagina.siguiente());
+        assertThat(sql.getValue(), containsString("r.fecha >= ? AND r.fecha <= ? AND s.nombre = ? AND r.empleado_id = ?"));
+        assertThat(sql.getValue(), containsString("r.hora_inicio = ? AND r.id > ?"));
+        verify(pstmt).setObject(3, "Sala A");
+        verify(pstmt).setObject(4, 3);
+        verify(pstmt).setObject(5, Date.valueOf("2025-07-01"));
+        verify(pstmt).setObject(7, Time.valueOf("08:00:00"));
+        verify(pstmt).setObject(9, 40);
+        verify(pstmt).setObject(10, 20);
+    }
+
+    @Test
+    void testRecorrerEnStreaming() throws SQLException {
+        when(rs.next()).thenReturn(true, true, false);
+        List<Integer> ids = new ArrayList<>();
+
+        long total = ConsultaReservas.recorrer(conn, ConsultaReservas.Filtro.NINGUNO, fila -> ids.add(fila.id()));
+
+        assertEquals(2, total);
+        assertEquals(List.of(1, 2), ids);
+        assertThat(sql.getValue(), not(containsString("LIMIT")));
+        verify(pstmt).setFetchSize(ConsultaReservas.FILAS_POR_FETCH);
+    }
+
+    @Test
+    void testFiltroConArchivoLeeTambienLasArchivadas() throws SQLException {
+        when(rs.next()).thenReturn(false);
+        ConsultaReservas.Filtro filtro = new ConsultaReservas.Filtro(null, null, null, null, true);
+
+        ConsultaReservas.listarPagina(conn, filtro, null, 10);
+
+        assertThat(sql.getValue(), containsString("FROM " + ArchivadorReservas.RESERVAS_CON_ARCHIVO + " r"));
+        assertFalse(ConsultaReservas.Filtro.NINGUNO.archivo());
+    }
+
+    @Test
+    void testTamanoInvalido() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ConsultaReservas.listarPagina(conn, ConsultaReservas.Filtro.NINGUNO, null, 0));
+    }
+}
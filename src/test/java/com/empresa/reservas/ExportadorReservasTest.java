@@ -0,0 +1,149 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link ExportadorReservas}.
+ */
+class ExportadorReservasTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+    private static final List<ConsultaReservas.Fila> FILAS = List.of(
+            new ConsultaReservas.Fila(1, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 30), "Sala A", "Ana"),
+            new ConsultaReservas.Fila(2, FECHA, LocalTime.of(11, 0), LocalTime.of(12, 0), "Sala \"Mar\", 2ª",
+                    "Luis; Pérez"));
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void testCsvConCabeceraYCamposEntreComillas() throws Exception {
+        Path fichero = directorio.resolve("reservas.csv");
+
+        ExportadorReservas.ResultadoExportacion resultado =
+                ExportadorReservas.exportar(origen(FILAS), ExportadorReservas.Formato.CSV, fichero, false);
+
+        assertEquals(2, resultado.reservas());
+        assertEquals(Files.size(fichero), resultado.bytes());
+        assertEquals(List.of(
+                ExportadorReservas.CABECERA_CSV,
+                "1,2025-07-01,09:00:00,10:30:00,Sala A,Ana",
+                "2,2025-07-01,11:00:00,12:00:00,\"Sala \"\"Mar\"\", 2ª\",\"Luis; Pérez\""),
+                Files.readAllLines(fichero, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(directorio.resolve("reservas.csv.parcial")));
+    }
+
+    @Test
+    void testIcsEscapadoYPlegadoComprimido() throws Exception {
+        String salaLarga = "Sala de juntas de la dirección general, planta 7ª (edificio norte) — acceso por recepción";
+        Path fichero = directorio.resolve("reservas.ics.gz");
+        List<ConsultaReservas.Fila> filas = List.of(FILAS.get(1),
+                new ConsultaReservas.Fila(3, FECHA, LocalTime.of(16, 0), LocalTime.of(17, 0), salaLarga, "Ana"));
+
+        ExportadorReservas.exportar(origen(filas), ExportadorReservas.Formato.de(fichero), fichero,
+                ExportadorReservas.comprimido(fichero));
+
+        String ics;
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(fichero)), StandardCharsets.UTF_8))) {
+            ics = lector.lines().reduce("", (a, b) -> a + b + "\n");
+        }
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\nVERSION:2.0\n"));
+        assertTrue(ics.endsWith("END:VEVENT\nEND:VCALENDAR\n"));
+        assertEquals(2, ics.split("BEGIN:VEVENT", -1).length - 1);
+        assertTrue(ics.contains("UID:reserva-2@reservas-salas\nDTSTAMP:"));
+        assertTrue(ics.contains("DTSTART:20250701T110000\nDTEND:20250701T120000\n"));
+        assertTrue(ics.contains("SUMMARY:Sala \"Mar\"\\, 2ª - Luis\\; Pérez\n"));
+        for (String linea : ics.split("\n")) {
+            assertTrue(linea.getBytes(StandardCharsets.UTF_8).length <= ExportadorReservas.OCTETOS_POR_LINEA, linea);
+        }
+        // Al desplegar las continuaciones se recupera el valor escapado
+        String desplegado = ics.replace("\n ", "");
+        assertTrue(desplegado.contains("LOCATION:" + salaLarga.replace(",", "\\,") + "\n"), desplegado);
+    }
+
+    @Test
+    void testPlegarNoParteLosParesSuplentes() {
+        StringBuilder sb = new StringBuilder("SUMMARY:");
+        sb.append("😀".repeat(40));
+
+        ExportadorReservas.plegar(sb, 0);
+
+        assertEquals("SUMMARY:" + "😀".repeat(40), sb.toString().replace("\r\n ", ""));
+        for (String linea : sb.toString().split("\r\n")) {
+            assertTrue(linea.getBytes(StandardCharsets.UTF_8).length <= ExportadorReservas.OCTETOS_POR_LINEA);
+            assertFalse(Character.isLowSurrogate(linea.charAt(linea.charAt(0) == ' ' ? 1 : 0)));
+        }
+    }
+
+    @Test
+    void testMuchasReservasAtraviesanElBuferVariasVeces() throws Exception {
+        Path fichero = directorio.resolve("grande.csv");
+        int total = 100_000;
+        // Las filas se generan al vuelo, como las entrega el cursor
+        ExportadorReservas.Origen origen = consumidor -> {
+            for (int i = 1; i <= total; i++) {
+                consumidor.accept(new ConsultaReservas.Fila(i, FECHA.plusDays(i % 365), LocalTime.of(i % 24, 0),
+                        LocalTime.of(i % 24, 30), "Sala " + (i % 50), "Empleado " + i));
+            }
+            return total;
+        };
+
+        ExportadorReservas.ResultadoExportacion resultado =
+                ExportadorReservas.exportar(origen, ExportadorReservas.Formato.CSV, fichero, false);
+
+        assertEquals(total, resultado.reservas());
+        assertTrue(resultado.bytes() > 10L * ExportadorReservas.TAMANO_BUFER);
+        try (var lineas = Files.lines(fichero, StandardCharsets.UTF_8)) {
+            assertEquals(total + 1, lineas.count());
+        }
+        assertEquals("100000," + FECHA.plusDays(total % 365) + ",16:00:00,16:30:00,Sala 0,Empleado 100000",
+                Files.readAllLines(fichero).get(total));
+    }
+
+    @Test
+    void testErrorDeLecturaConservaElFicheroAnterior() throws Exception {
+        Path fichero = directorio.resolve("reservas.csv");
+        Files.writeString(fichero, "anterior");
+        ExportadorReservas.Origen origen = consumidor -> {
+            consumidor.accept(FILAS.get(0));
+            throw new SQLException("conexión perdida");
+        };
+
+        assertThrows(SQLException.class,
+                () -> ExportadorReservas.exportar(origen, ExportadorReservas.Formato.CSV, fichero, false));
+
+        assertEquals("anterior", Files.readString(fichero));
+        assertFalse(Files.exists(directorio.resolve("reservas.csv.parcial")));
+    }
+
+    @Test
+    void testFormatoSegunExtension() {
+        assertEquals(ExportadorReservas.Formato.ICS, ExportadorReservas.Formato.de(Path.of("a/Reservas.ICS")));
+        assertEquals(ExportadorReservas.Formato.CSV, ExportadorReservas.Formato.de(Path.of("reservas.csv.gz")));
+        assertNull(ExportadorReservas.Formato.de(Path.of("reservas.txt")));
+        assertTrue(ExportadorReservas.comprimido(Path.of("reservas.csv.gz")));
+        assertFalse(ExportadorReservas.comprimido(Path.of("reservas.csv")));
+    }
+
+    private static ExportadorReservas.Origen origen(List<ConsultaReservas.Fila> filas) {
+        return consumidor -> {
+            filas.forEach(consumidor);
+            return filas.size();
+        };
+    }
+}
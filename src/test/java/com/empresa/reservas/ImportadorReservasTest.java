@@ -0,0 +1,218 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link ImportadorReservas}.
+ * Se simulan con Mockito las consultas de salas, empleados y ocupación y el INSERT por lotes.
+ */
+class ImportadorReservasTest {
+
+    private Connection conn;
+    private PreparedStatement psOcupacion;
+    private PreparedStatement psInsertar;
+
+    /**
+     * Base de datos simulada: "Sala A" (id 1), empleados 1 y 2 y una reserva existente
+     * (id 7) en la sala 1 el 2025-07-01 de 12:00 a 13:00.
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        when(conn.getAutoCommit()).thenReturn(true);
+
+        Statement stmt = mock(Statement.class);
+        ResultSet rsSalas = mock(ResultSet.class);
+        ResultSet rsEmpleados = mock(ResultSet.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery("SELECT id, nombre FROM salas")).thenReturn(rsSalas);
+        when(stmt.executeQuery("SELECT id FROM empleados")).thenReturn(rsEmpleados);
+        when(rsSalas.next()).thenReturn(true, false);
+        when(rsSalas.getString("nombre")).thenReturn("Sala A");
+        when(rsSalas.getInt("id")).thenReturn(1);
+        when(rsEmpleados.next()).thenReturn(true, true, false);
+        when(rsEmpleados.getInt("id")).thenReturn(1, 2);
+
+        psOcupacion = mock(PreparedStatement.class);
+        ResultSet rsOcupacion = mock(ResultSet.class);
+        ResultSet rsVacio = mock(ResultSet.class);
+        when(conn.prepareStatement(startsWith("SELECT id, sala_id, fecha"))).thenReturn(psOcupacion);
+        when(psOcupacion.executeQuery()).thenReturn(rsOcupacion, rsVacio);
+        when(rsOcupacion.next()).thenReturn(true, false);
+        when(rsOcupacion.getInt("id")).thenReturn(7);
+        when(rsOcupacion.getInt("sala_id")).thenReturn(1);
+        when(rsOcupacion.getDate("fecha")).thenReturn(Date.valueOf("2025-07-01"));
+        when(rsOcupacion.getTime("hora_inicio")).thenReturn(Time.valueOf("12:00:00"));
+        when(rsOcupacion.getTime("hora_fin")).thenReturn(Time.valueOf("13:00:00"));
+
+        psInsertar = mock(PreparedStatement.class);
+        when(conn.prepareStatement(startsWith("INSERT INTO reservas"))).thenReturn(psInsertar);
+        when(psInsertar.executeBatch()).thenReturn(new int[]{1});
+    }
+
+    @Test
+    void testImportarDetectaConflictosYRechazos() throws Exception {
+        String csv = """
+                sala,empleado_id,fecha,hora_inicio,hora_fin
+                Sala A,1,2025-07-01,09:00:00,10:00:00
+                Sala A,2,2025-07-01,09:30:00,10:30:00
+                Sala A,1,2025-07-01,12:30:00,13:30:00
+                Sala Z,1,2025-07-01,09:00:00,10:00:00
+                Sala A,99,2025-07-01,15:00:00,16:00:00
+                Sala A,1,2025-07-01,11:00:00,10:00:00
+                "Sala A";1;2025-07-02;09:00:00;10:00:00
+                """;
+
+        ImportadorReservas.ResultadoImportacion resultado =
+                ImportadorReservas.importar(conn, new StringReader(csv), 2);
+
+        assertEquals(7, resultado.leidas());
+        assertEquals(2, resultado.insertadas());
+
+        List<ImportadorReservas.Rechazo> rechazos = resultado.rechazos();
+        assertThat(rechazos.stream().map(ImportadorReservas.Rechazo::linea).toList(), containsInAnyOrder(3, 4, 5, 6, 7));
+        assertThat(motivo(rechazos, 3), containsString("línea 2"));
+        assertThat(motivo(rechazos, 4), containsString("reserva existente 7"));
+        assertThat(motivo(rechazos, 5), containsString("no existe"));
+        assertThat(motivo(rechazos, 6), containsString("empleado 99"));
+        assertThat(motivo(rechazos, 7), containsString("anterior"));
+
+        // Dos lotes con una fila aceptada cada uno, cada uno en su transacción
+        verify(psInsertar, times(2)).addBatch();
+        verify(psInsertar, times(2)).executeBatch();
+        verify(conn, times(2)).commit();
+        // La ocupación se vuelve a consultar en cada lote, bajo los cerrojos de sus pares (sala, fecha)
+        verify(psOcupacion, times(2)).executeQuery();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    void testLoteFallidoSeDeshace() throws Exception {
+        when(psInsertar.executeBatch()).thenThrow(new BatchUpdateException());
+
+        ImportadorReservas.ResultadoImportacion resultado = ImportadorReservas.importar(conn,
+                new StringReader("Sala A,1,2025-07-01,09:00:00,10:00:00\n"), 10);
+
+        assertEquals(0, resultado.insertadas());
+        assertThat(motivo(resultado.rechazos(), 1), containsString("Error de base de datos"));
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+    }
+
+    @Test
+    void testFalloTrasElCommitInvalidaElIndiceSinRechazarFilas() throws Exception {
+        Connection vacia = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        when(vacia.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+        IndiceDisponibilidad indice = IndiceDisponibilidad.getInstancia();
+        indice.cargar(vacia);
+        when(conn.prepareStatement(startsWith("INSERT INTO reservas"), eq(Statement.RETURN_GENERATED_KEYS)))
+                .thenReturn(psInsertar);
+        when(psInsertar.getGeneratedKeys()).thenThrow(new SQLException("sin claves"));
+
+        try {
+            ImportadorReservas.ResultadoImportacion resultado = ImportadorReservas.importar(conn,
+                    new StringReader("Sala A,1,2025-07-01,09:00:00,10:00:00\n"), 10);
+
+            // La fila quedó confirmada: cuenta como insertada y solo se pierde el índice
+            assertEquals(1, resultado.insertadas());
+            assertTrue(resultado.rechazos().isEmpty());
+            assertFalse(indice.estaCargado());
+            verify(conn).commit();
+            verify(conn, never()).rollback();
+        } finally {
+            indice.invalidar();
+        }
+    }
+
+    @Test
+    void testImportarEsperaLosCerrojosYVeLasAltasHechasMientras() throws Exception {
+        ReentrantLock cerrojo = (ReentrantLock) ServicioReservas.getInstancia().cerrojo(1, LocalDate.of(2025, 7, 1));
+        AtomicReference<ImportadorReservas.ResultadoImportacion> resultado = new AtomicReference<>();
+        Thread importacion = new Thread(() -> {
+            try {
+                resultado.set(ImportadorReservas.importar(conn,
+                        new StringReader("Sala A,1,2025-07-01,09:00:00,10:00:00\n"), 10));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        cerrojo.lock();
+        try {
+            importacion.start();
+            while (importacion.isAlive() && !cerrojo.hasQueuedThread(importacion)) {
+                Thread.sleep(1);
+            }
+            // Mientras la importación espera, otra alta ocupa la franja de 09:00 a 10:00
+            verify(psOcupacion, never()).executeQuery();
+            ResultSet rsAlta = mock(ResultSet.class);
+            when(rsAlta.next()).thenReturn(true, false);
+            when(rsAlta.getInt("id")).thenReturn(8);
+            when(rsAlta.getInt("sala_id")).thenReturn(1);
+            when(rsAlta.getDate("fecha")).thenReturn(Date.valueOf("2025-07-01"));
+            when(rsAlta.getTime("hora_inicio")).thenReturn(Time.valueOf("09:00:00"));
+            when(rsAlta.getTime("hora_fin")).thenReturn(Time.valueOf("10:00:00"));
+            when(psOcupacion.executeQuery()).thenReturn(rsAlta);
+        } finally {
+            cerrojo.unlock();
+        }
+        importacion.join();
+
+        assertEquals(0, resultado.get().insertadas());
+        assertThat(motivo(resultado.get().rechazos(), 1), containsString("reserva existente 8"));
+        verify(psInsertar, never()).executeBatch();
+    }
+
+    @Test
+    void testLosParesYaLeidosSeVuelvenALeerEnCadaLote() throws Exception {
+        ResultSet rsAlta = mock(ResultSet.class);
+        when(rsAlta.next()).thenReturn(true, false);
+        when(rsAlta.getInt("id")).thenReturn(8);
+        when(rsAlta.getInt("sala_id")).thenReturn(1);
+        when(rsAlta.getDate("fecha")).thenReturn(Date.valueOf("2025-07-01"));
+        when(rsAlta.getTime("hora_inicio")).thenReturn(Time.valueOf("15:00:00"));
+        when(rsAlta.getTime("hora_fin")).thenReturn(Time.valueOf("16:00:00"));
+        ResultSet rsVacio = mock(ResultSet.class);
+        // Primer lote: vacío. Segundo lote: alguien ha reservado de 15:00 a 16:00 entre medias
+        when(psOcupacion.executeQuery()).thenReturn(rsVacio, rsAlta);
+
+        ImportadorReservas.ResultadoImportacion resultado = ImportadorReservas.importar(conn, new StringReader("""
+                Sala A,1,2025-07-01,09:00:00,10:00:00
+                Sala A,1,2025-07-01,15:30:00,16:30:00
+                """), 1);
+
+        assertEquals(1, resultado.insertadas());
+        assertThat(motivo(resultado.rechazos(), 2), containsString("reserva existente 8"));
+        verify(psOcupacion, times(2)).executeQuery();
+    }
+
+    @Test
+    void testSepararCamposConComillas() {
+        assertThat(ImportadorReservas.separarCampos("\"Sala, grande\",1;\"dice \"\"hola\"\"\""),
+                contains("Sala, grande", "1", "dice \"hola\""));
+    }
+
+    private static String motivo(List<ImportadorReservas.Rechazo> rechazos, int linea) {
+        return rechazos.stream().filter(r -> r.linea() == linea).findFirst().orElseThrow().motivo();
+    }
+}
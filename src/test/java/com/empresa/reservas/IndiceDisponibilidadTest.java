@@ -0,0 +1,131 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link IndiceDisponibilidad} y su árbol de intervalos.
+ * La carga inicial se simula con un ResultSet de Mockito.
+ */
+class IndiceDisponibilidadTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+
+    private IndiceDisponibilidad indice;
+
+    /**
+     * Carga el índice con dos reservas de la sala 1: 09:00-10:00 (id 1) y 11:00-12:00 (id 2).
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+        Connection conn = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("id")).thenReturn(1, 2);
+        when(rs.getInt("sala_id")).thenReturn(1, 1);
+        when(rs.getInt("empleado_id")).thenReturn(10, 20);
+        when(rs.getDate("fecha")).thenReturn(Date.valueOf(FECHA), Date.valueOf(FECHA));
+        when(rs.getTime("hora_inicio")).thenReturn(Time.valueOf("09:00:00"), Time.valueOf("11:00:00"));
+        when(rs.getTime("hora_fin")).thenReturn(Time.valueOf("10:00:00"), Time.valueOf("12:00:00"));
+
+        indice = new IndiceDisponibilidad();
+        indice.cargar(conn);
+    }
+
+    @Test
+    void testSolapamientoTrasCarga() {
+        assertTrue(indice.estaCargado());
+        assertEquals(2, indice.tamano());
+        assertTrue(indice.haySolapamiento(1, FECHA, LocalTime.of(9, 30), LocalTime.of(10, 30), null));
+        // Los extremos contiguos no se consideran solapados
+        assertFalse(indice.haySolapamiento(1, FECHA, LocalTime.of(10, 0), LocalTime.of(11, 0), null));
+        assertFalse(indice.haySolapamiento(2, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), null));
+        assertFalse(indice.haySolapamiento(1, FECHA.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0), null));
+    }
+
+    @Test
+    void testExcluirReservaAlActualizar() {
+        assertFalse(indice.haySolapamiento(1, FECHA, LocalTime.of(9, 15), LocalTime.of(9, 45), 1));
+        assertTrue(indice.haySolapamiento(1, FECHA, LocalTime.of(9, 15), LocalTime.of(11, 30), 1));
+    }
+
+    @Test
+    void testRegistrarYEliminar() {
+        indice.registrar(3, 2, 10, FECHA, LocalTime.of(8, 0), LocalTime.of(9, 0));
+        assertTrue(indice.haySolapamiento(2, FECHA, LocalTime.of(8, 30), LocalTime.of(8, 45), null));
+
+        // Mover la reserva 1 a otra fecha libera su hueco original
+        assertEquals(new Reserva(1, 1, 10, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0)), indice.buscar(1));
+        indice.registrar(1, 1, 10, FECHA.plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0));
+        assertFalse(indice.haySolapamiento(1, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), null));
+        assertEquals(FECHA.plusDays(1), indice.buscar(1).fecha());
+
+        indice.eliminar(3);
+        assertNull(indice.buscar(3));
+        assertFalse(indice.haySolapamiento(2, FECHA, LocalTime.of(8, 30), LocalTime.of(8, 45), null));
+        assertEquals(2, indice.tamano());
+    }
+
+    @Test
+    void testBorradoEnCascada() {
+        indice.eliminarPorEmpleado(20);
+        assertFalse(indice.haySolapamiento(1, FECHA, LocalTime.of(11, 0), LocalTime.of(12, 0), null));
+        assertTrue(indice.haySolapamiento(1, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), null));
+
+        indice.eliminarPorSala(1);
+        assertEquals(0, indice.tamano());
+    }
+
+    @Test
+    void testInvalidarIgnoraModificaciones() {
+        indice.invalidar();
+        indice.registrar(5, 1, 10, FECHA, LocalTime.of(15, 0), LocalTime.of(16, 0));
+        assertFalse(indice.estaCargado());
+        assertEquals(0, indice.tamano());
+    }
+
+    /**
+     * Compara el árbol con una búsqueda lineal sobre intervalos aleatorios, incluyendo borrados.
+     */
+    @Test
+    void testArbolCoincideConBusquedaLineal() {
+        Random random = new Random(42);
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        List<int[]> intervalos = new ArrayList<>();
+
+        for (int id = 0; id < 500; id++) {
+            int inicio = random.nextInt(86_000);
+            int fin = inicio + 1 + random.nextInt(3_600);
+            arbol.insertar(id, inicio, fin);
+            intervalos.add(new int[]{id, inicio, fin});
+        }
+        for (int i = 0; i < 200; i++) {
+            int[] quitado = intervalos.remove(random.nextInt(intervalos.size()));
+            assertTrue(arbol.eliminar(quitado[0], quitado[1]));
+        }
+        assertEquals(intervalos.size(), arbol.tamano());
+
+        for (int i = 0; i < 2_000; i++) {
+            int inicio = random.nextInt(86_000);
+            int fin = inicio + 1 + random.nextInt(1_800);
+            Integer excluir = random.nextBoolean() ? intervalos.get(random.nextInt(intervalos.size()))[0] : null;
+            boolean esperado = intervalos.stream()
+                    .anyMatch(t -> (excluir == null || t[0] != excluir) && t[1] < fin && t[2] > inicio);
+            assertEquals(esperado, arbol.haySolapamiento(inicio, fin, excluir));
+        }
+    }
+}
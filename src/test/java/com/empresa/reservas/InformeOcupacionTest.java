@@ -0,0 +1,152 @@
+package com.empresa.reservas;
+
+import com.empresa.salas.Sala;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link InformeOcupacion}.
+ */
+class InformeOcupacionTest {
+
+    /** Martes. */
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+    private static final Sala SALA_A = new Sala(1, "Sala A", 10, "Proyector");
+    private static final Sala SALA_B = new Sala(2, "Sala B", 4, "");
+    private static final Sala SALA_C = new Sala(7, "Sala C", 8, "");
+
+    @Test
+    void testAgregaMinutosPorSalaDiaHoraYDepartamento() {
+        InformeOcupacion.Periodo periodo = new InformeOcupacion.Periodo(FECHA, FECHA.plusDays(1), 8, 20);
+        InformeOcupacion.Agregador agregador =
+                new InformeOcupacion.Agregador(List.of(SALA_A, SALA_B, SALA_C), periodo, 1);
+        agregador.anadir(1, FECHA, hora(9, 30), hora(11, 0), "TI");
+        agregador.anadir(1, FECHA.plusDays(1), hora(19, 0), hora(21, 0), "Legal");
+        agregador.anadir(7, FECHA, hora(10, 0), hora(10, 45), "TI");
+        // Fuera del rango o de una sala desconocida: no cuentan
+        agregador.anadir(1, FECHA.plusDays(2), hora(9, 0), hora(10, 0), "TI");
+        agregador.anadir(99, FECHA, hora(9, 0), hora(10, 0), "TI");
+
+        InformeOcupacion.Informe informe = agregador.terminar();
+
+        assertEquals(3, informe.reservas());
+        // Sala A: 90 min + 60 min dentro de la jornada (la hora de 20 a 21 queda fuera) sobre 2 x 720
+        InformeOcupacion.OcupacionSala salaA = informe.salas().get(0);
+        assertEquals(SALA_A, salaA.sala());
+        assertEquals(150, salaA.minutos());
+        assertEquals(100.0 * 150 / 1440, salaA.porcentaje(), 1e-9);
+        assertEquals(10, salaA.horaPunta());
+        assertEquals(List.of(SALA_A, SALA_C, SALA_B),
+                informe.salas().stream().map(InformeOcupacion.OcupacionSala::sala).toList());
+        assertEquals(0.0, informe.salas().get(2).porcentaje());
+        assertEquals(-1, informe.salas().get(2).horaPunta());
+
+        assertEquals(100.0 * (90 + 45) / (3 * 720), informe.porcentajeDia(FECHA), 1e-9);
+        assertEquals(100.0 * 60 / (3 * 720), informe.porcentajeDia(FECHA.plusDays(1)), 1e-9);
+        assertEquals(100.0 * (150 + 45) / (3 * 1440), informe.porcentaje(), 1e-9);
+
+        // Martes 10-11 h: 60 min de la sala A y 45 de la C, sobre 3 salas x 60 min
+        assertEquals(100.0 * 105 / 180, informe.mapaCalor()[1][10], 1e-9);
+        assertEquals(100.0 * 60 / 180, informe.mapaCalor()[2][20], 1e-9);
+        assertEquals(0.0, informe.mapaCalor()[0][10]);
+        assertEquals(10, informe.horaPunta());
+
+        assertEquals(List.of(
+                new InformeOcupacion.OcupacionDepartamento("TI", 2, 135),
+                new InformeOcupacion.OcupacionDepartamento("Legal", 1, 120)), informe.departamentos());
+    }
+
+    @Test
+    void testAgregacionParalelaIgualQueSecuencial() {
+        List<Sala> salas = List.of(SALA_A, SALA_B, SALA_C);
+        InformeOcupacion.Periodo periodo = new InformeOcupacion.Periodo(FECHA, FECHA.plusDays(364), 7, 21);
+        InformeOcupacion.Agregador secuencial = new InformeOcupacion.Agregador(salas, periodo, 1);
+        InformeOcupacion.Agregador paralelo = new InformeOcupacion.Agregador(salas, periodo, 3);
+        // Más departamentos que la capacidad inicial de los arrays, para que crezcan en cada hilo
+        String[] departamentos = {"TI", "Legal", "Finanzas", "Marketing", "Ventas", "Compras", "I+D", "RRHH",
+                "Calidad"};
+        SplittableRandom random = new SplittableRandom(42);
+        int filas = InformeOcupacion.FILAS_POR_BLOQUE * 5 + 17;
+        for (int i = 0; i < filas; i++) {
+            int sala = salas.get(random.nextInt(salas.size())).id();
+            LocalDate fecha = FECHA.plusDays(random.nextInt(365));
+            LocalTime inicio = LocalTime.of(random.nextInt(23), 5 * random.nextInt(12));
+            LocalTime fin = random.nextInt(10) == 0 ? LocalTime.MAX : inicio.plusMinutes(5 + random.nextInt(55));
+            String departamento = departamentos[random.nextInt(departamentos.length)];
+            secuencial.anadir(sala, fecha, inicio, fin, departamento);
+            paralelo.anadir(sala, fecha, inicio, fin, departamento);
+        }
+
+        InformeOcupacion.Informe esperado = secuencial.terminar();
+        InformeOcupacion.Informe informe;
+        try (paralelo) {
+            informe = paralelo.terminar();
+        }
+
+        assertEquals(filas, informe.reservas());
+        assertEquals(esperado.reservas(), informe.reservas());
+        assertEquals(esperado.porcentaje(), informe.porcentaje(), 1e-9);
+        assertEquals(esperado.salas(), informe.salas());
+        assertArrayEquals(esperado.porDia(), informe.porDia(), 1e-9);
+        for (int dia = 0; dia < 7; dia++) {
+            assertArrayEquals(esperado.mapaCalor()[dia], informe.mapaCalor()[dia], 1e-9);
+        }
+        assertEquals(esperado.departamentos(), informe.departamentos());
+        assertEquals(departamentos.length, informe.departamentos().size());
+    }
+
+    @Test
+    void testGenerarLeeElRangoEnUnaSolaPasada() throws SQLException {
+        Connection conn = mock(Connection.class);
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(conn.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(pstmt);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt(1)).thenReturn(1, 2);
+        when(rs.getDate(2)).thenReturn(Date.valueOf(FECHA), Date.valueOf(FECHA));
+        when(rs.getTime(3)).thenReturn(Time.valueOf("09:00:00"), Time.valueOf("12:00:00"));
+        when(rs.getTime(4)).thenReturn(Time.valueOf("10:00:00"), Time.valueOf("14:00:00"));
+        when(rs.getString(5)).thenReturn("TI", "TI");
+
+        InformeOcupacion.Informe informe = InformeOcupacion.generar(conn, List.of(SALA_A, SALA_B),
+                new InformeOcupacion.Periodo(FECHA, FECHA, 8, 20));
+
+        assertEquals(2, informe.reservas());
+        assertEquals(List.of(new InformeOcupacion.OcupacionDepartamento("TI", 2, 180)), informe.departamentos());
+        assertEquals(SALA_B, informe.salas().get(0).sala());
+        verify(conn).prepareStatement(eq(InformeOcupacion.SQL_RESERVAS), eq(ResultSet.TYPE_FORWARD_ONLY),
+                eq(ResultSet.CONCUR_READ_ONLY));
+        verify(pstmt).setFetchSize(ConsultaReservas.FILAS_POR_FETCH);
+        verify(pstmt).setDate(1, Date.valueOf(FECHA));
+        verify(pstmt).setDate(2, Date.valueOf(FECHA));
+        verify(pstmt).executeQuery();
+        verify(rs).close();
+    }
+
+    @Test
+    void testPeriodoInvalido() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new InformeOcupacion.Periodo(FECHA, FECHA.minusDays(1), 8, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> new InformeOcupacion.Periodo(FECHA, FECHA.plusDays(InformeOcupacion.DIAS_MAXIMOS), 8, 20));
+        assertThrows(IllegalArgumentException.class, () -> new InformeOcupacion.Periodo(FECHA, FECHA, 20, 8));
+        assertThrows(IllegalArgumentException.class, () -> new InformeOcupacion.Periodo(FECHA, FECHA, 0, 25));
+        assertEquals(InformeOcupacion.DIAS_MAXIMOS, new InformeOcupacion.Periodo(FECHA,
+                FECHA.plusDays(InformeOcupacion.DIAS_MAXIMOS - 1), 0, 24).dias());
+    }
+
+    private static LocalTime hora(int hora, int minuto) {
+        return LocalTime.of(hora, minuto);
+    }
+}
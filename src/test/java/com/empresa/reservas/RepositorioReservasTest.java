@@ -0,0 +1,162 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link RepositorioReservas}.
+ * La base de datos se simula con Mockito.
+ */
+class RepositorioReservasTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+
+    private Connection conn;
+    private PreparedStatement pstmt;
+    private ResultSet rs;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        pstmt = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+        when(pstmt.executeQuery()).thenReturn(rs);
+    }
+
+    @Test
+    void testConflictoUsaSiempreLaMismaSentencia() throws SQLException {
+        when(conn.prepareStatement(RepositorioReservas.SQL_CONFLICTOS)).thenReturn(pstmt);
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt(1)).thenReturn(0, 1);
+
+        assertFalse(RepositorioReservas.existeConflicto(conn, 3, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), null));
+        assertTrue(RepositorioReservas.existeConflicto(conn, 3, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), 42));
+
+        verify(conn, times(2)).prepareStatement(RepositorioReservas.SQL_CONFLICTOS);
+        verify(pstmt).setInt(5, 0);
+        verify(pstmt).setInt(5, 42);
+        verify(pstmt, times(2)).setTime(3, Time.valueOf("10:00:00"));
+        verify(pstmt, times(2)).setTime(4, Time.valueOf("09:00:00"));
+    }
+
+    @Test
+    void testInsertarDevuelveIdGenerado() throws SQLException {
+        when(conn.prepareStatement(RepositorioReservas.SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)).thenReturn(pstmt);
+        when(pstmt.executeUpdate()).thenReturn(1);
+        when(pstmt.getGeneratedKeys()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getInt(1)).thenReturn(77);
+
+        Reserva reserva = RepositorioReservas.insertar(conn, 3, 5, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), true);
+
+        assertEquals(new Reserva(77, 3, 5, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0)), reserva);
+    }
+
+    @Test
+    void testInsertarSinFilasDevuelveNull() throws SQLException {
+        when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+        when(pstmt.executeUpdate()).thenReturn(0);
+
+        assertNull(RepositorioReservas.insertar(conn, 3, 5, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), false));
+        verify(pstmt, never()).getGeneratedKeys();
+    }
+
+    @Test
+    void testInsertarLoteEnUnaSolaEjecucion() throws SQLException {
+        when(conn.prepareStatement(RepositorioReservas.SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)).thenReturn(pstmt);
+        when(pstmt.getGeneratedKeys()).thenReturn(rs);
+        // El driver solo devuelve la clave de la primera fila: la segunda queda a 0
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt(1)).thenReturn(40);
+
+        int[] ids = RepositorioReservas.insertarLote(conn, List.of(
+                new Reserva(0, 3, 5, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0)),
+                new Reserva(0, 4, 6, FECHA, LocalTime.of(11, 0), LocalTime.of(12, 0))), true);
+
+        assertArrayEquals(new int[]{40, 0}, ids);
+        verify(pstmt, times(2)).addBatch();
+        verify(pstmt).executeBatch();
+        verify(pstmt, never()).executeUpdate();
+        verify(conn, never()).commit();
+    }
+
+    @Test
+    void testActualizarSiVersionCompruebaLaVersionEnLaMismaSentencia() throws SQLException {
+        when(conn.prepareStatement(RepositorioReservas.SQL_ACTUALIZAR_VERSION)).thenReturn(pstmt);
+        when(pstmt.executeUpdate()).thenReturn(1, 0);
+        Reserva reserva = new Reserva(8, 3, 5, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), 4);
+
+        assertTrue(RepositorioReservas.actualizarSiVersion(conn, reserva));
+        assertFalse(RepositorioReservas.actualizarSiVersion(conn, reserva));
+
+        verify(pstmt, times(2)).setInt(6, 8);
+        verify(pstmt, times(2)).setInt(7, 4);
+        verify(conn, never()).prepareStatement(RepositorioReservas.SQL_CONFLICTOS);
+    }
+
+    @Test
+    void testBuscarLeeLaVersion() throws SQLException {
+        when(conn.prepareStatement(RepositorioReservas.SQL_BUSCAR)).thenReturn(pstmt);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt(1)).thenReturn(8);
+        when(rs.getInt(2)).thenReturn(3);
+        when(rs.getInt(3)).thenReturn(5);
+        when(rs.getDate(4)).thenReturn(Date.valueOf(FECHA));
+        when(rs.getTime(5)).thenReturn(Time.valueOf("09:00:00"));
+        when(rs.getTime(6)).thenReturn(Time.valueOf("10:00:00"));
+        when(rs.getInt(7)).thenReturn(4);
+
+        assertEquals(new Reserva(8, 3, 5, FECHA, LocalTime.of(9, 0), LocalTime.of(10, 0), 4),
+                RepositorioReservas.buscar(conn, 8));
+        assertNull(RepositorioReservas.buscar(conn, 9));
+    }
+
+    @Test
+    void testRecorrerLeeTodasLasFilas() throws SQLException {
+        Statement stmt = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(RepositorioReservas.SQL_LISTAR)).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt("id")).thenReturn(1, 2);
+        when(rs.getDate("fecha")).thenReturn(Date.valueOf(FECHA));
+        when(rs.getTime("hora_inicio")).thenReturn(Time.valueOf("09:00:00"));
+        when(rs.getTime("hora_fin")).thenReturn(Time.valueOf("10:00:00"));
+        when(rs.getString("sala_nombre")).thenReturn("Sala A");
+        when(rs.getString("empleado_nombre")).thenReturn("Ana");
+
+        List<ConsultaReservas.Fila> filas = new ArrayList<>();
+        long total = RepositorioReservas.recorrer(conn, filas::add);
+
+        assertEquals(2, total);
+        assertEquals(2, filas.get(1).id());
+        assertEquals("Sala A", filas.get(0).sala());
+        verify(stmt).setFetchSize(ConsultaReservas.FILAS_POR_FETCH);
+    }
+
+    @Test
+    void testLeerOcupacionConUnaSolaConsultaPorDia() throws SQLException {
+        when(conn.prepareStatement(RepositorioReservas.SQL_OCUPACION_DIA)).thenReturn(pstmt);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt(1)).thenReturn(1, 2);
+        when(rs.getTime(2)).thenReturn(Time.valueOf("09:00:00"), Time.valueOf("10:00:00"));
+        when(rs.getTime(3)).thenReturn(Time.valueOf("10:00:00"), Time.valueOf("10:30:00"));
+
+        BuscadorHuecos.Ocupacion ocupacion = RepositorioReservas.leerOcupacion(conn, FECHA);
+
+        assertEquals(2, ocupacion.salasOcupadas());
+        assertEquals(12, ocupacion.de(1).cardinality());
+        assertEquals(6, ocupacion.de(2).cardinality());
+        assertNull(ocupacion.de(3));
+        verify(pstmt).setDate(1, Date.valueOf(FECHA));
+    }
+}
@@ -1,5 +1,6 @@
 package com.empresa.reservas;
 
+import com.empresa.almacen.AlmacenJdbc;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -71,7 +72,7 @@ public class ReservasTest {
         when(insertStmt.executeUpdate()).thenReturn(1);
 
         // Ejecuta y verifica
-        Reservas.crearReserva(conn, scanner);
+        Reservas.crearReserva(AlmacenJdbc.sesion(conn), scanner);
         verify(insertStmt).executeUpdate();
     }
 
@@ -111,7 +112,7 @@ public class ReservasTest {
         when(rsConflicto.next()).thenReturn(true);
         when(rsConflicto.getInt(1)).thenReturn(1);
 
-        Reservas.crearReserva(conn, scanner);
+        Reservas.crearReserva(AlmacenJdbc.sesion(conn), scanner);
 
         verify(conflictoStmt).executeQuery();
         // No debió llamar al INSERT
@@ -139,7 +140,7 @@ public class ReservasTest {
         when(rs.getTime("hora_inicio")).thenReturn(Time.valueOf("09:00:00"), Time.valueOf("10:00:00"));
         when(rs.getTime("hora_fin")).thenReturn(Time.valueOf("10:00:00"), Time.valueOf("11:00:00"));
 
-        Reservas.listarReservas(conn);
+        Reservas.listarReservas(AlmacenJdbc.sesion(conn));
 
         verify(conn).createStatement();
         verify(stmt).executeQuery(anyString());
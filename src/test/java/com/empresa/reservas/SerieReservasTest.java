@@ -0,0 +1,78 @@
+package com.empresa.reservas;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link SerieReservas}.
+ */
+class SerieReservasTest {
+
+    private static final LocalTime NUEVE = LocalTime.of(9, 0);
+    private static final LocalTime DIEZ = LocalTime.of(10, 0);
+
+    @Test
+    void testFechasSemanalesHastaFechaDeFin() {
+        SerieReservas serie = serie(SerieReservas.Frecuencia.SEMANAL, LocalDate.of(2025, 7, 7),
+                LocalDate.of(2025, 8, 3), null);
+
+        assertEquals(List.of(LocalDate.of(2025, 7, 7), LocalDate.of(2025, 7, 14), LocalDate.of(2025, 7, 21),
+                LocalDate.of(2025, 7, 28)), serie.fechas().toList());
+        assertEquals(4, serie.numeroOcurrencias());
+        assertEquals(LocalDate.of(2025, 7, 28), serie.ultimaFecha());
+        assertTrue(serie.incluye(LocalDate.of(2025, 7, 21)));
+        assertFalse(serie.incluye(LocalDate.of(2025, 7, 22)));
+        assertFalse(serie.incluye(LocalDate.of(2025, 8, 4)));
+        assertFalse(serie.incluye(LocalDate.of(2025, 6, 30)));
+    }
+
+    @Test
+    void testMensualDesdeElDia31SeAjustaAlFinDeMes() {
+        SerieReservas serie = serie(SerieReservas.Frecuencia.MENSUAL, LocalDate.of(2025, 1, 31), null, 4);
+
+        List<LocalDate> fechas = List.of(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28),
+                LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 30));
+        assertEquals(fechas, serie.fechas().toList());
+        assertEquals(LocalDate.of(2025, 4, 30), serie.ultimaFecha());
+        // incluye coincide con la expansión completa día a día
+        for (LocalDate dia = LocalDate.of(2025, 1, 1); dia.isBefore(LocalDate.of(2025, 6, 1)); dia = dia.plusDays(1)) {
+            assertEquals(fechas.contains(dia), serie.incluye(dia), dia.toString());
+        }
+
+        SerieReservas hastaFecha = serie(SerieReservas.Frecuencia.MENSUAL, LocalDate.of(2025, 1, 31),
+                LocalDate.of(2025, 4, 30), null);
+        assertEquals(fechas, hastaFecha.fechas().toList());
+        assertEquals(4, hastaFecha.numeroOcurrencias());
+    }
+
+    @Test
+    void testValidaLaRegla() {
+        LocalDate inicio = LocalDate.of(2025, 7, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> serie(SerieReservas.Frecuencia.DIARIA, inicio, inicio.plusDays(3), 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> serie(SerieReservas.Frecuencia.DIARIA, inicio, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> serie(SerieReservas.Frecuencia.DIARIA, inicio, inicio.minusDays(1), null));
+        assertThrows(IllegalArgumentException.class, () -> serie(SerieReservas.Frecuencia.DIARIA, inicio, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> serie(SerieReservas.Frecuencia.DIARIA, inicio, inicio.plusYears(3), null));
+        assertThrows(IllegalArgumentException.class, () -> new SerieReservas(0, 1, 1,
+                SerieReservas.Frecuencia.DIARIA, inicio, null, 2, DIEZ, NUEVE));
+
+        SerieReservas maxima = serie(SerieReservas.Frecuencia.DIARIA, inicio,
+                inicio.plusDays(SerieReservas.MAXIMO_OCURRENCIAS - 1), null);
+        assertEquals(SerieReservas.MAXIMO_OCURRENCIAS, maxima.numeroOcurrencias());
+        assertEquals(SerieReservas.MAXIMO_OCURRENCIAS, maxima.fechas().count());
+    }
+
+    private static SerieReservas serie(SerieReservas.Frecuencia frecuencia, LocalDate inicio, LocalDate fin,
+                                       Integer repeticiones) {
+        return new SerieReservas(0, 1, 1, frecuencia, inicio, fin, repeticiones, NUEVE, DIEZ);
+    }
+}
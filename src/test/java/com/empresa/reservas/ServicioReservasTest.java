@@ -0,0 +1,399 @@
+package com.empresa.reservas;
+
+import com.empresa.conexion.PoolConexiones;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de estrés de {@link ServicioReservas} con varios hilos reservando a la vez
+ * sobre una {@link BaseDatosSimulada} con latencia de red simulada.
+ */
+class ServicioReservasTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 7, 1);
+    private static final long LATENCIA_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /**
+     * 16 hilos intentan reservar los mismos 8 huecos horarios de 4 salas en distinto orden.
+     * Solo debe haber una reserva por hueco y ningún solapamiento en la tabla.
+     */
+    @Test
+    void testSinDoblesReservasConConcurrencia() throws Exception {
+        BaseDatosSimulada bd = new BaseDatosSimulada(LATENCIA_NANOS);
+        ServicioReservas servicio = new ServicioReservas(16);
+        int hilos = 16;
+        int salas = 4;
+        int huecos = 8;
+
+        AtomicInteger creadas = new AtomicInteger();
+        AtomicInteger conflictos = new AtomicInteger();
+        ejecutarEnParalelo(hilos, bd, (hilo, conn) -> {
+            List<int[]> intentos = new ArrayList<>();
+            for (int sala = 1; sala <= salas; sala++) {
+                for (int hueco = 0; hueco < huecos; hueco++) {
+                    intentos.add(new int[]{sala, hueco});
+                }
+            }
+            Collections.shuffle(intentos, new Random(hilo));
+            for (int[] intento : intentos) {
+                // Huecos de 60 min que empiezan cada hora, desplazados 30 min en hilos impares
+                LocalTime inicio = LocalTime.of(8 + intento[1], hilo % 2 == 0 ? 0 : 30);
+                ServicioReservas.Resultado r = servicio.crear(conn, intento[0], hilo, FECHA, inicio, inicio.plusMinutes(60));
+                (r.estado() == ServicioReservas.Estado.CREADA ? creadas : conflictos).incrementAndGet();
+            }
+        });
+
+        List<BaseDatosSimulada.Fila> filas = bd.reservas();
+        assertEquals(creadas.get(), filas.size());
+        assertEquals(hilos * salas * huecos, creadas.get() + conflictos.get());
+        assertTrue(creadas.get() >= salas * (huecos - 1), "Deben ocuparse los huecos de cada sala");
+        for (BaseDatosSimulada.Fila a : filas) {
+            for (BaseDatosSimulada.Fila b : filas) {
+                boolean solapan = a.id() != b.id() && a.salaId() == b.salaId()
+                        && a.inicio().isBefore(b.fin()) && b.inicio().isBefore(a.fin());
+                assertFalse(solapan, "Doble reserva: " + a + " y " + b);
+            }
+        }
+    }
+
+    /**
+     * Con la franja de la sala 1 bloqueada, 8 hilos que reservan otras salas terminan sin esperar
+     * y una reserva de la sala 1 queda en cola hasta que se libera.
+     */
+    @Test
+    void testSalasDistintasNoSeBloqueanEntreSi() throws Exception {
+        BaseDatosSimulada bd = new BaseDatosSimulada(LATENCIA_NANOS);
+        ServicioReservas servicio = new ServicioReservas(1024);
+        ReentrantLock bloqueada = (ReentrantLock) servicio.cerrojo(1, FECHA);
+        int hilos = 8;
+        int reservasPorHilo = 20;
+        // Una sala por hilo, ninguna en la franja de la sala 1
+        List<Integer> salas = new ArrayList<>();
+        for (int sala = 2; salas.size() < hilos; sala++) {
+            if (servicio.cerrojo(sala, FECHA) != bloqueada) {
+                salas.add(sala);
+            }
+        }
+
+        ExecutorService aparte = Executors.newSingleThreadExecutor();
+        Future<ServicioReservas.Resultado> enCola;
+        bloqueada.lock();
+        try {
+            enCola = aparte.submit(() -> {
+                try (Connection conn = bd.conectar()) {
+                    return servicio.crear(conn, 1, 1, FECHA, LocalTime.of(8, 0), LocalTime.of(9, 0));
+                }
+            });
+            while (!bloqueada.hasQueuedThreads()) {
+                assertFalse(enCola.isDone(), "La reserva de la sala 1 debe esperar a su franja");
+                Thread.onSpinWait();
+            }
+
+            ejecutarEnParalelo(hilos, bd, (hilo, conn) -> {
+                for (int i = 0; i < reservasPorHilo; i++) {
+                    LocalTime hora = LocalTime.of(8, 0).plusMinutes(10L * i);
+                    assertEquals(ServicioReservas.Estado.CREADA,
+                            servicio.crear(conn, salas.get(hilo), hilo, FECHA, hora, hora.plusMinutes(10)).estado());
+                }
+            });
+
+            assertEquals(hilos * reservasPorHilo, bd.reservas().size());
+            assertFalse(enCola.isDone());
+        } finally {
+            bloqueada.unlock();
+        }
+        try {
+            assertEquals(ServicioReservas.Estado.CREADA, enCola.get(60, TimeUnit.SECONDS).estado());
+        } finally {
+            aparte.shutdownNow();
+        }
+        assertEquals(hilos * reservasPorHilo + 1, bd.reservas().size());
+    }
+
+    /**
+     * Con la escritura agrupada, 16 hilos compiten por los mismos huecos: los que chocan dentro de un
+     * mismo lote también deben acabar en conflicto, y cada hilo recibe el resultado de su propia reserva.
+     */
+    @Test
+    void testAltasAgrupadasSinDoblesReservas() throws Exception {
+        BaseDatosSimulada bd = new BaseDatosSimulada(LATENCIA_NANOS, LATENCIA_NANOS);
+        ServicioReservas servicio = new ServicioReservas(16, 8, Duration.ofMillis(1));
+        int hilos = 16;
+        int salas = 2;
+        int huecos = 6;
+
+        AtomicInteger creadas = new AtomicInteger();
+        AtomicInteger conflictos = new AtomicInteger();
+        ejecutarEnParalelo(hilos, bd, (hilo, conn) -> {
+            for (int sala = 1; sala <= salas; sala++) {
+                for (int hueco = 0; hueco < huecos; hueco++) {
+                    LocalTime inicio = LocalTime.of(8 + hueco, hilo % 3 * 20);
+                    ServicioReservas.Resultado r = servicio.crear(conn, sala, hilo, FECHA, inicio, inicio.plusMinutes(60));
+                    (r.estado() == ServicioReservas.Estado.CREADA ? creadas : conflictos).incrementAndGet();
+                }
+            }
+        });
+
+        List<BaseDatosSimulada.Fila> filas = bd.reservas();
+        assertEquals(creadas.get(), filas.size());
+        assertEquals(hilos * salas * huecos, creadas.get() + conflictos.get());
+        assertEquals(hilos * salas * huecos, servicio.getReservasAgrupadas());
+        assertTrue(servicio.getLotesAgrupados() < servicio.getReservasAgrupadas(), "Las altas deben agruparse");
+        for (BaseDatosSimulada.Fila a : filas) {
+            for (BaseDatosSimulada.Fila b : filas) {
+                boolean solapan = a.id() != b.id() && a.salaId() == b.salaId()
+                        && a.inicio().isBefore(b.fin()) && b.inicio().isBefore(a.fin());
+                assertFalse(solapan, "Doble reserva: " + a + " y " + b);
+            }
+        }
+    }
+
+    /**
+     * Con un commit caro (2 ms), 16 hilos reservando salas distintas escriben varias reservas por
+     * commit al agruparlas, en lugar de hacer cola para confirmar una a una. El rendimiento se mide
+     * en {@code ServicioReservasBenchmark}.
+     */
+    @Test
+    void testEscrituraAgrupadaReduceLosCommits() throws Exception {
+        int hilos = 16;
+        int reservasPorHilo = 10;
+        long latenciaCommit = TimeUnit.MILLISECONDS.toNanos(2);
+        Map<String, Integer> commits = new LinkedHashMap<>();
+
+        for (int maxLote : new int[]{1, 32}) {
+            // Sentencias rápidas frente al commit: el líder comprueba los conflictos del lote uno a uno
+            BaseDatosSimulada bd = new BaseDatosSimulada(LATENCIA_NANOS / 4, latenciaCommit);
+            ServicioReservas servicio = new ServicioReservas(1024, maxLote, Duration.ZERO);
+
+            ejecutarEnParalelo(hilos, bd, (hilo, conn) -> {
+                for (int i = 0; i < reservasPorHilo; i++) {
+                    LocalTime hora = LocalTime.of(8, 0).plusMinutes(10L * i);
+                    assertEquals(ServicioReservas.Estado.CREADA,
+                            servicio.crear(conn, hilo * 1000 + i, hilo, FECHA, hora, hora.plusMinutes(10)).estado());
+                }
+            });
+            commits.put(maxLote == 1 ? "sin agrupar" : "agrupadas", bd.commits());
+            assertEquals(hilos * reservasPorHilo, bd.reservas().size());
+        }
+
+        assertTrue(commits.get("agrupadas") < commits.get("sin agrupar") / 2,
+                "Cada commit debe confirmar varias reservas: " + commits);
+    }
+
+    /**
+     * Mover una reserva a otra sala toma también el cerrojo de la sala de origen: mientras otro lo
+     * tiene, el cambio espera sin tocar nada.
+     */
+    @Test
+    void testMoverUnaReservaEsperaAlCerrojoDelOrigen(@TempDir Path directorio) throws Exception {
+        BaseDatosSimulada bd = new BaseDatosSimulada(0);
+        ServicioReservas servicio = new ServicioReservas(1024);
+        LocalDate fecha = LocalDate.now().plusDays(1);
+        ReentrantLock origen = (ReentrantLock) servicio.cerrojo(1, fecha);
+        int destino = 2;
+        while (servicio.cerrojo(destino, fecha) == origen) {
+            destino++;
+        }
+        int salaDestino = destino;
+
+        abrirCalendarioEIndice(directorio);
+        ExecutorService aparte = Executors.newSingleThreadExecutor();
+        try (Connection conn = bd.conectar()) {
+            int id = servicio.crear(conn, 1, 1, fecha, LocalTime.of(9, 0), LocalTime.of(10, 0)).id();
+            Future<ServicioReservas.Resultado> cambio;
+            origen.lock();
+            try {
+                cambio = aparte.submit(() -> servicio.actualizar(conn, id, null, salaDestino, 1, fecha,
+                        LocalTime.of(9, 0), LocalTime.of(10, 0)));
+                while (!origen.hasQueuedThreads()) {
+                    assertFalse(cambio.isDone(), "El cambio debe esperar al cerrojo de la sala de origen");
+                    Thread.onSpinWait();
+                }
+                assertEquals(1, bd.reservas().get(0).salaId());
+            } finally {
+                origen.unlock();
+            }
+            assertEquals(ServicioReservas.Estado.ACTUALIZADA, cambio.get(60, TimeUnit.SECONDS).estado());
+            assertEquals(salaDestino, bd.reservas().get(0).salaId());
+        } finally {
+            aparte.shutdownNow();
+            cerrarCalendarioEIndice();
+        }
+    }
+
+    /**
+     * Una reserva se mueve de la sala 1 a la 2 mientras otro hilo intenta reservar su hueco de origen
+     * hasta conseguirlo. Cuando lo consigue, el calendario no puede dar ese hueco por libre: si el
+     * cambio lo liberase después de la reserva nueva, una tercera se aceptaría encima.
+     */
+    @Test
+    void testMoverYReservarElOrigenALaVezNoDejaLibreElCalendario(@TempDir Path directorio) throws Exception {
+        BaseDatosSimulada bd = new BaseDatosSimulada(0);
+        ServicioReservas servicio = new ServicioReservas(1024);
+        LocalDate manana = LocalDate.now().plusDays(1);
+        CalendarioSalas calendario = CalendarioSalas.getInstancia();
+
+        abrirCalendarioEIndice(directorio);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+        try (Connection conn = bd.conectar(); Connection otra = bd.conectar()) {
+            for (int i = 0; i < 120; i++) {
+                LocalDate fecha = manana.plusDays(i / 12);
+                LocalTime inicio = LocalTime.of(8 + i % 12, 0);
+                LocalTime fin = inicio.plusHours(1);
+                int id = servicio.crear(conn, 1, 1, fecha, inicio, fin).id();
+
+                CountDownLatch salida = new CountDownLatch(1);
+                Future<ServicioReservas.Resultado> cambio = ejecutor.submit(() -> {
+                    salida.await();
+                    return servicio.actualizar(conn, id, null, 2, 1, fecha, inicio, fin);
+                });
+                Future<?> reserva = ejecutor.submit(() -> {
+                    salida.await();
+                    while (servicio.crear(otra, 1, 2, fecha, inicio, fin).estado() != ServicioReservas.Estado.CREADA) {
+                        Thread.onSpinWait();
+                    }
+                    return null;
+                });
+                salida.countDown();
+                assertEquals(ServicioReservas.Estado.ACTUALIZADA, cambio.get(60, TimeUnit.SECONDS).estado());
+                reserva.get(60, TimeUnit.SECONDS);
+
+                assertFalse(calendario.estaLibre(conn, 1, fecha, inicio, fin),
+                        "Hueco ocupado dado por libre: " + fecha + " " + inicio);
+                assertEquals(ServicioReservas.Estado.CONFLICTO,
+                        servicio.crear(conn, 1, 3, fecha, inicio, fin).estado());
+            }
+            assertEquals(240, bd.reservas().size());
+        } finally {
+            ejecutor.shutdownNow();
+            cerrarCalendarioEIndice();
+        }
+    }
+
+    @Test
+    void testEliminarEsperaAlCerrojoDeLaReserva(@TempDir Path directorio) throws Exception {
+        BaseDatosSimulada bd = new BaseDatosSimulada(0);
+        ServicioReservas servicio = new ServicioReservas(1024);
+        LocalDate fecha = LocalDate.now().plusDays(1);
+        ReentrantLock franja = (ReentrantLock) servicio.cerrojo(1, fecha);
+
+        abrirCalendarioEIndice(directorio);
+        ExecutorService aparte = Executors.newSingleThreadExecutor();
+        try (Connection conn = bd.conectar()) {
+            int id = servicio.crear(conn, 1, 1, fecha, LocalTime.of(9, 0), LocalTime.of(10, 0)).id();
+            Future<Boolean> borrado;
+            franja.lock();
+            try {
+                borrado = aparte.submit(() -> servicio.eliminar(conn, id));
+                while (!franja.hasQueuedThreads()) {
+                    assertFalse(borrado.isDone(), "El borrado debe esperar al cerrojo de la reserva");
+                    Thread.onSpinWait();
+                }
+                assertEquals(1, bd.reservas().size());
+            } finally {
+                franja.unlock();
+            }
+            assertTrue(borrado.get(60, TimeUnit.SECONDS));
+            assertTrue(bd.reservas().isEmpty());
+            assertFalse(servicio.eliminar(conn, id));
+            assertTrue(CalendarioSalas.getInstancia().estaLibre(conn, 1, fecha, LocalTime.of(9, 0),
+                    LocalTime.of(10, 0)));
+        } finally {
+            aparte.shutdownNow();
+            cerrarCalendarioEIndice();
+        }
+    }
+
+    @Test
+    void testMismaSalaYFechaCompartenCerrojo() {
+        ServicioReservas servicio = new ServicioReservas(100);
+
+        assertSame(servicio.cerrojo(3, FECHA), servicio.cerrojo(3, FECHA));
+        Set<Object> distintos = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int sala = 0; sala < 64; sala++) {
+            distintos.add(servicio.cerrojo(sala, FECHA));
+        }
+        assertTrue(distintos.size() > 32, "Las salas deben repartirse entre franjas");
+    }
+
+    @Test
+    void testCerrojosDeUnaSerieIncluyenCadaOcurrenciaSinRepetir() {
+        ServicioReservas servicio = new ServicioReservas(16);
+        SerieReservas serie = new SerieReservas(0, 3, 1, SerieReservas.Frecuencia.DIARIA, FECHA, null, 60,
+                LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+        List<Lock> cerrojos = servicio.cerrojos(serie);
+        Set<Object> distintos = Collections.newSetFromMap(new IdentityHashMap<>());
+        distintos.addAll(cerrojos);
+        assertEquals(cerrojos.size(), distintos.size(), "Cada franja debe bloquearse una sola vez");
+        serie.fechas().forEach(fecha -> assertTrue(distintos.contains(servicio.cerrojo(3, fecha))));
+        assertTrue(cerrojos.size() <= 16);
+    }
+
+    /**
+     * Abre el calendario compartido en un directorio temporal y carga el índice compartido vacío, como
+     * al arrancar la aplicación con MySQL.
+     */
+    private static void abrirCalendarioEIndice(Path directorio) throws Exception {
+        Connection vacia = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        when(vacia.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+        IndiceDisponibilidad.getInstancia().cargar(vacia);
+        CalendarioSalas.getInstancia().abrir(directorio.resolve("calendario.dat"), 5, 30, 16);
+    }
+
+    private static void cerrarCalendarioEIndice() {
+        CalendarioSalas.getInstancia().cerrar();
+        IndiceDisponibilidad.getInstancia().invalidar();
+    }
+
+    @FunctionalInterface
+    private interface Tarea {
+        void ejecutar(int hilo, Connection conn) throws Exception;
+    }
+
+    /**
+     * Lanza los hilos a la vez, cada uno con una conexión del pool, y espera a que terminen.
+     */
+    private static void ejecutarEnParalelo(int hilos, BaseDatosSimulada bd, Tarea tarea) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try (PoolConexiones pool = new PoolConexiones(bd::conectar, hilos, Duration.ofSeconds(5), Duration.ofMinutes(1))) {
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                futuros.add(ejecutor.submit(() -> {
+                    salida.await();
+                    try (Connection conn = pool.obtenerConexion()) {
+                        tarea.ejecutar(hilo, conn);
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.empresa.salas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para {@link CacheSalas}.
+ * La carga y las consultas de respaldo se simulan con Mockito.
+ */
+class CacheSalasTest {
+
+    private Connection conn;
+    private PreparedStatement pstmt;
+    private ResultSet rsBusqueda;
+    private CacheSalas cache;
+
+    /**
+     * Prepara una caché con dos salas cargadas: "Sala A" (id 1) y "Sala B" (id 2).
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        ResultSet rsCarga = mock(ResultSet.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(anyString())).thenReturn(rsCarga);
+        when(rsCarga.next()).thenReturn(true, true, false);
+        when(rsCarga.getInt("id")).thenReturn(1, 2);
+        when(rsCarga.getString("nombre")).thenReturn("Sala A", "Sala B");
+        when(rsCarga.getInt("capacidad")).thenReturn(10, 20);
+        when(rsCarga.getString("recursos")).thenReturn("Proyector", "Pizarra");
+
+        pstmt = mock(PreparedStatement.class);
+        rsBusqueda = mock(ResultSet.class);
+        when(conn.prepareStatement(anyString())).thenReturn(pstmt);
+        when(pstmt.executeQuery()).thenReturn(rsBusqueda);
+
+        cache = new CacheSalas();
+        cache.cargar(conn);
+    }
+
+    @Test
+    void testAciertoNoConsultaBaseDeDatos() throws SQLException {
+        Sala sala = cache.buscarPorNombre(conn, "Sala B");
+
+        assertEquals(new Sala(2, "Sala B", 20, "Pizarra"), sala);
+        verify(conn, never()).prepareStatement(anyString());
+        assertEquals(1, cache.getEstadisticas().aciertos());
+        assertEquals(0, cache.getEstadisticas().fallos());
+    }
+
+    @Test
+    void testFalloConsultaYAnadeSala() throws SQLException {
+        when(rsBusqueda.next()).thenReturn(true);
+        when(rsBusqueda.getInt("id")).thenReturn(3);
+        when(rsBusqueda.getString("nombre")).thenReturn("Sala C");
+        when(rsBusqueda.getInt("capacidad")).thenReturn(15);
+
+        assertEquals(3, cache.buscarPorNombre(conn, "Sala C").id());
+        assertEquals(3, cache.buscarPorNombre(conn, "Sala C").id());
+
+        verify(pstmt, times(1)).executeQuery();
+        assertEquals(1, cache.getEstadisticas().fallos());
+        assertEquals(1, cache.getEstadisticas().aciertos());
+        assertEquals(0.5, cache.getEstadisticas().tasaAciertos());
+    }
+
+    @Test
+    void testSalaInexistente() throws SQLException {
+        when(rsBusqueda.next()).thenReturn(false);
+
+        assertNull(cache.buscarPorNombre(conn, "Sala Z"));
+        assertEquals(2, cache.getEstadisticas().tamano());
+    }
+
+    @Test
+    void testRenombrarYEliminarActualizanIndices() throws SQLException {
+        when(rsBusqueda.next()).thenReturn(false);
+
+        cache.registrar(new Sala(1, "Sala Azul", 12, "Proyector"));
+        assertEquals(12, cache.buscarPorNombre(conn, "Sala Azul").capacidad());
+        // El nombre antiguo ya no está en memoria y la base de datos tampoco lo tiene
+        assertNull(cache.buscarPorNombre(conn, "Sala A"));
+
+        cache.eliminar(2);
+        assertNull(cache.buscarPorId(2));
+        assertEquals(1, cache.todas().size());
+    }
+
+    @Test
+    void testBuscarPorRecursosSigueLosCambiosDeLaCache() {
+        long proyector = CatalogoRecursos.Recurso.PROYECTOR.bit();
+        assertEquals(List.of(new Sala(1, "Sala A", 10, "Proyector")), cache.buscarPorRecursos(proyector, 0));
+
+        cache.registrar(new Sala(2, "Sala B", 20, "Pizarra, Proyector"));
+        assertEquals(List.of(2), cache.buscarPorRecursos(proyector, 12).stream().map(Sala::id).toList());
+
+        cache.eliminar(2);
+        cache.invalidar();
+        assertTrue(cache.buscarPorRecursos(0, 0).isEmpty());
+    }
+
+    @Test
+    void testSinCargarNoGuardaNada() throws SQLException {
+        cache.invalidar();
+        when(rsBusqueda.next()).thenReturn(true);
+        when(rsBusqueda.getInt("id")).thenReturn(1);
+        when(rsBusqueda.getString("nombre")).thenReturn("Sala A");
+
+        cache.buscarPorNombre(conn, "Sala A");
+        cache.buscarPorNombre(conn, "Sala A");
+        cache.registrar(new Sala(9, "Sala X", 5, "Pizarra"));
+
+        verify(pstmt, times(2)).executeQuery();
+        assertEquals(0, cache.getEstadisticas().tamano());
+    }
+}
@@ -0,0 +1,39 @@
+package com.empresa.salas;
+
+import org.junit.jupiter.api.Test;
+
+import static com.empresa.salas.CatalogoRecursos.Recurso.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link CatalogoRecursos} y la máscara de recursos de {@link Sala}.
+ */
+class CatalogoRecursosTest {
+
+    @Test
+    void testNormalizaSinDistinguirMayusculasYEnOrdenDelCatalogo() {
+        assertEquals("Proyector, Pizarra, TV", CatalogoRecursos.normalizar(" pizarra;tv , PROYECTOR, pizarra"));
+        assertEquals(PROYECTOR.bit() | AUDIO.bit(), CatalogoRecursos.validar("Audio, Proyector"));
+        assertEquals(0, CatalogoRecursos.validar("  "));
+        assertEquals("Proyector, Pizarra, Videoconferencia, Audio, TV", CatalogoRecursos.disponibles());
+    }
+
+    @Test
+    void testRechazaRecursosDesconocidos() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CatalogoRecursos.validar("Proyector, Cafetera, Sofá"));
+        assertTrue(e.getMessage().startsWith("Recursos desconocidos: Cafetera, Sofá"));
+    }
+
+    @Test
+    void testLaMascaraDeUnaSalaIgnoraNombresFueraDelCatalogo() {
+        // Datos anteriores al catálogo: se reconocen los recursos conocidos y se conserva el texto
+        Sala sala = new Sala(1, "Sala A", 10, "Proyector, Cafetera, videoconferencia");
+
+        assertEquals(PROYECTOR.bit() | VIDEOCONFERENCIA.bit(), sala.mascaraRecursos());
+        assertTrue(sala.tieneRecursos(VIDEOCONFERENCIA.bit() | PROYECTOR.bit()));
+        assertTrue(sala.tieneRecursos(0));
+        assertFalse(sala.tieneRecursos(PROYECTOR.bit() | PIZARRA.bit()));
+        assertEquals("Proyector, Cafetera, videoconferencia", sala.recursos());
+    }
+}
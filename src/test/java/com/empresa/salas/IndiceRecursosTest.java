@@ -0,0 +1,55 @@
+package com.empresa.salas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.empresa.salas.CatalogoRecursos.Recurso.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para {@link IndiceRecursos}.
+ */
+class IndiceRecursosTest {
+
+    private static final Sala A = new Sala(1, "Sala A", 10, "Proyector, Pizarra");
+    private static final Sala B = new Sala(2, "Sala B", 20, "Videoconferencia, Pizarra");
+    private static final Sala C = new Sala(3, "Sala C", 15, "Proyector, Videoconferencia");
+    private static final Sala D = new Sala(4, "Sala D", 25, "Audio, Proyector, Pizarra, Videoconferencia");
+
+    private IndiceRecursos indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceRecursos();
+        List.of(A, B, C, D).forEach(indice::registrar);
+    }
+
+    @Test
+    void testCombinaRecursosYCapacidad() {
+        long proyectorYVideo = PROYECTOR.bit() | VIDEOCONFERENCIA.bit();
+
+        assertEquals(List.of(C, D), indice.buscar(proyectorYVideo, 12));
+        assertEquals(List.of(D), indice.buscar(proyectorYVideo, 16));
+        assertEquals(List.of(A, B, C, D), indice.buscar(0, 0));
+        assertEquals(List.of(B, D), indice.buscar(0, 20));
+        assertTrue(indice.buscar(TV.bit(), 0).isEmpty());
+    }
+
+    @Test
+    void testActualizarYEliminarMantienenElIndice() {
+        // La sala C pierde el proyector y gana TV
+        indice.registrar(new Sala(3, "Sala C", 15, "Videoconferencia, TV"));
+        assertEquals(List.of(D), indice.buscar(PROYECTOR.bit() | VIDEOCONFERENCIA.bit(), 0));
+        assertEquals(3, indice.buscar(TV.bit(), 0).get(0).id());
+
+        indice.eliminar(4);
+        indice.eliminar(99);
+        assertTrue(indice.buscar(PROYECTOR.bit() | VIDEOCONFERENCIA.bit(), 0).isEmpty());
+        assertEquals(3, indice.tamano());
+
+        indice.vaciar();
+        assertTrue(indice.buscar(0, 0).isEmpty());
+    }
+}
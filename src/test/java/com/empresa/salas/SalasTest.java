@@ -1,5 +1,6 @@
 package com.empresa.salas;
 
+import com.empresa.almacen.AlmacenJdbc;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -60,7 +61,7 @@ class SalasTest {
                 .thenReturn("Proyector, TV");
         when(pstmt.executeUpdate()).thenReturn(1);
 
-        Salas.crearSala(conn, scanner);
+        Salas.crearSala(AlmacenJdbc.sesion(conn), scanner);
 
         ArgumentCaptor<String> stringCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Integer> intCaptor = ArgumentCaptor.forClass(Integer.class);
@@ -92,7 +93,7 @@ class SalasTest {
         when(rs.getInt("capacidad")).thenReturn(10);
         when(rs.getString("recursos")).thenReturn("Proyector");
 
-        Salas.listarSalas(conn);
+        Salas.listarSalas(AlmacenJdbc.sesion(conn));
 
         verify(rs, atLeastOnce()).next();
         verify(rs).getString("nombre");